@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Checks that operations that do not allocate continue not to allocate.
+ * <p>
+ * This runs the allocation benchmarks with the JMH GC profiler and compares the
+ * bytes allocated per operation against a file listing the allocation-free operations.
+ * Each line of the file is of the form {@code benchmark:impl}, such as {@code getHit:DenseGrid}.
+ * Blank lines and lines starting with '#' are ignored.
+ * <p>
+ * The process exits with status 1 if a listed operation allocates.
+ * Operations that have become allocation-free are reported, but do not fail the check.
+ * Passing {@code --record} as the second argument rewrites the file from the measurements instead.
+ */
+public final class AllocationGate {
+
+    /**
+     * The bytes per operation below which an operation is considered allocation-free.
+     * This allows for measurement noise, such as allocation by the profiler itself.
+     */
+    private static final double THRESHOLD = 1d;
+    /**
+     * The benchmarks to run.
+     */
+    private static final String INCLUDE =
+            GridAllocationBenchmark.class.getSimpleName() + "|" + GridMutationAllocationBenchmark.class.getSimpleName();
+
+    /**
+     * Restricted constructor.
+     */
+    private AllocationGate() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Runs the check.
+     * 
+     * @param args  the path of the file of allocation-free operations, optionally followed by {@code --record}
+     * @throws IOException if the file cannot be read or written
+     * @throws RunnerException if the benchmarks fail
+     */
+    public static void main(String[] args) throws IOException, RunnerException {
+        if (args.length == 0) {
+            System.err.println("Usage: AllocationGate <file> [--record]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        boolean record = args.length > 1 && args[1].equals("--record");
+        Map<String, Double> measured = measure();
+        Set<String> measuredFree = new TreeSet<>();
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            if (entry.getValue() < THRESHOLD) {
+                measuredFree.add(entry.getKey());
+            }
+        }
+        if (record) {
+            List<String> lines = new ArrayList<>();
+            lines.add("# Operations that must not allocate, checked by AllocationGate");
+            lines.addAll(measuredFree);
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            System.out.println("Recorded " + measuredFree.size() + " allocation-free operations to " + file);
+            return;
+        }
+        Set<String> expectedFree = read(file);
+        List<String> failures = new ArrayList<>();
+        for (String key : expectedFree) {
+            Double bytes = measured.get(key);
+            if (bytes == null) {
+                failures.add(key + " was not measured");
+            } else if (bytes >= THRESHOLD) {
+                failures.add(key + " now allocates " + String.format("%.1f", bytes) + " bytes/op");
+            }
+        }
+        for (String key : measuredFree) {
+            if (!expectedFree.contains(key)) {
+                System.out.println("Now allocation-free, consider adding to " + file + ": " + key);
+            }
+        }
+        if (!failures.isEmpty()) {
+            System.err.println("Allocation regressions:");
+            for (String failure : failures) {
+                System.err.println("  " + failure);
+            }
+            System.exit(1);
+        }
+        System.out.println("No allocation regressions in " + expectedFree.size() + " operations");
+    }
+
+    // runs the benchmarks, returning the bytes per operation keyed by benchmark and impl
+    private static Map<String, Double> measure() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(INCLUDE)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        Map<String, Double> measured = new TreeMap<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String benchmark = params.getBenchmark();
+            String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            String key = name + ":" + params.getParam("impl");
+            for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+                if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                    measured.put(key, entry.getValue().getScore());
+                }
+            }
+        }
+        return measured;
+    }
+
+    // reads the file of allocation-free operations
+    private static Set<String> read(Path file) throws IOException {
+        Set<String> keys = new TreeSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                keys.add(trimmed);
+            }
+        }
+        return keys;
+    }
+
+}
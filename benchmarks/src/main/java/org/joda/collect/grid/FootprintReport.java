@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * Reports the memory used per cell against the density of each grid implementation.
+ * <p>
+ * The output is CSV, suitable for charting, with one line per implementation and density.
+ * Each line contains the estimate from {@link GridFootprint} and the size measured by JOL.
+ * Both exclude the values themselves, and are taken after {@code cells()} and {@code values()}
+ * have been called, so that any cached views are included.
+ * <p>
+ * The first argument is the number of rows and columns, defaulting to 500.
+ * JOL may need {@code -Djdk.attach.allowAttachSelf=true} to measure accurately.
+ */
+public final class FootprintReport {
+
+    /**
+     * The implementations to report on.
+     */
+    private static final String[] IMPLS = {"DenseGrid", "SparseGrid", "DenseImmutableGrid", "SparseImmutableGrid"};
+    /**
+     * The densities to report on.
+     */
+    private static final double[] DENSITIES = {0.001, 0.005, 0.01, 0.02, 0.05, 0.1, 0.2, 0.3, 0.5, 0.75, 1.0};
+
+    /**
+     * Restricted constructor.
+     */
+    private FootprintReport() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Runs the report.
+     * 
+     * @param args  the optional number of rows and columns
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        System.out.println("impl,density,cells,estimatedBytes,estimatedBytesPerCell,measuredBytes,measuredBytesPerCell");
+        for (String impl : IMPLS) {
+            for (double density : DENSITIES) {
+                Grid<Integer> grid = GridFixtures.create(impl, size, density);
+                grid.cells().size();
+                grid.values().size();
+                GridFootprint footprint = GridFootprint.of(grid);
+                long measured = measure(grid);
+                int cells = Math.max(grid.size(), 1);
+                System.out.println(String.format("%s,%s,%d,%d,%.1f,%d,%.1f",
+                        impl, density, grid.size(),
+                        footprint.getTotalBytes(), footprint.getBytesPerCell(),
+                        measured, ((double) measured) / cells));
+            }
+        }
+    }
+
+    // measures the grid using JOL, excluding the values
+    // the sizes are subtracted, as a layout subtract is broken by objects moving during GC
+    private static long measure(Grid<Integer> grid) {
+        Set<Integer> values = Collections.newSetFromMap(new IdentityHashMap<>());
+        values.addAll(grid.values());
+        long valuesSize = 0;
+        for (Integer value : values) {
+            valuesSize += VM.current().sizeOf(value);
+        }
+        return GraphLayout.parseInstance(grid).totalSize() - valuesSize;
+    }
+
+}
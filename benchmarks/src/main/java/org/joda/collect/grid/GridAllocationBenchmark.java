@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the allocation of the read operations of every grid implementation.
+ * <p>
+ * These benchmarks are intended to be run with the JMH GC profiler, {@code -prof gc},
+ * which reports the bytes allocated per operation as {@code gc.alloc.rate.norm}.
+ * Each benchmark performs a single call to a {@code Grid} method, consuming the result.
+ * See {@link AllocationGate} for the regression check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GridAllocationBenchmark {
+
+    /**
+     * The grid implementation.
+     */
+    @Param({"DenseGrid", "SparseGrid", "DenseImmutableGrid", "SparseImmutableGrid", "SingletonGrid", "EmptyGrid"})
+    public String impl;
+    /**
+     * The number of rows and columns.
+     */
+    @Param({"32"})
+    public int size;
+    /**
+     * The fraction of cells that are filled.
+     */
+    @Param({"0.5"})
+    public double density;
+
+    private Grid<Integer> grid;
+    private Grid<Integer> other;
+    private Integer value;
+    private int hitRow;
+    private int hitColumn;
+    private int missRow;
+    private int missColumn;
+
+    /**
+     * Sets up the grid.
+     */
+    @Setup
+    public void setup() {
+        grid = GridFixtures.create(impl, size, density);
+        other = GridFixtures.create(impl, size, density);
+        Iterator<Cell<Integer>> it = grid.cells().iterator();
+        if (it.hasNext()) {
+            Cell<Integer> cell = it.next();
+            hitRow = cell.getRow();
+            hitColumn = cell.getColumn();
+            value = cell.getValue();
+        } else {
+            value = -1;
+        }
+        for (int i = 0; i < size * size; i++) {
+            if (!grid.contains(i / size, i % size)) {
+                missRow = i / size;
+                missColumn = i % size;
+                break;
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Benchmark
+    public int rowCount() {
+        return grid.rowCount();
+    }
+
+    @Benchmark
+    public int columnCount() {
+        return grid.columnCount();
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return grid.exists(hitRow, hitColumn);
+    }
+
+    @Benchmark
+    public boolean isFull() {
+        return grid.isFull();
+    }
+
+    @Benchmark
+    public boolean isEmpty() {
+        return grid.isEmpty();
+    }
+
+    @Benchmark
+    public int size() {
+        return grid.size();
+    }
+
+    @Benchmark
+    public boolean containsHit() {
+        return grid.contains(hitRow, hitColumn);
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return grid.contains(missRow, missColumn);
+    }
+
+    @Benchmark
+    public boolean containsValue() {
+        return grid.containsValue(value);
+    }
+
+    @Benchmark
+    public Integer getHit() {
+        return grid.get(hitRow, hitColumn);
+    }
+
+    @Benchmark
+    public Integer getMiss() {
+        return grid.get(missRow, missColumn);
+    }
+
+    @Benchmark
+    public Cell<Integer> cellHit() {
+        return grid.cell(hitRow, hitColumn);
+    }
+
+    @Benchmark
+    public Cell<Integer> cellMiss() {
+        return grid.cell(missRow, missColumn);
+    }
+
+    //-----------------------------------------------------------------------
+    @Benchmark
+    public boolean equalsGrid() {
+        return grid.equals(other);
+    }
+
+    @Benchmark
+    public int hashCodeGrid() {
+        return grid.hashCode();
+    }
+
+    @Benchmark
+    public String toStringGrid() {
+        return grid.toString();
+    }
+
+    //-----------------------------------------------------------------------
+    @Benchmark
+    public void cells(Blackhole bh) {
+        for (Cell<Integer> cell : grid.cells()) {
+            bh.consume(cell.getValue());
+        }
+    }
+
+    @Benchmark
+    public void forEachCell(Blackhole bh) {
+        grid.forEachCell((row, column, value) -> bh.consume(value));
+    }
+
+    @Benchmark
+    public void values(Blackhole bh) {
+        for (Integer value : grid.values()) {
+            bh.consume(value);
+        }
+    }
+
+    @Benchmark
+    public Integer row() {
+        return grid.row(hitRow).get(hitColumn);
+    }
+
+    @Benchmark
+    public Integer rows() {
+        return grid.rows().get(hitRow).get(hitColumn);
+    }
+
+    @Benchmark
+    public Integer column() {
+        return grid.column(hitColumn).get(hitRow);
+    }
+
+    @Benchmark
+    public Integer columns() {
+        return grid.columns().get(hitColumn).get(hitRow);
+    }
+
+}
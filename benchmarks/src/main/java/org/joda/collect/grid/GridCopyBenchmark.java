@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@code ImmutableGrid.copyOf} and the mutable copy factories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridCopyBenchmark {
+
+    /**
+     * The source grid implementation.
+     */
+    @Param({"DenseGrid", "SparseGrid", "DenseImmutableGrid", "SparseImmutableGrid"})
+    public String impl;
+    /**
+     * The number of rows and columns.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+    /**
+     * The fraction of cells that are filled.
+     */
+    @Param({"0.01", "0.1", "0.5", "1.0"})
+    public double density;
+
+    private Grid<Integer> grid;
+
+    /**
+     * Sets up the grid.
+     */
+    @Setup
+    public void setup() {
+        grid = GridFixtures.create(impl, size, density);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Benchmarks {@code ImmutableGrid.copyOf(Grid)}.
+     * <p>
+     * An immutable source is returned as is, so only mutable sources do real work.
+     * 
+     * @return the copy
+     */
+    @Benchmark
+    public ImmutableGrid<Integer> immutableCopyOf() {
+        return ImmutableGrid.copyOf(grid);
+    }
+
+    /**
+     * Benchmarks {@code DenseGrid.create(Grid)}.
+     * 
+     * @return the copy
+     */
+    @Benchmark
+    public DenseGrid<Integer> denseGridCreate() {
+        return DenseGrid.create(grid);
+    }
+
+    /**
+     * Benchmarks {@code SparseGrid.create(Grid)}.
+     * 
+     * @return the copy
+     */
+    @Benchmark
+    public SparseGrid<Integer> sparseGridCreate() {
+        return SparseGrid.create(grid);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Random;
+
+/**
+ * Creates the grids used by the benchmarks.
+ * <p>
+ * The benchmarks live in the same package as the grids so that each implementation
+ * can be created directly, rather than relying on the choices made by the factories.
+ */
+final class GridFixtures {
+
+    /**
+     * The seed used to fill the grids, so that runs are comparable.
+     */
+    static final long SEED = 20140101L;
+    /**
+     * The number of lookup positions, a power of two.
+     */
+    static final int LOOKUPS = 1024;
+
+    /**
+     * Restricted constructor.
+     */
+    private GridFixtures() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a grid of the named implementation.
+     * <p>
+     * The grid is square, and filled with random cells up to the specified density.
+     * {@code SingletonGrid} always holds one cell and {@code EmptyGrid} always holds none.
+     * 
+     * @param impl  the simple name of the implementation class
+     * @param size  the number of rows and columns
+     * @param density  the fraction of cells to fill, from 0 to 1
+     * @return the grid, not null
+     */
+    static Grid<Integer> create(String impl, int size, double density) {
+        switch (impl) {
+            case "DenseGrid":
+                return fill(DenseGrid.<Integer>create(size, size), density);
+            case "SparseGrid":
+                return fill(SparseGrid.<Integer>create(size, size), density);
+            case "DenseImmutableGrid":
+                return DenseImmutableGrid.create(fill(SparseGrid.<Integer>create(size, size), density));
+            case "SparseImmutableGrid":
+                return new SparseImmutableGrid<Integer>(fill(SparseGrid.<Integer>create(size, size), density));
+            case "SingletonGrid":
+                return new SingletonGrid<Integer>(size, size, size / 2, size / 2, 1);
+            case "EmptyGrid":
+                return new EmptyGrid<Integer>(size, size);
+            default:
+                throw new IllegalArgumentException("Unknown grid implementation: " + impl);
+        }
+    }
+
+    /**
+     * Fills the grid with random cells up to the specified density.
+     * 
+     * @param <G> the type of the grid
+     * @param grid  the grid to fill, not null
+     * @param density  the fraction of cells to fill, from 0 to 1
+     * @return the input grid, not null
+     */
+    static <G extends Grid<Integer>> G fill(G grid, double density) {
+        Random random = new Random(SEED);
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                if (random.nextDouble() < density) {
+                    grid.put(row, column, row * columnCount + column);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Creates random indices for lookups.
+     * 
+     * @param bound  the exclusive upper bound of the indices
+     * @param salt  the value to add to the seed, so rows and columns differ
+     * @return the indices, not null
+     */
+    static int[] indices(int bound, int salt) {
+        Random random = new Random(SEED + salt);
+        int[] indices = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            indices[i] = random.nextInt(bound);
+        }
+        return indices;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the allocation of the write operations of the mutable grid implementations.
+ * <p>
+ * These benchmarks are intended to be run with the JMH GC profiler, {@code -prof gc}.
+ * Each benchmark leaves the grid with the same set of cells it started with.
+ * See {@link AllocationGate} for the regression check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GridMutationAllocationBenchmark {
+
+    /**
+     * The grid implementation.
+     */
+    @Param({"DenseGrid", "SparseGrid"})
+    public String impl;
+    /**
+     * The number of rows and columns.
+     */
+    @Param({"32"})
+    public int size;
+    /**
+     * The fraction of cells that are filled.
+     */
+    @Param({"0.5"})
+    public double density;
+
+    private Grid<Integer> grid;
+    private Grid<Integer> other;
+    private Integer value;
+    private int hitRow;
+    private int hitColumn;
+    private int missRow;
+    private int missColumn;
+
+    /**
+     * Sets up the grid.
+     */
+    @Setup
+    public void setup() {
+        grid = GridFixtures.create(impl, size, density);
+        other = GridFixtures.create(impl, size, density);
+        Iterator<Cell<Integer>> it = grid.cells().iterator();
+        Cell<Integer> cell = it.next();
+        hitRow = cell.getRow();
+        hitColumn = cell.getColumn();
+        value = cell.getValue();
+        for (int i = 0; i < size * size; i++) {
+            if (!grid.contains(i / size, i % size)) {
+                missRow = i / size;
+                missColumn = i % size;
+                break;
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Benchmark
+    public void putExisting() {
+        grid.put(hitRow, hitColumn, value);
+    }
+
+    @Benchmark
+    public boolean putAbsentRemove() {
+        grid.put(missRow, missColumn, value);
+        return grid.remove(missRow, missColumn);
+    }
+
+    @Benchmark
+    public boolean removeMiss() {
+        return grid.remove(missRow, missColumn);
+    }
+
+    @Benchmark
+    public void putAll() {
+        grid.putAll(other);
+    }
+
+    @Benchmark
+    public void clearPutAll() {
+        grid.clear();
+        grid.putAll(other);
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the read operations of every grid implementation.
+ * <p>
+ * Point lookups are measured per lookup, using a fixed set of random positions.
+ * Iteration is measured per pass over the whole grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridReadBenchmark {
+
+    /**
+     * The grid implementation.
+     */
+    @Param({"DenseGrid", "SparseGrid", "DenseImmutableGrid", "SparseImmutableGrid", "SingletonGrid", "EmptyGrid"})
+    public String impl;
+    /**
+     * The number of rows and columns.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+    /**
+     * The fraction of cells that are filled.
+     */
+    @Param({"0.01", "0.1", "0.5", "1.0"})
+    public double density;
+
+    private Grid<Integer> grid;
+    private int[] rows;
+    private int[] columns;
+
+    /**
+     * Sets up the grid.
+     */
+    @Setup
+    public void setup() {
+        grid = GridFixtures.create(impl, size, density);
+        rows = GridFixtures.indices(size, 1);
+        columns = GridFixtures.indices(size, 2);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Benchmarks {@code get}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    @OperationsPerInvocation(GridFixtures.LOOKUPS)
+    public void get(Blackhole bh) {
+        Grid<Integer> grid = this.grid;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            bh.consume(grid.get(rows[i], columns[i]));
+        }
+    }
+
+    /**
+     * Benchmarks {@code contains}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    @OperationsPerInvocation(GridFixtures.LOOKUPS)
+    public void contains(Blackhole bh) {
+        Grid<Integer> grid = this.grid;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            bh.consume(grid.contains(rows[i], columns[i]));
+        }
+    }
+
+    /**
+     * Benchmarks {@code cell}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    @OperationsPerInvocation(GridFixtures.LOOKUPS)
+    public void cell(Blackhole bh) {
+        Grid<Integer> grid = this.grid;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            bh.consume(grid.cell(rows[i], columns[i]));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Benchmarks a full iteration of {@code cells()}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    public void cells(Blackhole bh) {
+        for (Cell<Integer> cell : grid.cells()) {
+            bh.consume(cell.getRow());
+            bh.consume(cell.getColumn());
+            bh.consume(cell.getValue());
+        }
+    }
+
+    /**
+     * Benchmarks a full iteration using {@code forEachCell}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    public void forEachCell(Blackhole bh) {
+        grid.forEachCell((row, column, value) -> {
+            bh.consume(row);
+            bh.consume(column);
+            bh.consume(value);
+        });
+    }
+
+    /**
+     * Benchmarks a full iteration of {@code values()}.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    public void values(Blackhole bh) {
+        for (Integer value : grid.values()) {
+            bh.consume(value);
+        }
+    }
+
+    /**
+     * Benchmarks a full iteration of the grid through the {@code row()} views.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    public void rowViews(Blackhole bh) {
+        int rowCount = grid.rowCount();
+        for (int row = 0; row < rowCount; row++) {
+            for (Integer value : grid.row(row)) {
+                bh.consume(value);
+            }
+        }
+    }
+
+    /**
+     * Benchmarks a full iteration of the grid through the {@code column()} views.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    public void columnViews(Blackhole bh) {
+        int columnCount = grid.columnCount();
+        for (int column = 0; column < columnCount; column++) {
+            for (Integer value : grid.column(column)) {
+                bh.consume(value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the write operations of the mutable grid implementations.
+ * <p>
+ * Each benchmark leaves the grid with the same set of cells it started with,
+ * so that the density remains stable across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridWriteBenchmark {
+
+    /**
+     * The grid implementation.
+     */
+    @Param({"DenseGrid", "SparseGrid"})
+    public String impl;
+    /**
+     * The number of rows and columns.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+    /**
+     * The fraction of cells that are filled.
+     */
+    @Param({"0.01", "0.1", "0.5", "1.0"})
+    public double density;
+
+    private Grid<Integer> grid;
+    private int[] rows;
+    private int[] columns;
+    private Integer[] values;
+
+    /**
+     * Sets up the grid.
+     */
+    @Setup
+    public void setup() {
+        grid = GridFixtures.create(impl, size, density);
+        rows = GridFixtures.indices(size, 1);
+        columns = GridFixtures.indices(size, 2);
+        values = new Integer[GridFixtures.LOOKUPS];
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            values[i] = grid.get(rows[i], columns[i]);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Benchmarks {@code put} over an existing or absent cell, restoring the original state.
+     * <p>
+     * The cost is that of a put followed by a remove or a put of the old value.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GridFixtures.LOOKUPS)
+    public void putRestore() {
+        Grid<Integer> grid = this.grid;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        Integer[] values = this.values;
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            grid.put(rows[i], columns[i], i);
+        }
+        for (int i = GridFixtures.LOOKUPS - 1; i >= 0; i--) {
+            if (values[i] == null) {
+                grid.remove(rows[i], columns[i]);
+            } else {
+                grid.put(rows[i], columns[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Benchmarks {@code remove}, restoring the original state.
+     * <p>
+     * The cost is that of a remove followed by a put of the old value, if any.
+     * 
+     * @param bh  the black hole
+     */
+    @Benchmark
+    @OperationsPerInvocation(GridFixtures.LOOKUPS)
+    public void removeRestore(Blackhole bh) {
+        Grid<Integer> grid = this.grid;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        Integer[] values = this.values;
+        for (int i = 0; i < GridFixtures.LOOKUPS; i++) {
+            bh.consume(grid.remove(rows[i], columns[i]));
+        }
+        for (int i = GridFixtures.LOOKUPS - 1; i >= 0; i--) {
+            if (values[i] != null) {
+                grid.put(rows[i], columns[i], values[i]);
+            }
+        }
+    }
+
+}
@@ -24,7 +24,14 @@ module org.joda.collect {
     // the 'transitive' will be added if Guava becomes a fully defined module
     requires com.google.common;
 
+    // optional dependency on JFR for the events recorded by bulk operations
+    // the events are not recorded if the module is not present at runtime
+    requires static jdk.jfr;
+
     // export all packages
     exports org.joda.collect.grid;
 
+    // the strategy used to choose the layout of immutable grids can be replaced
+    uses org.joda.collect.grid.GridLayoutStrategy;
+
 }
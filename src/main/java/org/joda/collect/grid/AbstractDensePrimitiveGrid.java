@@ -0,0 +1,411 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Abstract implementation of a primitive grid holding a value for every row-column.
+ * <p>
+ * This holds the bounds and the occupancy bitmap shared by the primitive dense grids,
+ * leaving the storage of the values to the subclass.
+ * The values are held in row-major order, as per {@link DenseGrid}.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+abstract class AbstractDensePrimitiveGrid<V> extends AbstractGrid<V> implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private int size;
+    /**
+     * The occupied row-columns.
+     */
+    private final long[] occupied;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    AbstractDensePrimitiveGrid(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.occupied = new long[Bitmaps.wordCount(rowCount * columnCount)];
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    AbstractDensePrimitiveGrid(int rowCount, int columnCount, int size, long[] occupied) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.occupied = occupied;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the value at an index, which must be occupied.
+     * 
+     * @param index  the row-major index
+     * @return the boxed value, not null
+     */
+    abstract V valueAt(int index);
+
+    /**
+     * Sets the value at an index, without changing the occupancy.
+     * 
+     * @param index  the row-major index
+     * @param value  the value, not null
+     */
+    abstract void setValue(int index, V value);
+
+    /**
+     * Resets the value at an index to zero, without changing the occupancy.
+     * 
+     * @param index  the row-major index
+     */
+    abstract void clearValue(int index);
+
+    /**
+     * Resets all the values to zero, called before the occupancy is cleared.
+     */
+    abstract void clearValues();
+
+    /**
+     * Gets the hash code of the value at an index, which must be occupied.
+     * 
+     * @param index  the row-major index
+     * @return the hash code, matching that of the boxed value
+     */
+    abstract int valueHash(int index);
+
+    /**
+     * Checks if the values of another grid of the same class are equal.
+     * 
+     * @param other  the other grid, with the same counts and occupancy, not null
+     * @return true if the values are equal
+     */
+    abstract boolean valuesEqual(AbstractDensePrimitiveGrid<?> other);
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(occupied, row * columnCount + column);
+        }
+        return false;
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (contains(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        if (contains(row, column)) {
+            return ImmutableCell.of(row, column, valueAt(row * columnCount + column));
+        }
+        return null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final AbstractDensePrimitiveGrid<V> grid;
+
+        Cells(AbstractDensePrimitiveGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int current = -1;
+                private int next = Bitmaps.nextSetBit(grid.occupied, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current = next;
+                    next = Bitmaps.nextSetBit(grid.occupied, current + 1);
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.valueAt(current));
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    if (!Bitmaps.get(grid.occupied, current)) {
+                        throw new IllegalStateException("Unable to remove, element has been removed");
+                    }
+                    grid.removeIndex(current);
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            int oldSize = grid.size;
+            grid.put(cell.getRow(), cell.getColumn(), cell.getValue());
+            return grid.size > oldSize;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            action.accept(i / columnCount, i % columnCount, valueAt(i));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<V> values() {
+        ImmutableList.Builder<V> builder = ImmutableList.builderWithExpectedSize(size);
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            builder.add(valueAt(i));
+        }
+        return builder.build();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        clearValues();
+        Arrays.fill(occupied, 0);
+        size = 0;
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        int index = checkedIndex(row, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        setValue(index, value);
+        occupy(index);
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        if (contains(row, column)) {
+            removeIndex(row * columnCount + column);
+            return true;
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the row-major index of a row-column, which must exist.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return the index
+     * @throws IndexOutOfBoundsException if the row-column does not exist
+     */
+    int checkedIndex(int row, int column) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        return row * columnCount + column;
+    }
+
+    /**
+     * Marks an index as occupied, once its value has been set.
+     * 
+     * @param index  the row-major index
+     */
+    void occupy(int index) {
+        if (Bitmaps.set(occupied, index)) {
+            size++;
+        }
+    }
+
+    /**
+     * Marks a range of indices as occupied, once their values have been set.
+     * 
+     * @param index  the first row-major index
+     * @param length  the number of indices
+     */
+    void occupy(int index, int length) {
+        for (int i = index; i < index + length; i++) {
+            occupy(i);
+        }
+    }
+
+    /**
+     * Gets the next occupied index.
+     * 
+     * @param index  the row-major index to search from
+     * @return the next occupied index, negative if none
+     */
+    int nextOccupied(int index) {
+        return Bitmaps.nextSetBit(occupied, index);
+    }
+
+    /**
+     * Returns a clone of the internal occupancy bitmap.
+     * 
+     * @return the array, not null
+     */
+    long[] occupiedArray() {
+        return occupied.clone();
+    }
+
+    /**
+     * Removes an occupied index.
+     * 
+     * @param index  the row-major index
+     */
+    void removeIndex(int index) {
+        clearValue(index);
+        Bitmaps.clear(occupied, index);
+        size--;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj != null && obj.getClass() == getClass()) {
+            AbstractDensePrimitiveGrid<?> other = (AbstractDensePrimitiveGrid<?>) obj;
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = rowCount == other.rowCount &&
+                    columnCount == other.columnCount &&
+                    Arrays.equals(occupied, other.occupied) &&
+                    valuesEqual(other);
+            event.end("equals", this);
+            return equal;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            int row = i / columnCount;
+            int column = i % columnCount;
+            hash += (row ^ Integer.rotateLeft(column, 16) ^ valueHash(i));
+        }
+        hash ^= rowCount ^ Integer.rotateLeft(columnCount, 16);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+}
@@ -209,6 +209,19 @@ abstract class AbstractGrid<V> implements Grid<V> {
         }
     }
 
+    //-----------------------------------------------------------------------
+    /**
+     * Adds an estimate of the memory retained by this grid, excluding the values.
+     * <p>
+     * This implementation assumes the grid holds one {@code ImmutableCell} per cell.
+     * 
+     * @param builder  the builder to add to, not null
+     */
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(0));
+        builder.add("cells", size() * GridFootprint.IMMUTABLE_CELL);
+    }
+
     //-----------------------------------------------------------------------
     Cell<V> finder(int row, int column) {
         @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -224,16 +237,22 @@ abstract class AbstractGrid<V> implements Grid<V> {
         }
         if (obj instanceof Grid) {
             Grid<?> other = (Grid<?>) obj;
-            return rowCount() == other.rowCount() &&
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = rowCount() == other.rowCount() &&
                     columnCount() == other.columnCount() &&
                     cells().equals(other.cells());
+            event.end("equals", this);
+            return equal;
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return rowCount() ^ Integer.rotateLeft(columnCount(), 16) ^ cells().hashCode();
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = rowCount() ^ Integer.rotateLeft(columnCount(), 16) ^ cells().hashCode();
+        event.end("hashCode", this);
+        return hash;
     }
 
     @Override
@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Abstract implementation of a primitive grid holding eight-byte values in direct buffers.
+ * <p>
+ * This holds the chunked direct buffers and the bulk copy bounds shared by the off-heap primitive grids.
+ * Each value is held in row-major order at a fixed offset in a chunk of at most 1Gb.
+ * The grid is not serializable.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+abstract class AbstractOffHeapPrimitiveGrid<V> extends AbstractDensePrimitiveGrid<V> {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The default number of bits of the index used to find the position in a chunk.
+     */
+    static final int CHUNK_SHIFT = 27;
+    /**
+     * The number of bytes in each value.
+     */
+    private static final int VALUE_BYTES = 8;
+
+    /**
+     * The number of bits of the index used to find the position in a chunk.
+     */
+    private final int chunkShift;
+    /**
+     * The chunks of values, zero where not occupied.
+     */
+    private final transient ByteBuffer[] chunks;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Validates that the grid is small enough to be indexed by an {@code int}.
+     * 
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @throws IllegalArgumentException if the grid would have more than {@code Integer.MAX_VALUE} row-columns
+     */
+    static void validateCapacity(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        if ((long) rowCount * columnCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Grid must not have more than " + Integer.MAX_VALUE + " row-columns: " +
+                    rowCount + "x" + columnCount);
+        }
+    }
+
+    /**
+     * Restricted constructor, the capacity having been validated.
+     */
+    AbstractOffHeapPrimitiveGrid(int rowCount, int columnCount, int chunkShift) {
+        super(rowCount, columnCount);
+        int capacity = rowCount * columnCount;
+        int chunkSize = 1 << chunkShift;
+        int chunkCount = (int) (((long) capacity + chunkSize - 1) >>> chunkShift);
+        this.chunkShift = chunkShift;
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int cells = Math.min(chunkSize, capacity - (i << chunkShift));
+            chunks[i] = ByteBuffer.allocateDirect(cells * VALUE_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the bits of the value at an index, as used by the boxed {@code hashCode}.
+     * 
+     * @param index  the row-major index
+     * @return the bits of the value
+     */
+    abstract long bitsAt(int index);
+
+    /**
+     * Gets the chunk holding an index.
+     * 
+     * @param index  the row-major index
+     * @return the chunk, not null
+     */
+    ByteBuffer chunk(int index) {
+        return chunks[index >>> chunkShift];
+    }
+
+    /**
+     * Gets the byte offset of an index within its chunk.
+     * 
+     * @param index  the row-major index
+     * @return the byte offset
+     */
+    int offset(int index) {
+        return (index & ((1 << chunkShift) - 1)) * VALUE_BYTES;
+    }
+
+    @Override
+    void clearValue(int index) {
+        chunk(index).putLong(offset(index), 0);
+    }
+
+    @Override
+    void clearValues() {
+        // only occupied values are non-zero
+        for (int i = nextOccupied(0); i >= 0; i = nextOccupied(i + 1)) {
+            clearValue(i);
+        }
+    }
+
+    @Override
+    int valueHash(int index) {
+        return Long.hashCode(bitsAt(index));
+    }
+
+    @Override
+    boolean valuesEqual(AbstractDensePrimitiveGrid<?> other) {
+        AbstractOffHeapPrimitiveGrid<?> otherGrid = (AbstractOffHeapPrimitiveGrid<?>) other;
+        for (int i = nextOccupied(0); i >= 0; i = nextOccupied(i + 1)) {
+            if (bitsAt(i) != otherGrid.bitsAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Validates a bulk copy between the grid and an array.
+     * 
+     * @param arrayLength  the length of the array
+     * @param arrayPos  the position in the array
+     * @param row  the row to start at
+     * @param column  the column to start at
+     * @param length  the number of values to copy
+     * @return the row-major index to start at
+     * @throws IndexOutOfBoundsException if the range is outside the array or the grid
+     */
+    int checkRange(int arrayLength, int arrayPos, int row, int column, int length) {
+        if (arrayPos < 0 || length < 0 || arrayPos > arrayLength - length) {
+            throw new IndexOutOfBoundsException(
+                    "Invalid array range: " + arrayPos + "+" + length + " for length " + arrayLength);
+        }
+        if (length > 0 && !exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        int index = row * columnCount() + column;
+        if (length > rowCount() * columnCount() - index) {
+            throw new IndexOutOfBoundsException("Invalid length, grid too small: " + length);
+        }
+        return index;
+    }
+
+    /**
+     * Splits a range of indices at the chunk boundaries, passing each part to the action.
+     * 
+     * @param index  the first row-major index
+     * @param length  the number of indices
+     * @param action  the action to apply to each part, not null
+     */
+    void forEachChunk(int index, int length, ChunkAction action) {
+        int done = 0;
+        while (done < length) {
+            int start = index + done;
+            int position = start & ((1 << chunkShift) - 1);
+            int count = Math.min(length - done, (1 << chunkShift) - position);
+            action.apply(chunk(start), position, done, count);
+            done += count;
+        }
+    }
+
+    /**
+     * Action applied to the part of a range held in one chunk.
+     */
+    interface ChunkAction {
+        /**
+         * Applies the action.
+         * 
+         * @param chunk  the chunk, not null
+         * @param position  the position of the first value in the chunk, counted in values
+         * @param done  the number of values in the range before this part
+         * @param count  the number of values in this part
+         */
+        void apply(ByteBuffer chunk, int position, int done, int count);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 4 + GridFootprint.REFERENCE + GridFootprint.REFERENCE));
+        builder.add("occupied bitmap", GridFootprint.array(8, Bitmaps.wordCount(rowCount() * columnCount())));
+        // each chunk is a direct byte buffer (64) with a cleaner (40) and deallocator (32)
+        builder.add("buffers", GridFootprint.array(GridFootprint.REFERENCE, chunks.length) + chunks.length * 136L);
+        builder.add("off-heap values", (long) rowCount() * columnCount() * VALUE_BYTES);
+    }
+
+    // the buffers cannot be serialized
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+}
@@ -0,0 +1,546 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Abstract implementation of a primitive grid based on a hash table.
+ * <p>
+ * This holds the bounds and the open-addressed table of keys shared by the primitive sparse grids,
+ * leaving the storage of the values to the subclass, in an array parallel to the keys.
+ * The row-column of each cell is packed into a {@code long} key, as per {@code SparseImmutableGrid}.
+ * <p>
+ * The cells are iterated in row-column order, which sorts the keys on each iteration.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+abstract class AbstractSparsePrimitiveGrid<V> extends AbstractGrid<V> implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The key of an empty slot.
+     */
+    private static final long EMPTY = -1;
+    /**
+     * The initial capacity.
+     */
+    static final int INITIAL_CAPACITY = 16;
+    /**
+     * The maximum capacity.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private int size;
+    /**
+     * The keys, EMPTY where not occupied.
+     */
+    private long[] keys;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    AbstractSparsePrimitiveGrid(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.keys = emptyKeys(INITIAL_CAPACITY);
+    }
+
+    // creates an array of empty keys
+    private static long[] emptyKeys(int capacity) {
+        long[] array = new long[capacity];
+        Arrays.fill(array, EMPTY);
+        return array;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the value in an occupied slot.
+     * 
+     * @param slot  the slot
+     * @return the boxed value, not null
+     */
+    abstract V valueAt(int slot);
+
+    /**
+     * Sets the value in a slot.
+     * 
+     * @param slot  the slot
+     * @param value  the value, not null
+     */
+    abstract void setValue(int slot, V value);
+
+    /**
+     * Moves the value from one slot to another.
+     * 
+     * @param from  the slot to move from
+     * @param to  the slot to move to
+     */
+    abstract void moveValue(int from, int to);
+
+    /**
+     * Resets the value in a slot to zero.
+     * 
+     * @param slot  the slot
+     */
+    abstract void clearValue(int slot);
+
+    /**
+     * Resets all the values to zero.
+     */
+    abstract void clearValues();
+
+    /**
+     * Replaces the values with an array of a new capacity, moving each value to its new slot.
+     * 
+     * @param capacity  the new capacity
+     * @param newSlots  the new slot of each old slot, negative where not occupied
+     */
+    abstract void resizeValues(int capacity, int[] newSlots);
+
+    /**
+     * Gets the hash code of the value in an occupied slot.
+     * 
+     * @param slot  the slot
+     * @return the hash code, matching that of the boxed value
+     */
+    abstract int valueHash(int slot);
+
+    /**
+     * Checks if the value in a slot equals the value in a slot of another grid of the same class.
+     * 
+     * @param slot  the slot
+     * @param other  the other grid, not null
+     * @param otherSlot  the slot in the other grid
+     * @return true if the values are equal
+     */
+    abstract boolean valueEquals(int slot, AbstractSparsePrimitiveGrid<?> other, int otherSlot);
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return slotOf(row, column) >= 0;
+    }
+
+    @Override
+    public V get(int row, int column) {
+        int slot = slotOf(row, column);
+        return slot >= 0 ? valueAt(slot) : null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        int slot = slotOf(row, column);
+        return slot >= 0 ? ImmutableCell.of(row, column, valueAt(slot)) : null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final AbstractSparsePrimitiveGrid<V> grid;
+
+        Cells(AbstractSparsePrimitiveGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private final long[] sortedKeys = grid.sortedKeys();
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int current = -1;
+                private boolean removed;
+
+                @Override
+                public boolean hasNext() {
+                    return current + 1 < sortedKeys.length;
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current++;
+                    removed = false;
+                    long key = sortedKeys[current];
+                    int slot = grid.find(key);
+                    if (slot < 0) {
+                        throw new IllegalStateException("Grid modified during iteration");
+                    }
+                    cell.set(row(key), column(key), grid.valueAt(slot));
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    if (removed) {
+                        throw new IllegalStateException("Unable to remove, element has been removed");
+                    }
+                    long key = sortedKeys[current];
+                    grid.remove(row(key), column(key));
+                    removed = true;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            int oldSize = grid.size;
+            grid.put(cell.getRow(), cell.getColumn(), cell.getValue());
+            return grid.size > oldSize;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (long key : sortedKeys()) {
+            action.accept(row(key), column(key), valueAt(find(key)));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<V> values() {
+        long[] sortedKeys = sortedKeys();
+        ImmutableList.Builder<V> builder = ImmutableList.builderWithExpectedSize(sortedKeys.length);
+        for (long key : sortedKeys) {
+            builder.add(valueAt(find(key)));
+        }
+        return builder.build();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        clearValues();
+        size = 0;
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        if (value == null) {
+            if (!exists(row, column)) {
+                throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+            }
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        setValue(claimSlot(row, column), value);
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        int slot = slotOf(row, column);
+        if (slot < 0) {
+            return false;
+        }
+        // backward shift deletion, moving later entries in the probe sequence into the gap
+        int mask = keys.length - 1;
+        int gap = slot;
+        int index = (gap + 1) & mask;
+        while (keys[index] != EMPTY) {
+            int ideal = slot(keys[index], mask);
+            if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                moveValue(index, gap);
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        clearValue(gap);
+        size--;
+        return true;
+    }
+
+    //-----------------------------------------------------------------------
+    // packs the row-column into a key
+    private static long key(int row, int column) {
+        return (((long) row) << 32) + column;
+    }
+
+    // extracts the row from a key
+    private static int row(long key) {
+        return (int) (key >>> 32);
+    }
+
+    // extracts the column from a key
+    private static int column(long key) {
+        return (int) key;
+    }
+
+    // the preferred slot of a key
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return ((int) (hash ^ (hash >>> 32))) & mask;
+    }
+
+    /**
+     * Gets the capacity of the table, which is the length of the values array.
+     * 
+     * @return the capacity
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Checks if a slot is occupied.
+     * 
+     * @param slot  the slot
+     * @return true if occupied
+     */
+    boolean isOccupied(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    /**
+     * Finds the slot of a row-column.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return the slot, negative if not occupied or the row-column does not exist
+     */
+    int slotOf(int row, int column) {
+        if (exists(row, column)) {
+            return find(key(row, column));
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a row-column, adding the key if not occupied.
+     * <p>
+     * The caller must set the value in the slot.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return the slot
+     * @throws IndexOutOfBoundsException if the row-column does not exist
+     */
+    int claimSlot(int row, int column) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        long key = key(row, column);
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == MAX_CAPACITY - 1) {
+            throw new IllegalStateException("Grid is full");
+        }
+        if (size >= (keys.length >>> 2) * 3 && keys.length < MAX_CAPACITY) {
+            // grow before adding, thus the slot remains valid for the caller
+            resize(keys.length << 1);
+            return claimSlot(row, column);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Finds the slot of a key.
+     * 
+     * @param key  the packed row-column
+     * @return the slot, negative if not found
+     */
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        long found;
+        while ((found = keys[slot]) != EMPTY) {
+            if (found == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // resizes the table
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] newSlots = new int[oldKeys.length];
+        keys = emptyKeys(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key, mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                newSlots[i] = slot;
+            } else {
+                newSlots[i] = -1;
+            }
+        }
+        resizeValues(capacity, newSlots);
+    }
+
+    /**
+     * Returns the keys in row-column order.
+     * 
+     * @return the sorted keys, not null
+     */
+    long[] sortedKeys() {
+        long[] sorted = new long[size];
+        int index = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[index++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj != null && obj.getClass() == getClass()) {
+            AbstractSparsePrimitiveGrid<?> other = (AbstractSparsePrimitiveGrid<?>) obj;
+            if (rowCount != other.rowCount || columnCount != other.columnCount || size != other.size) {
+                return false;
+            }
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = true;
+            for (int i = 0; i < keys.length && equal; i++) {
+                if (keys[i] != EMPTY) {
+                    int otherSlot = other.find(keys[i]);
+                    equal = otherSlot >= 0 && valueEquals(i, other, otherSlot);
+                }
+            }
+            event.end("equals", this);
+            return equal;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key != EMPTY) {
+                hash += (row(key) ^ Integer.rotateLeft(column(key), 16) ^ valueHash(i));
+            }
+        }
+        hash ^= rowCount ^ Integer.rotateLeft(columnCount, 16);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+}
@@ -0,0 +1,624 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A mutable grid of bits, packed into an array of {@code long}.
+ * <p>
+ * This uses one bit of memory for each possible combination of row and column.
+ * The bits are held in row-major order, as per {@link DenseGrid}.
+ * <p>
+ * Bulk operations, such as {@link #and(BitGrid)}, combine 64 bits at a time.
+ * The number of set bits is maintained as the bits change, thus {@link #cardinality()} is constant time.
+ * The {@link #asGrid()} method provides a view as a {@code Grid<Boolean>} where
+ * each set bit is a cell with the value {@code TRUE}.
+ * <p>
+ * This class is mutable and not thread-safe.
+ *
+ * @author Stephen Colebourne
+ */
+public final class BitGrid implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The bits, in row-major order.
+     * Any bits beyond the end of the grid are always clear.
+     */
+    private final long[] words;
+    /**
+     * The number of set bits.
+     */
+    private int cardinality;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code BitGrid} of the specified size with all bits clear.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable bit grid, not null
+     */
+    public static BitGrid create(int rowCount, int columnCount) {
+        AbstractGrid.validateCounts(rowCount, columnCount);
+        return new BitGrid(rowCount, columnCount, new long[Bitmaps.wordCount(rowCount * columnCount)], 0);
+    }
+
+    /**
+     * Creates a {@code BitGrid} where the set bits are the occupied cells of another grid.
+     * <p>
+     * This is typically used to obtain a mask of the occupied cells.
+     * 
+     * @param grid  the grid to copy the occupancy of, not null
+     * @return the mutable bit grid, not null
+     * @throws IndexOutOfBoundsException if a cell has an invalid index
+     */
+    public static BitGrid occupancyOf(Grid<?> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        BitGrid created = create(grid.rowCount(), grid.columnCount());
+        for (Grid.Cell<?> cell : grid.cells()) {
+            created.set(cell.getRow(), cell.getColumn());
+        }
+        return created;
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    private BitGrid(int rowCount, int columnCount, long[] words, int cardinality) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of rows in the grid.
+     * 
+     * @return the number of rows, zero or greater
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of columns in the grid.
+     * 
+     * @return the number of columns, zero or greater
+     */
+    public int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Checks if the specified row-column exists.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return true if the row-column exists
+     */
+    public boolean exists(int row, int column) {
+        return row >= 0 && row < rowCount && column >= 0 && column < columnCount;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the bit at the specified row-column.
+     * <p>
+     * If either index does not exist, false is returned.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return true if the bit is set
+     */
+    public boolean get(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(words, row * columnCount + column);
+        }
+        return false;
+    }
+
+    /**
+     * Sets the bit at the specified row-column.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @return true if the bit was previously clear
+     * @throws IndexOutOfBoundsException if either index does not exist
+     */
+    public boolean set(int row, int column) {
+        return setIndex(index(row, column));
+    }
+
+    /**
+     * Sets or clears the bit at the specified row-column.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  true to set the bit, false to clear it
+     * @return true if the bit was changed
+     * @throws IndexOutOfBoundsException if either index does not exist
+     */
+    public boolean set(int row, int column, boolean value) {
+        return value ? set(row, column) : clear(row, column);
+    }
+
+    /**
+     * Clears the bit at the specified row-column.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @return true if the bit was previously set
+     * @throws IndexOutOfBoundsException if either index does not exist
+     */
+    public boolean clear(int row, int column) {
+        return clearIndex(index(row, column));
+    }
+
+    /**
+     * Clears all the bits.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+        cardinality = 0;
+    }
+
+    // sets the bit at a valid index, maintaining the cardinality
+    private boolean setIndex(int index) {
+        if (Bitmaps.set(words, index)) {
+            cardinality++;
+            return true;
+        }
+        return false;
+    }
+
+    // clears the bit at a valid index, maintaining the cardinality
+    private boolean clearIndex(int index) {
+        if (Bitmaps.clear(words, index)) {
+            cardinality--;
+            return true;
+        }
+        return false;
+    }
+
+    // the index of a valid row-column
+    private int index(int row, int column) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        return row * columnCount + column;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets each bit that is set in both this grid and the other grid, clearing the rest.
+     * 
+     * @param other  the other grid, with the same row and column count, not null
+     * @return this grid, for chaining
+     * @throws IllegalArgumentException if the row or column counts differ
+     */
+    public BitGrid and(BitGrid other) {
+        long[] otherWords = validate(other);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= otherWords[i];
+            count += Long.bitCount(words[i]);
+        }
+        cardinality = count;
+        return this;
+    }
+
+    /**
+     * Sets each bit that is set in the other grid.
+     * 
+     * @param other  the other grid, with the same row and column count, not null
+     * @return this grid, for chaining
+     * @throws IllegalArgumentException if the row or column counts differ
+     */
+    public BitGrid or(BitGrid other) {
+        long[] otherWords = validate(other);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= otherWords[i];
+            count += Long.bitCount(words[i]);
+        }
+        cardinality = count;
+        return this;
+    }
+
+    /**
+     * Flips each bit that is set in the other grid.
+     * 
+     * @param other  the other grid, with the same row and column count, not null
+     * @return this grid, for chaining
+     * @throws IllegalArgumentException if the row or column counts differ
+     */
+    public BitGrid xor(BitGrid other) {
+        long[] otherWords = validate(other);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i] ^= otherWords[i];
+            count += Long.bitCount(words[i]);
+        }
+        cardinality = count;
+        return this;
+    }
+
+    /**
+     * Clears each bit that is set in the other grid.
+     * 
+     * @param other  the other grid, with the same row and column count, not null
+     * @return this grid, for chaining
+     * @throws IllegalArgumentException if the row or column counts differ
+     */
+    public BitGrid andNot(BitGrid other) {
+        long[] otherWords = validate(other);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~otherWords[i];
+            count += Long.bitCount(words[i]);
+        }
+        cardinality = count;
+        return this;
+    }
+
+    // validates the other grid has the same shape
+    private long[] validate(BitGrid other) {
+        if (other == null) {
+            throw new IllegalArgumentException("BitGrid must not be null");
+        }
+        if (other.rowCount != rowCount || other.columnCount != columnCount) {
+            throw new IllegalArgumentException("BitGrid must have the same row-column count: " +
+                    rowCount + "x" + columnCount + " != " + other.rowCount + "x" + other.columnCount);
+        }
+        return other.words;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of set bits.
+     * <p>
+     * The count is maintained as the bits change, thus this is constant time.
+     * 
+     * @return the number of set bits, zero or greater
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Checks if no bits are set.
+     * 
+     * @return true if no bits are set
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Performs an action for each set bit, in row-major order.
+     * <p>
+     * Each word is scanned using {@link Long#numberOfTrailingZeros(long)},
+     * thus the time taken depends on the number of set bits rather than the size of the grid.
+     * 
+     * @param action  the action to perform, not null
+     */
+    public void forEachSet(SetBitAction action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                action.accept(index / columnCount, index % columnCount);
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of this grid.
+     * 
+     * @return the copy, not null
+     */
+    public BitGrid copy() {
+        return new BitGrid(rowCount, columnCount, words.clone(), cardinality);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a view of this grid as a {@code Grid<Boolean>}.
+     * <p>
+     * Each set bit is a cell with the value {@code TRUE}, while clear bits are absent.
+     * Changes to the view are reflected in this grid and vice versa.
+     * Putting {@code TRUE} sets the bit and removing a cell clears it.
+     * Putting {@code FALSE} also clears the bit, thus the row-column becomes empty
+     * and {@code get} returns null rather than {@code FALSE}.
+     * Putting null throws {@code IllegalArgumentException}, as per {@link Grid#put(int, int, Object)}.
+     * 
+     * @return the grid view, not null
+     */
+    public Grid<Boolean> asGrid() {
+        return new View(this);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof BitGrid) {
+            BitGrid other = (BitGrid) obj;
+            return rowCount == other.rowCount && columnCount == other.columnCount &&
+                    Arrays.equals(words, other.words);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return rowCount ^ Integer.rotateLeft(columnCount, 16) ^ Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(rowCount * (columnCount + 1) + 16);
+        buf.append('[').append(rowCount).append('x').append(columnCount).append(':');
+        for (int row = 0; row < rowCount; row++) {
+            buf.append(row == 0 ? "" : "|");
+            for (int column = 0; column < columnCount; column++) {
+                buf.append(get(row, column) ? '1' : '0');
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * An action to perform on a set bit.
+     */
+    @FunctionalInterface
+    public interface SetBitAction {
+
+        /**
+         * Performs the action.
+         * 
+         * @param row  the row of the set bit
+         * @param column  the column of the set bit
+         */
+        void accept(int row, int column);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * View of the bit grid as a grid of booleans.
+     */
+    static final class View extends AbstractGrid<Boolean> implements Serializable {
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The underlying bits.
+         */
+        private final BitGrid bits;
+
+        /**
+         * Restricted constructor.
+         */
+        View(BitGrid bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public int rowCount() {
+            return bits.rowCount;
+        }
+
+        @Override
+        public int columnCount() {
+            return bits.columnCount;
+        }
+
+        @Override
+        public int size() {
+            return bits.cardinality();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bits.isEmpty();
+        }
+
+        @Override
+        public boolean contains(int row, int column) {
+            return bits.get(row, column);
+        }
+
+        @Override
+        public boolean containsValue(Object valueToFind) {
+            return Boolean.TRUE.equals(valueToFind) && !bits.isEmpty();
+        }
+
+        @Override
+        public Boolean get(int row, int column) {
+            return bits.get(row, column) ? Boolean.TRUE : null;
+        }
+
+        @Override
+        public Cell<Boolean> cell(int row, int column) {
+            return bits.get(row, column) ? ImmutableCell.of(row, column, Boolean.TRUE) : null;
+        }
+
+        @Override
+        public Set<Cell<Boolean>> cells() {
+            return new AbstractSet<Cell<Boolean>>() {
+                @Override
+                public int size() {
+                    return bits.cardinality();
+                }
+
+                @Override
+                public boolean contains(Object obj) {
+                    Cell<?> cell = (Cell<?>) obj;
+                    return Boolean.TRUE.equals(cell.getValue()) && bits.get(cell.getRow(), cell.getColumn());
+                }
+
+                @Override
+                public Iterator<Cell<Boolean>> iterator() {
+                    return new Iterator<Cell<Boolean>>() {
+                        private MutableCell<Boolean> cell = new MutableCell<Boolean>();
+                        private int current = -1;
+                        private int next = Bitmaps.nextSetBit(bits.words, 0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+                        @Override
+                        public Cell<Boolean> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException("No more elements");
+                            }
+                            current = next;
+                            next = Bitmaps.nextSetBit(bits.words, current + 1);
+                            cell.set(current / bits.columnCount, current % bits.columnCount, Boolean.TRUE);
+                            return cell;
+                        }
+                        @Override
+                        public void remove() {
+                            if (current < 0) {
+                                throw new IllegalStateException("Unable to remove, next() not called yet");
+                            }
+                            if (!bits.clearIndex(current)) {
+                                throw new IllegalStateException("Unable to remove, element has been removed");
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public boolean add(Cell<Boolean> cell) {
+                    Preconditions.checkArgument(cell != null, "Cell must not be null");
+                    return putTrue(cell.getRow(), cell.getColumn(), cell.getValue());
+                }
+
+                @Override
+                public boolean remove(Object obj) {
+                    Cell<?> cell = (Cell<?>) obj;
+                    return Boolean.TRUE.equals(cell.getValue()) && View.this.remove(cell.getRow(), cell.getColumn());
+                }
+
+                @Override
+                public void clear() {
+                    bits.clear();
+                }
+            };
+        }
+
+        @Override
+        public void forEachCell(CellConsumer<? super Boolean> action) {
+            if (action == null) {
+                throw new IllegalArgumentException("Action must not be null");
+            }
+            bits.forEachSet((row, column) -> action.accept(row, column, Boolean.TRUE));
+        }
+
+        @Override
+        public ImmutableCollection<Boolean> values() {
+            Boolean[] array = new Boolean[bits.cardinality()];
+            Arrays.fill(array, Boolean.TRUE);
+            return ImmutableList.copyOf(array);
+        }
+
+        @Override
+        public void clear() {
+            bits.clear();
+        }
+
+        @Override
+        public void put(int row, int column, Boolean value) {
+            int index = bits.index(row, column);
+            if (value == null) {
+                throw new IllegalArgumentException("Value must not be null");
+            }
+            if (value) {
+                bits.setIndex(index);
+            } else {
+                bits.clearIndex(index);
+            }
+        }
+
+        // sets the bit, returning true if changed
+        private boolean putTrue(int row, int column, Boolean value) {
+            int index = bits.index(row, column);
+            if (!Boolean.TRUE.equals(value)) {
+                throw new IllegalArgumentException("Value must be TRUE");
+            }
+            return bits.setIndex(index);
+        }
+
+        @Override
+        public void putAll(Grid<? extends Boolean> grid) {
+            if (grid == null) {
+                throw new IllegalArgumentException("Grid must nor be null");
+            }
+            for (Cell<? extends Boolean> cell : grid.cells()) {
+                put(cell.getRow(), cell.getColumn(), cell.getValue());
+            }
+        }
+
+        @Override
+        public boolean remove(int row, int column) {
+            if (exists(row, column)) {
+                return bits.clear(row, column);
+            }
+            return false;
+        }
+
+        @Override
+        void estimateFootprint(GridFootprint.Builder builder) {
+            builder.add("grid", GridFootprint.object(GridFootprint.REFERENCE) +
+                    GridFootprint.object(4 + 4 + 4 + GridFootprint.REFERENCE));
+            builder.add("bits array", GridFootprint.array(8, bits.words.length));
+        }
+    }
+
+}
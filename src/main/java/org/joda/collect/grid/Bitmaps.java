@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.nio.LongBuffer;
+
+/**
+ * Utilities for bitmaps held in a {@code long} array or buffer.
+ * <p>
+ * Bit {@code i} is held in word {@code i >>> 6} at position {@code i & 63}.
+ *
+ * @author Stephen Colebourne
+ */
+final class Bitmaps {
+
+    /**
+     * Restricted constructor.
+     */
+    private Bitmaps() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of words needed to hold the specified number of bits.
+     * 
+     * @param bitCount  the number of bits, zero or greater
+     * @return the number of words
+     */
+    static int wordCount(int bitCount) {
+        return (int) ((bitCount + 63L) >>> 6);
+    }
+
+    /**
+     * Checks if a bit is set.
+     * 
+     * @param words  the bitmap, not null
+     * @param index  the bit index, zero or greater
+     * @return true if set
+     */
+    static boolean get(long[] words, int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit.
+     * 
+     * @param words  the bitmap, not null
+     * @param index  the bit index, zero or greater
+     * @return true if the bit was previously clear
+     */
+    static boolean set(long[] words, int index) {
+        long word = words[index >>> 6];
+        long updated = word | (1L << index);
+        words[index >>> 6] = updated;
+        return updated != word;
+    }
+
+    /**
+     * Clears a bit.
+     * 
+     * @param words  the bitmap, not null
+     * @param index  the bit index, zero or greater
+     * @return true if the bit was previously set
+     */
+    static boolean clear(long[] words, int index) {
+        long word = words[index >>> 6];
+        long updated = word & ~(1L << index);
+        words[index >>> 6] = updated;
+        return updated != word;
+    }
+
+    /**
+     * Finds the next set bit, starting from the specified index.
+     * 
+     * @param words  the bitmap, not null
+     * @param fromIndex  the index to start from, inclusive, zero or greater
+     * @return the index of the next set bit, -1 if none
+     */
+    static int nextSetBit(long[] words, int fromIndex) {
+        int wordIndex = fromIndex >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            wordIndex++;
+            if (wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * Checks if a bit is set in a bitmap held in a buffer.
+     * 
+     * @param words  the bitmap, not null
+     * @param index  the bit index, zero or greater
+     * @return true if set
+     */
+    static boolean get(LongBuffer words, int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Finds the next set bit in a bitmap held in a buffer, starting from the specified index.
+     * 
+     * @param words  the bitmap, not null
+     * @param fromIndex  the index to start from, inclusive, zero or greater
+     * @return the index of the next set bit, -1 if none
+     */
+    static int nextSetBit(LongBuffer words, int fromIndex) {
+        int wordIndex = fromIndex >>> 6;
+        int wordCount = words.limit();
+        if (wordIndex >= wordCount) {
+            return -1;
+        }
+        long word = words.get(wordIndex) & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            wordIndex++;
+            if (wordIndex == wordCount) {
+                return -1;
+            }
+            word = words.get(wordIndex);
+        }
+    }
+
+    /**
+     * Counts the set bits.
+     * 
+     * @param words  the bitmap, not null
+     * @return the number of set bits
+     */
+    static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+}
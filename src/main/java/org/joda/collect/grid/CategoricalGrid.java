@@ -0,0 +1,555 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Mutable implementation of the {@code Grid} data structure for values with few distinct instances.
+ * <p>
+ * Each distinct value is held once in a dictionary and assigned an ordinal.
+ * The grid holds the ordinal of each row-column in row-major order, as per {@link DenseGrid},
+ * with zero indicating an empty row-column. The ordinals are held in a {@code byte} array,
+ * widening to {@code short} and then {@code int} as the dictionary grows.
+ * Thus a grid with up to 255 distinct values uses one byte for each possible combination of row and column.
+ * <p>
+ * Values are matched using {@code equals}, thus they should be immutable, such as enums or strings.
+ * Values that are no longer present in the grid are removed from the dictionary and their ordinals reused.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class CategoricalGrid<V> extends AbstractGrid<V> implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The maximum ordinal held in a byte.
+     */
+    private static final int MAX_BYTE_ORDINAL = 0xFF;
+    /**
+     * The maximum ordinal held in a short.
+     */
+    private static final int MAX_SHORT_ORDINAL = 0xFFFF;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private int size;
+    /**
+     * The ordinals, when the dictionary fits in a byte.
+     */
+    private byte[] byteOrdinals;
+    /**
+     * The ordinals, when the dictionary fits in a short.
+     */
+    private short[] shortOrdinals;
+    /**
+     * The ordinals, when the dictionary is larger.
+     */
+    private int[] intOrdinals;
+    /**
+     * The dictionary, indexed by ordinal, with element zero unused.
+     */
+    private Object[] dictionary;
+    /**
+     * The number of row-columns using each ordinal.
+     */
+    private int[] useCounts;
+    /**
+     * The ordinal of each value in the dictionary.
+     */
+    private final Map<V, Integer> ordinalLookup;
+    /**
+     * The ordinals that are free for reuse.
+     */
+    private int[] freeOrdinals;
+    /**
+     * The number of free ordinals.
+     */
+    private int freeCount;
+    /**
+     * The next ordinal to allocate once the free ordinals are used.
+     */
+    private int nextOrdinal;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code CategoricalGrid} of the specified size.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static <V> CategoricalGrid<V> create(int rowCount, int columnCount) {
+        return new CategoricalGrid<V>(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code CategoricalGrid} copying from another grid.
+     *
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static <V> CategoricalGrid<V> create(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        CategoricalGrid<V> created = CategoricalGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private CategoricalGrid(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.byteOrdinals = new byte[rowCount * columnCount];
+        this.dictionary = new Object[8];
+        this.useCounts = new int[8];
+        this.ordinalLookup = new HashMap<>();
+        this.freeOrdinals = new int[8];
+        this.nextOrdinal = 1;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return ordinalAt(row * columnCount + column) != 0;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        return valueToFind != null && ordinalLookup.containsKey(valueToFind);
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (exists(row, column)) {
+            return decode(ordinalAt(row * columnCount + column));
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        V value = get(row, column);
+        return (value != null ? ImmutableCell.of(row, column, value) : null);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the ordinal at the specified row-column.
+     * <p>
+     * The ordinal identifies the value in the dictionary, see {@link #valueOfOrdinal(int)}.
+     * If either index does not exist, or there is no value at the row-column, zero is returned.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return the ordinal, zero if not found
+     */
+    public int ordinal(int row, int column) {
+        if (exists(row, column)) {
+            return ordinalAt(row * columnCount + column);
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the value of the specified ordinal.
+     * <p>
+     * The ordinal of a value is stable while the value is present in the grid.
+     * 
+     * @param ordinal  the ordinal, one or greater
+     * @return the value, null if the ordinal is not in use
+     */
+    public V valueOfOrdinal(int ordinal) {
+        if (ordinal <= 0 || ordinal >= nextOrdinal) {
+            return null;
+        }
+        return decode(ordinal);
+    }
+
+    /**
+     * Gets the number of distinct values in the grid.
+     * 
+     * @return the number of distinct values, zero or greater
+     */
+    public int distinctValueCount() {
+        return ordinalLookup.size();
+    }
+
+    /**
+     * Returns a stream of the ordinals of each cell, in row-major order.
+     * <p>
+     * Empty row-columns are skipped, thus the stream has one element for each cell.
+     * This allows the values to be processed as primitive ordinals,
+     * for example to count the occurrences of each value.
+     * The grid must not be altered while the stream is in use.
+     * 
+     * @return the stream of ordinals, not null
+     */
+    public IntStream ordinals() {
+        return IntStream.range(0, rowCount * columnCount)
+                .map(this::ordinalAt)
+                .filter(ordinal -> ordinal != 0);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final CategoricalGrid<V> grid;
+
+        Cells(CategoricalGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int count;
+                private int current = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return (count < grid.size);
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current++;
+                    int ordinal = grid.ordinalAt(current);
+                    while (ordinal == 0) {
+                        current++;
+                        ordinal = grid.ordinalAt(current);
+                    }
+                    count++;
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.decode(ordinal));
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    if (grid.ordinalAt(current) == 0) {
+                        throw new IllegalStateException("Unable to remove, element has been removed");
+                    }
+                    grid.replace(current, 0);
+                    count--;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            int oldSize = grid.size;
+            grid.put(cell.getRow(), cell.getColumn(), cell.getValue());
+            return grid.size > oldSize;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    @SuppressWarnings("unchecked")
+    public ImmutableCollection<V> values() {
+        Object[] array = new Object[size];
+        int index = 0;
+        int capacity = rowCount * columnCount;
+        for (int i = 0; i < capacity; i++) {
+            int ordinal = ordinalAt(i);
+            if (ordinal != 0) {
+                array[index++] = dictionary[ordinal];
+            }
+        }
+        return ImmutableList.copyOf((V[]) array);
+    }
+
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                int ordinal = ordinalAt(index++);
+                if (ordinal != 0) {
+                    action.accept(row, column, decode(ordinal));
+                }
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        byteOrdinals = new byte[rowCount * columnCount];
+        shortOrdinals = null;
+        intOrdinals = null;
+        Arrays.fill(dictionary, null);
+        Arrays.fill(useCounts, 0);
+        ordinalLookup.clear();
+        freeCount = 0;
+        nextOrdinal = 1;
+        size = 0;
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        replace(row * columnCount + column, encode(value));
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        if (contains(row, column)) {
+            replace(row * columnCount + column, 0);
+            return true;
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    // gets the ordinal at an index
+    private int ordinalAt(int index) {
+        if (byteOrdinals != null) {
+            return byteOrdinals[index] & MAX_BYTE_ORDINAL;
+        }
+        if (shortOrdinals != null) {
+            return shortOrdinals[index] & MAX_SHORT_ORDINAL;
+        }
+        return intOrdinals[index];
+    }
+
+    // sets the ordinal at an index, the array must be wide enough
+    private void setOrdinalAt(int index, int ordinal) {
+        if (byteOrdinals != null) {
+            byteOrdinals[index] = (byte) ordinal;
+        } else if (shortOrdinals != null) {
+            shortOrdinals[index] = (short) ordinal;
+        } else {
+            intOrdinals[index] = ordinal;
+        }
+    }
+
+    // gets the value of an ordinal, null for zero
+    @SuppressWarnings("unchecked")
+    private V decode(int ordinal) {
+        return (V) dictionary[ordinal];
+    }
+
+    // gets the ordinal of a value, adding it to the dictionary if necessary
+    // the use count of a newly added value is zero until replace() is called
+    private int encode(V value) {
+        Integer existing = ordinalLookup.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, ordinal * 2);
+                useCounts = Arrays.copyOf(useCounts, ordinal * 2);
+            }
+            widenFor(ordinal);
+        }
+        dictionary[ordinal] = value;
+        ordinalLookup.put(value, ordinal);
+        return ordinal;
+    }
+
+    // widens the ordinal array if necessary to hold the ordinal
+    private void widenFor(int ordinal) {
+        if (byteOrdinals != null && ordinal > MAX_BYTE_ORDINAL) {
+            shortOrdinals = new short[byteOrdinals.length];
+            for (int i = 0; i < byteOrdinals.length; i++) {
+                shortOrdinals[i] = (short) (byteOrdinals[i] & MAX_BYTE_ORDINAL);
+            }
+            byteOrdinals = null;
+        }
+        if (shortOrdinals != null && ordinal > MAX_SHORT_ORDINAL) {
+            intOrdinals = new int[shortOrdinals.length];
+            for (int i = 0; i < shortOrdinals.length; i++) {
+                intOrdinals[i] = shortOrdinals[i] & MAX_SHORT_ORDINAL;
+            }
+            shortOrdinals = null;
+        }
+    }
+
+    // replaces the ordinal at an index, maintaining the size and use counts
+    private void replace(int index, int ordinal) {
+        int old = ordinalAt(index);
+        if (old == ordinal) {
+            return;
+        }
+        setOrdinalAt(index, ordinal);
+        if (ordinal != 0) {
+            useCounts[ordinal]++;
+        }
+        if (old != 0) {
+            release(old);
+        }
+        if (old == 0) {
+            size++;
+        } else if (ordinal == 0) {
+            size--;
+        }
+    }
+
+    // releases one use of an ordinal, freeing it if unused
+    private void release(int ordinal) {
+        if (--useCounts[ordinal] == 0) {
+            ordinalLookup.remove(dictionary[ordinal]);
+            dictionary[ordinal] = null;
+            if (freeCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+            }
+            freeOrdinals[freeCount++] = ordinal;
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(7 * 4 + 7 * GridFootprint.REFERENCE));
+        if (byteOrdinals != null) {
+            builder.add("ordinals array", GridFootprint.array(1, byteOrdinals.length));
+        } else if (shortOrdinals != null) {
+            builder.add("ordinals array", GridFootprint.array(2, shortOrdinals.length));
+        } else {
+            builder.add("ordinals array", GridFootprint.array(4, intOrdinals.length));
+        }
+        // HashMap with a table and one node and boxed ordinal per entry
+        int entries = ordinalLookup.size();
+        long lookup = GridFootprint.object(4 * 4 + 3 * GridFootprint.REFERENCE) +
+                GridFootprint.array(GridFootprint.REFERENCE, hashTableLength(entries)) +
+                entries * (GridFootprint.object(4 + 3 * GridFootprint.REFERENCE) + GridFootprint.object(4));
+        builder.add("dictionary",
+                GridFootprint.array(GridFootprint.REFERENCE, dictionary.length) +
+                GridFootprint.array(4, useCounts.length) +
+                GridFootprint.array(4, freeOrdinals.length) +
+                lookup);
+    }
+
+    // the table length of a HashMap with default load factor
+    private static int hashTableLength(int entries) {
+        int length = 16;
+        while (length * 3 / 4 < entries) {
+            length *= 2;
+        }
+        return length;
+    }
+
+}
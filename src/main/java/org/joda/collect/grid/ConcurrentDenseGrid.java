@@ -0,0 +1,472 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Mutable thread-safe implementation of the {@code Grid} data structure based on an array.
+ * <p>
+ * This uses one item of memory for each possible combination of row and column,
+ * held in row-major order as per {@link DenseGrid}.
+ * Each row-column is read and written atomically without locking,
+ * thus reads never block and writes to different row-columns never contend.
+ * <p>
+ * Iteration over the cells, including {@code cells()}, {@code values()} and {@code forEachCell()},
+ * is weakly consistent, as per {@code ConcurrentHashMap}.
+ * It never throws {@code ConcurrentModificationException}, returns each row-column at most once,
+ * and may or may not reflect changes made after iteration started.
+ * The size is maintained separately from the cells, thus it is only an estimate while updates are in progress.
+ * Bulk operations, such as {@code putAll()} and {@code clear()}, are not atomic.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class ConcurrentDenseGrid<V> extends AbstractGrid<V> implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /**
+     * Atomic access to the elements of the values array.
+     */
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final LongAdder size;
+    /**
+     * The values, only accessed via the var handle.
+     */
+    private final Object[] values;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code ConcurrentDenseGrid} of the specified size.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static <V> ConcurrentDenseGrid<V> create(int rowCount, int columnCount) {
+        return new ConcurrentDenseGrid<V>(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code ConcurrentDenseGrid} copying from another grid.
+     *
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static <V> ConcurrentDenseGrid<V> create(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        ConcurrentDenseGrid<V> created = ConcurrentDenseGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private ConcurrentDenseGrid(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = new LongAdder();
+        this.values = new Object[rowCount * columnCount];
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(size.intValue(), 0);
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return get(row, column) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind != null) {
+            for (int i = 0; i < values.length; i++) {
+                if (valueToFind.equals(valueAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (exists(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        V value = get(row, column);
+        return (value != null ? ImmutableCell.of(row, column, value) : null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final ConcurrentDenseGrid<V> grid;
+
+        Cells(ConcurrentDenseGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size();
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int current = -1;
+                private int next = -1;
+                private V nextValue = advance();
+
+                // finds the next occupied index, capturing the value seen
+                private V advance() {
+                    while (++next < grid.values.length) {
+                        V value = grid.valueAt(next);
+                        if (value != null) {
+                            return value;
+                        }
+                    }
+                    return null;
+                }
+                @Override
+                public boolean hasNext() {
+                    return nextValue != null;
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current = next;
+                    cell.set(current / grid.columnCount, current % grid.columnCount, nextValue);
+                    nextValue = advance();
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    grid.removeIndex(current);
+                    current = -1;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            return grid.putValue(cell.getRow(), cell.getColumn(), cell.getValue()) == null;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<V> values() {
+        ImmutableList.Builder<V> builder = ImmutableList.builder();
+        for (int i = 0; i < values.length; i++) {
+            V value = valueAt(i);
+            if (value != null) {
+                builder.add(value);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                V value = valueAt(index++);
+                if (value != null) {
+                    action.accept(row, column, value);
+                }
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            removeIndex(i);
+        }
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        putValue(row, column, value);
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        if (exists(row, column)) {
+            return removeIndex(row * columnCount + column);
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Puts a value into the grid if the row-column is empty, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to put, not null
+     * @return the existing value, null if the value was put
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public V putIfAbsent(int row, int column, V value) {
+        int index = index(row, column, value);
+        V existing = castValue(VALUES.compareAndExchange(values, index, null, value));
+        if (existing == null) {
+            size.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Replaces the value at the row-column if there is an existing value, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to put, not null
+     * @return true if the value was replaced, false if the row-column was empty
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public boolean replace(int row, int column, V value) {
+        int index = index(row, column, value);
+        while (true) {
+            Object current = VALUES.getAcquire(values, index);
+            if (current == null) {
+                return false;
+            }
+            if (VALUES.compareAndSet(values, index, current, value)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replaces the value at the row-column if it equals the expected value, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param expectedValue  the value expected to be present, not null
+     * @param newValue  the value to put, not null
+     * @return true if the value was replaced
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public boolean replace(int row, int column, V expectedValue, V newValue) {
+        if (expectedValue == null) {
+            throw new IllegalArgumentException("Expected value must not be null");
+        }
+        int index = index(row, column, newValue);
+        while (true) {
+            Object current = VALUES.getAcquire(values, index);
+            if (!expectedValue.equals(current)) {
+                return false;
+            }
+            if (VALUES.compareAndSet(values, index, current, newValue)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Computes the value at the row-column from the current value, atomically.
+     * <p>
+     * The function is passed the current value, or null if the row-column is empty.
+     * If the function returns null, the row-column is emptied.
+     * The update is applied only if the value has not been changed concurrently,
+     * otherwise the function is called again with the new value.
+     * As such, the function may be called more than once and should be free of side effects.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param remappingFunction  the function to compute the new value, not null
+     * @return the new value, null if the row-column is now empty
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        int index = row * columnCount + column;
+        while (true) {
+            V current = valueAt(index);
+            V updated = remappingFunction.apply(current);
+            if (updated == current) {
+                return updated;
+            }
+            if (VALUES.compareAndSet(values, index, current, updated)) {
+                if (current == null) {
+                    size.increment();
+                } else if (updated == null) {
+                    size.decrement();
+                }
+                return updated;
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    // validates the row-column and value, returning the index
+    private int index(int row, int column, V value) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        return row * columnCount + column;
+    }
+
+    // puts the value, returning the previous value
+    private V putValue(int row, int column, V value) {
+        int index = index(row, column, value);
+        V previous = castValue(VALUES.getAndSet(values, index, value));
+        if (previous == null) {
+            size.increment();
+        }
+        return previous;
+    }
+
+    // gets the value at an index
+    private V valueAt(int index) {
+        return castValue(VALUES.getAcquire(values, index));
+    }
+
+    // removes the value at an index, returning true if removed
+    private boolean removeIndex(int index) {
+        if (VALUES.getAcquire(values, index) != null && VALUES.getAndSet(values, index, null) != null) {
+            size.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V castValue(Object value) {
+        return (V) value;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("size counter", GridFootprint.object(8 + 4 + GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(GridFootprint.REFERENCE, values.length));
+    }
+
+}
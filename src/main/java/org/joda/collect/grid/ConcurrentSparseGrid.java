@@ -0,0 +1,470 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Mutable thread-safe implementation of the {@code Grid} data structure based on a skip list.
+ * <p>
+ * The values are held in a {@link ConcurrentSkipListMap} keyed by the row and column
+ * packed into a {@code long}, as per {@link SparseImmutableGrid}.
+ * Thus the cells are ordered by row then column, reads are lock-free
+ * and writes to different row-columns rarely contend.
+ * <p>
+ * Iteration over the cells, including {@code cells()}, {@code values()}, {@code forEachCell()}
+ * and the lists returned by {@code row()} and {@code column()}, is weakly consistent,
+ * as per {@code ConcurrentSkipListMap}.
+ * It never throws {@code ConcurrentModificationException}, returns each row-column at most once,
+ * and may or may not reflect changes made after iteration started.
+ * The size is maintained separately from the cells, thus it is only an estimate while updates are in progress.
+ * Bulk operations, such as {@code putAll()} and {@code clear()}, are not atomic.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class ConcurrentSparseGrid<V> extends AbstractGrid<V> implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final LongAdder size;
+    /**
+     * The values keyed by packed row-column.
+     */
+    private final ConcurrentSkipListMap<Long, V> map;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code ConcurrentSparseGrid} of the specified row-column count.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static <V> ConcurrentSparseGrid<V> create(int rowCount, int columnCount) {
+        return new ConcurrentSparseGrid<V>(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code ConcurrentSparseGrid} copying from another grid.
+     *
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static <V> ConcurrentSparseGrid<V> create(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        ConcurrentSparseGrid<V> created = ConcurrentSparseGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private ConcurrentSparseGrid(int rowCount, int columnCount) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = new LongAdder();
+        this.map = new ConcurrentSkipListMap<>();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(size.intValue(), 0);
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return exists(row, column) && map.containsKey(key(row, column));
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        return valueToFind != null && map.containsValue(valueToFind);
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (exists(row, column)) {
+            return map.get(key(row, column));
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        V value = get(row, column);
+        return (value != null ? ImmutableCell.of(row, column, value) : null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final ConcurrentSparseGrid<V> grid;
+
+        Cells(ConcurrentSparseGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size();
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            Iterator<Entry<Long, V>> it = grid.map.entrySet().iterator();
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private long current = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+                @Override
+                public Cell<V> next() {
+                    Entry<Long, V> entry = it.next();
+                    current = entry.getKey();
+                    cell.set((int) (current >>> 32), (int) current, entry.getValue());
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    grid.removeKey(current);
+                    current = -1;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            return grid.putValue(cell.getRow(), cell.getColumn(), cell.getValue()) == null;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<V> values() {
+        return ImmutableList.copyOf(map.values());
+    }
+
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (Entry<Long, V> entry : map.entrySet()) {
+            long key = entry.getKey();
+            action.accept((int) (key >>> 32), (int) key, entry.getValue());
+        }
+    }
+
+    @Override
+    public List<V> row(int row) {
+        Preconditions.checkElementIndex(row, rowCount, "Row index");
+        return new Row<V>(this, row);
+    }
+
+    /**
+     * View onto a row, iterating over the occupied columns rather than searching for each column.
+     */
+    static class Row<V> extends Inner<V> {
+        private final ConcurrentSparseGrid<V> grid;
+        private final int row;
+
+        Row(ConcurrentSparseGrid<V> grid, int row) {
+            super(grid, grid.columnCount, row, true);
+            this.grid = grid;
+            this.row = row;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            Iterator<Entry<Long, V>> it = grid.map.subMap(key(row, 0), key(row + 1, 0)).entrySet().iterator();
+            return new Iterator<V>() {
+                private int column;
+                private Entry<Long, V> pending = (it.hasNext() ? it.next() : null);
+
+                @Override
+                public boolean hasNext() {
+                    return column < grid.columnCount;
+                }
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    V value = null;
+                    if (pending != null && (int) pending.getKey().longValue() == column) {
+                        value = pending.getValue();
+                        pending = (it.hasNext() ? it.next() : null);
+                    }
+                    column++;
+                    return value;
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        for (Long key : map.keySet()) {
+            removeKey(key);
+        }
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        putValue(row, column, value);
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        if (exists(row, column)) {
+            return removeKey(key(row, column));
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Puts a value into the grid if the row-column is empty, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to put, not null
+     * @return the existing value, null if the value was put
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public V putIfAbsent(int row, int column, V value) {
+        V existing = map.putIfAbsent(validKey(row, column, value), value);
+        if (existing == null) {
+            size.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Replaces the value at the row-column if there is an existing value, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to put, not null
+     * @return true if the value was replaced, false if the row-column was empty
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public boolean replace(int row, int column, V value) {
+        return map.replace(validKey(row, column, value), value) != null;
+    }
+
+    /**
+     * Replaces the value at the row-column if it equals the expected value, atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param expectedValue  the value expected to be present, not null
+     * @param newValue  the value to put, not null
+     * @return true if the value was replaced
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    public boolean replace(int row, int column, V expectedValue, V newValue) {
+        if (expectedValue == null) {
+            throw new IllegalArgumentException("Expected value must not be null");
+        }
+        return map.replace(validKey(row, column, newValue), expectedValue, newValue);
+    }
+
+    /**
+     * Computes the value at the row-column from the current value, atomically.
+     * <p>
+     * The function is passed the current value, or null if the row-column is empty.
+     * If the function returns null, the row-column is emptied.
+     * The update is applied only if the value has not been changed concurrently,
+     * otherwise the function is called again with the new value.
+     * As such, the function may be called more than once and should be free of side effects.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param remappingFunction  the function to compute the new value, not null
+     * @return the new value, null if the row-column is now empty
+     * @throws IndexOutOfBoundsException if either index is invalid
+     */
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        Long key = key(row, column);
+        while (true) {
+            V current = map.get(key);
+            V updated = remappingFunction.apply(current);
+            if (updated == current) {
+                return updated;
+            }
+            if (current == null) {
+                if (map.putIfAbsent(key, updated) == null) {
+                    size.increment();
+                    return updated;
+                }
+            } else if (updated == null) {
+                if (map.remove(key, current)) {
+                    size.decrement();
+                    return null;
+                }
+            } else if (map.replace(key, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    // packs the row and column
+    private static long key(int row, int column) {
+        return (((long) row) << 32) + column;
+    }
+
+    // validates the row-column and value, returning the key
+    private Long validKey(int row, int column, V value) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        return key(row, column);
+    }
+
+    // puts the value, returning the previous value
+    private V putValue(int row, int column, V value) {
+        V previous = map.put(validKey(row, column, value), value);
+        if (previous == null) {
+            size.increment();
+        }
+        return previous;
+    }
+
+    // removes the value at a key, returning true if removed
+    private boolean removeKey(long key) {
+        if (map.remove(key) != null) {
+            size.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("size counter", GridFootprint.object(8 + 4 + GridFootprint.REFERENCE));
+        // the map with its own counter, a head index and a base node
+        long node = GridFootprint.object(3 * GridFootprint.REFERENCE);
+        builder.add("map", GridFootprint.object(7 * GridFootprint.REFERENCE) +
+                GridFootprint.object(8 + 4 + GridFootprint.REFERENCE) + 2 * node);
+        // each cell has a node and a boxed key, with one index for every two nodes on average
+        int cells = size();
+        builder.add("nodes", cells * (node + GridFootprint.object(8)) + (cells / 2) * node);
+    }
+
+}
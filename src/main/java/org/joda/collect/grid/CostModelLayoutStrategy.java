@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+
+/**
+ * A layout strategy that chooses the layout with the lowest cost.
+ * <p>
+ * The memory cost uses the same estimates as {@link GridFootprint}.
+ * The lookup cost was measured using {@code GridReadBenchmark} in the benchmarks project.
+ * A dense lookup takes a constant time, whereas a sparse lookup is a binary search
+ * where each step is typically a cache miss on a large grid.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Stephen Colebourne
+ */
+final class CostModelLayoutStrategy implements GridLayoutStrategy, Serializable {
+
+    /**
+     * The default strategy, where one byte per cell is worth one nanosecond per lookup.
+     */
+    static final CostModelLayoutStrategy DEFAULT = new CostModelLayoutStrategy(1d);
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The nanoseconds taken by a dense lookup.
+     */
+    private static final double DENSE_LOOKUP_NANOS = 2d;
+    /**
+     * The nanoseconds taken by a sparse lookup, excluding the binary search.
+     */
+    private static final double SPARSE_LOOKUP_NANOS = 2d;
+    /**
+     * The nanoseconds taken by each step of a sparse binary search.
+     */
+    private static final double SPARSE_SEARCH_STEP_NANOS = 6d;
+
+    /**
+     * The weight of the lookup cost.
+     */
+    private final double lookupWeight;
+
+    /**
+     * Restricted constructor.
+     * 
+     * @param lookupWeight  the weight of the lookup cost
+     */
+    CostModelLayoutStrategy(double lookupWeight) {
+        if (!(lookupWeight >= 0) || Double.isInfinite(lookupWeight)) {
+            throw new IllegalArgumentException("Lookup weight must be zero or greater and finite");
+        }
+        this.lookupWeight = lookupWeight;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public <R> ImmutableGrid<R> copyOf(Grid<R> grid) {
+        if (isDense(grid.rowCount(), grid.columnCount(), grid.size())) {
+            return StandardLayoutStrategy.DENSE.copyOf(grid);
+        }
+        return StandardLayoutStrategy.SPARSE.copyOf(grid);
+    }
+
+    /**
+     * Checks if the dense layout has the lower cost.
+     * 
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param size  the number of cells, one or greater
+     * @return true if dense is cheaper
+     */
+    boolean isDense(int rowCount, int columnCount, int size) {
+        long capacity = ((long) rowCount) * columnCount;
+        if (capacity > Integer.MAX_VALUE - 8) {
+            return false;  // too large for an array
+        }
+        long denseBytes = GridFootprint.object(4 + 4 + 4 + GridFootprint.REFERENCE) +
+                GridFootprint.array(GridFootprint.REFERENCE, capacity);
+        long sparseBytes = GridFootprint.object(4 + 4 + 4 * GridFootprint.REFERENCE) +
+                GridFootprint.array(8, size) +
+                GridFootprint.array(GridFootprint.REFERENCE, size) +
+                size * GridFootprint.IMMUTABLE_CELL;
+        return isDense(denseBytes, sparseBytes, size);
+    }
+
+    /**
+     * Checks if the dense layout has the lower cost for a grid of primitive values.
+     * <p>
+     * The dense layout holds a primitive array and an occupancy bitmap,
+     * while the sparse layout holds sorted keys and values in parallel arrays.
+     * 
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param size  the number of cells, zero or greater
+     * @param valueBytes  the size of each primitive value
+     * @return true if dense is cheaper
+     */
+    boolean isDensePrimitive(int rowCount, int columnCount, int size, int valueBytes) {
+        long capacity = ((long) rowCount) * columnCount;
+        if (size == 0 || capacity > Integer.MAX_VALUE - 8) {
+            return false;  // empty or too large for an array
+        }
+        long denseBytes = GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE) +
+                GridFootprint.array(valueBytes, capacity) +
+                GridFootprint.array(8, Bitmaps.wordCount((int) capacity));
+        long sparseBytes = GridFootprint.object(4 + 4 + 2 * GridFootprint.REFERENCE) +
+                GridFootprint.array(8, size) +
+                GridFootprint.array(valueBytes, size);
+        return isDense(denseBytes, sparseBytes, size);
+    }
+
+    // compares the cost per cell of the two layouts
+    private boolean isDense(long denseBytes, long sparseBytes, int size) {
+        double steps = 32 - Integer.numberOfLeadingZeros(size);
+        double denseCost = ((double) denseBytes) / size + lookupWeight * DENSE_LOOKUP_NANOS;
+        double sparseCost = ((double) sparseBytes) / size +
+                lookupWeight * (SPARSE_LOOKUP_NANOS + steps * SPARSE_SEARCH_STEP_NANOS);
+        return denseCost <= sparseCost;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CostModelLayoutStrategy) {
+            return Double.compare(lookupWeight, ((CostModelLayoutStrategy) obj).lookupWeight) == 0;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(lookupWeight);
+    }
+
+    @Override
+    public String toString() {
+        return "CostModel[lookupWeight=" + lookupWeight + "]";
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.joda.collect.grid.Grid.Cell;
+
+/**
+ * A spliterator over the cells of a dense grid, splitting on ranges of the values array.
+ * <p>
+ * Each cell is created as an {@code ImmutableCell}, thus cells may be retained and processed
+ * in parallel, unlike the flyweight cells of the iterator.
+ * <p>
+ * An immutable array is split on the boundaries of blocks of {@link #BLOCK} indexes.
+ * The cumulative number of cells before each block is calculated once, on the first split,
+ * thus the size of every range is exact, {@code SIZED} and {@code SUBSIZED}.
+ * A range within a single block is not split.
+ * <p>
+ * The size of a mutable array is only an estimate, and the array may change while splitting.
+ * Splitting divides the estimated size in proportion to the ranges.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+final class DenseCellSpliterator<V> implements Spliterator<Cell<V>> {
+
+    /**
+     * The number of indexes in each block of an immutable array.
+     */
+    static final int BLOCK = 1 << 10;
+
+    /**
+     * The values, null where not occupied.
+     */
+    private final Object[] values;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The end index, exclusive.
+     */
+    private final int end;
+    /**
+     * The cumulative number of cells before each block, null if the array is mutable.
+     */
+    private final Supplier<int[]> blockCounts;
+    /**
+     * The characteristics.
+     */
+    private final int characteristics;
+    /**
+     * The current index.
+     */
+    private int index;
+    /**
+     * The number of cells remaining, exact if {@code SIZED}, otherwise an estimate.
+     */
+    private long remaining;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a spliterator over the whole of a mutable array.
+     * 
+     * @param <V> the type of the value
+     * @param values  the values, null where not occupied, not null
+     * @param columnCount  the number of columns
+     * @param size  the estimated number of non-null values
+     * @return the spliterator, not null
+     */
+    static <V> DenseCellSpliterator<V> ofMutable(Object[] values, int columnCount, int size) {
+        int characteristics = ORDERED | DISTINCT | NONNULL;
+        return new DenseCellSpliterator<V>(values, columnCount, 0, values.length, size, null, characteristics);
+    }
+
+    /**
+     * Creates a spliterator over the whole of an immutable array.
+     * <p>
+     * The block counts are obtained on the first split, and must be the result
+     * of {@link #countBlocks(Object[])} for the same array.
+     * 
+     * @param <V> the type of the value
+     * @param values  the values, null where not occupied, not null
+     * @param columnCount  the number of columns
+     * @param size  the exact number of non-null values
+     * @param blockCounts  the supplier of the cumulative block counts, not null
+     * @return the spliterator, not null
+     */
+    static <V> DenseCellSpliterator<V> ofImmutable(
+            Object[] values, int columnCount, int size, Supplier<int[]> blockCounts) {
+        int characteristics = ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED | IMMUTABLE;
+        return new DenseCellSpliterator<V>(values, columnCount, 0, values.length, size, blockCounts, characteristics);
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    private DenseCellSpliterator(
+            Object[] values,
+            int columnCount,
+            int index,
+            int end,
+            long remaining,
+            Supplier<int[]> blockCounts,
+            int characteristics) {
+        this.values = values;
+        this.columnCount = columnCount;
+        this.index = index;
+        this.end = end;
+        this.remaining = remaining;
+        this.blockCounts = blockCounts;
+        this.characteristics = characteristics;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Counts the cells of an array in blocks.
+     * <p>
+     * The result has one element per block plus one, where element {@code n}
+     * is the number of non-null values before block {@code n}.
+     * The last element is thus the total number of non-null values.
+     * 
+     * @param values  the values, null where not occupied, not null
+     * @return the cumulative counts, not null
+     */
+    static int[] countBlocks(Object[] values) {
+        int[] cumulative = new int[blockIndex(values.length) + 1];
+        int count = 0;
+        for (int block = 0; block < cumulative.length - 1; block++) {
+            int blockEnd = (int) Math.min(values.length, (block + 1L) * BLOCK);
+            for (int i = block * BLOCK; i < blockEnd; i++) {
+                if (values[i] != null) {
+                    count++;
+                }
+            }
+            cumulative[block + 1] = count;
+        }
+        return cumulative;
+    }
+
+    // the index of the block starting at or after the index
+    private static int blockIndex(int index) {
+        return (int) ((index + (long) BLOCK - 1) / BLOCK);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean tryAdvance(Consumer<? super Cell<V>> action) {
+        if (action == null) {
+            throw new NullPointerException("Action must not be null");
+        }
+        while (index < end) {
+            int current = index++;
+            @SuppressWarnings("unchecked")
+            V value = (V) values[current];
+            if (value != null) {
+                if (remaining > 0) {
+                    remaining--;
+                }
+                action.accept(ImmutableCell.of(current / columnCount, current % columnCount, value));
+                return true;
+            }
+        }
+        remaining = 0;
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Cell<V>> action) {
+        if (action == null) {
+            throw new NullPointerException("Action must not be null");
+        }
+        int current = index;
+        index = end;
+        remaining = 0;
+        for ( ; current < end; current++) {
+            @SuppressWarnings("unchecked")
+            V value = (V) values[current];
+            if (value != null) {
+                action.accept(ImmutableCell.of(current / columnCount, current % columnCount, value));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<Cell<V>> trySplit() {
+        int start = index;
+        if (blockCounts != null) {
+            return trySplitBlocks(start);
+        }
+        int mid = (start + end) >>> 1;
+        if (mid <= start) {
+            return null;
+        }
+        // the sizes of the split ranges are only known in proportion
+        long prefixRemaining = remaining * (mid - start) / (end - start);
+        remaining -= prefixRemaining;
+        index = mid;
+        return new DenseCellSpliterator<V>(values, columnCount, start, mid, prefixRemaining, null, characteristics);
+    }
+
+    // splits an immutable array on a block boundary, where the size of each range is exact
+    // the end is always a block boundary or the end of the array
+    private Spliterator<Cell<V>> trySplitBlocks(int start) {
+        int mid = (((start + end) >>> 1) / BLOCK) * BLOCK;
+        if (mid <= start) {
+            return null;
+        }
+        int[] cumulative = blockCounts.get();
+        long suffixRemaining = cumulative[blockIndex(end)] - cumulative[mid / BLOCK];
+        long prefixRemaining = remaining - suffixRemaining;
+        remaining = suffixRemaining;
+        index = mid;
+        return new DenseCellSpliterator<V>(
+                values, columnCount, start, mid, prefixRemaining, blockCounts, characteristics);
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+}
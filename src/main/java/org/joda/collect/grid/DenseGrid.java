@@ -23,6 +23,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -84,9 +89,19 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         if (grid == null) {
             throw new IllegalArgumentException("Grid must not be null");
         }
+        if (grid instanceof DenseGrid) {
+            DenseGrid<V> dense = (DenseGrid<V>) grid;
+            return new DenseGrid<V>(dense.rowCount, dense.columnCount, dense.size, dense.values.clone());
+        }
         if (grid instanceof DenseImmutableGrid) {
             return new DenseGrid<V>((DenseImmutableGrid<V>) grid);
         }
+        if (grid instanceof SparseImmutableGrid) {
+            DenseGrid<V> created = DenseGrid.create(grid.rowCount(), grid.columnCount());
+            ((SparseImmutableGrid<? extends V>) grid).copyInto(created.values);
+            created.size = grid.size();
+            return created;
+        }
         DenseGrid<V> created = DenseGrid.create(grid.rowCount(), grid.columnCount());
         created.putAll(grid);
         return created;
@@ -140,6 +155,16 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         this.values = (V[]) new Object[rowCount * columnCount];
     }
 
+    /**
+     * Restricted constructor.
+     */
+    private DenseGrid(int rowCount, int columnCount, int size, V[] values) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.values = values;
+    }
+
     /**
      * Restricted constructor.
      */
@@ -227,6 +252,11 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
             return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
         }
 
+        @Override
+        public Spliterator<Cell<V>> spliterator() {
+            return DenseCellSpliterator.ofMutable(grid.values, grid.columnCount, grid.size);
+        }
+
         @Override
         public Iterator<Cell<V>> iterator() {
             return new Iterator<Cell<V>>() {
@@ -289,6 +319,23 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         }
     }
 
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                V value = values[index++];
+                if (value != null) {
+                    action.accept(row, column, value);
+                }
+            }
+        }
+    }
+
     //-----------------------------------------------------------------------
     @Override
     @SuppressWarnings("unchecked")
@@ -307,7 +354,7 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
     @Override
     public List<V> row(int row) {
         Preconditions.checkElementIndex(row, rowCount(), "Row index");
-        int base = row * rowCount;
+        int base = row * columnCount;
         return new Inner<V>(this, base, columnCount, 1);
     }
 
@@ -327,6 +374,42 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         return new Outer<V>(this, columnCount, 1, rowCount, columnCount);
     }
 
+    @Override
+    public Stream<List<Cell<V>>> rowStream() {
+        return IntStream.range(0, rowCount)
+                .mapToObj(row -> occupiedCells(values, columnCount, row * columnCount, columnCount, 1))
+                .filter(cells -> !cells.isEmpty());
+    }
+
+    @Override
+    public Stream<List<Cell<V>>> columnStream() {
+        return IntStream.range(0, columnCount)
+                .mapToObj(column -> occupiedCells(values, columnCount, column, rowCount, columnCount))
+                .filter(cells -> !cells.isEmpty());
+    }
+
+    /**
+     * Creates the list of occupied cells in a row or column of a values array.
+     * 
+     * @param <V> the type of the value
+     * @param values  the values, null where not occupied, not null
+     * @param columnCount  the number of columns
+     * @param base  the index of the first value
+     * @param size  the number of values to check
+     * @param gap  the gap between values
+     * @return the cells, not null
+     */
+    static <V> List<Cell<V>> occupiedCells(V[] values, int columnCount, int base, int size, int gap) {
+        ImmutableList.Builder<Cell<V>> builder = ImmutableList.builder();
+        for (int i = 0, index = base; i < size; i++, index += gap) {
+            V value = values[index];
+            if (value != null) {
+                builder.add(ImmutableCell.of(index / columnCount, index % columnCount, value));
+            }
+        }
+        return builder.build();
+    }
+
     static class Outer<V> extends AbstractList<List<V>> {
         private final DenseGrid<V> grid;
         private final int size;
@@ -422,9 +505,11 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         if (grid == null) {
             throw new IllegalArgumentException("Grid must nor be null");
         }
+        GridOperationEvent event = GridOperationEvent.start();
         for (Cell<? extends V> cell : grid.cells()) {
             put(cell.getRow(), cell.getColumn(), cell.getValue());
         }
+        event.end("putAll", grid);
     }
 
     @Override
@@ -438,7 +523,72 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         return false;
     }
 
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        int index = row * columnCount + column;
+        V current = values[index];
+        V updated = remappingFunction.apply(current);
+        values[index] = updated;
+        if (current == null && updated != null) {
+            size++;
+        } else if (current != null && updated == null) {
+            size--;
+        }
+        return updated;
+    }
+
     //-----------------------------------------------------------------------
+    /**
+     * Returns an immutable grid with the same layout where each value is mapped.
+     * 
+     * @param <R> the type of the mapped value
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    <R> DenseImmutableGrid<R> mapValues(Function<? super V, ? extends R> mapper) {
+        return DenseImmutableGrid.map(rowCount, columnCount, values, mapper);
+    }
+
+    /**
+     * Returns an immutable grid with the same layout where each value is mapped to a {@code double}.
+     * 
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    DenseImmutableDoubleGrid mapValuesToDouble(ToDoubleFunction<? super V> mapper) {
+        return DenseImmutableGrid.mapToDouble(rowCount, columnCount, values, mapper);
+    }
+
+    /**
+     * Checks if this grid has the specified counts and values.
+     * 
+     * @param otherRowCount  the number of rows of the other grid
+     * @param otherColumnCount  the number of columns of the other grid
+     * @param otherValues  the values of the other dense grid, null where not occupied, not null
+     * @param parallel  whether to compare large arrays in parallel
+     * @return true if equal
+     */
+    boolean equalsValues(int otherRowCount, int otherColumnCount, Object[] otherValues, boolean parallel) {
+        return rowCount == otherRowCount &&
+                columnCount == otherColumnCount &&
+                DenseGrid.valuesEqual(values, otherValues, parallel);
+    }
+
+    /**
+     * Returns a sparse immutable copy of this grid.
+     * 
+     * @return the sparse grid, not null
+     */
+    SparseImmutableGrid<V> toSparse() {
+        return SparseImmutableGrid.fromDense(rowCount, columnCount, values);
+    }
+
     /**
      * Returns a clone of the internal array.
      * 
@@ -448,31 +598,115 @@ public final class DenseGrid<V> extends AbstractGrid<V> implements Serializable
         return values.clone();
     }
 
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(GridFootprint.REFERENCE, values.length));
+    }
+
     //-----------------------------------------------------------------------
     @Override
     public boolean equals(Object obj) {
+        return equals(obj, false);
+    }
+
+    /**
+     * Checks if this grid equals another object, optionally in parallel.
+     * 
+     * @param obj  the object to compare to, null returns false
+     * @param parallel  whether to compare large grids in parallel
+     * @return true if equal
+     */
+    boolean equals(Object obj, boolean parallel) {
         if (obj == this) {
             return true;
         }
-        if (obj instanceof DenseGrid) {
-            DenseGrid<?> other = (DenseGrid<?>) obj;
-            return Arrays.equals(values, other.values);
+        if (obj instanceof DenseGrid || obj instanceof DenseImmutableGrid) {
+            // any pair of dense layouts is compared using the values arrays
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = (obj instanceof DenseGrid ?
+                    ((DenseGrid<?>) obj).equalsValues(rowCount, columnCount, values, parallel) :
+                    ((DenseImmutableGrid<?>) obj).equalsValues(rowCount, columnCount, values, parallel));
+            event.end("equals", this);
+            return equal;
         }
         return super.equals(obj);
     }
 
     @Override
     public int hashCode() {
-        int hash = 0;
-        for (int i = 0; i < values.length; i++) {
-            Object value = values[i];
-            if (value != null) {
-                int row = i / columnCount;
-                int column = i % columnCount;
-                hash += (row ^ Integer.rotateLeft(column, 16) ^ value.hashCode());
-            }
+        return hashCode(false);
+    }
+
+    /**
+     * Calculates the hash code, optionally in parallel.
+     * 
+     * @param parallel  whether to calculate the hash code of large grids in parallel
+     * @return the hash code
+     */
+    int hashCode(boolean parallel) {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = DenseGrid.hash(rowCount, columnCount, values, parallel);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+    /**
+     * Checks if two values arrays are equal.
+     * <p>
+     * The check stops as soon as a difference is found.
+     * 
+     * @param values  the values, null where not occupied, not null
+     * @param otherValues  the other values, null where not occupied, not null
+     * @param parallel  whether to compare large arrays in parallel
+     * @return true if equal
+     */
+    static boolean valuesEqual(Object[] values, Object[] otherValues, boolean parallel) {
+        if (values.length != otherValues.length) {
+            return false;
+        }
+        if (!parallel) {
+            return Arrays.equals(values, otherValues);
         }
-        return rowCount ^ Integer.rotateLeft(columnCount, 16) ^ hash;
+        return ParallelRanges.allMatch(
+                values.length, (from, to) -> Arrays.equals(values, from, to, otherValues, from, to));
+    }
+
+    /**
+     * Calculates the hash code of a grid from its values array.
+     * <p>
+     * The result is the hash code specified by {@link Grid#hashCode()}.
+     * The row and column are tracked while scanning, rather than derived from each index.
+     * 
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param values  the values, null where not occupied, not null
+     * @param parallel  whether to scan large arrays in parallel
+     * @return the hash code
+     */
+    static int hash(int rowCount, int columnCount, Object[] values, boolean parallel) {
+        ParallelRanges.RangeFunction function = (from, to) -> {
+            if (from == to) {
+                return 0;
+            }
+            int hash = 0;
+            int row = from / columnCount;
+            int column = from % columnCount;
+            for (int i = from; i < to; i++) {
+                Object value = values[i];
+                if (value != null) {
+                    hash += (row ^ Integer.rotateLeft(column, 16) ^ value.hashCode());
+                }
+                if (++column == columnCount) {
+                    column = 0;
+                    row++;
+                }
+            }
+            return hash;
+        };
+        long cellsHash = (parallel ? ParallelRanges.sum(values.length, function) : function.apply(0, values.length));
+        // the sum of the chunks wraps to the same int as a sequential sum
+        return ((int) cellsHash) ^ rowCount ^ Integer.rotateLeft(columnCount, 16);
     }
 
 }
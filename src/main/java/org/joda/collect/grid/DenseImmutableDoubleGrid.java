@@ -0,0 +1,308 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable implementation of the {@code DoubleGrid} data structure based on a primitive array.
+ * <p>
+ * This uses 8 bytes of memory for each possible combination of row and column,
+ * plus one bit to indicate whether the row-column is occupied.
+ * 
+ * @author Stephen Colebourne
+ */
+final class DenseImmutableDoubleGrid extends ImmutableDoubleGrid implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final int size;
+    /**
+     * The values, zero where not occupied.
+     */
+    private final double[] values;
+    /**
+     * The occupied row-columns.
+     */
+    private final long[] occupied;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code DenseImmutableDoubleGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    static DenseImmutableDoubleGrid create(Grid<? extends Double> grid) {
+        if (grid instanceof DenseDoubleGrid) {
+            DenseDoubleGrid dense = (DenseDoubleGrid) grid;
+            return new DenseImmutableDoubleGrid(
+                    dense.rowCount(), dense.columnCount(), dense.size(), dense.valuesArray(), dense.occupiedArray());
+        }
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        validateCounts(rowCount, columnCount);
+        double[] values = new double[rowCount * columnCount];
+        long[] occupied = new long[Bitmaps.wordCount(values.length)];
+        for (Cell<? extends Double> cell : grid.cells()) {
+            int index = cell.getRow() * columnCount + cell.getColumn();
+            values[index] = cell.getValue();
+            Bitmaps.set(occupied, index);
+        }
+        return new DenseImmutableDoubleGrid(rowCount, columnCount, grid.size(), values, occupied);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    DenseImmutableDoubleGrid(int rowCount, int columnCount, int size, double[] values, long[] occupied) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.values = values;
+        this.occupied = occupied;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(occupied, row * columnCount + column);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Double) {
+            double find = (Double) valueToFind;
+            for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+                if (Double.compare(values[i], find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Double get(int row, int column) {
+        if (contains(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return null;
+    }
+
+    @Override
+    public double getDouble(int row, int column) {
+        // values that are not occupied are zero
+        if (exists(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return 0;
+    }
+
+    @Override
+    public double getDouble(int row, int column, double defaultValue) {
+        if (contains(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public Cell<Double> cell(int row, int column) {
+        if (contains(row, column)) {
+            return ImmutableCell.of(row, column, (Double) values[row * columnCount + column]);
+        }
+        return null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<Double>> cells() {
+        return new Cells(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells extends AbstractSet<Cell<Double>> {
+        private final DenseImmutableDoubleGrid grid;
+
+        Cells(DenseImmutableDoubleGrid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<Double>> iterator() {
+            return new Iterator<Cell<Double>>() {
+                private MutableCell<Double> cell = new MutableCell<Double>();
+                private int next = Bitmaps.nextSetBit(grid.occupied, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                @Override
+                public Cell<Double> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    int current = next;
+                    next = Bitmaps.nextSetBit(grid.occupied, current + 1);
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.values[current]);
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Immutable");
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super Double> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            action.accept(i / columnCount, i % columnCount, values[i]);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<Double> values() {
+        Double[] array = new Double[size];
+        int index = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            array[index++] = values[i];
+        }
+        return ImmutableList.copyOf(array);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a clone of the internal values array.
+     * 
+     * @return the array, not null
+     */
+    double[] valuesArray() {
+        return values.clone();
+    }
+
+    /**
+     * Returns a clone of the internal occupancy bitmap.
+     * 
+     * @return the array, not null
+     */
+    long[] occupiedArray() {
+        return occupied.clone();
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(8, values.length));
+        builder.add("occupancy bitmap", GridFootprint.array(8, occupied.length));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof DenseImmutableDoubleGrid) {
+            DenseImmutableDoubleGrid other = (DenseImmutableDoubleGrid) obj;
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = rowCount == other.rowCount &&
+                    columnCount == other.columnCount &&
+                    Arrays.equals(occupied, other.occupied) &&
+                    Arrays.equals(values, other.values);
+            event.end("equals", this);
+            return equal;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            int row = i / columnCount;
+            int column = i % columnCount;
+            hash += (row ^ Integer.rotateLeft(column, 16) ^ Double.hashCode(values[i]));
+        }
+        hash ^= rowCount ^ Integer.rotateLeft(columnCount, 16);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+}
@@ -18,11 +18,15 @@ package org.joda.collect.grid;
 import java.io.Serializable;
 import java.util.AbstractList;
 import java.util.AbstractSet;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -58,6 +62,10 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
      * The values.
      */
     private final V[] values;
+    /**
+     * The cumulative number of cells before each block of the values, calculated when first split.
+     */
+    private transient volatile int[] blockCounts;
 
     //-----------------------------------------------------------------------
     /**
@@ -76,12 +84,86 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
         int columnCount = grid.columnCount();
         validateCounts(rowCount, columnCount);
         V[] values = (V[]) new Object[rowCount * columnCount];
-        for (Cell<? extends V> cell : grid.cells()) {
-            values[cell.getRow() * columnCount + cell.getColumn()] = cell.getValue();
+        if (grid instanceof SparseImmutableGrid) {
+            ((SparseImmutableGrid<? extends V>) grid).copyInto(values);
+        } else if (grid instanceof SparseGrid) {
+            // the tree is walked once, then the values are copied in parallel if large
+            SparseImmutableGrid.create((SparseGrid<? extends V>) grid).copyInto(values);
+        } else {
+            for (Cell<? extends V> cell : grid.cells()) {
+                values[cell.getRow() * columnCount + cell.getColumn()] = cell.getValue();
+            }
         }
         return new DenseImmutableGrid<V>(rowCount, columnCount, grid.size(), values);
     }
 
+    /**
+     * Creates a {@code DenseImmutableGrid} by mapping a values array.
+     * <p>
+     * Large arrays are mapped in parallel.
+     * 
+     * @param <V> the type of the source value
+     * @param <R> the type of the mapped value
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param source  the values to map, null where not occupied, not altered, not null
+     * @param mapper  the function to map each value, null results leave the row-column empty, not null
+     * @return the mapped grid, not null
+     */
+    @SuppressWarnings("unchecked")
+    static <V, R> DenseImmutableGrid<R> map(
+            int rowCount, int columnCount, V[] source, Function<? super V, ? extends R> mapper) {
+
+        R[] values = (R[]) new Object[source.length];
+        long size = ParallelRanges.sum(source.length, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                V value = source[i];
+                if (value != null) {
+                    R mapped = mapper.apply(value);
+                    values[i] = mapped;
+                    if (mapped != null) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+        return new DenseImmutableGrid<R>(rowCount, columnCount, (int) size, values);
+    }
+
+    /**
+     * Creates a {@code DenseImmutableDoubleGrid} by mapping a values array.
+     * <p>
+     * Large arrays are mapped in parallel.
+     * 
+     * @param <V> the type of the source value
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param source  the values to map, null where not occupied, not altered, not null
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    static <V> DenseImmutableDoubleGrid mapToDouble(
+            int rowCount, int columnCount, V[] source, ToDoubleFunction<? super V> mapper) {
+
+        double[] values = new double[source.length];
+        long[] occupied = new long[Bitmaps.wordCount(source.length)];
+        long size = ParallelRanges.sum(source.length, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                V value = source[i];
+                if (value != null) {
+                    values[i] = mapper.applyAsDouble(value);
+                    Bitmaps.set(occupied, i);
+                    count++;
+                }
+            }
+            return count;
+        });
+        return new DenseImmutableDoubleGrid(rowCount, columnCount, (int) size, values, occupied);
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Restricted constructor.
@@ -104,6 +186,56 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
         this.values = grid.valuesArray();
     }
 
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a grid with the same layout where each value is mapped.
+     * 
+     * @param <R> the type of the mapped value
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    <R> DenseImmutableGrid<R> mapValues(Function<? super V, ? extends R> mapper) {
+        return map(rowCount, columnCount, values, mapper);
+    }
+
+    /**
+     * Returns a grid with the same layout where each value is mapped to a {@code double}.
+     * 
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    DenseImmutableDoubleGrid mapValuesToDouble(ToDoubleFunction<? super V> mapper) {
+        return mapToDouble(rowCount, columnCount, values, mapper);
+    }
+
+    /**
+     * Returns a grid based on this one with the specified changes applied.
+     * <p>
+     * The values array is cloned and the changes written into the clone.
+     * 
+     * @param changeKeys  the packed row-columns to change, validated, not null
+     * @param changeValues  the new values, null to remove, not null
+     * @return the updated grid, not null
+     */
+    @SuppressWarnings("unchecked")
+    DenseImmutableGrid<V> withChanges(long[] changeKeys, Object[] changeValues) {
+        V[] newValues = values.clone();
+        int newSize = size;
+        for (int i = 0; i < changeKeys.length; i++) {
+            long key = changeKeys[i];
+            int index = ((int) (key >>> 32)) * columnCount + (int) key;
+            V old = newValues[index];
+            V value = (V) changeValues[i];
+            newValues[index] = value;
+            if (old == null && value != null) {
+                newSize++;
+            } else if (old != null && value == null) {
+                newSize--;
+            }
+        }
+        return new DenseImmutableGrid<V>(rowCount, columnCount, newSize, newValues);
+    }
+
     //-----------------------------------------------------------------------
     @Override
     public int rowCount() {
@@ -181,6 +313,11 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
             return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
         }
 
+        @Override
+        public Spliterator<Cell<V>> spliterator() {
+            return DenseCellSpliterator.ofImmutable(grid.values, grid.columnCount, grid.size, grid::blockCounts);
+        }
+
         @Override
         public Iterator<Cell<V>> iterator() {
             return new Iterator<Cell<V>>() {
@@ -216,6 +353,23 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
         }
     }
 
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                V value = values[index++];
+                if (value != null) {
+                    action.accept(row, column, value);
+                }
+            }
+        }
+    }
+
     //-----------------------------------------------------------------------
     @Override
     @SuppressWarnings("unchecked")
@@ -234,7 +388,7 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
     @Override
     public List<V> row(int row) {
         Preconditions.checkElementIndex(row, rowCount(), "Row index");
-        int base = row * rowCount;
+        int base = row * columnCount;
         return new Inner<V>(this, base, columnCount, 1);
     }
 
@@ -254,6 +408,20 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
         return new Outer<V>(this, columnCount, 1, rowCount, columnCount);
     }
 
+    @Override
+    public Stream<List<Cell<V>>> rowStream() {
+        return IntStream.range(0, rowCount)
+                .mapToObj(row -> DenseGrid.occupiedCells(values, columnCount, row * columnCount, columnCount, 1))
+                .filter(cells -> !cells.isEmpty());
+    }
+
+    @Override
+    public Stream<List<Cell<V>>> columnStream() {
+        return IntStream.range(0, columnCount)
+                .mapToObj(column -> DenseGrid.occupiedCells(values, columnCount, column, rowCount, columnCount))
+                .filter(cells -> !cells.isEmpty());
+    }
+
     static class Outer<V> extends AbstractList<List<V>> {
         private final DenseImmutableGrid<V> grid;
         private final int size;
@@ -309,6 +477,47 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
     }
 
     //-----------------------------------------------------------------------
+    /**
+     * Checks if this grid has the specified counts and values.
+     * 
+     * @param otherRowCount  the number of rows of the other grid
+     * @param otherColumnCount  the number of columns of the other grid
+     * @param otherValues  the values of the other dense grid, null where not occupied, not null
+     * @param parallel  whether to compare large arrays in parallel
+     * @return true if equal
+     */
+    boolean equalsValues(int otherRowCount, int otherColumnCount, Object[] otherValues, boolean parallel) {
+        return rowCount == otherRowCount &&
+                columnCount == otherColumnCount &&
+                DenseGrid.valuesEqual(values, otherValues, parallel);
+    }
+
+    /**
+     * Returns a sparse immutable copy of this grid.
+     * 
+     * @return the sparse grid, not null
+     */
+    SparseImmutableGrid<V> toSparse() {
+        return SparseImmutableGrid.fromDense(rowCount, columnCount, values);
+    }
+
+    /**
+     * Gets the cumulative number of cells before each block of the values, used to split the cells.
+     * <p>
+     * The counts are calculated once and cached.
+     * 
+     * @return the cumulative block counts, not null
+     */
+    int[] blockCounts() {
+        int[] counts = blockCounts;
+        if (counts == null) {
+            // racing threads calculate the same counts, thus the race is harmless
+            counts = DenseCellSpliterator.countBlocks(values);
+            blockCounts = counts;
+        }
+        return counts;
+    }
+
     /**
      * Returns a clone of the internal array.
      * 
@@ -318,31 +527,57 @@ final class DenseImmutableGrid<V> extends ImmutableGrid<V> implements Serializab
         return values.clone();
     }
 
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(GridFootprint.REFERENCE, values.length));
+    }
+
     //-----------------------------------------------------------------------
     @Override
     public boolean equals(Object obj) {
+        return equals(obj, false);
+    }
+
+    /**
+     * Checks if this grid equals another object, optionally in parallel.
+     * 
+     * @param obj  the object to compare to, null returns false
+     * @param parallel  whether to compare large grids in parallel
+     * @return true if equal
+     */
+    boolean equals(Object obj, boolean parallel) {
         if (obj == this) {
             return true;
         }
-        if (obj instanceof DenseImmutableGrid) {
-            DenseImmutableGrid<?> other = (DenseImmutableGrid<?>) obj;
-            return Arrays.equals(values, other.values);
+        if (obj instanceof DenseGrid || obj instanceof DenseImmutableGrid) {
+            // any pair of dense layouts is compared using the values arrays
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = (obj instanceof DenseGrid ?
+                    ((DenseGrid<?>) obj).equalsValues(rowCount, columnCount, values, parallel) :
+                    ((DenseImmutableGrid<?>) obj).equalsValues(rowCount, columnCount, values, parallel));
+            event.end("equals", this);
+            return equal;
         }
         return super.equals(obj);
     }
 
     @Override
     public int hashCode() {
-        int hash = 0;
-        for (int i = 0; i < values.length; i++) {
-            Object value = values[i];
-            if (value != null) {
-                int row = i / columnCount;
-                int column = i % columnCount;
-                hash += (row ^ Integer.rotateLeft(column, 16) ^ value.hashCode());
-            }
-        }
-        return rowCount ^ Integer.rotateLeft(columnCount, 16) ^ hash;
+        return hashCode(false);
+    }
+
+    /**
+     * Calculates the hash code, optionally in parallel.
+     * 
+     * @param parallel  whether to calculate the hash code of large grids in parallel
+     * @return the hash code
+     */
+    int hashCode(boolean parallel) {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = DenseGrid.hash(rowCount, columnCount, values, parallel);
+        event.end("hashCode", this);
+        return hash;
     }
 
 }
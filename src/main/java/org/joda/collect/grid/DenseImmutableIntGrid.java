@@ -0,0 +1,308 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable implementation of the {@code IntGrid} data structure based on a primitive array.
+ * <p>
+ * This uses 4 bytes of memory for each possible combination of row and column,
+ * plus one bit to indicate whether the row-column is occupied.
+ * 
+ * @author Stephen Colebourne
+ */
+final class DenseImmutableIntGrid extends ImmutableIntGrid implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final int size;
+    /**
+     * The values, zero where not occupied.
+     */
+    private final int[] values;
+    /**
+     * The occupied row-columns.
+     */
+    private final long[] occupied;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code DenseImmutableIntGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    static DenseImmutableIntGrid create(Grid<? extends Integer> grid) {
+        if (grid instanceof DenseIntGrid) {
+            DenseIntGrid dense = (DenseIntGrid) grid;
+            return new DenseImmutableIntGrid(
+                    dense.rowCount(), dense.columnCount(), dense.size(), dense.valuesArray(), dense.occupiedArray());
+        }
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        validateCounts(rowCount, columnCount);
+        int[] values = new int[rowCount * columnCount];
+        long[] occupied = new long[Bitmaps.wordCount(values.length)];
+        for (Cell<? extends Integer> cell : grid.cells()) {
+            int index = cell.getRow() * columnCount + cell.getColumn();
+            values[index] = cell.getValue();
+            Bitmaps.set(occupied, index);
+        }
+        return new DenseImmutableIntGrid(rowCount, columnCount, grid.size(), values, occupied);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    DenseImmutableIntGrid(int rowCount, int columnCount, int size, int[] values, long[] occupied) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.values = values;
+        this.occupied = occupied;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(occupied, row * columnCount + column);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Integer) {
+            int find = (Integer) valueToFind;
+            for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+                if (Integer.compare(values[i], find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Integer get(int row, int column) {
+        if (contains(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return null;
+    }
+
+    @Override
+    public int getInt(int row, int column) {
+        // values that are not occupied are zero
+        if (exists(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return 0;
+    }
+
+    @Override
+    public int getInt(int row, int column, int defaultValue) {
+        if (contains(row, column)) {
+            return values[row * columnCount + column];
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public Cell<Integer> cell(int row, int column) {
+        if (contains(row, column)) {
+            return ImmutableCell.of(row, column, (Integer) values[row * columnCount + column]);
+        }
+        return null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<Integer>> cells() {
+        return new Cells(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells extends AbstractSet<Cell<Integer>> {
+        private final DenseImmutableIntGrid grid;
+
+        Cells(DenseImmutableIntGrid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<Integer>> iterator() {
+            return new Iterator<Cell<Integer>>() {
+                private MutableCell<Integer> cell = new MutableCell<Integer>();
+                private int next = Bitmaps.nextSetBit(grid.occupied, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                @Override
+                public Cell<Integer> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    int current = next;
+                    next = Bitmaps.nextSetBit(grid.occupied, current + 1);
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.values[current]);
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Immutable");
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super Integer> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            action.accept(i / columnCount, i % columnCount, values[i]);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<Integer> values() {
+        Integer[] array = new Integer[size];
+        int index = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            array[index++] = values[i];
+        }
+        return ImmutableList.copyOf(array);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a clone of the internal values array.
+     * 
+     * @return the array, not null
+     */
+    int[] valuesArray() {
+        return values.clone();
+    }
+
+    /**
+     * Returns a clone of the internal occupancy bitmap.
+     * 
+     * @return the array, not null
+     */
+    long[] occupiedArray() {
+        return occupied.clone();
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(4, values.length));
+        builder.add("occupancy bitmap", GridFootprint.array(8, occupied.length));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof DenseImmutableIntGrid) {
+            DenseImmutableIntGrid other = (DenseImmutableIntGrid) obj;
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = rowCount == other.rowCount &&
+                    columnCount == other.columnCount &&
+                    Arrays.equals(occupied, other.occupied) &&
+                    Arrays.equals(values, other.values);
+            event.end("equals", this);
+            return equal;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            int row = i / columnCount;
+            int column = i % columnCount;
+            hash += (row ^ Integer.rotateLeft(column, 16) ^ Integer.hashCode(values[i]));
+        }
+        hash ^= rowCount ^ Integer.rotateLeft(columnCount, 16);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Arrays;
+
+/**
+ * Mutable implementation of the {@code IntGrid} data structure based on a primitive array.
+ * <p>
+ * This uses 4 bytes of memory for each possible combination of row and column,
+ * plus one bit to indicate whether the row-column is occupied.
+ * The values are held in row-major order, as per {@link DenseGrid}.
+ * 
+ * @author Stephen Colebourne
+ */
+public final class DenseIntGrid extends AbstractDensePrimitiveGrid<Integer> implements IntGrid {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The values, zero where not occupied.
+     */
+    private final int[] values;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code DenseIntGrid} of the specified size.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static DenseIntGrid create(int rowCount, int columnCount) {
+        return new DenseIntGrid(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code DenseIntGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static DenseIntGrid create(Grid<? extends Integer> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (grid instanceof DenseImmutableIntGrid) {
+            DenseImmutableIntGrid immutable = (DenseImmutableIntGrid) grid;
+            return new DenseIntGrid(
+                    immutable.rowCount(), immutable.columnCount(), immutable.size(),
+                    immutable.valuesArray(), immutable.occupiedArray());
+        }
+        DenseIntGrid created = DenseIntGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    /**
+     * Creates a {@code DenseIntGrid} copying from an array.
+     * <p>
+     * The row count and column count are derived from the maximum size of the array.
+     * The grid is initialized from all the values in the array.
+     * Any row-column beyond the end of a shorter row is left empty.
+     *
+     * @param array  the array, first by row, then by column
+     * @return the mutable grid, not null
+     */
+    public static DenseIntGrid create(int[][] array) {
+        if (array == null) {
+            throw new IllegalArgumentException("Array must not be null");
+        }
+        int rowCount = array.length;
+        if (rowCount == 0) {
+            return new DenseIntGrid(0, 0);
+        }
+        int columnCount = array[0].length;
+        for (int i = 1; i < rowCount; i++) {
+            columnCount = Math.max(columnCount, array[i].length);
+        }
+        DenseIntGrid created = DenseIntGrid.create(rowCount, columnCount);
+        for (int row = 0; row < array.length; row++) {
+            int[] rowValues = array[row];
+            System.arraycopy(rowValues, 0, created.values, row * columnCount, rowValues.length);
+            created.occupy(row * columnCount, rowValues.length);
+        }
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private DenseIntGrid(int rowCount, int columnCount) {
+        super(rowCount, columnCount);
+        this.values = new int[rowCount * columnCount];
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    private DenseIntGrid(int rowCount, int columnCount, int size, int[] values, long[] occupied) {
+        super(rowCount, columnCount, size, occupied);
+        this.values = values;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Integer) {
+            int find = (Integer) valueToFind;
+            for (int i = nextOccupied(0); i >= 0; i = nextOccupied(i + 1)) {
+                if (Integer.compare(values[i], find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getInt(int row, int column) {
+        // values that are not occupied are zero
+        if (exists(row, column)) {
+            return values[row * columnCount() + column];
+        }
+        return 0;
+    }
+
+    @Override
+    public int getInt(int row, int column, int defaultValue) {
+        if (contains(row, column)) {
+            return values[row * columnCount() + column];
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void putInt(int row, int column, int value) {
+        int index = checkedIndex(row, column);
+        values[index] = value;
+        occupy(index);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    Integer valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    void setValue(int index, Integer value) {
+        values[index] = value;
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = 0;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, 0);
+    }
+
+    @Override
+    int valueHash(int index) {
+        return Integer.hashCode(values[index]);
+    }
+
+    @Override
+    boolean valuesEqual(AbstractDensePrimitiveGrid<?> other) {
+        return Arrays.equals(values, ((DenseIntGrid) other).values);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a clone of the internal values array.
+     * 
+     * @return the array, not null
+     */
+    int[] valuesArray() {
+        return values.clone();
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("values array", GridFootprint.array(4, values.length));
+        builder.add("occupancy bitmap", GridFootprint.array(8, Bitmaps.wordCount(values.length)));
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * A grid of primitive {@code double} values.
+ * <p>
+ * This is a {@link Grid} of {@code Double}, thus it can be used wherever a grid of
+ * boxed values is expected. The additional methods access the values without boxing.
+ * Implementations hold the values in primitive form, avoiding an object per value.
+ * 
+ * @author Stephen Colebourne
+ */
+public interface DoubleGrid extends Grid<Double> {
+
+    /**
+     * Gets the value at the specified row-column without boxing.
+     * <p>
+     * If either index does not exist, or there is no value at the row-column,
+     * zero is returned. Use {@link #contains(int, int)} to distinguish an absent value from zero.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @return the value at the row-column, zero if not found
+     */
+    double getDouble(int row, int column);
+
+    /**
+     * Gets the value at the specified row-column without boxing, returning a default if absent.
+     * <p>
+     * If either index does not exist, or there is no value at the row-column,
+     * the default value is returned.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @param defaultValue  the value to return if not found
+     * @return the value at the row-column, the default value if not found
+     */
+    double getDouble(int row, int column, double defaultValue);
+
+    /**
+     * Puts a value into this grid without boxing.
+     * <p>
+     * The value at the specified row-column is set.
+     * Any previous value at the row-column is replaced.
+     * <p>
+     * If either index does not exist, {@code IndexOutOfBoundsException} is thrown.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to put into the grid
+     * @throws IndexOutOfBoundsException if either index does not exist
+     * @throws UnsupportedOperationException if read-only
+     */
+    void putDouble(int row, int column, double value);
+
+}
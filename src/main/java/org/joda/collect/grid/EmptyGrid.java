@@ -99,9 +99,22 @@ final class EmptyGrid<V> extends ImmutableGrid<V> implements Serializable {
         return ImmutableSortedSet.of();
     }
 
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+    }
+
     @Override
     public ImmutableList<V> values() {
         return ImmutableList.of();
     }
 
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4));
+    }
+
 }
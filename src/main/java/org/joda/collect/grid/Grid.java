@@ -17,6 +17,10 @@ package org.joda.collect.grid;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableCollection;
 
@@ -287,6 +291,166 @@ public interface Grid<V> {
      */
     List<List<V>> columns();
 
+    /**
+     * Performs an action for each cell in the grid.
+     * <p>
+     * The action is passed the row, column and value of each cell, in the order of {@link #cells()}.
+     * Unlike iterating over the cells, no {@code Cell} instances are exposed,
+     * thus implementations can traverse their own storage directly without allocation.
+     * The grid must not be altered by the action.
+     * 
+     * @param action  the action to perform, not null
+     */
+    default void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (Cell<V> cell : cells()) {
+            action.accept(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+    }
+
+    /**
+     * Returns a stream of the occupied rows, each as a list of cells.
+     * <p>
+     * Each list contains the cells of one row in column order, and is immutable.
+     * Rows without any cells are omitted, thus the stream contains at most {@code rowCount} lists.
+     * The stream is ordered by row and is suitable for processing rows in parallel.
+     * <p>
+     * This default implementation creates each row when it is reached.
+     * Where at least a quarter of the row-columns are occupied, each row is read using {@link #get(int, int)}.
+     * Otherwise, the rows are grouped from {@link #cells()} as the stream advances.
+     * 
+     * @return the stream of rows, not null
+     */
+    default Stream<List<Cell<V>>> rowStream() {
+        return GridStreams.rows(this);
+    }
+
+    /**
+     * Returns a stream of the occupied columns, each as a list of cells.
+     * <p>
+     * Each list contains the cells of one column in row order, and is immutable.
+     * Columns without any cells are omitted, thus the stream contains at most {@code columnCount} lists.
+     * The stream is ordered by column and is suitable for processing columns in parallel.
+     * <p>
+     * This default implementation does no work until the terminal operation of the stream.
+     * Where at least a quarter of the row-columns are occupied, each column is read using
+     * {@link #get(int, int)} when it is reached. Otherwise, the cells are grouped in a single pass
+     * of {@link #cells()}, as a column is not complete until the last row has been read.
+     * 
+     * @return the stream of columns, not null
+     */
+    default Stream<List<Cell<V>>> columnStream() {
+        return GridStreams.columns(this);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Computes the value at the specified row-column from the current value.
+     * <p>
+     * The function is passed the current value, or null if the row-column is empty.
+     * If the function returns null, the row-column is emptied.
+     * If the function returns the same instance as the current value, the grid is not altered.
+     * <p>
+     * The other compute and merge methods are implemented using this method.
+     * This default implementation uses {@link #get(int, int)} followed by
+     * {@link #put(int, int, Object)} or {@link #remove(int, int)}.
+     * Implementations should override it to locate the row-column only once.
+     * Thread-safe implementations should override it to apply the update atomically.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param remappingFunction  the function to compute the new value, not null
+     * @return the new value, null if the row-column is now empty
+     * @throws IndexOutOfBoundsException if either index does not exist
+     * @throws UnsupportedOperationException if read-only
+     */
+    default V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        V current = get(row, column);
+        V updated = remappingFunction.apply(current);
+        if (updated != current) {
+            if (updated != null) {
+                put(row, column, updated);
+            } else {
+                remove(row, column);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Computes the value at the specified row-column if the row-column is empty.
+     * <p>
+     * If the row-column is empty, the value is obtained from the supplier and put into the grid.
+     * If the supplier returns null, the grid is not altered.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param valueSupplier  the supplier of the value, not null
+     * @return the current value, null if the row-column is still empty
+     * @throws IndexOutOfBoundsException if either index does not exist
+     * @throws UnsupportedOperationException if read-only
+     */
+    default V computeIfAbsent(int row, int column, Supplier<? extends V> valueSupplier) {
+        if (valueSupplier == null) {
+            throw new IllegalArgumentException("Supplier must not be null");
+        }
+        return compute(row, column, current -> current != null ? current : valueSupplier.get());
+    }
+
+    /**
+     * Computes the value at the specified row-column if the row-column is occupied.
+     * <p>
+     * If the row-column is occupied, the function is passed the current value.
+     * If the function returns null, the row-column is emptied.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param remappingFunction  the function to compute the new value, not null
+     * @return the new value, null if the row-column is now empty
+     * @throws IndexOutOfBoundsException if either index does not exist
+     * @throws UnsupportedOperationException if read-only
+     */
+    default V computeIfPresent(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        return compute(row, column, current -> current != null ? remappingFunction.apply(current) : null);
+    }
+
+    /**
+     * Merges a value into the specified row-column.
+     * <p>
+     * If the row-column is empty, the value is put into the grid.
+     * Otherwise the function is passed the current value and the specified value.
+     * If the function returns null, the row-column is emptied.
+     * This is typically used to accumulate values, such as {@code grid.merge(row, column, 1, Integer::sum)}.
+     * 
+     * @param row  the row, zero or greater
+     * @param column  the column, zero or greater
+     * @param value  the value to merge, not null
+     * @param remappingFunction  the function to combine the current and specified values, not null
+     * @return the new value, null if the row-column is now empty
+     * @throws IndexOutOfBoundsException if either index does not exist
+     * @throws UnsupportedOperationException if read-only
+     */
+    default V merge(int row, int column, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        return compute(row, column, current -> current != null ? remappingFunction.apply(current, value) : value);
+    }
+
     //-----------------------------------------------------------------------
     /**
      * A cell within the grid compared only using row and column.
@@ -355,4 +519,23 @@ public interface Grid<V> {
         int hashCode();
     }
 
+    //-----------------------------------------------------------------------
+    /**
+     * An action to perform on a cell within the grid.
+     * 
+     * @param <V> the type of the value
+     */
+    @FunctionalInterface
+    public interface CellConsumer<V> {
+
+        /**
+         * Performs the action on a cell.
+         * 
+         * @param row  the row of the cell
+         * @param column  the column of the cell
+         * @param value  the value of the cell, not null
+         */
+        void accept(int row, int column, V value);
+    }
+
 }
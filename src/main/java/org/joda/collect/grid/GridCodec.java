@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from a fixed number of bytes, allowing them to be stored off-heap.
+ * <p>
+ * Each value is held in a slot of {@link #slotBytes()} bytes within a larger buffer.
+ * The codec must only access the bytes of the slot, using the absolute methods on the buffer.
+ * The buffer uses the native byte order.
+ * <p>
+ * Implementations must be thread-safe, typically by being stateless.
+ *
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ * @see OffHeapGrid
+ */
+public interface GridCodec<V> {
+
+    /**
+     * Gets the number of bytes in each slot.
+     * 
+     * @return the number of bytes, one or greater
+     */
+    int slotBytes();
+
+    /**
+     * Encodes a value into a slot.
+     * 
+     * @param value  the value to encode, not null
+     * @param buffer  the buffer to write to, not null
+     * @param offset  the offset of the slot in the buffer
+     */
+    void encode(V value, ByteBuffer buffer, int offset);
+
+    /**
+     * Decodes the value in a slot.
+     * 
+     * @param buffer  the buffer to read from, not null
+     * @param offset  the offset of the slot in the buffer
+     * @return the decoded value, not null
+     */
+    V decode(ByteBuffer buffer, int offset);
+
+    /**
+     * Decodes the value in a slot into an existing value.
+     * <p>
+     * This allows a mutable value to be reused, avoiding the allocation of a new value.
+     * The default implementation ignores the target and calls {@link #decode(ByteBuffer, int)}.
+     * 
+     * @param buffer  the buffer to read from, not null
+     * @param offset  the offset of the slot in the buffer
+     * @param target  the value to decode into, not null
+     * @return the decoded value, typically the target, not null
+     */
+    default V decodeInto(ByteBuffer buffer, int offset, V target) {
+        return decode(buffer, offset);
+    }
+
+}
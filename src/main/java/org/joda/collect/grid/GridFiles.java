@@ -0,0 +1,526 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.joda.collect.grid.Grid.Cell;
+
+/**
+ * Writes grids to files and maps them back into memory.
+ * <p>
+ * A grid file holds a grid in a form that can be mapped into memory without being read or decoded.
+ * Mapping a file takes constant time whatever its size,
+ * with the operating system loading each page of the file when it is first accessed.
+ * This allows a large grid to be computed once and then used immediately on each restart.
+ * <p>
+ * Each file starts with a 32 byte header holding the magic number, format version, value type,
+ * row count, column count and size, each as 4 bytes, followed by 8 reserved bytes.
+ * All data is little-endian.
+ * <p>
+ * A dense file holds fixed-width primitive values.
+ * The header is followed by the occupancy bitmap of one bit per row-column held in 8 byte words,
+ * followed by the values in row-major order, as per {@link DenseGrid}.
+ * <p>
+ * A sparse file holds values of any type, each encoded to bytes by the caller.
+ * The header is followed by the key of each cell in row-major order as 8 bytes,
+ * as per {@link SparseImmutableGrid}, then the encoded values, then the offset of the start of each value
+ * relative to the first value as 8 bytes, plus a final offset for the end of the last value.
+ * Lookups use a binary search of the mapped keys, thus the size of the grid is not limited by the heap.
+ * <p>
+ * A mapped grid is immutable, but is not serializable.
+ * The effect of changing a file while it is mapped is undefined.
+ * The file is unmapped when the grid is garbage collected.
+ * <p>
+ * This class is a static utility class.
+ *
+ * @author Stephen Colebourne
+ */
+public final class GridFiles {
+
+    /**
+     * The magic number at the start of the file, "JGRD".
+     */
+    static final int MAGIC = 0x4A475244;
+    /**
+     * The format version.
+     */
+    static final int VERSION = 1;
+    /**
+     * The size of the header.
+     */
+    static final int HEADER_BYTES = 32;
+    /**
+     * The number of bits of the index used to find the position in a mapped chunk of primitive values.
+     */
+    static final int CHUNK_SHIFT = 27;
+    /**
+     * The maximum number of bits of the position used to find the offset in a mapped region.
+     */
+    static final int MAX_REGION_CHUNK_SHIFT = 30;
+    /**
+     * The size of the buffer used when writing.
+     */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Restricted constructor.
+     */
+    private GridFiles() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Writes a grid of {@code double} values to a file.
+     * <p>
+     * The file is created, or replaced if it exists.
+     * 
+     * @param grid  the grid to write, not null
+     * @param file  the file to write to, not null
+     * @throws IllegalArgumentException if the grid has more than {@code Integer.MAX_VALUE} row-columns
+     * @throws IOException if an IO error occurs
+     */
+    public static void write(DoubleGrid grid, Path file) throws IOException {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        write(grid, file, ValueType.DOUBLE, (buf, row, column) -> buf.putDouble(grid.getDouble(row, column)));
+    }
+
+    /**
+     * Writes a grid of {@code int} values to a file.
+     * <p>
+     * The file is created, or replaced if it exists.
+     * 
+     * @param grid  the grid to write, not null
+     * @param file  the file to write to, not null
+     * @throws IllegalArgumentException if the grid has more than {@code Integer.MAX_VALUE} row-columns
+     * @throws IOException if an IO error occurs
+     */
+    public static void write(IntGrid grid, Path file) throws IOException {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        write(grid, file, ValueType.INT, (buf, row, column) -> buf.putInt(grid.getInt(row, column)));
+    }
+
+    /**
+     * Writes a grid of {@code long} values to a file.
+     * <p>
+     * The file is created, or replaced if it exists.
+     * 
+     * @param grid  the grid to write, not null
+     * @param file  the file to write to, not null
+     * @throws IllegalArgumentException if the grid has more than {@code Integer.MAX_VALUE} row-columns
+     * @throws IOException if an IO error occurs
+     */
+    public static void write(LongGrid grid, Path file) throws IOException {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        write(grid, file, ValueType.LONG, (buf, row, column) -> buf.putLong(grid.getLong(row, column)));
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Maps a file of {@code double} values into memory.
+     * 
+     * @param file  the file to map, not null
+     * @return the immutable grid, not null
+     * @throws IOException if an IO error occurs, or the file is not a grid file of {@code double} values
+     */
+    public static ImmutableDoubleGrid mapDoubleGrid(Path file) throws IOException {
+        return map(file, ValueType.DOUBLE, CHUNK_SHIFT, MappedImmutableDoubleGrid::new);
+    }
+
+    /**
+     * Maps a file of {@code int} values into memory.
+     * 
+     * @param file  the file to map, not null
+     * @return the immutable grid, not null
+     * @throws IOException if an IO error occurs, or the file is not a grid file of {@code int} values
+     */
+    public static ImmutableIntGrid mapIntGrid(Path file) throws IOException {
+        return map(file, ValueType.INT, CHUNK_SHIFT, MappedImmutableIntGrid::new);
+    }
+
+    /**
+     * Maps a file of {@code long} values into memory.
+     * 
+     * @param file  the file to map, not null
+     * @return the immutable grid, not null
+     * @throws IOException if an IO error occurs, or the file is not a grid file of {@code long} values
+     */
+    public static ImmutableLongGrid mapLongGrid(Path file) throws IOException {
+        return map(file, ValueType.LONG, CHUNK_SHIFT, MappedImmutableLongGrid::new);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Writes a grid of any type to a sparse file.
+     * <p>
+     * The file is created, or replaced if it exists.
+     * Each value is encoded to bytes using the specified function.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid to write, not null
+     * @param file  the file to write to, not null
+     * @param encoder  the function to encode each value, not null
+     * @throws IOException if an IO error occurs
+     */
+    public static <V> void writeSparse(
+            Grid<? extends V> grid,
+            Path file,
+            Function<? super V, byte[]> encoder) throws IOException {
+
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        // the size of a concurrent grid is an estimate, thus the arrays grow as needed
+        long[] keys = new long[grid.size()];
+        Object[] values = new Object[keys.length];
+        boolean sorted = true;
+        int index = 0;
+        for (Cell<? extends V> cell : grid.cells()) {
+            if (index == keys.length) {
+                int capacity = index + (index >>> 1) + 16;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[index] = (((long) cell.getRow()) << 32) + cell.getColumn();
+            values[index] = cell.getValue();
+            sorted &= index == 0 || keys[index - 1] < keys[index];
+            index++;
+        }
+        int size = index;
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+        if (!sorted) {
+            sort(keys, values);
+        }
+        long[] offsets = new long[size + 1];
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(ValueType.SPARSE.code)
+                    .putInt(grid.rowCount()).putInt(grid.columnCount()).putInt(size).putLong(0);
+            for (long key : keys) {
+                if (buf.remaining() < 8) {
+                    flush(channel, buf);
+                }
+                buf.putLong(key);
+            }
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                byte[] bytes = encoder.apply((V) values[i]);
+                if (bytes == null) {
+                    throw new IllegalArgumentException("Encoder must not return null");
+                }
+                offsets[i + 1] = offsets[i] + bytes.length;
+                if (buf.remaining() < bytes.length) {
+                    flush(channel, buf);
+                }
+                if (buf.remaining() < bytes.length) {
+                    channel.write(ByteBuffer.wrap(bytes));
+                } else {
+                    buf.put(bytes);
+                }
+            }
+            for (long offset : offsets) {
+                if (buf.remaining() < 8) {
+                    flush(channel, buf);
+                }
+                buf.putLong(offset);
+            }
+            flush(channel, buf);
+        }
+        event.end("writeSparse", grid);
+    }
+
+    // sorts the keys, keeping the values in parallel
+    // the keys are unique, thus the sorted position of each value is found by binary search
+    private static void sort(long[] keys, Object[] values) {
+        long[] originalKeys = keys.clone();
+        Object[] originalValues = values.clone();
+        Arrays.sort(keys);
+        for (int i = 0; i < originalKeys.length; i++) {
+            values[Arrays.binarySearch(keys, originalKeys[i])] = originalValues[i];
+        }
+    }
+
+    /**
+     * Maps a sparse file of values of any type into memory.
+     * <p>
+     * Each value is decoded when it is accessed using the specified function.
+     * The function receives a read-only buffer positioned at the start of the encoded value,
+     * with the limit at the end of the value. The function must not return null.
+     * 
+     * @param <V> the type of the value
+     * @param file  the file to map, not null
+     * @param decoder  the function to decode each value, not null
+     * @return the immutable grid, not null
+     * @throws IOException if an IO error occurs, or the file is not a sparse grid file
+     */
+    public static <V> ImmutableGrid<V> mapSparseGrid(
+            Path file,
+            Function<? super ByteBuffer, ? extends V> decoder) throws IOException {
+
+        return mapSparse(file, decoder, MAX_REGION_CHUNK_SHIFT);
+    }
+
+    // validates the header and maps the keys, values and offsets
+    static <V> ImmutableGrid<V> mapSparse(
+            Path file,
+            Function<? super ByteBuffer, ? extends V> decoder,
+            int chunkShift) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        if (decoder == null) {
+            throw new IllegalArgumentException("Decoder must not be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, file, ValueType.SPARSE);
+            long keysBytes = 8L * header.size;
+            long offsetsBytes = keysBytes + 8;
+            long valuesBytes = channel.size() - HEADER_BYTES - keysBytes - offsetsBytes;
+            if (valuesBytes < 0) {
+                throw new IOException("Invalid grid file, too short: " + file);
+            }
+            MappedRegion keys = MappedRegion.map(channel, HEADER_BYTES, keysBytes, chunkShift);
+            MappedRegion values = MappedRegion.map(channel, HEADER_BYTES + keysBytes, valuesBytes, chunkShift);
+            MappedRegion offsets = MappedRegion.map(
+                    channel, HEADER_BYTES + keysBytes + valuesBytes, offsetsBytes, chunkShift);
+            if (offsets.getLong(keysBytes) != valuesBytes) {
+                throw new IOException("Invalid grid file, corrupt offsets: " + file);
+            }
+            return new MappedSparseImmutableGrid<V>(
+                    header.rowCount, header.columnCount, header.size, keys, values, offsets, decoder);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    // writes the header, bitmap and values
+    private static void write(Grid<?> grid, Path file, ValueType type, ValueWriter writer) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        if ((long) rowCount * columnCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Grid must not have more than " + Integer.MAX_VALUE + " row-columns: " +
+                    rowCount + "x" + columnCount);
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        long[] occupied = new long[Bitmaps.wordCount(rowCount * columnCount)];
+        grid.forEachCell((row, column, value) -> Bitmaps.set(occupied, row * columnCount + column));
+        // the size of a concurrent grid is an estimate, thus the size is taken from the bitmap
+        int size = Bitmaps.cardinality(occupied);
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(type.code)
+                    .putInt(rowCount).putInt(columnCount).putInt(size).putLong(0);
+            for (long word : occupied) {
+                if (buf.remaining() < 8) {
+                    flush(channel, buf);
+                }
+                buf.putLong(word);
+            }
+            for (int row = 0; row < rowCount; row++) {
+                for (int column = 0; column < columnCount; column++) {
+                    if (buf.remaining() < 8) {
+                        flush(channel, buf);
+                    }
+                    writer.write(buf, row, column);
+                }
+            }
+            flush(channel, buf);
+        }
+        event.end("write", grid);
+    }
+
+    // writes the contents of the buffer to the channel
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    // validates the header and maps the bitmap and values
+    static <G> G map(Path file, ValueType type, int chunkShift, MappedGridFactory<G> factory) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, file, type);
+            int rowCount = header.rowCount;
+            int columnCount = header.columnCount;
+            int size = header.size;
+            long capacity = (long) rowCount * columnCount;
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Invalid grid file, corrupt header: " + file);
+            }
+            long bitmapBytes = 8L * Bitmaps.wordCount((int) capacity);
+            long valuesStart = HEADER_BYTES + bitmapBytes;
+            long expectedBytes = valuesStart + capacity * type.bytes;
+            if (channel.size() != expectedBytes) {
+                throw new IOException("Invalid grid file, expected " + expectedBytes + " bytes but found " +
+                        channel.size() + ": " + file);
+            }
+            LongBuffer occupied = channel.map(MapMode.READ_ONLY, HEADER_BYTES, bitmapBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asLongBuffer();
+            int chunkSize = 1 << chunkShift;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((capacity + chunkSize - 1) >>> chunkShift)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i << chunkShift;
+                long cells = Math.min(chunkSize, capacity - first);
+                chunks[i] = channel.map(MapMode.READ_ONLY, valuesStart + first * type.bytes, cells * type.bytes)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return factory.create(rowCount, columnCount, size, chunkShift, occupied, chunks);
+        }
+    }
+
+    // reads and validates the header
+    private static Header readHeader(FileChannel channel, Path file, ValueType type) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Invalid grid file, too short: " + file);
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Invalid grid file, incorrect magic number: " + file);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Invalid grid file, unsupported version " + version + ": " + file);
+        }
+        int code = header.getInt();
+        if (code != type.code) {
+            throw new IOException("Invalid grid file, expected value type " + type.code + " but found " + code +
+                    ": " + file);
+        }
+        int rowCount = header.getInt();
+        int columnCount = header.getInt();
+        int size = header.getInt();
+        if (rowCount < 0 || columnCount < 0 || size < 0 || size > (long) rowCount * columnCount) {
+            throw new IOException("Invalid grid file, corrupt header: " + file);
+        }
+        return new Header(rowCount, columnCount, size);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The counts held in the header.
+     */
+    private static final class Header {
+        /**
+         * The number of rows.
+         */
+        private final int rowCount;
+        /**
+         * The number of columns.
+         */
+        private final int columnCount;
+        /**
+         * The size.
+         */
+        private final int size;
+
+        Header(int rowCount, int columnCount, int size) {
+            this.rowCount = rowCount;
+            this.columnCount = columnCount;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The type of the values in the file.
+     */
+    enum ValueType {
+        /**
+         * The {@code int} type.
+         */
+        INT(1, 4),
+        /**
+         * The {@code long} type.
+         */
+        LONG(2, 8),
+        /**
+         * The {@code double} type.
+         */
+        DOUBLE(3, 8),
+        /**
+         * Encoded values of any type, in the sparse layout.
+         */
+        SPARSE(4, 0);
+
+        /**
+         * The code held in the header.
+         */
+        private final int code;
+        /**
+         * The number of bytes in each value.
+         */
+        private final int bytes;
+
+        ValueType(int code, int bytes) {
+            this.code = code;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Writes the value at a row-column to the buffer.
+     */
+    private interface ValueWriter {
+        void write(ByteBuffer buf, int row, int column);
+    }
+
+    /**
+     * Creates a grid from the mapped file.
+     */
+    interface MappedGridFactory<G> {
+        G create(int rowCount, int columnCount, int size, int chunkShift, LongBuffer occupied, ByteBuffer[] chunks);
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * An estimate of the memory retained by a grid.
+ * <p>
+ * The estimate covers the structure of the grid, broken down into named components,
+ * such as the values array of a dense grid or the tree nodes of a sparse grid.
+ * It excludes the values themselves, as they are typically shared with other objects.
+ * <p>
+ * The estimate assumes a 64-bit JVM with compressed object pointers, the default for heaps under 32Gb.
+ * Objects have a 12 byte header, arrays a 16 byte header, references are 4 bytes
+ * and all objects are aligned to 8 bytes.
+ * Grids that hold their values outside the heap report the native memory as a separate component.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Stephen Colebourne
+ */
+public final class GridFootprint implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The size of an object header.
+     */
+    static final int OBJECT_HEADER = 12;
+    /**
+     * The size of an array header.
+     */
+    static final int ARRAY_HEADER = 16;
+    /**
+     * The size of a reference.
+     */
+    static final int REFERENCE = 4;
+    /**
+     * The size of an {@code ImmutableCell}.
+     */
+    static final long IMMUTABLE_CELL = object(4 + 4 + REFERENCE);
+
+    /**
+     * The number of cells.
+     */
+    private final int cellCount;
+    /**
+     * The components.
+     */
+    private final ImmutableMap<String, Long> components;
+    /**
+     * The total.
+     */
+    private final long totalBytes;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Estimates the memory retained by a grid.
+     * <p>
+     * Grid implementations not provided by this library are estimated as a single object
+     * holding one {@code ImmutableCell} per cell.
+     * 
+     * @param grid  the grid to estimate, not null
+     * @return the estimate, not null
+     */
+    public static GridFootprint of(Grid<?> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        Builder builder = new Builder();
+        builder.estimate(grid);
+        return new GridFootprint(grid.size(), ImmutableMap.copyOf(builder.components));
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    private GridFootprint(int cellCount, ImmutableMap<String, Long> components) {
+        this.cellCount = cellCount;
+        this.components = components;
+        long total = 0;
+        for (long bytes : components.values()) {
+            total += bytes;
+        }
+        this.totalBytes = total;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of cells in the grid.
+     * 
+     * @return the number of cells
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Gets the estimated total bytes retained by the grid, excluding the values.
+     * 
+     * @return the total bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Gets the estimated bytes per cell present in the grid.
+     * <p>
+     * This is the total divided by the number of cells.
+     * 
+     * @return the bytes per cell, the total if the grid is empty
+     */
+    public double getBytesPerCell() {
+        return cellCount == 0 ? totalBytes : ((double) totalBytes) / cellCount;
+    }
+
+    /**
+     * Gets the breakdown of the estimate by component.
+     * <p>
+     * The map is keyed by a description of the component, such as "values array".
+     * 
+     * @return the bytes by component, not null
+     */
+    public ImmutableMap<String, Long> getComponents() {
+        return components;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof GridFootprint) {
+            GridFootprint other = (GridFootprint) obj;
+            return cellCount == other.cellCount && components.equals(other.components);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return cellCount ^ components.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GridFootprint[" + totalBytes + " bytes, " + cellCount + " cells, " + components + "]";
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Estimates the size of an object.
+     * 
+     * @param fieldBytes  the total size of the fields
+     * @return the size of the object, aligned
+     */
+    static long object(long fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * Estimates the size of an array.
+     * 
+     * @param elementBytes  the size of each element
+     * @param length  the length of the array
+     * @return the size of the array, aligned
+     */
+    static long array(int elementBytes, long length) {
+        return align(ARRAY_HEADER + elementBytes * length);
+    }
+
+    // aligns to 8 bytes
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Builds the estimate, called by each grid implementation.
+     */
+    static final class Builder {
+        /**
+         * The components.
+         */
+        private final Map<String, Long> components = new LinkedHashMap<>();
+
+        /**
+         * Restricted constructor.
+         */
+        Builder() {
+        }
+
+        /**
+         * Adds the estimate of a grid.
+         * 
+         * @param grid  the grid, not null
+         */
+        void estimate(Grid<?> grid) {
+            if (grid instanceof AbstractGrid) {
+                ((AbstractGrid<?>) grid).estimateFootprint(this);
+            } else if (grid instanceof InstrumentedGrid) {
+                ((InstrumentedGrid<?>) grid).estimateFootprint(this);
+            } else {
+                add("grid", object(REFERENCE));
+                add("cells", grid.size() * IMMUTABLE_CELL);
+            }
+        }
+
+        /**
+         * Adds a component.
+         * <p>
+         * If the component already exists, the bytes are added to it.
+         * 
+         * @param component  the component description, not null
+         * @param bytes  the number of bytes
+         */
+        void add(String component, long bytes) {
+            components.merge(component, bytes, Long::sum);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * A strategy for choosing the layout of an immutable grid.
+ * <p>
+ * When an immutable grid is created by copying another grid, the layout of the copy
+ * is chosen by a strategy. Dense layouts hold an array of every row-column,
+ * while sparse layouts hold only the cells that are present.
+ * <p>
+ * The strategy used by {@link ImmutableGrid#copyOf(Grid)} is located using {@link java.util.ServiceLoader}.
+ * If no implementation is registered, the {@linkplain #costModel() cost model} is used.
+ * A strategy can also be passed to {@link ImmutableGrid#copyOf(Grid, GridLayoutStrategy)}.
+ * <p>
+ * Implementations must be immutable and thread-safe.
+ *
+ * @author Stephen Colebourne
+ */
+public interface GridLayoutStrategy {
+
+    /**
+     * Obtains a strategy that always uses a dense layout.
+     * 
+     * @return the dense strategy, not null
+     */
+    public static GridLayoutStrategy dense() {
+        return StandardLayoutStrategy.DENSE;
+    }
+
+    /**
+     * Obtains a strategy that always uses a sparse layout.
+     * 
+     * @return the sparse strategy, not null
+     */
+    public static GridLayoutStrategy sparse() {
+        return StandardLayoutStrategy.SPARSE;
+    }
+
+    /**
+     * Obtains a strategy that chooses the layout with the lowest cost.
+     * <p>
+     * The cost of each layout is the estimated bytes retained per cell,
+     * plus the estimated nanoseconds taken by a lookup.
+     * A dense lookup is an array access, while a sparse lookup is a binary search.
+     * 
+     * @return the cost model strategy, not null
+     */
+    public static GridLayoutStrategy costModel() {
+        return CostModelLayoutStrategy.DEFAULT;
+    }
+
+    /**
+     * Obtains a strategy that chooses the layout with the lowest cost, weighting the lookup cost.
+     * <p>
+     * The cost of each layout is the estimated bytes retained per cell,
+     * plus the estimated nanoseconds taken by a lookup multiplied by the weight.
+     * The weight is thus the number of bytes per cell worth spending to save one nanosecond per lookup.
+     * A weight of zero chooses the smallest layout, while a large weight chooses the fastest.
+     * 
+     * @param lookupWeight  the weight of the lookup cost, zero or greater
+     * @return the cost model strategy, not null
+     * @throws IllegalArgumentException if the weight is negative or not finite
+     */
+    public static GridLayoutStrategy costModel(double lookupWeight) {
+        return new CostModelLayoutStrategy(lookupWeight);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Copies the grid into an immutable grid using the layout chosen by this strategy.
+     * <p>
+     * This is called by {@link ImmutableGrid} with a grid containing at least two cells,
+     * as empty and single cell grids have their own layouts.
+     * The row and column counts will have been validated.
+     * <p>
+     * Implementations will typically delegate to one of the standard strategies,
+     * such as {@link #dense()} or {@link #sparse()}, or to another strategy.
+     * 
+     * @param <R> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     * @throws IndexOutOfBoundsException if either index is less than zero
+     */
+    public abstract <R> ImmutableGrid<R> copyOf(Grid<R> grid);
+
+}
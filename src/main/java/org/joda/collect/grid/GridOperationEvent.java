@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * Recording of an expensive bulk operation on a grid.
+ * <p>
+ * Events are recorded for {@code ImmutableGrid.copyOf}, {@code putAll},
+ * {@code equals}, {@code hashCode} and the first call to {@code cells()} on a sparse immutable grid.
+ * For {@code copyOf} and {@code putAll} the event describes the grid being copied from,
+ * otherwise it describes the grid the method was called on.
+ * <p>
+ * The events are recorded by Java Flight Recorder, see {@link JfrGridOperationEvent}.
+ * The dependency on the {@code jdk.jfr} module is optional.
+ * When the module is not present at runtime, such as in a trimmed runtime image,
+ * each operation uses a shared instance that does nothing.
+ */
+interface GridOperationEvent {
+
+    /**
+     * The event name.
+     */
+    String NAME = "org.joda.collect.grid.GridOperation";
+    /**
+     * The event that does nothing, used when JFR is not present.
+     */
+    GridOperationEvent NONE = (operation, grid) -> { };
+    /**
+     * Whether the {@code jdk.jfr} module is present.
+     */
+    boolean JFR_PRESENT = isJfrPresent();
+
+    //-----------------------------------------------------------------------
+    /**
+     * Starts timing the operation.
+     * 
+     * @return the event, not null
+     */
+    static GridOperationEvent start() {
+        return JFR_PRESENT ? JfrGridOperationEvent.startEvent() : NONE;
+    }
+
+    // checks if JFR can be used, without loading any JFR class
+    private static boolean isJfrPresent() {
+        Module module = GridOperationEvent.class.getModule();
+        if (module.isNamed()) {
+            return module.getLayer() != null &&
+                    module.getLayer().findModule("jdk.jfr").map(module::canRead).orElse(false);
+        }
+        return ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    }
+
+    /**
+     * Ends timing the operation, recording it if enabled.
+     * <p>
+     * The grid is only queried if the event is to be recorded.
+     * 
+     * @param operation  the name of the operation
+     * @param grid  the grid that the event describes
+     */
+    void end(String operation, Grid<?> grid);
+
+}
@@ -0,0 +1,367 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the statistics recorded by an {@code InstrumentedGrid}.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Stephen Colebourne
+ */
+public final class GridStats implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of calls to get that found a value.
+     */
+    private final long getHitCount;
+    /**
+     * The number of calls to get that did not find a value at a row-column that exists.
+     */
+    private final long getMissCount;
+    /**
+     * The number of calls to put.
+     */
+    private final long putCount;
+    /**
+     * The number of calls to remove.
+     */
+    private final long removeCount;
+    /**
+     * The number of calls to compute, computeIfAbsent, computeIfPresent and merge.
+     */
+    private final long computeCount;
+    /**
+     * The number of calls with an index that does not exist.
+     */
+    private final long outOfBoundsCount;
+    /**
+     * The number of cell views created.
+     */
+    private final long cellsViewCount;
+    /**
+     * The number of row views created.
+     */
+    private final long rowViewCount;
+    /**
+     * The number of column views created.
+     */
+    private final long columnViewCount;
+    /**
+     * The latency of get.
+     */
+    private final Latency getLatency;
+    /**
+     * The latency of put.
+     */
+    private final Latency putLatency;
+    /**
+     * The latency of remove.
+     */
+    private final Latency removeLatency;
+    /**
+     * The latency of compute, computeIfAbsent, computeIfPresent and merge.
+     */
+    private final Latency computeLatency;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    GridStats(
+            long getHitCount,
+            long getMissCount,
+            long putCount,
+            long removeCount,
+            long computeCount,
+            long outOfBoundsCount,
+            long cellsViewCount,
+            long rowViewCount,
+            long columnViewCount,
+            Latency getLatency,
+            Latency putLatency,
+            Latency removeLatency,
+            Latency computeLatency) {
+        this.getHitCount = getHitCount;
+        this.getMissCount = getMissCount;
+        this.putCount = putCount;
+        this.removeCount = removeCount;
+        this.computeCount = computeCount;
+        this.outOfBoundsCount = outOfBoundsCount;
+        this.cellsViewCount = cellsViewCount;
+        this.rowViewCount = rowViewCount;
+        this.columnViewCount = columnViewCount;
+        this.getLatency = getLatency;
+        this.putLatency = putLatency;
+        this.removeLatency = removeLatency;
+        this.computeLatency = computeLatency;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of calls to {@code get} that found a value.
+     * 
+     * @return the hit count
+     */
+    public long getGetHitCount() {
+        return getHitCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code get} that did not find a value.
+     * <p>
+     * Calls passing a row or column that does not exist are not included,
+     * as they are counted by {@link #getOutOfBoundsCount()}.
+     * 
+     * @return the miss count
+     */
+    public long getGetMissCount() {
+        return getMissCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code put}.
+     * 
+     * @return the put count
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code remove}.
+     * 
+     * @return the remove count
+     */
+    public long getRemoveCount() {
+        return removeCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code compute}, {@code computeIfAbsent},
+     * {@code computeIfPresent} and {@code merge}.
+     * 
+     * @return the compute count
+     */
+    public long getComputeCount() {
+        return computeCount;
+    }
+
+    /**
+     * Gets the number of calls passing a row or column that does not exist.
+     * <p>
+     * This counts calls to {@code get}, {@code contains}, {@code cell}, {@code put},
+     * {@code remove}, {@code compute}, {@code computeIfAbsent}, {@code computeIfPresent},
+     * {@code merge}, {@code row} and {@code column}.
+     * 
+     * @return the out of bounds count
+     */
+    public long getOutOfBoundsCount() {
+        return outOfBoundsCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code cells()} and {@code forEachCell()}.
+     * 
+     * @return the cells view count
+     */
+    public long getCellsViewCount() {
+        return cellsViewCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code row(int)}, {@code rows()} and {@code rowStream()}.
+     * 
+     * @return the row view count
+     */
+    public long getRowViewCount() {
+        return rowViewCount;
+    }
+
+    /**
+     * Gets the number of calls to {@code column(int)}, {@code columns()} and {@code columnStream()}.
+     * 
+     * @return the column view count
+     */
+    public long getColumnViewCount() {
+        return columnViewCount;
+    }
+
+    /**
+     * Gets the latency of {@code get}.
+     * 
+     * @return the latency, not null
+     */
+    public Latency getGetLatency() {
+        return getLatency;
+    }
+
+    /**
+     * Gets the latency of {@code put}.
+     * 
+     * @return the latency, not null
+     */
+    public Latency getPutLatency() {
+        return putLatency;
+    }
+
+    /**
+     * Gets the latency of {@code remove}.
+     * 
+     * @return the latency, not null
+     */
+    public Latency getRemoveLatency() {
+        return removeLatency;
+    }
+
+    /**
+     * Gets the latency of {@code compute}, {@code computeIfAbsent}, {@code computeIfPresent} and {@code merge}.
+     * 
+     * @return the latency, not null
+     */
+    public Latency getComputeLatency() {
+        return computeLatency;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+        return "GridStats[getHits=" + getHitCount + ", getMisses=" + getMissCount +
+                ", puts=" + putCount + ", removes=" + removeCount + ", computes=" + computeCount +
+                ", outOfBounds=" + outOfBoundsCount +
+                ", cellsViews=" + cellsViewCount + ", rowViews=" + rowViewCount + ", columnViews=" + columnViewCount +
+                ", getLatency=" + getLatency + ", putLatency=" + putLatency + ", removeLatency=" + removeLatency +
+                ", computeLatency=" + computeLatency + "]";
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Snapshot of a latency histogram.
+     * <p>
+     * Latencies are held in buckets by powers of two.
+     * Bucket zero holds latencies of 0 and 1 nanosecond, bucket {@code n} holds
+     * latencies from {@code 2^n} inclusive to {@code 2^(n+1)} exclusive.
+     * <p>
+     * This class is immutable and thread-safe.
+     */
+    public static final class Latency implements Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The count in each bucket.
+         */
+        private final long[] bucketCounts;
+        /**
+         * The total latency.
+         */
+        private final long totalNanos;
+        /**
+         * The number of latencies recorded.
+         */
+        private final long count;
+
+        /**
+         * Restricted constructor.
+         */
+        Latency(long[] bucketCounts, long totalNanos) {
+            this.bucketCounts = bucketCounts;
+            this.totalNanos = totalNanos;
+            long count = 0;
+            for (long bucketCount : bucketCounts) {
+                count += bucketCount;
+            }
+            this.count = count;
+        }
+
+        //-----------------------------------------------------------------------
+        /**
+         * Gets the number of latencies recorded.
+         * 
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total of the latencies recorded.
+         * 
+         * @return the total in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Gets the mean latency.
+         * 
+         * @return the mean in nanoseconds, zero if nothing has been recorded
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0d : ((double) totalNanos) / count;
+        }
+
+        /**
+         * Gets an estimate of the latency at the specified percentile.
+         * <p>
+         * The result is the exclusive upper bound of the bucket containing the percentile.
+         * 
+         * @param percentile  the percentile, from 0 to 100
+         * @return the latency upper bound in nanoseconds, zero if nothing has been recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max((long) Math.ceil(count * percentile / 100d), 1);
+            long cumulative = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulative += bucketCounts[i];
+                if (cumulative >= target) {
+                    return i >= 62 ? Long.MAX_VALUE : 1L << (i + 1);
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Gets the count in each bucket.
+         * 
+         * @return a copy of the bucket counts, indexed by power of two
+         */
+        public long[] getBucketCounts() {
+            return bucketCounts.clone();
+        }
+
+        //-----------------------------------------------------------------------
+        @Override
+        public String toString() {
+            return "[count=" + count + ", mean=" + String.format("%.1f", getMeanNanos()) +
+                    "ns, p50<" + getPercentileNanos(50) + "ns, p99<" + getPercentileNanos(99) + "ns]";
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.joda.collect.grid.Grid.Cell;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Implementations of the row and column streams of a grid.
+ * <p>
+ * Where at least a quarter of the row-columns are occupied, each row or column is created
+ * using {@code get} when it is reached, thus the stream splits evenly for parallel processing.
+ * This caps the number of lookups of empty row-columns at three per cell.
+ * Otherwise, the cells are grouped from {@link Grid#cells()}, thus the work is proportional
+ * to the number of cells rather than the number of row-columns.
+ * In both cases, no work is done until the terminal operation of the stream.
+ *
+ * @author Stephen Colebourne
+ */
+final class GridStreams {
+
+    /**
+     * Restricted constructor.
+     */
+    private GridStreams() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns a stream of the occupied rows of a grid.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid, not null
+     * @return the stream of rows, not null
+     */
+    static <V> Stream<List<Cell<V>>> rows(Grid<V> grid) {
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        if (isDense(grid)) {
+            return IntStream.range(0, rowCount)
+                    .mapToObj(row -> line(grid, row, 0, 0, 1, columnCount))
+                    .filter(cells -> !cells.isEmpty());
+        }
+        // the cells are in row order, thus each row is grouped when it is reached
+        return StreamSupport.stream(
+                () -> new RowSpliterator<V>(grid.cells().iterator(), rowCount),
+                Spliterator.ORDERED | Spliterator.NONNULL,
+                false);
+    }
+
+    /**
+     * Returns a stream of the occupied columns of a grid.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid, not null
+     * @return the stream of columns, not null
+     */
+    static <V> Stream<List<Cell<V>>> columns(Grid<V> grid) {
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        if (isDense(grid)) {
+            return IntStream.range(0, columnCount)
+                    .mapToObj(column -> line(grid, 0, column, 1, 0, rowCount))
+                    .filter(cells -> !cells.isEmpty());
+        }
+        // the cells are in row order, thus every cell is grouped in a single pass
+        // the pass is deferred until the terminal operation
+        return StreamSupport.stream(
+                () -> groupColumns(grid).spliterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED,
+                false);
+    }
+
+    // checks if at least a quarter of the row-columns are occupied
+    private static boolean isDense(Grid<?> grid) {
+        return ((long) grid.size()) * 4 >= ((long) grid.rowCount()) * grid.columnCount();
+    }
+
+    // reads the occupied cells of a row or column using get
+    private static <V> List<Cell<V>> line(
+            Grid<V> grid, int row, int column, int rowStep, int columnStep, int length) {
+        ImmutableList.Builder<Cell<V>> builder = ImmutableList.builder();
+        for (int i = 0; i < length; i++) {
+            V value = grid.get(row, column);
+            if (value != null) {
+                builder.add(ImmutableCell.of(row, column, value));
+            }
+            row += rowStep;
+            column += columnStep;
+        }
+        return builder.build();
+    }
+
+    // groups the cells by column
+    private static <V> List<List<Cell<V>>> groupColumns(Grid<V> grid) {
+        TreeMap<Integer, ImmutableList.Builder<Cell<V>>> columns = new TreeMap<>();
+        for (Cell<V> cell : grid.cells()) {
+            columns.computeIfAbsent(cell.getColumn(), column -> ImmutableList.builder())
+                    .add(ImmutableCell.copyOf(cell));
+        }
+        ImmutableList.Builder<List<Cell<V>>> lists = ImmutableList.builderWithExpectedSize(columns.size());
+        for (ImmutableList.Builder<Cell<V>> builder : columns.values()) {
+            lists.add(builder.build());
+        }
+        return lists.build();
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * A spliterator grouping cells in row order into a list per row.
+     * 
+     * @param <V> the type of the value
+     */
+    static final class RowSpliterator<V> extends Spliterators.AbstractSpliterator<List<Cell<V>>> {
+
+        /**
+         * The cells, in row order.
+         */
+        private final Iterator<Cell<V>> iterator;
+        /**
+         * The first cell of the next row, null if not yet read.
+         */
+        private Cell<V> next;
+
+        /**
+         * Restricted constructor.
+         * 
+         * @param iterator  the cells, in row order, not null
+         * @param rowCount  the number of rows, used as the estimated size
+         */
+        RowSpliterator(Iterator<Cell<V>> iterator, int rowCount) {
+            super(rowCount, ORDERED | NONNULL);
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<Cell<V>>> action) {
+            if (next == null) {
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                next = ImmutableCell.copyOf(iterator.next());
+            }
+            // the iterator may return a flyweight cell, thus each cell is copied before the next is read
+            int row = next.getRow();
+            ImmutableList.Builder<Cell<V>> builder = ImmutableList.builder();
+            builder.add(next);
+            next = null;
+            while (iterator.hasNext()) {
+                Cell<V> cell = ImmutableCell.copyOf(iterator.next());
+                if (cell.getRow() != row) {
+                    next = cell;
+                    break;
+                }
+                builder.add(cell);
+            }
+            action.accept(builder.build());
+            return true;
+        }
+    }
+
+}
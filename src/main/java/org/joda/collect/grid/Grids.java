@@ -0,0 +1,248 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import org.joda.collect.grid.Grid.Cell;
+
+/**
+ * Static utility methods for {@code Grid}.
+ *
+ * @author Stephen Colebourne
+ */
+public final class Grids {
+
+    /**
+     * Restricted constructor.
+     */
+    private Grids() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Obtains a grid that records statistics about the calls made to the specified grid.
+     * <p>
+     * The returned grid delegates all methods to the specified grid, counting
+     * the calls and recording their latency as it does so.
+     * The statistics are obtained using {@link InstrumentedGrid#stats()}.
+     * <p>
+     * The statistics are recorded using striped counters, thus the returned grid
+     * can be shared between threads if the underlying grid is safe to share.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid to instrument, not null
+     * @return the instrumented grid, not null
+     */
+    public static <V> InstrumentedGrid<V> instrumented(Grid<V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        return new InstrumentedGrid<V>(grid);
+    }
+
+    /**
+     * Obtains a grid that guards the specified grid using optimistic locking.
+     * <p>
+     * The returned grid uses a {@link java.util.concurrent.locks.StampedLock}.
+     * Where the specified grid is array-based, such as {@code DenseGrid}, point reads, such as {@code get},
+     * try an optimistic read first, only taking the read lock if a write occurred at the same time.
+     * Reads of other grids, such as {@code SparseGrid}, always take the read lock.
+     * Writes take the write lock.
+     * Consistent reads of multiple cells are performed using {@link OptimisticLockingGrid#readBulk}.
+     * <p>
+     * This suits array-based mutable grids, such as {@code DenseGrid}, that are mostly read.
+     * The specified grid must not be used directly once wrapped.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid to guard, not null
+     * @return the guarded grid, not null
+     */
+    public static <V> OptimisticLockingGrid<V> optimisticLocking(Grid<V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        return new OptimisticLockingGrid<V>(grid);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Obtains an immutable grid of the same size where each value is mapped by a function.
+     * <p>
+     * Where the function returns null, the row-column is empty in the result.
+     * The layout of the source is retained where possible.
+     * A {@code DenseGrid} or dense immutable grid produces a dense immutable grid,
+     * mapping large grids in parallel using the common {@code ForkJoinPool}.
+     * A sparse immutable grid produces a sparse immutable grid sharing the same sorted keys.
+     * Other grids produce a sparse immutable grid.
+     * <p>
+     * The function may be called in parallel, thus it must be thread-safe.
+     * 
+     * @param <V> the type of the source value
+     * @param <R> the type of the mapped value
+     * @param grid  the grid to map, not null
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    public static <V, R> ImmutableGrid<R> map(Grid<V> grid, Function<? super V, ? extends R> mapper) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableGrid<R> mapped;
+        if (grid instanceof DenseGrid) {
+            mapped = ((DenseGrid<V>) grid).mapValues(mapper);
+        } else if (grid instanceof DenseImmutableGrid) {
+            mapped = ((DenseImmutableGrid<V>) grid).mapValues(mapper);
+        } else if (grid instanceof SparseImmutableGrid) {
+            mapped = ((SparseImmutableGrid<V>) grid).mapValues(mapper);
+        } else {
+            List<Cell<R>> cells = new ArrayList<>(grid.size());
+            grid.forEachCell((row, column, value) -> {
+                R result = mapper.apply(value);
+                if (result != null) {
+                    cells.add(ImmutableCell.<R>of(row, column, result));
+                }
+            });
+            mapped = ImmutableGrid.copyOf(grid.rowCount(), grid.columnCount(), cells);
+        }
+        if (mapped.size() <= 1) {
+            // use the specialized empty and singleton layouts
+            mapped = ImmutableGrid.copyOf(mapped, GridLayoutStrategy.sparse());
+        }
+        event.end("map", grid);
+        return mapped;
+    }
+
+    /**
+     * Obtains an immutable {@code double} grid of the same size where each value is mapped by a function.
+     * <p>
+     * Every occupied row-column of the source is occupied in the result.
+     * The layout of the source is retained where possible.
+     * A {@code DenseGrid} or dense immutable grid produces a dense immutable grid,
+     * mapping large grids in parallel using the common {@code ForkJoinPool}.
+     * A sparse immutable grid produces a sparse immutable grid sharing the same sorted keys.
+     * Other grids produce a sparse immutable grid.
+     * <p>
+     * The function may be called in parallel, thus it must be thread-safe.
+     * 
+     * @param <V> the type of the source value
+     * @param grid  the grid to map, not null
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    public static <V> ImmutableDoubleGrid mapToDouble(Grid<V> grid, ToDoubleFunction<? super V> mapper) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableDoubleGrid mapped;
+        if (grid instanceof DenseGrid) {
+            mapped = ((DenseGrid<V>) grid).mapValuesToDouble(mapper);
+        } else if (grid instanceof DenseImmutableGrid) {
+            mapped = ((DenseImmutableGrid<V>) grid).mapValuesToDouble(mapper);
+        } else if (grid instanceof SparseImmutableGrid) {
+            mapped = ((SparseImmutableGrid<V>) grid).mapValuesToDouble(mapper);
+        } else {
+            // the cells are in row-column order, thus the keys are sorted
+            // the size of a concurrent grid is an estimate, thus the arrays grow as needed
+            long[] keys = new long[grid.size()];
+            double[] values = new double[keys.length];
+            int index = 0;
+            for (Cell<V> cell : grid.cells()) {
+                if (index == keys.length) {
+                    int capacity = index + (index >>> 1) + 16;
+                    keys = Arrays.copyOf(keys, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+                keys[index] = (((long) cell.getRow()) << 32) + cell.getColumn();
+                values[index] = mapper.applyAsDouble(cell.getValue());
+                index++;
+            }
+            if (index < keys.length) {
+                keys = Arrays.copyOf(keys, index);
+                values = Arrays.copyOf(values, index);
+            }
+            mapped = new SparseImmutableDoubleGrid(grid.rowCount(), grid.columnCount(), keys, values);
+        }
+        event.end("mapToDouble", grid);
+        return mapped;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Checks if a grid is equal to another object, comparing large dense grids in parallel.
+     * <p>
+     * The result is the same as {@link Grid#equals(Object)}.
+     * Where both grids are {@code DenseGrid} or dense immutable grids, large values arrays are
+     * compared in chunks using the common {@code ForkJoinPool}.
+     * Other grids are compared using {@code equals}.
+     * <p>
+     * The {@code equals} method of a grid never uses the common pool, as it may be called
+     * from tasks already running in the pool, or while the pool is busy with other work.
+     * 
+     * @param grid  the grid to compare, not null
+     * @param obj  the object to compare to, null returns false
+     * @return true if equal
+     */
+    public static boolean parallelEquals(Grid<?> grid, Object obj) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (grid instanceof DenseGrid) {
+            return ((DenseGrid<?>) grid).equals(obj, true);
+        }
+        if (grid instanceof DenseImmutableGrid) {
+            return ((DenseImmutableGrid<?>) grid).equals(obj, true);
+        }
+        return grid.equals(obj);
+    }
+
+    /**
+     * Calculates the hash code of a grid, scanning large dense grids in parallel.
+     * <p>
+     * The result is the same as {@link Grid#hashCode()}.
+     * Where the grid is a {@code DenseGrid} or dense immutable grid, a large values array is
+     * scanned in chunks using the common {@code ForkJoinPool}.
+     * Other grids use {@code hashCode}.
+     * 
+     * @param grid  the grid to hash, not null
+     * @return the hash code
+     */
+    public static int parallelHashCode(Grid<?> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (grid instanceof DenseGrid) {
+            return ((DenseGrid<?>) grid).hashCode(true);
+        }
+        if (grid instanceof DenseImmutableGrid) {
+            return ((DenseImmutableGrid<?>) grid).hashCode(true);
+        }
+        return grid.hashCode();
+    }
+
+}
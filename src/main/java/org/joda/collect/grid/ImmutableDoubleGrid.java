@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * Immutable implementation of the {@code DoubleGrid} data structure.
+ * 
+ * @author Stephen Colebourne
+ */
+public abstract class ImmutableDoubleGrid extends ImmutableGrid<Double> implements DoubleGrid {
+
+    /**
+     * Obtains an immutable grid by copying another grid.
+     * <p>
+     * If the grid is already an {@code ImmutableDoubleGrid} it is returned.
+     * Otherwise, a dense or sparse layout is chosen using the default cost model
+     * of {@link GridLayoutStrategy#costModel()}, adjusted for primitive values.
+     * 
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    public static ImmutableDoubleGrid copyOf(DoubleGrid grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (grid instanceof ImmutableDoubleGrid) {
+            return (ImmutableDoubleGrid) grid;
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableDoubleGrid copy;
+        if (CostModelLayoutStrategy.DEFAULT.isDensePrimitive(grid.rowCount(), grid.columnCount(), grid.size(), 8)) {
+            copy = DenseImmutableDoubleGrid.create(grid);
+        } else {
+            copy = SparseImmutableDoubleGrid.create(grid);
+        }
+        event.end("copyOf", grid);
+        return copy;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    ImmutableDoubleGrid() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * {@inheritDoc}
+     * @deprecated Grid is read-only
+     */
+    @Deprecated
+    @Override
+    public void putDouble(int row, int column, double value) {
+        throw new UnsupportedOperationException("Grid is read-only");
+    }
+
+}
@@ -15,6 +15,9 @@
  */
 package org.joda.collect.grid;
 
+import java.util.ServiceLoader;
+import java.util.function.Function;
+
 /**
  * Immutable implementation of the {@code Grid} data structure.
  * 
@@ -143,6 +146,9 @@ public abstract class ImmutableGrid<V> extends AbstractGrid<V> {
      * <p>
      * If you need to change the row-column count, use {@link #copyOf(int, int, Iterable)}
      * passing in the set of cells from the grid.
+     * <p>
+     * The layout of the copy is chosen by the {@link GridLayoutStrategy} registered
+     * with {@link java.util.ServiceLoader}, or by the cost model if none is registered.
      * 
      * @param <R> the type of the value
      * @param grid  the grid to copy, not null
@@ -156,6 +162,50 @@ public abstract class ImmutableGrid<V> extends AbstractGrid<V> {
         if (grid instanceof ImmutableGrid) {
             return (ImmutableGrid<R>) grid;
         }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableGrid<R> copy = copy(grid, DefaultLayoutStrategy.INSTANCE);
+        event.end("copyOf", grid);
+        return copy;
+    }
+
+    /**
+     * Obtains an immutable grid by copying another grid, choosing the layout using a strategy.
+     * <p>
+     * This is used to force a particular layout, or to choose the layout using a custom rule.
+     * Unlike {@link #copyOf(Grid)}, the grid is copied even if it is already immutable,
+     * thus the result always has the layout chosen by the strategy.
+     * Grids with zero or one cells always use a specialized layout.
+     * 
+     * @param <R> the type of the value
+     * @param grid  the grid to copy, not null
+     * @param strategy  the strategy to choose the layout, not null
+     * @return the immutable grid, not null
+     * @throws IndexOutOfBoundsException if either index is less than zero
+     */
+    public static <R> ImmutableGrid<R> copyOf(Grid<R> grid, GridLayoutStrategy strategy) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableGrid<R> copy = copy(grid, strategy);
+        event.end("copyOf", grid);
+        return copy;
+    }
+
+    /**
+     * Gets the layout strategy used by {@link #copyOf(Grid)}.
+     * 
+     * @return the strategy, not null
+     */
+    static GridLayoutStrategy defaultLayoutStrategy() {
+        return DefaultLayoutStrategy.INSTANCE;
+    }
+
+    // copies a grid
+    private static <R> ImmutableGrid<R> copy(Grid<R> grid, GridLayoutStrategy strategy) {
         validateCounts(grid.rowCount(), grid.columnCount());
         if (grid.size() == 0) {
             return new EmptyGrid<R>(grid.rowCount(), grid.columnCount());
@@ -164,10 +214,11 @@ public abstract class ImmutableGrid<V> extends AbstractGrid<V> {
             Cell<R> cell = grid.cells().iterator().next();
             return new SingletonGrid<R>(grid.rowCount(), grid.columnCount(), cell);
         }
-        if (grid.size() >= (grid.rowCount() * grid.columnCount() / 2)) {
-            return DenseImmutableGrid.create(grid);
+        ImmutableGrid<R> copy = strategy.copyOf(grid);
+        if (copy == null) {
+            throw new IllegalStateException("Layout strategy must not return null: " + strategy);
         }
-        return new SparseImmutableGrid<R>(grid);
+        return copy;
     }
 
     //-----------------------------------------------------------------------
@@ -218,4 +269,27 @@ public abstract class ImmutableGrid<V> extends AbstractGrid<V> {
         throw new UnsupportedOperationException("Grid is read-only");
     }
 
+    /**
+     * {@inheritDoc}
+     * @deprecated Grid is read-only
+     */
+    @Deprecated
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException("Grid is read-only");
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Holds the default layout strategy, loaded lazily.
+     */
+    private static final class DefaultLayoutStrategy {
+        /**
+         * The strategy, the first registered service or the cost model.
+         */
+        private static final GridLayoutStrategy INSTANCE = ServiceLoader.load(GridLayoutStrategy.class)
+                .findFirst()
+                .orElse(GridLayoutStrategy.costModel());
+    }
+
 }
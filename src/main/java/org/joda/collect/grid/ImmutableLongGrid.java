@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * Immutable implementation of the {@code LongGrid} data structure.
+ * 
+ * @author Stephen Colebourne
+ */
+public abstract class ImmutableLongGrid extends ImmutableGrid<Long> implements LongGrid {
+
+    /**
+     * Obtains an immutable grid by copying another grid.
+     * <p>
+     * If the grid is already an {@code ImmutableLongGrid} it is returned.
+     * Otherwise, a dense or sparse layout is chosen using the default cost model
+     * of {@link GridLayoutStrategy#costModel()}, adjusted for primitive values.
+     * 
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    public static ImmutableLongGrid copyOf(LongGrid grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        if (grid instanceof ImmutableLongGrid) {
+            return (ImmutableLongGrid) grid;
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        ImmutableLongGrid copy;
+        if (CostModelLayoutStrategy.DEFAULT.isDensePrimitive(grid.rowCount(), grid.columnCount(), grid.size(), 8)) {
+            copy = DenseImmutableLongGrid.create(grid);
+        } else {
+            copy = SparseImmutableLongGrid.create(grid);
+        }
+        event.end("copyOf", grid);
+        return copy;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    ImmutableLongGrid() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * {@inheritDoc}
+     * @deprecated Grid is read-only
+     */
+    @Deprecated
+    @Override
+    public void putLong(int row, int column, long value) {
+        throw new UnsupportedOperationException("Grid is read-only");
+    }
+
+}
@@ -0,0 +1,388 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.google.common.collect.ImmutableCollection;
+
+/**
+ * A grid that records statistics about the calls made to an underlying grid.
+ * <p>
+ * All methods are delegated to the underlying grid.
+ * Calls to {@code get}, {@code put} and {@code remove} are counted and their latency recorded,
+ * as are calls to {@code compute}, {@code computeIfAbsent}, {@code computeIfPresent} and {@code merge}.
+ * Calls passing an index that does not exist are counted, as are the views and streams that are created.
+ * Each of these methods is delegated to the same method of the underlying grid, thus the atomicity
+ * of the updates of a concurrent grid is retained.
+ * Calls made via the views are not recorded.
+ * <p>
+ * The statistics are recorded using striped counters, thus this grid can be
+ * shared between threads if the underlying grid is safe to share.
+ * Instances are obtained using {@link Grids#instrumented(Grid)}.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class InstrumentedGrid<V> implements Grid<V> {
+
+    /**
+     * The underlying grid.
+     */
+    private final Grid<V> grid;
+    /**
+     * The number of calls to get that found a value.
+     */
+    private final LongAdder getHits = new LongAdder();
+    /**
+     * The number of calls to get that did not find a value at a row-column that exists.
+     */
+    private final LongAdder getMisses = new LongAdder();
+    /**
+     * The number of calls to put.
+     */
+    private final LongAdder puts = new LongAdder();
+    /**
+     * The number of calls to remove.
+     */
+    private final LongAdder removes = new LongAdder();
+    /**
+     * The number of calls to compute, computeIfAbsent, computeIfPresent and merge.
+     */
+    private final LongAdder computes = new LongAdder();
+    /**
+     * The number of calls with an index that does not exist.
+     */
+    private final LongAdder outOfBounds = new LongAdder();
+    /**
+     * The number of cell views created.
+     */
+    private final LongAdder cellsViews = new LongAdder();
+    /**
+     * The number of row views created.
+     */
+    private final LongAdder rowViews = new LongAdder();
+    /**
+     * The number of column views created.
+     */
+    private final LongAdder columnViews = new LongAdder();
+    /**
+     * The latency of get.
+     */
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+    /**
+     * The latency of put.
+     */
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+    /**
+     * The latency of remove.
+     */
+    private final LatencyHistogram removeLatency = new LatencyHistogram();
+    /**
+     * The latency of compute, computeIfAbsent, computeIfPresent and merge.
+     */
+    private final LatencyHistogram computeLatency = new LatencyHistogram();
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    InstrumentedGrid(Grid<V> grid) {
+        this.grid = grid;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Takes a snapshot of the statistics recorded so far.
+     * <p>
+     * The snapshot is not atomic with respect to calls made concurrently.
+     * 
+     * @return the statistics, not null
+     */
+    public GridStats stats() {
+        return new GridStats(
+                getHits.sum(),
+                getMisses.sum(),
+                puts.sum(),
+                removes.sum(),
+                computes.sum(),
+                outOfBounds.sum(),
+                cellsViews.sum(),
+                rowViews.sum(),
+                columnViews.sum(),
+                getLatency.snapshot(),
+                putLatency.snapshot(),
+                removeLatency.snapshot(),
+                computeLatency.snapshot());
+    }
+
+    /**
+     * Adds an estimate of the memory retained by this grid, excluding the values.
+     * <p>
+     * The counters are assumed to be uncontended.
+     * 
+     * @param builder  the builder to add to, not null
+     */
+    void estimateFootprint(GridFootprint.Builder builder) {
+        // LongAdder has a reference, a long and an int
+        long adder = GridFootprint.object(GridFootprint.REFERENCE + 8 + 4);
+        long histogram = GridFootprint.object(2 * GridFootprint.REFERENCE) +
+                GridFootprint.array(GridFootprint.REFERENCE, LatencyHistogram.BUCKETS) +
+                (LatencyHistogram.BUCKETS + 1) * adder;
+        builder.add("instrumentation", GridFootprint.object(14 * GridFootprint.REFERENCE) + 9 * adder + 4 * histogram);
+        builder.estimate(grid);
+    }
+
+    // counts an index that does not exist
+    private void checkBounds(int row, int column) {
+        if (!grid.exists(row, column)) {
+            outOfBounds.increment();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return grid.rowCount();
+    }
+
+    @Override
+    public int columnCount() {
+        return grid.columnCount();
+    }
+
+    @Override
+    public boolean exists(int row, int column) {
+        return grid.exists(row, column);
+    }
+
+    @Override
+    public boolean isFull() {
+        return grid.isFull();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return grid.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return grid.size();
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        checkBounds(row, column);
+        return grid.contains(row, column);
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        return grid.containsValue(valueToFind);
+    }
+
+    @Override
+    public V get(int row, int column) {
+        long start = System.nanoTime();
+        V value = grid.get(row, column);
+        getLatency.record(System.nanoTime() - start);
+        if (value != null) {
+            getHits.increment();
+        } else if (grid.exists(row, column)) {
+            getMisses.increment();
+        } else {
+            outOfBounds.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        checkBounds(row, column);
+        return grid.cell(row, column);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        grid.clear();
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        checkBounds(row, column);
+        puts.increment();
+        long start = System.nanoTime();
+        try {
+            grid.put(row, column, value);
+        } finally {
+            putLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        this.grid.putAll(grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        checkBounds(row, column);
+        removes.increment();
+        long start = System.nanoTime();
+        try {
+            return grid.remove(row, column);
+        } finally {
+            removeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        checkBounds(row, column);
+        computes.increment();
+        long start = System.nanoTime();
+        try {
+            return grid.compute(row, column, remappingFunction);
+        } finally {
+            computeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(int row, int column, Supplier<? extends V> valueSupplier) {
+        checkBounds(row, column);
+        computes.increment();
+        long start = System.nanoTime();
+        try {
+            return grid.computeIfAbsent(row, column, valueSupplier);
+        } finally {
+            computeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public V computeIfPresent(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        checkBounds(row, column);
+        computes.increment();
+        long start = System.nanoTime();
+        try {
+            return grid.computeIfPresent(row, column, remappingFunction);
+        } finally {
+            computeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public V merge(int row, int column, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        checkBounds(row, column);
+        computes.increment();
+        long start = System.nanoTime();
+        try {
+            return grid.merge(row, column, value, remappingFunction);
+        } finally {
+            computeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        cellsViews.increment();
+        return grid.cells();
+    }
+
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        cellsViews.increment();
+        grid.forEachCell(action);
+    }
+
+    @Override
+    public ImmutableCollection<V> values() {
+        return grid.values();
+    }
+
+    @Override
+    public List<V> row(int row) {
+        if (row < 0 || row >= grid.rowCount()) {
+            outOfBounds.increment();
+        }
+        rowViews.increment();
+        return grid.row(row);
+    }
+
+    @Override
+    public List<List<V>> rows() {
+        rowViews.increment();
+        return grid.rows();
+    }
+
+    @Override
+    public Stream<List<Cell<V>>> rowStream() {
+        rowViews.increment();
+        return grid.rowStream();
+    }
+
+    @Override
+    public List<V> column(int column) {
+        if (column < 0 || column >= grid.columnCount()) {
+            outOfBounds.increment();
+        }
+        columnViews.increment();
+        return grid.column(column);
+    }
+
+    @Override
+    public List<List<V>> columns() {
+        columnViews.increment();
+        return grid.columns();
+    }
+
+    @Override
+    public Stream<List<Cell<V>>> columnStream() {
+        columnViews.increment();
+        return grid.columnStream();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        return grid.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return grid.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return grid.toString();
+    }
+
+}
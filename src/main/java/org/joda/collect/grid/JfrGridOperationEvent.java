@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder event for an expensive bulk operation on a grid.
+ * <p>
+ * This class is only loaded when the {@code jdk.jfr} module is present, see {@link GridOperationEvent}.
+ * By default, only operations taking at least one millisecond are recorded.
+ * This can be changed in the recording settings using the event name.
+ * When JFR is not recording, the cost of the event is negligible.
+ */
+@Name(GridOperationEvent.NAME)
+@Label("Grid Operation")
+@Category({"Joda-Collect", "Grid"})
+@Description("An expensive bulk operation on a grid")
+@StackTrace(true)
+@Threshold("1 ms")
+final class JfrGridOperationEvent extends Event implements GridOperationEvent {
+
+    /**
+     * The operation.
+     */
+    @Label("Operation")
+    private String operation;
+    /**
+     * The grid implementation class.
+     */
+    @Label("Grid Class")
+    private Class<?> gridClass;
+    /**
+     * The number of rows.
+     */
+    @Label("Row Count")
+    private int rowCount;
+    /**
+     * The number of columns.
+     */
+    @Label("Column Count")
+    private int columnCount;
+    /**
+     * The number of cells.
+     */
+    @Label("Cell Count")
+    private int cellCount;
+
+    /**
+     * Creates an instance.
+     */
+    JfrGridOperationEvent() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Starts timing the operation.
+     * 
+     * @return this event, not null
+     */
+    static JfrGridOperationEvent startEvent() {
+        JfrGridOperationEvent event = new JfrGridOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends timing the operation, committing the event if it is enabled and over the threshold.
+     * <p>
+     * The grid is only queried if the event is to be committed.
+     * 
+     * @param operation  the name of the operation
+     * @param grid  the grid that the event describes
+     */
+    @Override
+    public void end(String operation, Grid<?> grid) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.gridClass = grid.getClass();
+            this.rowCount = grid.rowCount();
+            this.columnCount = grid.columnCount();
+            this.cellCount = grid.size();
+            commit();
+        }
+    }
+
+}
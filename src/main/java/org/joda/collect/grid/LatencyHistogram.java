@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds, bucketed by powers of two.
+ * <p>
+ * Bucket zero holds latencies of 0 and 1 nanosecond, bucket {@code n} holds
+ * latencies from {@code 2^n} inclusive to {@code 2^(n+1)} exclusive.
+ * The buckets are striped counters, so recording does not contend between threads.
+ *
+ * @author Stephen Colebourne
+ */
+final class LatencyHistogram {
+
+    /**
+     * The number of buckets.
+     */
+    static final int BUCKETS = 64;
+
+    /**
+     * The buckets.
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    /**
+     * The total of all latencies.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Creates an instance.
+     */
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Records a latency.
+     * 
+     * @param nanos  the latency in nanoseconds, negative treated as zero
+     */
+    void record(long nanos) {
+        long latency = Math.max(nanos, 0);
+        buckets[bucket(latency)].increment();
+        total.add(latency);
+    }
+
+    /**
+     * Gets the bucket for a latency.
+     * 
+     * @param nanos  the latency in nanoseconds, zero or greater
+     * @return the bucket index
+     */
+    static int bucket(long nanos) {
+        return 63 - Long.numberOfLeadingZeros(nanos | 1);
+    }
+
+    /**
+     * Takes a snapshot of the histogram.
+     * <p>
+     * The snapshot is not atomic with respect to concurrent recording.
+     * 
+     * @return the snapshot, not null
+     */
+    GridStats.Latency snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new GridStats.Latency(counts, total.sum());
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable implementation of the {@code DoubleGrid} data structure based on a memory-mapped file.
+ * <p>
+ * The file layout is described in {@link GridFiles}.
+ * The values are split into chunks of at most {@code 2^27} row-columns, as each mapping is indexed by int.
+ * 
+ * @author Stephen Colebourne
+ */
+final class MappedImmutableDoubleGrid extends ImmutableDoubleGrid {
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final int size;
+    /**
+     * The number of bits of the index used to find the position in a chunk.
+     */
+    private final int chunkShift;
+    /**
+     * The occupied row-columns.
+     */
+    private final LongBuffer occupied;
+    /**
+     * The chunks of values, zero where not occupied.
+     */
+    private final DoubleBuffer[] chunks;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    MappedImmutableDoubleGrid(
+            int rowCount, int columnCount, int size, int chunkShift, LongBuffer occupied, ByteBuffer[] chunks) {
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.chunkShift = chunkShift;
+        this.occupied = occupied;
+        this.chunks = new DoubleBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            this.chunks[i] = chunks[i].asDoubleBuffer();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(occupied, row * columnCount + column);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Double) {
+            double find = (Double) valueToFind;
+            for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+                if (Double.compare(valueAt(i), find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Double get(int row, int column) {
+        if (contains(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return null;
+    }
+
+    @Override
+    public double getDouble(int row, int column) {
+        // values that are not occupied are zero
+        if (exists(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return 0;
+    }
+
+    @Override
+    public double getDouble(int row, int column, double defaultValue) {
+        if (contains(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public Cell<Double> cell(int row, int column) {
+        if (contains(row, column)) {
+            return ImmutableCell.of(row, column, (Double) valueAt(row * columnCount + column));
+        }
+        return null;
+    }
+
+    // gets the value at an index
+    private double valueAt(int index) {
+        return chunks[index >>> chunkShift].get(index & ((1 << chunkShift) - 1));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<Double>> cells() {
+        return new Cells(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells extends AbstractSet<Cell<Double>> {
+        private final MappedImmutableDoubleGrid grid;
+
+        Cells(MappedImmutableDoubleGrid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<Double>> iterator() {
+            return new Iterator<Cell<Double>>() {
+                private MutableCell<Double> cell = new MutableCell<Double>();
+                private int next = Bitmaps.nextSetBit(grid.occupied, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                @Override
+                public Cell<Double> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    int current = next;
+                    next = Bitmaps.nextSetBit(grid.occupied, current + 1);
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.valueAt(current));
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Immutable");
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super Double> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            action.accept(i / columnCount, i % columnCount, valueAt(i));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<Double> values() {
+        Double[] array = new Double[size];
+        int index = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            array[index++] = valueAt(i);
+        }
+        return ImmutableList.copyOf(array);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        // the bitmap and each chunk are a view buffer (56) over a mapped buffer (64)
+        // with an unmapper (48), a file descriptor (40) and a cleaner (40)
+        builder.add("buffers",
+                GridFootprint.array(GridFootprint.REFERENCE, chunks.length) + (chunks.length + 1) * 248L);
+        builder.add("mapped file",
+                GridFiles.HEADER_BYTES + 8L * occupied.limit() + (long) rowCount * columnCount * 8);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A region of a file mapped into memory, which may be larger than a single mapping.
+ * <p>
+ * The region is mapped in chunks, as each mapping is indexed by int.
+ * The chunk size is a multiple of 8, thus aligned {@code long} values never span two chunks.
+ * All data is little-endian.
+ *
+ * @author Stephen Colebourne
+ */
+final class MappedRegion {
+
+    /**
+     * The number of bits of the position used to find the offset in a chunk.
+     */
+    private final int chunkShift;
+    /**
+     * The length of the region.
+     */
+    private final long length;
+    /**
+     * The chunks.
+     */
+    private final ByteBuffer[] chunks;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Maps a region of a file read-only.
+     * 
+     * @param channel  the channel to map, not null
+     * @param start  the start of the region in the file
+     * @param length  the length of the region
+     * @param chunkShift  the number of bits of the position used to find the offset in a chunk, from 3 to 30
+     * @return the region, not null
+     * @throws IOException if an IO error occurs
+     */
+    static MappedRegion map(FileChannel channel, long start, long length, int chunkShift) throws IOException {
+        long chunkSize = 1L << chunkShift;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((length + chunkSize - 1) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            long first = (long) i << chunkShift;
+            chunks[i] = channel.map(MapMode.READ_ONLY, start + first, Math.min(chunkSize, length - first))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new MappedRegion(chunkShift, length, chunks);
+    }
+
+    /**
+     * Restricted constructor.
+     */
+    private MappedRegion(int chunkShift, long length, ByteBuffer[] chunks) {
+        this.chunkShift = chunkShift;
+        this.length = length;
+        this.chunks = chunks;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the length of the region.
+     * 
+     * @return the length
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Gets the number of mappings.
+     * 
+     * @return the number of mappings
+     */
+    int mappingCount() {
+        return chunks.length;
+    }
+
+    /**
+     * Gets the {@code long} at a position that is a multiple of 8.
+     * 
+     * @param position  the position in the region
+     * @return the value
+     */
+    long getLong(long position) {
+        return chunks[(int) (position >>> chunkShift)].getLong((int) (position & ((1L << chunkShift) - 1)));
+    }
+
+    /**
+     * Gets a read-only buffer of the bytes in a range.
+     * <p>
+     * The buffer is a view of the mapping when the range is within a single chunk, and a copy otherwise.
+     * 
+     * @param position  the position in the region
+     * @param byteCount  the number of bytes
+     * @return the buffer, positioned at zero with the limit at the byte count, not null
+     */
+    ByteBuffer slice(long position, int byteCount) {
+        int chunk = (int) (position >>> chunkShift);
+        int offset = (int) (position & ((1L << chunkShift) - 1));
+        if (offset + (long) byteCount <= chunks[chunk].capacity()) {
+            return chunks[chunk].slice(offset, byteCount).asReadOnlyBuffer();
+        }
+        byte[] bytes = new byte[byteCount];
+        int copied = 0;
+        while (copied < byteCount) {
+            int count = Math.min(byteCount - copied, chunks[chunk].capacity() - offset);
+            chunks[chunk].get(offset, bytes, copied, count);
+            copied += count;
+            chunk++;
+            offset = 0;
+        }
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable implementation of the {@code Grid} data structure based on a memory-mapped sparse grid file.
+ * <p>
+ * The file layout is described in {@link GridFiles}.
+ * Lookups use a binary search of the mapped keys, with each value decoded when accessed.
+ *
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+final class MappedSparseImmutableGrid<V> extends ImmutableGrid<V> {
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The size.
+     */
+    private final int size;
+    /**
+     * The sorted keys.
+     */
+    private final MappedRegion keys;
+    /**
+     * The encoded values.
+     */
+    private final MappedRegion values;
+    /**
+     * The offset of each value in the values region, plus the end of the last value.
+     */
+    private final MappedRegion offsets;
+    /**
+     * The decoder.
+     */
+    private final Function<? super ByteBuffer, ? extends V> decoder;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    MappedSparseImmutableGrid(
+            int rowCount,
+            int columnCount,
+            int size,
+            MappedRegion keys,
+            MappedRegion values,
+            MappedRegion offsets,
+            Function<? super ByteBuffer, ? extends V> decoder) {
+
+        validateCounts(rowCount, columnCount);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.size = size;
+        this.keys = keys;
+        this.values = values;
+        this.offsets = offsets;
+        this.decoder = decoder;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return exists(row, column) && indexOf(row, column) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind != null) {
+            for (int i = 0; i < size; i++) {
+                if (valueToFind.equals(valueAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (exists(row, column)) {
+            int index = indexOf(row, column);
+            if (index >= 0) {
+                return valueAt(index);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        V value = get(row, column);
+        return (value != null ? ImmutableCell.of(row, column, value) : null);
+    }
+
+    // binary search of the mapped keys
+    private int indexOf(int row, int column) {
+        long key = (((long) row) << 32) + column;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keys.getLong(8L * mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // decodes the value at an index
+    private V valueAt(int index) {
+        long start = offsets.getLong(8L * index);
+        long end = offsets.getLong(8L * index + 8);
+        V value = decoder.apply(values.slice(start, (int) (end - start)));
+        if (value == null) {
+            throw new IllegalStateException("Decoder must not return null");
+        }
+        return value;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final MappedSparseImmutableGrid<V> grid;
+
+        Cells(MappedSparseImmutableGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < grid.size;
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    long key = grid.keys.getLong(8L * index);
+                    cell.set((int) (key >>> 32), (int) key, grid.valueAt(index));
+                    index++;
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Immutable");
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = 0; i < size; i++) {
+            long key = keys.getLong(8L * i);
+            action.accept((int) (key >>> 32), (int) key, valueAt(i));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    @SuppressWarnings("unchecked")
+    public ImmutableCollection<V> values() {
+        Object[] array = new Object[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = valueAt(i);
+        }
+        return ImmutableList.copyOf((V[]) array);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 4 * GridFootprint.REFERENCE));
+        int mappings = keys.mappingCount() + values.mappingCount() + offsets.mappingCount();
+        // each region holds an array of mapped buffers (64),
+        // each with an unmapper (48), a file descriptor (40) and a cleaner (40)
+        builder.add("buffers", 3 * GridFootprint.object(4 + 8 + GridFootprint.REFERENCE) +
+                GridFootprint.array(GridFootprint.REFERENCE, keys.mappingCount()) +
+                GridFootprint.array(GridFootprint.REFERENCE, values.mappingCount()) +
+                GridFootprint.array(GridFootprint.REFERENCE, offsets.mappingCount()) +
+                mappings * 192L);
+        builder.add("mapped file", GridFiles.HEADER_BYTES + keys.length() + values.length() + offsets.length());
+    }
+
+}
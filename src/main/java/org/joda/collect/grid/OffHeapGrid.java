@@ -0,0 +1,435 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Mutable implementation of the {@code Grid} data structure with values encoded off-heap.
+ * <p>
+ * Each value is encoded by a {@link GridCodec} into a fixed-width slot held in a direct buffer
+ * outside the Java heap. The slots are held in row-major order, as per {@link DenseGrid}.
+ * This uses {@code slotBytes} bytes of native memory for each possible combination of row and column,
+ * split into chunks of at most 1Gb, plus one bit of heap to indicate whether the row-column is occupied.
+ * <p>
+ * The only values on the heap are those decoded by the caller.
+ * Each call to {@link #get(int, int)} decodes a new value,
+ * whereas {@link #getInto(int, int, Object)} can decode into an existing mutable value.
+ * As values are copied in and out, changes to a value after it is put are not reflected in the grid.
+ * <p>
+ * The native memory cannot be freed explicitly.
+ * It is freed once the garbage collector finds the grid unreachable, which may be some time later,
+ * thus applications that create and discard large grids frequently should reuse them instead.
+ * <p>
+ * The buffers are allocated using {@link java.nio.ByteBuffer#allocateDirect(int)}, thus the total size
+ * of all direct buffers in the JVM is limited by {@code -XX:MaxDirectMemorySize}.
+ * The limit defaults to the maximum heap size, thus a grid larger than the heap needs the limit raised.
+ * The grid is not serializable.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class OffHeapGrid<V> extends AbstractGrid<V> {
+
+    /**
+     * The number of bits in the maximum size of a chunk.
+     */
+    private static final int CHUNK_BYTES_SHIFT = 30;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The codec.
+     */
+    private final GridCodec<V> codec;
+    /**
+     * The number of bytes in each slot.
+     */
+    private final int slotBytes;
+    /**
+     * The number of bits of the index used to find the slot in a chunk.
+     */
+    private final int chunkShift;
+    /**
+     * The size.
+     */
+    private int size;
+    /**
+     * The chunks of slots.
+     */
+    private final ByteBuffer[] chunks;
+    /**
+     * The occupied row-columns.
+     */
+    private final long[] occupied;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code OffHeapGrid} of the specified size.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @param codec  the codec used to encode the values, not null
+     * @return the mutable grid, not null
+     * @throws IllegalArgumentException if the grid would have more than {@code Integer.MAX_VALUE} row-columns
+     */
+    public static <V> OffHeapGrid<V> create(int rowCount, int columnCount, GridCodec<V> codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec must not be null");
+        }
+        int slotBytes = codec.slotBytes();
+        if (slotBytes < 1 || slotBytes > (1 << CHUNK_BYTES_SHIFT)) {
+            throw new IllegalArgumentException("Codec slot bytes must be from 1 to 1Gb: " + slotBytes);
+        }
+        int chunkShift = CHUNK_BYTES_SHIFT - (32 - Integer.numberOfLeadingZeros(slotBytes - 1));
+        return new OffHeapGrid<V>(rowCount, columnCount, codec, chunkShift);
+    }
+
+    /**
+     * Creates an {@code OffHeapGrid} copying from another grid.
+     *
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @param codec  the codec used to encode the values, not null
+     * @return the mutable grid, not null
+     */
+    public static <V> OffHeapGrid<V> create(Grid<? extends V> grid, GridCodec<V> codec) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        OffHeapGrid<V> created = OffHeapGrid.create(grid.rowCount(), grid.columnCount(), codec);
+        created.putAll(grid);
+        return created;
+    }
+
+    /**
+     * Creates an empty {@code OffHeapGrid} with the specified chunk size, for testing.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @param codec  the codec used to encode the values, not null
+     * @param chunkShift  the number of bits of the index used to find the slot in a chunk
+     * @return the mutable grid, not null
+     */
+    static <V> OffHeapGrid<V> create(int rowCount, int columnCount, GridCodec<V> codec, int chunkShift) {
+        return new OffHeapGrid<V>(rowCount, columnCount, codec, chunkShift);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private OffHeapGrid(int rowCount, int columnCount, GridCodec<V> codec, int chunkShift) {
+        validateCounts(rowCount, columnCount);
+        long capacity = (long) rowCount * columnCount;
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Grid must not have more than " + Integer.MAX_VALUE + " row-columns: " +
+                    rowCount + "x" + columnCount);
+        }
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.codec = codec;
+        this.slotBytes = codec.slotBytes();
+        this.chunkShift = chunkShift;
+        int chunkSize = 1 << chunkShift;
+        int chunkCount = (int) ((capacity + chunkSize - 1) >>> chunkShift);
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int slots = (int) Math.min(chunkSize, capacity - ((long) i << chunkShift));
+            chunks[i] = ByteBuffer.allocateDirect(slots * slotBytes).order(ByteOrder.nativeOrder());
+        }
+        this.occupied = new long[Bitmaps.wordCount((int) capacity)];
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the codec used to encode the values.
+     * 
+     * @return the codec, not null
+     */
+    public GridCodec<V> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Bitmaps.get(occupied, row * columnCount + column);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind != null) {
+            for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+                if (valueToFind.equals(valueAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(int row, int column) {
+        if (contains(row, column)) {
+            return valueAt(row * columnCount + column);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the value at the specified row-column, decoding into an existing value.
+     * <p>
+     * This calls {@link GridCodec#decodeInto(ByteBuffer, int, Object)}, allowing
+     * a mutable value to be reused rather than allocating a new value.
+     * If either index does not exist, or there is no value at the row-column, null is returned
+     * and the target is unaltered.
+     * 
+     * @param row  the row
+     * @param column  the column
+     * @param target  the value to decode into, not null
+     * @return the decoded value, typically the target, null if not found
+     */
+    public V getInto(int row, int column, V target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target must not be null");
+        }
+        if (contains(row, column)) {
+            int index = row * columnCount + column;
+            return codec.decodeInto(chunks[index >>> chunkShift], offset(index), target);
+        }
+        return null;
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        V value = get(row, column);
+        return (value != null ? ImmutableCell.of(row, column, value) : null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final OffHeapGrid<V> grid;
+
+        Cells(OffHeapGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size();
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            return new Iterator<Cell<V>>() {
+                private MutableCell<V> cell = new MutableCell<V>();
+                private int current = -1;
+                private int next = Bitmaps.nextSetBit(grid.occupied, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                @Override
+                public Cell<V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current = next;
+                    next = Bitmaps.nextSetBit(grid.occupied, current + 1);
+                    cell.set(current / grid.columnCount, current % grid.columnCount, grid.valueAt(current));
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    if (current < 0) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    if (!Bitmaps.get(grid.occupied, current)) {
+                        throw new IllegalStateException("Unable to remove, element has been removed");
+                    }
+                    grid.removeIndex(current);
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            int oldSize = grid.size();
+            grid.put(cell.getRow(), cell.getColumn(), cell.getValue());
+            return grid.size() > oldSize;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            action.accept(i / columnCount, i % columnCount, valueAt(i));
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    @SuppressWarnings("unchecked")
+    public ImmutableCollection<V> values() {
+        Object[] array = new Object[size];
+        int index = 0;
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            array[index++] = valueAt(i);
+        }
+        return ImmutableList.copyOf((V[]) array);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        // slots that are not occupied are ignored, so only the bitmap needs clearing
+        for (int i = Bitmaps.nextSetBit(occupied, 0); i >= 0; i = Bitmaps.nextSetBit(occupied, i + 1)) {
+            removeIndex(i);
+        }
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        int index = row * columnCount + column;
+        codec.encode(value, chunks[index >>> chunkShift], offset(index));
+        if (Bitmaps.set(occupied, index)) {
+            size++;
+        }
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        GridOperationEvent event = GridOperationEvent.start();
+        for (Cell<? extends V> cell : grid.cells()) {
+            put(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+        event.end("putAll", grid);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        if (contains(row, column)) {
+            removeIndex(row * columnCount + column);
+            return true;
+        }
+        return false;
+    }
+
+    //-----------------------------------------------------------------------
+    // decodes the value at an index
+    private V valueAt(int index) {
+        return codec.decode(chunks[index >>> chunkShift], offset(index));
+    }
+
+    // gets the byte offset of an index within its chunk
+    private int offset(int index) {
+        return (index & ((1 << chunkShift) - 1)) * slotBytes;
+    }
+
+    // removes an occupied index, leaving the slot as is
+    private void removeIndex(int index) {
+        Bitmaps.clear(occupied, index);
+        size--;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(5 * 4 + 3 * GridFootprint.REFERENCE));
+        builder.add("occupied bitmap", GridFootprint.array(8, occupied.length));
+        // each chunk is a direct byte buffer (64) with a cleaner (40) and deallocator (32)
+        builder.add("buffers", GridFootprint.array(GridFootprint.REFERENCE, chunks.length) + chunks.length * 136L);
+        builder.add("off-heap values", (long) rowCount * columnCount * slotBytes);
+    }
+
+}
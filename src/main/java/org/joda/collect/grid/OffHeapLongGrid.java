@@ -0,0 +1,202 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * Mutable implementation of the {@code LongGrid} data structure with values held in direct buffers.
+ * <p>
+ * The values are held in direct buffers outside the Java heap, in row-major order as per {@link DenseGrid}.
+ * This uses 8 bytes of native memory for each possible combination of row and column,
+ * split into chunks of at most 1Gb, plus one bit of heap to indicate whether the row-column is occupied.
+ * Large grids therefore add almost nothing to the work of the garbage collector.
+ * <p>
+ * The native memory cannot be freed explicitly.
+ * It is freed once the garbage collector finds the grid unreachable, which may be some time later,
+ * thus applications that create and discard large grids frequently should reuse them instead.
+ * <p>
+ * The buffers are allocated using {@link java.nio.ByteBuffer#allocateDirect(int)}, thus the total size
+ * of all direct buffers in the JVM is limited by {@code -XX:MaxDirectMemorySize}.
+ * The limit defaults to the maximum heap size, thus a grid larger than the heap needs the limit raised.
+ * The grid is not serializable.
+ * 
+ * @author Stephen Colebourne
+ */
+public final class OffHeapLongGrid extends AbstractOffHeapPrimitiveGrid<Long> implements LongGrid {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code OffHeapLongGrid} of the specified size.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     * @throws IllegalArgumentException if the grid would have more than {@code Integer.MAX_VALUE} row-columns
+     */
+    public static OffHeapLongGrid create(int rowCount, int columnCount) {
+        return create(rowCount, columnCount, CHUNK_SHIFT);
+    }
+
+    /**
+     * Creates an {@code OffHeapLongGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static OffHeapLongGrid create(Grid<? extends Long> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        OffHeapLongGrid created = OffHeapLongGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    /**
+     * Creates an empty {@code OffHeapLongGrid} with the specified chunk size, for testing.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @param chunkShift  the number of bits of the index used to find the position in a chunk
+     * @return the mutable grid, not null
+     */
+    static OffHeapLongGrid create(int rowCount, int columnCount, int chunkShift) {
+        validateCapacity(rowCount, columnCount);
+        return new OffHeapLongGrid(rowCount, columnCount, chunkShift);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private OffHeapLongGrid(int rowCount, int columnCount, int chunkShift) {
+        super(rowCount, columnCount, chunkShift);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Long) {
+            long find = (Long) valueToFind;
+            for (int i = nextOccupied(0); i >= 0; i = nextOccupied(i + 1)) {
+                if (Long.compare(primitiveAt(i), find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long getLong(int row, int column) {
+        // values that are not occupied are zero
+        if (exists(row, column)) {
+            return primitiveAt(row * columnCount() + column);
+        }
+        return 0;
+    }
+
+    @Override
+    public long getLong(int row, int column, long defaultValue) {
+        if (contains(row, column)) {
+            return primitiveAt(row * columnCount() + column);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void putLong(int row, int column, long value) {
+        int index = checkedIndex(row, column);
+        chunk(index).putLong(offset(index), value);
+        occupy(index);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Copies values from an array into the grid.
+     * <p>
+     * The values are written in row-major order starting from the specified row-column,
+     * continuing onto the following rows as necessary.
+     * Each row-column written becomes occupied.
+     * 
+     * @param source  the array to copy from, not null
+     * @param sourcePos  the position in the array to copy from
+     * @param row  the row to start writing at
+     * @param column  the column to start writing at
+     * @param length  the number of values to copy
+     * @throws IndexOutOfBoundsException if the range is outside the array or the grid
+     */
+    public void copyFrom(long[] source, int sourcePos, int row, int column, int length) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source must not be null");
+        }
+        int index = checkRange(source.length, sourcePos, row, column, length);
+        GridOperationEvent event = GridOperationEvent.start();
+        forEachChunk(index, length, (chunk, position, done, count) ->
+                chunk.asLongBuffer().put(position, source, sourcePos + done, count));
+        occupy(index, length);
+        event.end("copyFrom", this);
+    }
+
+    /**
+     * Copies values from the grid into an array.
+     * <p>
+     * The values are read in row-major order starting from the specified row-column,
+     * continuing onto the following rows as necessary.
+     * Row-columns that are not occupied are copied as zero.
+     * 
+     * @param row  the row to start reading at
+     * @param column  the column to start reading at
+     * @param target  the array to copy to, not null
+     * @param targetPos  the position in the array to copy to
+     * @param length  the number of values to copy
+     * @throws IndexOutOfBoundsException if the range is outside the array or the grid
+     */
+    public void copyTo(int row, int column, long[] target, int targetPos, int length) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target must not be null");
+        }
+        int index = checkRange(target.length, targetPos, row, column, length);
+        GridOperationEvent event = GridOperationEvent.start();
+        forEachChunk(index, length, (chunk, position, done, count) ->
+                chunk.asLongBuffer().get(position, target, targetPos + done, count));
+        event.end("copyTo", this);
+    }
+
+    //-----------------------------------------------------------------------
+    // gets the primitive value at an index
+    private long primitiveAt(int index) {
+        return chunk(index).getLong(offset(index));
+    }
+
+    @Override
+    Long valueAt(int index) {
+        return primitiveAt(index);
+    }
+
+    @Override
+    void setValue(int index, Long value) {
+        chunk(index).putLong(offset(index), value);
+    }
+
+    @Override
+    long bitsAt(int index) {
+        return primitiveAt(index);
+    }
+
+}
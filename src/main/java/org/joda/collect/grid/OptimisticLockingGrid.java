@@ -0,0 +1,397 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A grid that guards an underlying mutable grid using a {@link StampedLock}.
+ * <p>
+ * Where the underlying grid is array-based, such as {@code DenseGrid}, point reads,
+ * {@code get}, {@code contains}, {@code cell} and {@code size}, use an optimistic stamp.
+ * The underlying grid is read without locking, and the result is only used if no write occurred meanwhile.
+ * Otherwise, including where the read fails due to the write, the read is repeated under the read lock.
+ * Reads of an array-based grid are bounded, thus a read racing with a write always completes.
+ * Any other grid, such as {@code SparseGrid}, could loop forever if read while its tree is
+ * being rebalanced, thus all reads of other grids take the read lock.
+ * All writes take the write lock.
+ * The underlying grid must not be accessed other than through this grid.
+ * <p>
+ * Consistent reads of multiple cells are performed using {@link #readBulk(Consumer)}.
+ * Iterating over the cells iterates over a copy taken under the read lock,
+ * while the row and column views read and write each cell individually.
+ * Instances are obtained using {@link Grids#optimisticLocking(Grid)}.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class OptimisticLockingGrid<V> extends AbstractGrid<V> {
+
+    /**
+     * The underlying grid.
+     */
+    private final Grid<V> grid;
+    /**
+     * The lock.
+     */
+    private final StampedLock lock = new StampedLock();
+    /**
+     * Whether point reads of the underlying grid can be optimistic.
+     */
+    private final boolean optimistic;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    OptimisticLockingGrid(Grid<V> grid) {
+        this.grid = grid;
+        this.optimistic = grid instanceof DenseGrid || grid instanceof DenseDoubleGrid ||
+                grid instanceof DenseIntGrid || grid instanceof DenseLongGrid;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Performs a consistent read of multiple cells.
+     * <p>
+     * The action is passed the underlying grid while the read lock is held,
+     * thus no writes occur until the action completes.
+     * The action must not alter the underlying grid, or call write methods on this grid.
+     * 
+     * @param action  the action to perform, not null
+     */
+    public void readBulk(Consumer<Grid<V>> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        long stamp = lock.readLock();
+        try {
+            action.accept(grid);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return grid.rowCount();
+    }
+
+    @Override
+    public int columnCount() {
+        return grid.columnCount();
+    }
+
+    @Override
+    public int size() {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                int size = grid.size();
+                if (lock.validate(stamp)) {
+                    return size;
+                }
+            } catch (RuntimeException ex) {
+                // the grid was being written, thus read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return grid.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                boolean contains = grid.contains(row, column);
+                if (lock.validate(stamp)) {
+                    return contains;
+                }
+            } catch (RuntimeException ex) {
+                // the grid was being written, thus read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return grid.contains(row, column);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        long stamp = lock.readLock();
+        try {
+            return grid.containsValue(valueToFind);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public V get(int row, int column) {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                V value = grid.get(row, column);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException ex) {
+                // the grid was being written, thus read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return grid.get(row, column);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Cell<V> cell(int row, int column) {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                Cell<V> cell = grid.cell(row, column);
+                if (lock.validate(stamp)) {
+                    return (cell != null ? ImmutableCell.copyOf(cell) : null);
+                }
+            } catch (RuntimeException ex) {
+                // the grid was being written, thus read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            Cell<V> cell = grid.cell(row, column);
+            return (cell != null ? ImmutableCell.copyOf(cell) : null);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<V>> cells() {
+        return new Cells<V>(this);
+    }
+
+    /**
+     * View onto the grid, iterating over a copy of the cells.
+     */
+    static class Cells<V> extends AbstractSet<Cell<V>> {
+        private final OptimisticLockingGrid<V> grid;
+
+        Cells(OptimisticLockingGrid<V> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.size();
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<V>> iterator() {
+            Iterator<Cell<V>> it = grid.copyCells().iterator();
+            return new Iterator<Cell<V>>() {
+                private Cell<V> current;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+                @Override
+                public Cell<V> next() {
+                    current = it.next();
+                    return current;
+                }
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException("Unable to remove, next() not called yet");
+                    }
+                    grid.remove(current.getRow(), current.getColumn());
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(Cell<V> cell) {
+            Preconditions.checkArgument(cell != null, "Cell must not be null");
+            return grid.putCell(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return grid.remove(cell.getRow(), cell.getColumn());
+        }
+
+        @Override
+        public void clear() {
+            grid.clear();
+        }
+    }
+
+    @Override
+    public ImmutableCollection<V> values() {
+        long stamp = lock.readLock();
+        try {
+            return ImmutableList.copyOf(grid.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        long stamp = lock.readLock();
+        try {
+            grid.forEachCell(action);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            grid.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        long stamp = lock.writeLock();
+        try {
+            grid.put(row, column, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        // the cells are copied first, as the grid may itself be locked
+        ImmutableList.Builder<Cell<V>> builder = ImmutableList.builder();
+        grid.forEachCell((row, column, value) -> builder.add(ImmutableCell.<V>of(row, column, value)));
+        ImmutableList<Cell<V>> cells = builder.build();
+        long stamp = lock.writeLock();
+        try {
+            for (Cell<V> cell : cells) {
+                this.grid.put(cell.getRow(), cell.getColumn(), cell.getValue());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        long stamp = lock.writeLock();
+        try {
+            return grid.remove(row, column);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The function is called while the write lock is held, thus the update is atomic.
+     * The function must not access this grid.
+     */
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        long stamp = lock.writeLock();
+        try {
+            return grid.compute(row, column, remappingFunction);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    // copies the cells under the read lock
+    private ImmutableList<Cell<V>> copyCells() {
+        ImmutableList.Builder<Cell<V>> builder = ImmutableList.builder();
+        long stamp = lock.readLock();
+        try {
+            grid.forEachCell((row, column, value) -> builder.add(ImmutableCell.<V>of(row, column, value)));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return builder.build();
+    }
+
+    // puts a value, returning true if the row-column was empty
+    private boolean putCell(int row, int column, V value) {
+        long stamp = lock.writeLock();
+        try {
+            boolean added = !grid.contains(row, column);
+            grid.put(row, column, value);
+            return added;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        // StampedLock has a long state and four references, allocating nodes only when contended
+        builder.add("lock", GridFootprint.object(GridFootprint.REFERENCE) +
+                GridFootprint.object(8 + 4 * GridFootprint.REFERENCE));
+        builder.estimate(grid);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.stream.IntStream;
+
+/**
+ * Utilities for processing large index ranges in parallel.
+ * <p>
+ * A range of {@link #THRESHOLD} or more indexes is split into chunks of {@link #CHUNK} indexes,
+ * which are processed using the common {@code ForkJoinPool}. Smaller ranges are processed directly.
+ * Each chunk starts at a multiple of 64, thus chunks never share a word of a bitmap.
+ *
+ * @author Stephen Colebourne
+ */
+final class ParallelRanges {
+
+    /**
+     * The minimum number of indexes to process in parallel.
+     */
+    static final int THRESHOLD = 1 << 16;
+    /**
+     * The number of indexes in each chunk.
+     */
+    static final int CHUNK = 1 << 13;
+
+    /**
+     * Restricted constructor.
+     */
+    private ParallelRanges() {
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Processes a range of indexes, summing the results of each chunk.
+     * 
+     * @param length  the number of indexes, starting from zero
+     * @param function  the function to apply to each chunk, not null
+     * @return the sum of the results
+     */
+    static long sum(int length, RangeFunction function) {
+        if (length < THRESHOLD) {
+            return function.apply(0, length);
+        }
+        return IntStream.range(0, chunkCount(length))
+                .parallel()
+                .mapToLong(chunk -> function.apply(chunk * CHUNK, chunkEnd(chunk, length)))
+                .sum();
+    }
+
+    /**
+     * Checks whether a predicate holds for every chunk of a range of indexes.
+     * <p>
+     * Processing stops as soon as the predicate fails for any chunk.
+     * 
+     * @param length  the number of indexes, starting from zero
+     * @param predicate  the predicate to apply to each chunk, not null
+     * @return true if the predicate holds for every chunk
+     */
+    static boolean allMatch(int length, RangePredicate predicate) {
+        if (length < THRESHOLD) {
+            return predicate.test(0, length);
+        }
+        return IntStream.range(0, chunkCount(length))
+                .parallel()
+                .allMatch(chunk -> predicate.test(chunk * CHUNK, chunkEnd(chunk, length)));
+    }
+
+    // the number of chunks
+    private static int chunkCount(int length) {
+        return (int) ((length + (long) CHUNK - 1) / CHUNK);
+    }
+
+    // the end of a chunk, exclusive
+    private static int chunkEnd(int chunk, int length) {
+        return (int) Math.min(length, (chunk + 1L) * CHUNK);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * A function applied to a range of indexes.
+     */
+    interface RangeFunction {
+
+        /**
+         * Applies the function to a range.
+         * 
+         * @param from  the first index, inclusive
+         * @param to  the last index, exclusive
+         * @return the result
+         */
+        long apply(int from, int to);
+    }
+
+    /**
+     * A predicate applied to a range of indexes.
+     */
+    interface RangePredicate {
+
+        /**
+         * Tests the predicate on a range.
+         * 
+         * @param from  the first index, inclusive
+         * @param to  the last index, exclusive
+         * @return true if the predicate holds
+         */
+        boolean test(int from, int to);
+    }
+
+}
@@ -107,9 +107,24 @@ final class SingletonGrid<V> extends ImmutableGrid<V> implements Serializable {
         return ImmutableSet.<Cell<V>>of(cell);
     }
 
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        action.accept(cell.getRow(), cell.getColumn(), cell.getValue());
+    }
+
     @Override
     public ImmutableList<V> values() {
         return ImmutableList.of(cell.getValue());
     }
 
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + GridFootprint.REFERENCE));
+        builder.add("cells", GridFootprint.IMMUTABLE_CELL);
+    }
+
 }
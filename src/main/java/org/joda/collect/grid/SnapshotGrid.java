@@ -0,0 +1,340 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * A holder of immutable grid snapshots, updated by committing batches of changes.
+ * <p>
+ * The current state is an {@link ImmutableGrid} published through a volatile field.
+ * Readers call {@link #snapshot()} without locking and see a consistent grid
+ * that is never altered by later updates.
+ * <p>
+ * Writers call {@link #batch()}, apply any number of puts and removes, then call {@link Batch#commit()}.
+ * The commit applies the changes to the latest snapshot and publishes the result as the next snapshot.
+ * Where the latest snapshot has a dense or sparse layout, the new snapshot has the same layout and
+ * is derived directly from it. A dense snapshot clones its array and writes the changes into it,
+ * while a sparse snapshot merges the sorted changes, sharing the unchanged cells.
+ * Otherwise, the layout of the new snapshot is chosen as per {@link ImmutableGrid#copyOf(Grid)}.
+ * <p>
+ * A commit that leaves zero or one cells publishes the specialized empty or singleton layout.
+ * A commit whose change in size crosses the threshold of the default {@link GridLayoutStrategy}
+ * publishes the layout chosen by that strategy, which copies the grid once.
+ * <p>
+ * This class is thread-safe. Commits are serialized, thus if two batches are in progress
+ * at the same time, the changes of both are applied and the later commit wins where they overlap.
+ * A batch itself must only be used by one thread.
+ * 
+ * @param <V> the type of the value
+ * @author Stephen Colebourne
+ */
+public final class SnapshotGrid<V> {
+
+    /**
+     * The lock used to serialize commits.
+     */
+    private final Object commitLock = new Object();
+    /**
+     * The current snapshot.
+     */
+    private volatile ImmutableGrid<V> snapshot;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code SnapshotGrid} that is initially empty.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the snapshot grid, not null
+     */
+    public static <V> SnapshotGrid<V> create(int rowCount, int columnCount) {
+        return new SnapshotGrid<V>(ImmutableGrid.<V>of(rowCount, columnCount));
+    }
+
+    /**
+     * Creates a {@code SnapshotGrid} that initially holds a copy of another grid.
+     * <p>
+     * The grid is copied using {@link ImmutableGrid#copyOf(Grid)}, thus an immutable grid is used directly.
+     * 
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the snapshot grid, not null
+     */
+    public static <V> SnapshotGrid<V> create(Grid<V> grid) {
+        return new SnapshotGrid<V>(ImmutableGrid.copyOf(grid));
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private SnapshotGrid(ImmutableGrid<V> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Gets the number of rows.
+     * 
+     * @return the number of rows, zero or greater
+     */
+    public int rowCount() {
+        return snapshot.rowCount();
+    }
+
+    /**
+     * Gets the number of columns.
+     * 
+     * @return the number of columns, zero or greater
+     */
+    public int columnCount() {
+        return snapshot.columnCount();
+    }
+
+    /**
+     * Gets the current snapshot.
+     * <p>
+     * This does not lock, and the result is not affected by later commits.
+     * 
+     * @return the current snapshot, not null
+     */
+    public ImmutableGrid<V> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Starts a batch of changes.
+     * <p>
+     * The changes are not visible to readers until the batch is committed.
+     * 
+     * @return the batch, not null
+     */
+    public Batch<V> batch() {
+        return new Batch<V>(this, snapshot);
+    }
+
+    //-----------------------------------------------------------------------
+    // applies the changes to the current snapshot and publishes the result
+    private ImmutableGrid<V> commit(TreeMap<Long, V> changes) {
+        long[] keys = new long[changes.size()];
+        Object[] values = new Object[keys.length];
+        int i = 0;
+        for (Entry<Long, V> entry : changes.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        synchronized (commitLock) {
+            ImmutableGrid<V> base = snapshot;
+            if (keys.length == 0) {
+                return base;
+            }
+            GridOperationEvent event = GridOperationEvent.start();
+            ImmutableGrid<V> updated;
+            if (base instanceof DenseImmutableGrid) {
+                updated = ((DenseImmutableGrid<V>) base).withChanges(keys, values);
+            } else if (base instanceof SparseImmutableGrid) {
+                updated = ((SparseImmutableGrid<V>) base).withChanges(keys, values);
+            } else {
+                updated = copyWithChanges(base, keys, values);
+            }
+            updated = relayout(base, updated);
+            snapshot = updated;
+            event.end("commit", updated);
+            return updated;
+        }
+    }
+
+    // chooses a new layout if the derived snapshot is small or has crossed the layout threshold
+    private static <V> ImmutableGrid<V> relayout(ImmutableGrid<V> base, ImmutableGrid<V> updated) {
+        if (updated.size() <= 1) {
+            // use the specialized empty and singleton layouts
+            return ImmutableGrid.copyOf(updated, GridLayoutStrategy.sparse());
+        }
+        if (!(updated instanceof DenseImmutableGrid || updated instanceof SparseImmutableGrid)) {
+            return updated;
+        }
+        // a custom strategy cannot be checked without copying, thus only the cost model is checked
+        // the layout only changes when the size crosses the threshold, thus a forced layout is retained
+        GridLayoutStrategy strategy = ImmutableGrid.defaultLayoutStrategy();
+        if (strategy instanceof CostModelLayoutStrategy) {
+            CostModelLayoutStrategy costModel = (CostModelLayoutStrategy) strategy;
+            int rowCount = updated.rowCount();
+            int columnCount = updated.columnCount();
+            boolean denseBefore = costModel.isDense(rowCount, columnCount, Math.max(base.size(), 1));
+            boolean denseAfter = costModel.isDense(rowCount, columnCount, updated.size());
+            if (denseBefore != denseAfter && denseAfter != (updated instanceof DenseImmutableGrid)) {
+                return ImmutableGrid.copyOf(updated, strategy);
+            }
+        }
+        return updated;
+    }
+
+    // applies the changes to a mutable copy of the grid, then copies it back
+    @SuppressWarnings("unchecked")
+    private static <V> ImmutableGrid<V> copyWithChanges(ImmutableGrid<V> base, long[] keys, Object[] values) {
+        SparseGrid<V> copy = SparseGrid.create(base);
+        for (int i = 0; i < keys.length; i++) {
+            int row = (int) (keys[i] >>> 32);
+            int column = (int) keys[i];
+            if (values[i] != null) {
+                copy.put(row, column, (V) values[i]);
+            } else {
+                copy.remove(row, column);
+            }
+        }
+        return ImmutableGrid.copyOf(copy);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * A batch of changes to a {@code SnapshotGrid}.
+     * <p>
+     * The changes are held in the batch until {@link #commit()} is called.
+     * Reading from the batch returns the changes of the batch over the snapshot
+     * that was current when the batch was started.
+     * <p>
+     * This class is mutable and not thread-safe.
+     * A batch cannot be used once it has been committed.
+     * 
+     * @param <V> the type of the value
+     */
+    public static final class Batch<V> {
+
+        /**
+         * The grid to commit to.
+         */
+        private final SnapshotGrid<V> grid;
+        /**
+         * The snapshot when the batch was started.
+         */
+        private final ImmutableGrid<V> base;
+        /**
+         * The changes keyed by packed row-column, with null indicating removal.
+         */
+        private TreeMap<Long, V> changes = new TreeMap<>();
+
+        /**
+         * Restricted constructor.
+         */
+        private Batch(SnapshotGrid<V> grid, ImmutableGrid<V> base) {
+            this.grid = grid;
+            this.base = base;
+        }
+
+        //-----------------------------------------------------------------------
+        /**
+         * Gets the value at the specified row-column as seen by this batch.
+         * 
+         * @param row  the row, zero or greater
+         * @param column  the column, zero or greater
+         * @return the value, null if no value or the row-column is invalid
+         * @throws IllegalStateException if the batch has been committed
+         */
+        public V get(int row, int column) {
+            checkOpen();
+            if (base.exists(row, column)) {
+                Long key = key(row, column);
+                if (changes.containsKey(key)) {
+                    return changes.get(key);
+                }
+                return base.get(row, column);
+            }
+            return null;
+        }
+
+        /**
+         * Puts a value into the batch.
+         * 
+         * @param row  the row, zero or greater
+         * @param column  the column, zero or greater
+         * @param value  the value to put, not null
+         * @throws IndexOutOfBoundsException if either index does not exist
+         * @throws IllegalStateException if the batch has been committed
+         */
+        public void put(int row, int column, V value) {
+            checkOpen();
+            if (!base.exists(row, column)) {
+                throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Value must not be null");
+            }
+            changes.put(key(row, column), value);
+        }
+
+        /**
+         * Removes the value at the specified row-column in the batch.
+         * <p>
+         * If either index does not exist, no action occurs.
+         * 
+         * @param row  the row
+         * @param column  the column
+         * @throws IllegalStateException if the batch has been committed
+         */
+        public void remove(int row, int column) {
+            checkOpen();
+            if (base.exists(row, column)) {
+                changes.put(key(row, column), null);
+            }
+        }
+
+        /**
+         * Gets the number of row-columns changed by this batch.
+         * 
+         * @return the number of changes
+         * @throws IllegalStateException if the batch has been committed
+         */
+        public int changeCount() {
+            checkOpen();
+            return changes.size();
+        }
+
+        /**
+         * Commits the batch, publishing a new snapshot.
+         * <p>
+         * The changes are applied to the latest snapshot, which may be newer than the snapshot
+         * that was current when the batch was started.
+         * If there are no changes, the latest snapshot is returned and no new snapshot is published.
+         * 
+         * @return the new snapshot, not null
+         * @throws IllegalStateException if the batch has been committed
+         */
+        public ImmutableGrid<V> commit() {
+            checkOpen();
+            TreeMap<Long, V> committed = changes;
+            changes = null;
+            return grid.commit(committed);
+        }
+
+        //-----------------------------------------------------------------------
+        // checks the batch has not been committed
+        private void checkOpen() {
+            if (changes == null) {
+                throw new IllegalStateException("Batch has been committed");
+            }
+        }
+
+        // packs the row and column
+        private static long key(int row, int column) {
+            return (((long) row) << 32) + column;
+        }
+    }
+
+}
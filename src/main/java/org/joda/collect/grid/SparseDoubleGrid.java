@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Arrays;
+
+/**
+ * Mutable implementation of the {@code DoubleGrid} data structure based on a hash table.
+ * <p>
+ * This uses memory only for the row-columns that are occupied.
+ * The row-column of each cell is packed into a {@code long} key, as per {@code SparseImmutableGrid}.
+ * The keys and values are held in parallel arrays forming an open-addressed hash table,
+ * thus there are no objects per cell.
+ * <p>
+ * The cells are iterated in row-column order, which sorts the keys on each iteration.
+ * 
+ * @author Stephen Colebourne
+ */
+public final class SparseDoubleGrid extends AbstractSparsePrimitiveGrid<Double> implements DoubleGrid {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The values, zero where not occupied.
+     */
+    private double[] values;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code SparseDoubleGrid} of the specified size.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static SparseDoubleGrid create(int rowCount, int columnCount) {
+        return new SparseDoubleGrid(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code SparseDoubleGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static SparseDoubleGrid create(Grid<? extends Double> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        SparseDoubleGrid created = SparseDoubleGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private SparseDoubleGrid(int rowCount, int columnCount) {
+        super(rowCount, columnCount);
+        this.values = new double[INITIAL_CAPACITY];
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Double) {
+            double find = (Double) valueToFind;
+            for (int i = 0; i < values.length; i++) {
+                if (isOccupied(i) && Double.compare(values[i], find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public double getDouble(int row, int column) {
+        return getDouble(row, column, 0);
+    }
+
+    @Override
+    public double getDouble(int row, int column, double defaultValue) {
+        int slot = slotOf(row, column);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    @Override
+    public void putDouble(int row, int column, double value) {
+        // claim first, as claiming may replace the values array
+        int slot = claimSlot(row, column);
+        values[slot] = value;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    Double valueAt(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    void setValue(int slot, Double value) {
+        values[slot] = value;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = 0;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, 0);
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] newSlots) {
+        double[] oldValues = values;
+        values = new double[capacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] >= 0) {
+                values[newSlots[i]] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    int valueHash(int slot) {
+        return Double.hashCode(values[slot]);
+    }
+
+    @Override
+    boolean valueEquals(int slot, AbstractSparsePrimitiveGrid<?> other, int otherSlot) {
+        return Double.compare(values[slot], ((SparseDoubleGrid) other).values[otherSlot]) == 0;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns the values in the order of the sorted keys.
+     * 
+     * @param sortedKeys  the sorted keys, not null
+     * @return the values, not null
+     */
+    double[] valuesFor(long[] sortedKeys) {
+        double[] array = new double[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            array[i] = values[find(sortedKeys[i])];
+        }
+        return array;
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("keys array", GridFootprint.array(8, capacity()));
+        builder.add("values array", GridFootprint.array(8, values.length));
+    }
+
+}
@@ -18,9 +18,9 @@ package org.joda.collect.grid;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Function;
 
 import com.google.common.collect.ForwardingSortedSet;
 
@@ -108,9 +108,10 @@ public final class SparseGrid<V> extends AbstractGrid<V> implements Serializable
     @Override
     public Cell<V> cell(int row, int column) {
         if (exists(row, column)) {
-            SortedSet<Cell<V>> tail = cells.tailSet(finder(row, column));
-            if (tail.size() > 0) {
-                Cell<V> cell = tail.first();
+            // the iterator locates the first cell with a single search, whereas size() is O(n)
+            Iterator<Cell<V>> it = cells.tailSet(finder(row, column)).iterator();
+            if (it.hasNext()) {
+                Cell<V> cell = it.next();
                 if (cell.getRow() == row && cell.getColumn() == column) {
                     return cell;
                 }
@@ -138,6 +139,16 @@ public final class SparseGrid<V> extends AbstractGrid<V> implements Serializable
         };
     }
 
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (Cell<V> cell : cells) {
+            action.accept(cell.getRow(), cell.getColumn(), cell.getValue());
+        }
+    }
+
     //-----------------------------------------------------------------------
     @Override
     public void clear() {
@@ -167,9 +178,8 @@ public final class SparseGrid<V> extends AbstractGrid<V> implements Serializable
     @Override
     public boolean remove(int row, int column) {
         if (exists(row, column)) {
-            Set<Cell<V>> tail = cells.tailSet(finder(row, column));
-            if (tail.size() > 0) {
-                Iterator<Cell<V>> it = tail.iterator();
+            Iterator<Cell<V>> it = cells.tailSet(finder(row, column)).iterator();
+            if (it.hasNext()) {
                 Cell<V> cell = it.next();
                 if (cell.getRow() == row && cell.getColumn() == column) {
                     it.remove();
@@ -180,4 +190,71 @@ public final class SparseGrid<V> extends AbstractGrid<V> implements Serializable
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The existing cell is found by a single search of the tree.
+     * Removing a value only uses the iterator, and leaving the value unchanged costs just the search.
+     * <p>
+     * Replacing a value is not a single traversal.
+     * The grid holds immutable cells, which may be shared with other grids and are exposed by {@link #cells()},
+     * thus a changed value must be stored as a new cell. The old cell is removed via the iterator
+     * and the new cell is added, which is a second O(log n) search of the tree.
+     * Counter-style grids that replace values frequently should use {@link DenseGrid} where possible.
+     */
+    @Override
+    public V compute(int row, int column, Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function must not be null");
+        }
+        if (!exists(row, column)) {
+            throw new IndexOutOfBoundsException("Invalid row-column: " + row + "," + column);
+        }
+        // the cells are immutable, thus a changed value is removed via the iterator and added
+        Iterator<Cell<V>> it = cells.tailSet(finder(row, column)).iterator();
+        V current = null;
+        if (it.hasNext()) {
+            Cell<V> cell = it.next();
+            if (cell.getRow() == row && cell.getColumn() == column) {
+                current = cell.getValue();
+            }
+        }
+        V updated = remappingFunction.apply(current);
+        if (updated != current) {
+            if (current != null) {
+                it.remove();
+            }
+            if (updated != null) {
+                cells.add(ImmutableCell.of(row, column, updated));
+            }
+        }
+        return updated;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns the cells as an array, in row-column order.
+     * <p>
+     * The cells are immutable and within the bounds of the grid.
+     * 
+     * @return the array of cells, not null
+     */
+    @SuppressWarnings("unchecked")
+    Cell<V>[] cellsArray() {
+        return cells.toArray(new Cell[cells.size()]);
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        int size = cells.size();
+        builder.add("grid", GridFootprint.object(4 + 4 + GridFootprint.REFERENCE));
+        // TreeSet wrapping a TreeMap with seven reference fields and two int fields
+        // the key set and other views that TreeMap caches once iterated are excluded
+        builder.add("tree",
+                GridFootprint.object(GridFootprint.REFERENCE) + GridFootprint.object(7 * GridFootprint.REFERENCE + 8));
+        // TreeMap.Entry has five reference fields and a boolean
+        builder.add("tree nodes", size * GridFootprint.object(5 * GridFootprint.REFERENCE + 1));
+        builder.add("cells", size * GridFootprint.IMMUTABLE_CELL);
+    }
+
 }
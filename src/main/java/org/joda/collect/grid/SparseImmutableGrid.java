@@ -19,6 +19,12 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableSet;
@@ -60,6 +66,112 @@ final class SparseImmutableGrid<V> extends ImmutableGrid<V> implements Serializa
      */
     private transient ImmutableCollection<V> valueCollection;
 
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code SparseImmutableGrid} copying from another grid.
+     * <p>
+     * Dense grids are copied directly from their values array, in parallel if large.
+     * Sparse immutable grids share their arrays with the copy.
+     * A {@code SparseGrid} shares its immutable cells, deriving the keys in parallel if large.
+     *
+     * @param <V> the type of the value
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    static <V> SparseImmutableGrid<V> create(Grid<V> grid) {
+        if (grid instanceof SparseImmutableGrid) {
+            SparseImmutableGrid<V> sparse = (SparseImmutableGrid<V>) grid;
+            return new SparseImmutableGrid<V>(sparse.rowCount, sparse.columnCount, sparse.keys, sparse.cells);
+        }
+        if (grid instanceof DenseGrid) {
+            return ((DenseGrid<V>) grid).toSparse();
+        }
+        if (grid instanceof DenseImmutableGrid) {
+            return ((DenseImmutableGrid<V>) grid).toSparse();
+        }
+        if (grid instanceof SparseGrid) {
+            return fromSorted(grid.rowCount(), grid.columnCount(), ((SparseGrid<V>) grid).cellsArray());
+        }
+        return new SparseImmutableGrid<V>(grid);
+    }
+
+    /**
+     * Creates a {@code SparseImmutableGrid} from an array of cells in row-column order.
+     * <p>
+     * The cells are shared with the result, and the keys are derived in parallel if large.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param cells  the immutable cells in row-column order, within the counts, not null
+     * @return the immutable grid, not null
+     */
+    static <V> SparseImmutableGrid<V> fromSorted(int rowCount, int columnCount, Cell<V>[] cells) {
+        long[] keys = new long[cells.length];
+        ParallelRanges.sum(cells.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                keys[i] = (((long) cells[i].getRow()) << 32) + cells[i].getColumn();
+            }
+            return to - from;
+        });
+        return new SparseImmutableGrid<V>(rowCount, columnCount, keys, cells);
+    }
+
+    /**
+     * Creates a {@code SparseImmutableGrid} copying from a dense values array.
+     * <p>
+     * Large arrays are copied in parallel.
+     * The occupied row-columns in each chunk are counted first, then each chunk
+     * fills the keys and cells from the offset derived from the counts.
+     * 
+     * @param <V> the type of the value
+     * @param rowCount  the number of rows
+     * @param columnCount  the number of columns
+     * @param source  the values to copy, null where not occupied, not altered, not null
+     * @return the immutable grid, not null
+     */
+    @SuppressWarnings("unchecked")
+    static <V> SparseImmutableGrid<V> fromDense(int rowCount, int columnCount, V[] source) {
+        int[] offsets = new int[source.length / ParallelRanges.CHUNK + 2];
+        ParallelRanges.sum(source.length, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (source[i] != null) {
+                    count++;
+                }
+            }
+            offsets[from / ParallelRanges.CHUNK + 1] = count;
+            return count;
+        });
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int size = offsets[offsets.length - 1];
+        long[] keys = new long[size];
+        Cell<V>[] cells = new Cell[size];
+        if (size > 0) {
+            ParallelRanges.sum(source.length, (from, to) -> {
+                int index = offsets[from / ParallelRanges.CHUNK];
+                int row = from / columnCount;
+                int column = from % columnCount;
+                for (int i = from; i < to; i++) {
+                    V value = source[i];
+                    if (value != null) {
+                        keys[index] = (((long) row) << 32) + column;
+                        cells[index] = ImmutableCell.of(row, column, value);
+                        index++;
+                    }
+                    if (++column == columnCount) {
+                        column = 0;
+                        row++;
+                    }
+                }
+                return 0;
+            });
+        }
+        return new SparseImmutableGrid<V>(rowCount, columnCount, keys, cells);
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Restricted constructor.
@@ -112,6 +224,16 @@ final class SparseImmutableGrid<V> extends ImmutableGrid<V> implements Serializa
         }
     }
 
+    /**
+     * Restricted constructor.
+     */
+    private SparseImmutableGrid(int rowCount, int columnCount, long[] keys, Cell<V>[] cells) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.keys = keys;
+        this.cells = cells;
+    }
+
     //-----------------------------------------------------------------------
     @Override
     public int rowCount() {
@@ -164,12 +286,40 @@ final class SparseImmutableGrid<V> extends ImmutableGrid<V> implements Serializa
     public ImmutableSet<Cell<V>> cells() {
         ImmutableSet<Cell<V>> c = cellSet;
         if (c == null) {
+            GridOperationEvent event = GridOperationEvent.start();
             c = ImmutableSet.copyOf(cells);
             cellSet = c;
+            event.end("cells", this);
         }
         return c;
     }
 
+    @Override
+    public void forEachCell(CellConsumer<? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            action.accept((int) (key >>> 32), (int) key, cells[i].getValue());
+        }
+    }
+
+    @Override
+    public Stream<List<Cell<V>>> rowStream() {
+        // find where each occupied row starts in the sorted keys
+        int[] starts = new int[keys.length + 1];
+        int rows = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || (keys[i] >>> 32) != (keys[i - 1] >>> 32)) {
+                starts[rows++] = i;
+            }
+        }
+        starts[rows] = keys.length;
+        List<Cell<V>> all = Collections.unmodifiableList(Arrays.asList(cells));
+        return IntStream.range(0, rows).mapToObj(row -> all.subList(starts[row], starts[row + 1]));
+    }
+
     @Override
     public ImmutableCollection<V> values() {
         ImmutableCollection<V> v = valueCollection;
@@ -180,4 +330,153 @@ final class SparseImmutableGrid<V> extends ImmutableGrid<V> implements Serializa
         return v;
     }
 
+    //-----------------------------------------------------------------------
+    /**
+     * Copies the values into a dense array, in parallel if large.
+     * 
+     * @param values  the array to fill, by row then by column, with the same column count, not null
+     */
+    void copyInto(Object[] values) {
+        ParallelRanges.sum(keys.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long key = keys[i];
+                values[((int) (key >>> 32)) * columnCount + ((int) key)] = cells[i].getValue();
+            }
+            return to - from;
+        });
+    }
+
+    /**
+     * Returns a grid with the same layout where each value is mapped.
+     * <p>
+     * The keys array is shared with the mapped grid unless the mapper returns null.
+     * Large grids are mapped in parallel.
+     * 
+     * @param <R> the type of the mapped value
+     * @param mapper  the function to map each value, null results leave the row-column empty, not null
+     * @return the mapped grid, not null
+     */
+    @SuppressWarnings("unchecked")
+    <R> SparseImmutableGrid<R> mapValues(Function<? super V, ? extends R> mapper) {
+        Cell<R>[] mapped = new Cell[cells.length];
+        long size = ParallelRanges.sum(cells.length, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                R value = mapper.apply(cells[i].getValue());
+                if (value != null) {
+                    long key = keys[i];
+                    mapped[i] = ImmutableCell.of((int) (key >>> 32), (int) key, value);
+                    count++;
+                }
+            }
+            return count;
+        });
+        if (size == cells.length) {
+            return new SparseImmutableGrid<R>(rowCount, columnCount, keys, mapped);
+        }
+        long[] newKeys = new long[(int) size];
+        Cell<R>[] newCells = new Cell[(int) size];
+        int index = 0;
+        for (int i = 0; i < mapped.length; i++) {
+            if (mapped[i] != null) {
+                newKeys[index] = keys[i];
+                newCells[index] = mapped[i];
+                index++;
+            }
+        }
+        return new SparseImmutableGrid<R>(rowCount, columnCount, newKeys, newCells);
+    }
+
+    /**
+     * Returns a grid with the same layout where each value is mapped to a {@code double}.
+     * <p>
+     * The keys array is shared with the mapped grid.
+     * Large grids are mapped in parallel.
+     * 
+     * @param mapper  the function to map each value, not null
+     * @return the mapped grid, not null
+     */
+    SparseImmutableDoubleGrid mapValuesToDouble(ToDoubleFunction<? super V> mapper) {
+        double[] values = new double[cells.length];
+        ParallelRanges.sum(cells.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                values[i] = mapper.applyAsDouble(cells[i].getValue());
+            }
+            return 0;
+        });
+        return new SparseImmutableDoubleGrid(rowCount, columnCount, keys, values);
+    }
+
+    /**
+     * Returns a grid based on this one with the specified changes applied.
+     * <p>
+     * The sorted keys of this grid are merged with the sorted keys of the changes,
+     * thus the cells of this grid are shared rather than being copied or sorted again.
+     * 
+     * @param changeKeys  the packed row-columns to change, sorted, validated, not null
+     * @param changeValues  the new values, null to remove, not null
+     * @return the updated grid, not null
+     */
+    @SuppressWarnings("unchecked")
+    SparseImmutableGrid<V> withChanges(long[] changeKeys, Object[] changeValues) {
+        long[] newKeys = new long[keys.length + changeKeys.length];
+        Cell<V>[] newCells = new Cell[newKeys.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < keys.length || j < changeKeys.length) {
+            if (j == changeKeys.length || (i < keys.length && keys[i] < changeKeys[j])) {
+                newKeys[size] = keys[i];
+                newCells[size] = cells[i];
+                size++;
+                i++;
+            } else {
+                long key = changeKeys[j];
+                V value = (V) changeValues[j];
+                if (value != null) {
+                    newKeys[size] = key;
+                    newCells[size] = ImmutableCell.of((int) (key >>> 32), (int) key, value);
+                    size++;
+                }
+                if (i < keys.length && keys[i] == key) {
+                    i++;
+                }
+                j++;
+            }
+        }
+        return new SparseImmutableGrid<V>(
+                rowCount, columnCount, Arrays.copyOf(newKeys, size), Arrays.copyOf(newCells, size));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        int size = cells.length;
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 * GridFootprint.REFERENCE));
+        builder.add("keys array", GridFootprint.array(8, size));
+        builder.add("cells array", GridFootprint.array(GridFootprint.REFERENCE, size));
+        builder.add("cells", size * GridFootprint.IMMUTABLE_CELL);
+        if (cellSet != null) {
+            // Guava RegularImmutableSet has an elements array and a hash table
+            builder.add("cell set cache",
+                    GridFootprint.object(3 * GridFootprint.REFERENCE + 8) +
+                    GridFootprint.array(GridFootprint.REFERENCE, size) +
+                    GridFootprint.array(GridFootprint.REFERENCE, hashTableSize(size)));
+        }
+        if (valueCollection != null) {
+            builder.add("values cache",
+                    GridFootprint.object(GridFootprint.REFERENCE) + GridFootprint.array(GridFootprint.REFERENCE, size));
+        }
+    }
+
+    // the hash table size chosen by Guava ImmutableSet
+    private static int hashTableSize(int size) {
+        int setSize = Math.max(size, 2);
+        int tableSize = Integer.highestOneBit(setSize - 1) << 1;
+        while (tableSize * 0.7d < setSize) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
 }
@@ -0,0 +1,322 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable implementation of the {@code IntGrid} data structure based on sorted arrays.
+ * <p>
+ * This uses memory only for the row-columns that are occupied.
+ * The row-column of each cell is packed into a {@code long} key, as per {@code SparseImmutableGrid},
+ * with the sorted keys and the values held in parallel arrays.
+ * 
+ * @author Stephen Colebourne
+ */
+final class SparseImmutableIntGrid extends ImmutableIntGrid implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of columns.
+     */
+    private final int columnCount;
+    /**
+     * The keys, sorted.
+     */
+    private final long[] keys;
+    /**
+     * The values, in the same order as the keys.
+     */
+    private final int[] values;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates a {@code SparseImmutableIntGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the immutable grid, not null
+     */
+    static SparseImmutableIntGrid create(Grid<? extends Integer> grid) {
+        int rowCount = grid.rowCount();
+        int columnCount = grid.columnCount();
+        validateCounts(rowCount, columnCount);
+        if (grid instanceof SparseIntGrid) {
+            SparseIntGrid sparse = (SparseIntGrid) grid;
+            long[] keys = sparse.sortedKeys();
+            return new SparseImmutableIntGrid(rowCount, columnCount, keys, sparse.valuesFor(keys));
+        }
+        int size = grid.size();
+        long[] keys = new long[size];
+        int[] values = new int[size];
+        boolean sorted = true;
+        int index = 0;
+        for (Cell<? extends Integer> cell : grid.cells()) {
+            int row = cell.getRow();
+            int column = cell.getColumn();
+            if (row < 0 || row >= rowCount || column < 0 || column >= columnCount) {
+                throw new IndexOutOfBoundsException(
+                        "Invalid row-column: " + row + "," + column + " for grid " + rowCount + "x" + columnCount);
+            }
+            keys[index] = key(row, column);
+            values[index] = cell.getValue();
+            sorted &= index == 0 || keys[index - 1] < keys[index];
+            index++;
+        }
+        if (!sorted) {
+            sort(keys, values);
+        }
+        return new SparseImmutableIntGrid(rowCount, columnCount, keys, values);
+    }
+
+    // sorts the keys, keeping the values in parallel
+    private static void sort(long[] keys, int[] values) {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        long[] originalKeys = keys.clone();
+        int[] originalValues = values.clone();
+        Arrays.sort(order, (a, b) -> Long.compare(originalKeys[a], originalKeys[b]));
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = originalKeys[order[i]];
+            values[i] = originalValues[order[i]];
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    SparseImmutableIntGrid(int rowCount, int columnCount, long[] keys, int[] values) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        if (exists(row, column)) {
+            return Arrays.binarySearch(keys, key(row, column)) >= 0;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Integer) {
+            int find = (Integer) valueToFind;
+            for (int value : values) {
+                if (Integer.compare(value, find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Integer get(int row, int column) {
+        if (exists(row, column)) {
+            int index = Arrays.binarySearch(keys, key(row, column));
+            if (index >= 0) {
+                return values[index];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getInt(int row, int column) {
+        return getInt(row, column, 0);
+    }
+
+    @Override
+    public int getInt(int row, int column, int defaultValue) {
+        if (exists(row, column)) {
+            int index = Arrays.binarySearch(keys, key(row, column));
+            if (index >= 0) {
+                return values[index];
+            }
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public Cell<Integer> cell(int row, int column) {
+        if (exists(row, column)) {
+            int index = Arrays.binarySearch(keys, key(row, column));
+            if (index >= 0) {
+                return ImmutableCell.of(row, column, (Integer) values[index]);
+            }
+        }
+        return null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Set<Cell<Integer>> cells() {
+        return new Cells(this);
+    }
+
+    /**
+     * View onto the grid.
+     */
+    static class Cells extends AbstractSet<Cell<Integer>> {
+        private final SparseImmutableIntGrid grid;
+
+        Cells(SparseImmutableIntGrid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int size() {
+            return grid.keys.length;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            Cell<?> cell = (Cell<?>) obj;
+            return Objects.equal(cell.getValue(), grid.get(cell.getRow(), cell.getColumn()));
+        }
+
+        @Override
+        public Iterator<Cell<Integer>> iterator() {
+            return new Iterator<Cell<Integer>>() {
+                private MutableCell<Integer> cell = new MutableCell<Integer>();
+                private int current = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return current + 1 < grid.keys.length;
+                }
+                @Override
+                public Cell<Integer> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements");
+                    }
+                    current++;
+                    long key = grid.keys[current];
+                    cell.set((int) (key >>> 32), (int) key, grid.values[current]);
+                    return cell;
+                }
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Immutable");
+                }
+            };
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public void forEachCell(CellConsumer<? super Integer> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            action.accept((int) (key >>> 32), (int) key, values[i]);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ImmutableCollection<Integer> values() {
+        Integer[] array = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            array[i] = values[i];
+        }
+        return ImmutableList.copyOf(array);
+    }
+
+    //-----------------------------------------------------------------------
+    // packs the row-column into a key
+    private static long key(int row, int column) {
+        return (((long) row) << 32) + column;
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("keys array", GridFootprint.array(8, keys.length));
+        builder.add("values array", GridFootprint.array(4, values.length));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof SparseImmutableIntGrid) {
+            SparseImmutableIntGrid other = (SparseImmutableIntGrid) obj;
+            GridOperationEvent event = GridOperationEvent.start();
+            boolean equal = rowCount == other.rowCount &&
+                    columnCount == other.columnCount &&
+                    Arrays.equals(keys, other.keys) &&
+                    Arrays.equals(values, other.values);
+            event.end("equals", this);
+            return equal;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        GridOperationEvent event = GridOperationEvent.start();
+        int hash = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            hash += ((int) (key >>> 32) ^ Integer.rotateLeft((int) key, 16) ^ Integer.hashCode(values[i]));
+        }
+        hash ^= rowCount ^ Integer.rotateLeft(columnCount, 16);
+        event.end("hashCode", this);
+        return hash;
+    }
+
+}
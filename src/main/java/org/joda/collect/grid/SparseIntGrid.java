@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Arrays;
+
+/**
+ * Mutable implementation of the {@code IntGrid} data structure based on a hash table.
+ * <p>
+ * This uses memory only for the row-columns that are occupied.
+ * The row-column of each cell is packed into a {@code long} key, as per {@code SparseImmutableGrid}.
+ * The keys and values are held in parallel arrays forming an open-addressed hash table,
+ * thus there are no objects per cell.
+ * <p>
+ * The cells are iterated in row-column order, which sorts the keys on each iteration.
+ * 
+ * @author Stephen Colebourne
+ */
+public final class SparseIntGrid extends AbstractSparsePrimitiveGrid<Integer> implements IntGrid {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The values, zero where not occupied.
+     */
+    private int[] values;
+
+    //-----------------------------------------------------------------------
+    /**
+     * Creates an empty {@code SparseIntGrid} of the specified size.
+     * 
+     * @param rowCount  the number of rows, zero or greater
+     * @param columnCount  the number of columns, zero or greater
+     * @return the mutable grid, not null
+     */
+    public static SparseIntGrid create(int rowCount, int columnCount) {
+        return new SparseIntGrid(rowCount, columnCount);
+    }
+
+    /**
+     * Creates a {@code SparseIntGrid} copying from another grid.
+     *
+     * @param grid  the grid to copy, not null
+     * @return the mutable grid, not null
+     */
+    public static SparseIntGrid create(Grid<? extends Integer> grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid must not be null");
+        }
+        SparseIntGrid created = SparseIntGrid.create(grid.rowCount(), grid.columnCount());
+        created.putAll(grid);
+        return created;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Restricted constructor.
+     */
+    private SparseIntGrid(int rowCount, int columnCount) {
+        super(rowCount, columnCount);
+        this.values = new int[INITIAL_CAPACITY];
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean containsValue(Object valueToFind) {
+        if (valueToFind instanceof Integer) {
+            int find = (Integer) valueToFind;
+            for (int i = 0; i < values.length; i++) {
+                if (isOccupied(i) && Integer.compare(values[i], find) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getInt(int row, int column) {
+        return getInt(row, column, 0);
+    }
+
+    @Override
+    public int getInt(int row, int column, int defaultValue) {
+        int slot = slotOf(row, column);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    @Override
+    public void putInt(int row, int column, int value) {
+        // claim first, as claiming may replace the values array
+        int slot = claimSlot(row, column);
+        values[slot] = value;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    Integer valueAt(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    void setValue(int slot, Integer value) {
+        values[slot] = value;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = 0;
+    }
+
+    @Override
+    void clearValues() {
+        Arrays.fill(values, 0);
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] newSlots) {
+        int[] oldValues = values;
+        values = new int[capacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] >= 0) {
+                values[newSlots[i]] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    int valueHash(int slot) {
+        return Integer.hashCode(values[slot]);
+    }
+
+    @Override
+    boolean valueEquals(int slot, AbstractSparsePrimitiveGrid<?> other, int otherSlot) {
+        return Integer.compare(values[slot], ((SparseIntGrid) other).values[otherSlot]) == 0;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Returns the values in the order of the sorted keys.
+     * 
+     * @param sortedKeys  the sorted keys, not null
+     * @return the values, not null
+     */
+    int[] valuesFor(long[] sortedKeys) {
+        int[] array = new int[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            array[i] = values[find(sortedKeys[i])];
+        }
+        return array;
+    }
+
+    @Override
+    void estimateFootprint(GridFootprint.Builder builder) {
+        builder.add("grid", GridFootprint.object(4 + 4 + 4 + 2 * GridFootprint.REFERENCE));
+        builder.add("keys array", GridFootprint.array(8, capacity()));
+        builder.add("values array", GridFootprint.array(4, values.length));
+    }
+
+}
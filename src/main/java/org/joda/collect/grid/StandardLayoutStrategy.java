@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+/**
+ * The standard layout strategies, that always choose the same layout.
+ *
+ * @author Stephen Colebourne
+ */
+enum StandardLayoutStrategy implements GridLayoutStrategy {
+
+    /**
+     * Dense layout.
+     */
+    DENSE {
+        @Override
+        public <R> ImmutableGrid<R> copyOf(Grid<R> grid) {
+            return DenseImmutableGrid.create(grid);
+        }
+    },
+    /**
+     * Sparse layout.
+     */
+    SPARSE {
+        @Override
+        public <R> ImmutableGrid<R> copyOf(Grid<R> grid) {
+            return SparseImmutableGrid.create(grid);
+        }
+    };
+
+}
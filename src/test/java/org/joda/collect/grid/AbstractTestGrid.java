@@ -18,7 +18,10 @@ package org.joda.collect.grid;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.joda.collect.grid.Grid.Cell;
@@ -69,6 +72,8 @@ public abstract class AbstractTestGrid {
         assertEquals(0, test.values().size());
         Iterator<R> valueIt = test.values().iterator();
         assertIteratorEnd(valueIt);
+        
+        checkForEachCell(test);
     }
 
     protected <R> void checkGrid(Grid<R> test, int row1, int column1, R value1) {
@@ -127,6 +132,8 @@ public abstract class AbstractTestGrid {
         assertEquals(true, valueIt.hasNext());
         assertEquals(value1, valueIt.next());
         assertIteratorEnd(valueIt);
+        
+        checkForEachCell(test, ImmutableCell.of(row1, column1, value1));
     }
 
     protected <R> void checkGrid(Grid<R> test, int row1, int column1, R value1, int row2, int column2, R value2) {
@@ -202,6 +209,8 @@ public abstract class AbstractTestGrid {
         assertEquals(true, valueIt.hasNext());
         assertEquals(value2, valueIt.next());
         assertIteratorEnd(valueIt);
+        
+        checkForEachCell(test, ImmutableCell.of(row1, column1, value1), ImmutableCell.of(row2, column2, value2));
     }
 
     protected <R> void checkGrid(Grid<R> test, int row1, int column1, R value1, int row2, int column2, R value2, int row3, int column3, R value3) {
@@ -294,6 +303,16 @@ public abstract class AbstractTestGrid {
         assertEquals(true, valueIt.hasNext());
         assertEquals(value3, valueIt.next());
         assertIteratorEnd(valueIt);
+        
+        checkForEachCell(test, ImmutableCell.of(row1, column1, value1), ImmutableCell.of(row2, column2, value2),
+                ImmutableCell.of(row3, column3, value3));
+    }
+
+    @SafeVarargs
+    private static <R> void checkForEachCell(Grid<R> test, Cell<R>... expected) {
+        List<Cell<R>> visited = new ArrayList<>();
+        test.forEachCell((row, column, value) -> visited.add(ImmutableCell.of(row, column, value)));
+        assertEquals(Arrays.asList(expected), visited);
     }
 
     private void assertIteratorEnd(Iterator<?> it) {
@@ -52,6 +52,17 @@ public abstract class AbstractTestImmutableGrid extends AbstractTestGrid {
         createNonEmpty().remove(0, 0);
     }
 
+    @SuppressWarnings("deprecation")
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable_compute() {
+        createNonEmpty().compute(0, 0, value -> "Hello");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable_merge() {
+        createNonEmpty().merge(0, 0, "Hello", String::concat);
+    }
+
     //-----------------------------------------------------------------------
     @Test(expected = UnsupportedOperationException.class)
     public void test_cells_add() {
@@ -71,6 +82,12 @@ public abstract class AbstractTestImmutableGrid extends AbstractTestGrid {
         createNonEmpty().cells().clear();
     }
 
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_forEachCell_null() {
+        createNonEmpty().forEachCell(null);
+    }
+
     //-----------------------------------------------------------------------
     @Test(expected = UnsupportedOperationException.class)
     public void test_rows_clear() {
@@ -20,7 +20,10 @@ import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.joda.collect.grid.Grid.Cell;
 import org.junit.Test;
@@ -306,6 +309,171 @@ public abstract class AbstractTestMutableGrid extends AbstractTestGrid {
         checkGrid(test);
     }
 
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_compute() {
+        Grid<String> test = create3x3();
+        test.put(0, 0, "A");
+        test.put(2, 1, "C");
+        assertEquals("B", test.compute(1, 1, value -> value == null ? "B" : value + "B"));
+        checkGrid(test, 0, 0, "A", 1, 1, "B", 2, 1, "C");
+        assertEquals("BB", test.compute(1, 1, value -> value == null ? "B" : value + "B"));
+        checkGrid(test, 0, 0, "A", 1, 1, "BB", 2, 1, "C");
+        assertEquals(null, test.compute(1, 1, value -> null));
+        checkGrid(test, 0, 0, "A", 2, 1, "C");
+        assertEquals(null, test.compute(1, 2, value -> null));
+        checkGrid(test, 0, 0, "A", 2, 1, "C");
+        assertEquals("C", test.compute(2, 1, value -> value));
+        checkGrid(test, 0, 0, "A", 2, 1, "C");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_compute_invalidIndex() {
+        create3x3().compute(3, 0, value -> "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_compute_null() {
+        create3x3().compute(0, 0, null);
+    }
+
+    @Test
+    public void test_computeIfAbsent() {
+        Grid<String> test = create3x3();
+        assertEquals("A", test.computeIfAbsent(0, 1, () -> "A"));
+        checkGrid(test, 0, 1, "A");
+        assertEquals("A", test.computeIfAbsent(0, 1, () -> "B"));
+        checkGrid(test, 0, 1, "A");
+        assertEquals(null, test.computeIfAbsent(1, 1, () -> null));
+        checkGrid(test, 0, 1, "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_computeIfAbsent_null() {
+        create3x3().computeIfAbsent(0, 0, null);
+    }
+
+    @Test
+    public void test_computeIfPresent() {
+        Grid<String> test = create3x3();
+        assertEquals(null, test.computeIfPresent(0, 1, value -> value + "A"));
+        checkGrid(test);
+        test.put(0, 1, "A");
+        assertEquals("AB", test.computeIfPresent(0, 1, value -> value + "B"));
+        checkGrid(test, 0, 1, "AB");
+        assertEquals(null, test.computeIfPresent(0, 1, value -> null));
+        checkGrid(test);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_computeIfPresent_null() {
+        create3x3().computeIfPresent(0, 0, null);
+    }
+
+    @Test
+    public void test_merge() {
+        Grid<String> test = create3x3();
+        assertEquals("A", test.merge(1, 0, "A", String::concat));
+        checkGrid(test, 1, 0, "A");
+        assertEquals("AB", test.merge(1, 0, "B", String::concat));
+        checkGrid(test, 1, 0, "AB");
+        assertEquals(null, test.merge(1, 0, "C", (current, value) -> null));
+        checkGrid(test);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_merge_nullValue() {
+        create3x3().merge(0, 0, null, String::concat);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_merge_nullFunction() {
+        create3x3().merge(0, 0, "A", null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_merge_invalidIndex() {
+        create3x3().merge(0, -1, "A", String::concat);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_row_column_nonSquare() {
+        Grid<String> test = create(2, 3);
+        test.put(0, 2, "A");
+        test.put(1, 0, "B");
+        test.put(1, 2, "C");
+        assertEquals(Arrays.asList(null, null, "A"), test.row(0));
+        assertEquals(Arrays.asList("B", null, "C"), test.row(1));
+        assertEquals(Arrays.asList("A", "C"), test.column(2));
+        assertEquals(Arrays.asList(Arrays.asList(null, null, "A"), Arrays.asList("B", null, "C")), test.rows());
+    }
+
+    @Test
+    public void test_rowStream() {
+        Grid<String> test = create(4, 3);
+        test.put(0, 2, "A");
+        test.put(2, 0, "B");
+        test.put(2, 1, "C");
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(0, 2, "A")),
+                        Arrays.asList(ImmutableCell.of(2, 0, "B"), ImmutableCell.of(2, 1, "C"))),
+                test.rowStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_columnStream() {
+        Grid<String> test = create(4, 3);
+        test.put(0, 2, "A");
+        test.put(2, 0, "B");
+        test.put(3, 2, "C");
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(2, 0, "B")),
+                        Arrays.asList(ImmutableCell.of(0, 2, "A"), ImmutableCell.of(3, 2, "C"))),
+                test.columnStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_rowStream_columnStream_lazy() {
+        Grid<String> test = create(100, 100);
+        test.put(1, 2, "A");
+        Stream<List<Cell<String>>> rows = test.rowStream();
+        Stream<List<Cell<String>>> columns = test.columnStream();
+        test.put(5, 0, "B");
+        assertEquals(
+                Arrays.asList(Arrays.asList(ImmutableCell.of(1, 2, "A")), Arrays.asList(ImmutableCell.of(5, 0, "B"))),
+                rows.collect(Collectors.toList()));
+        assertEquals(
+                Arrays.asList(Arrays.asList(ImmutableCell.of(5, 0, "B")), Arrays.asList(ImmutableCell.of(1, 2, "A"))),
+                columns.collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_rowStream_columnStream_empty() {
+        Grid<String> test = create3x3();
+        assertEquals(0, test.rowStream().count());
+        assertEquals(0, test.columnStream().count());
+    }
+
+    @Test
+    public void test_rowStream_columnStream_parallel() {
+        Grid<String> test = create(60, 40);
+        for (int row = 0; row < 60; row += 2) {
+            for (int column = row % 3; column < 40; column += 3) {
+                test.put(row, column, "X");
+            }
+        }
+        assertEquals(30, test.rowStream().parallel().count());
+        assertEquals(test.size(), test.rowStream().parallel().mapToInt(List::size).sum());
+        assertEquals(40, test.columnStream().parallel().count());
+        assertEquals(test.size(), test.columnStream().parallel().mapToInt(List::size).sum());
+        assertEquals(
+                test.rowStream().flatMap(List::stream).collect(Collectors.toList()),
+                test.rowStream().parallel().flatMap(List::stream).collect(Collectors.toList()));
+    }
+
     //-----------------------------------------------------------------------
     @Test
     public void test_cells() {
@@ -330,6 +498,22 @@ public abstract class AbstractTestMutableGrid extends AbstractTestGrid {
         }
     }
 
+    @Test
+    public void test_forEachCell() {
+        Grid<String> test = create3x3();
+        test.put(1, 1, "Space");
+        test.put(0, 1, "World");
+        test.put(0, 0, "Hello");
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) -> buf.append(row).append(column).append(value));
+        assertEquals("00Hello01World11Space", buf.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_forEachCell_null() {
+        create3x3().forEachCell(null);
+    }
+
     @Test
     public void test_cells_contains() {
         Grid<String> test = create3x3();
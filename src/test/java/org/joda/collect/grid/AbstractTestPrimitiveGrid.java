@@ -0,0 +1,317 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test abstract primitive Grid.
+ * 
+ * @param <V> the boxed type of the value
+ */
+public abstract class AbstractTestPrimitiveGrid<V> {
+
+    /**
+     * Creates an empty grid.
+     * 
+     * @param rowCount  the row count
+     * @param columnCount  the column count
+     * @return the grid
+     */
+    protected abstract Grid<V> create(int rowCount, int columnCount);
+
+    /**
+     * Creates a grid copying another grid.
+     * 
+     * @param grid  the grid to copy
+     * @return the grid
+     */
+    protected abstract Grid<V> create(Grid<V> grid);
+
+    /**
+     * Gets a test value, zero when the argument is zero.
+     * 
+     * @param n  the number of the value
+     * @return the boxed value
+     */
+    protected abstract V value(int n);
+
+    /**
+     * Puts a value using the primitive method.
+     * 
+     * @param grid  the grid
+     * @param row  the row
+     * @param column  the column
+     * @param value  the value
+     */
+    protected abstract void putPrimitive(Grid<V> grid, int row, int column, V value);
+
+    /**
+     * Gets a value using the primitive method.
+     * 
+     * @param grid  the grid
+     * @param row  the row
+     * @param column  the column
+     * @return the boxed value
+     */
+    protected abstract V getPrimitive(Grid<V> grid, int row, int column);
+
+    /**
+     * Gets a value using the primitive method with a default.
+     * 
+     * @param grid  the grid
+     * @param row  the row
+     * @param column  the column
+     * @param defaultValue  the default value
+     * @return the boxed value
+     */
+    protected abstract V getPrimitive(Grid<V> grid, int row, int column, V defaultValue);
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_create_intInt() {
+        Grid<V> test = create(2, 3);
+        assertEquals(2, test.rowCount());
+        assertEquals(3, test.columnCount());
+        assertEquals(0, test.size());
+        assertEquals("[2x3:]", test.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_intInt_negativeRowCount() {
+        create(-1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_intInt_negativeColumnCount() {
+        create(2, -1);
+    }
+
+    @Test
+    public void test_create_Grid() {
+        SparseGrid<V> sparse = SparseGrid.create(2, 3);
+        sparse.put(0, 1, value(1));
+        sparse.put(1, 2, value(2));
+        Grid<V> test = create(sparse);
+        assertEquals(sparse, test);
+        assertEquals(test, sparse);
+        assertEquals(sparse.hashCode(), test.hashCode());
+        assertEquals("[2x3:(0,1)=" + value(1) + ", (1,2)=" + value(2) + "]", test.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        create(null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putGet() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        test.put(1, 2, value(2));
+        putPrimitive(test, 1, 2, value(3));
+        assertEquals(2, test.size());
+        assertTrue(test.contains(0, 1));
+        assertFalse(test.contains(0, 0));
+        assertFalse(test.contains(-1, 0));
+        assertEquals(value(1), getPrimitive(test, 0, 1));
+        assertEquals(value(3), getPrimitive(test, 1, 2));
+        assertEquals(value(0), getPrimitive(test, 0, 0));
+        assertEquals(value(0), getPrimitive(test, 5, 5));
+        assertEquals(value(2), getPrimitive(test, 0, 0, value(2)));
+        assertEquals(value(2), getPrimitive(test, 5, 5, value(2)));
+        assertEquals(value(1), test.get(0, 1));
+        assertNull(test.get(0, 0));
+        assertNull(test.get(5, 5));
+        assertEquals(ImmutableCell.of(0, 1, value(1)), test.cell(0, 1));
+        assertNull(test.cell(0, 0));
+        assertEquals(ImmutableList.of(value(1), value(3)), test.values());
+    }
+
+    @Test
+    public void test_put_zeroIsPresent() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 0, value(0));
+        assertTrue(test.contains(0, 0));
+        assertEquals(value(0), test.get(0, 0));
+        assertEquals(1, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_putPrimitive_badIndex() {
+        putPrimitive(create(2, 3), 2, 0, value(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_put_badIndex() {
+        create(2, 3).put(0, 3, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_put_null() {
+        create(2, 3).put(0, 0, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_putAll_null() {
+        create(2, 3).putAll(null);
+    }
+
+    @Test
+    public void test_remove() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        putPrimitive(test, 1, 1, value(2));
+        assertTrue(test.remove(0, 1));
+        assertFalse(test.remove(0, 1));
+        assertFalse(test.remove(5, 5));
+        assertEquals(1, test.size());
+        assertEquals(value(0), getPrimitive(test, 0, 1));
+    }
+
+    @Test
+    public void test_clear() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        putPrimitive(test, 1, 1, value(2));
+        test.clear();
+        assertEquals(0, test.size());
+        assertFalse(test.contains(0, 1));
+        assertEquals(value(0), getPrimitive(test, 1, 1));
+        assertEquals(create(2, 3), test);
+    }
+
+    @Test
+    public void test_containsValue() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        assertTrue(test.containsValue(value(1)));
+        assertFalse(test.containsValue(value(2)));
+        assertFalse(test.containsValue(value(0)));
+        assertFalse(test.containsValue(null));
+        assertFalse(test.containsValue(value(1).toString()));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_forEachCell() {
+        Grid<V> test = create(3, 3);
+        putPrimitive(test, 2, 0, value(3));
+        putPrimitive(test, 0, 1, value(1));
+        putPrimitive(test, 1, 2, value(2));
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) -> buf.append(row).append(column).append('=').append(value).append(' '));
+        assertEquals("01=" + value(1) + " 12=" + value(2) + " 20=" + value(3) + " ", buf.toString());
+    }
+
+    @Test
+    public void test_cells() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 1, 2, value(2));
+        putPrimitive(test, 0, 1, value(1));
+        assertEquals(2, test.cells().size());
+        assertTrue(test.cells().contains(ImmutableCell.of(1, 2, value(2))));
+        Iterator<Cell<V>> it = test.cells().iterator();
+        assertEquals(ImmutableCell.of(0, 1, value(1)), ImmutableCell.copyOf(it.next()));
+        it.remove();
+        assertEquals(ImmutableCell.of(1, 2, value(2)), ImmutableCell.copyOf(it.next()));
+        assertFalse(it.hasNext());
+        assertEquals(1, test.size());
+        assertFalse(test.contains(0, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_cells_removeTwice() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        Iterator<Cell<V>> it = test.cells().iterator();
+        it.next();
+        it.remove();
+        it.remove();
+    }
+
+    @Test
+    public void test_rowsColumns() {
+        Grid<V> test = create(2, 3);
+        putPrimitive(test, 0, 1, value(1));
+        putPrimitive(test, 1, 2, value(2));
+        assertEquals(value(1), test.row(0).get(1));
+        assertEquals(value(2), test.column(2).get(1));
+        test.row(1).set(0, value(3));
+        assertEquals(value(3), getPrimitive(test, 1, 0));
+        assertEquals(3, test.size());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_equalsHashCode() {
+        Grid<V> a = create(2, 3);
+        putPrimitive(a, 0, 1, value(1));
+        Grid<V> b = create(2, 3);
+        putPrimitive(b, 0, 1, value(1));
+        Grid<V> c = create(3, 2);
+        putPrimitive(c, 0, 1, value(1));
+        DenseGrid<V> boxed = DenseGrid.create(2, 3);
+        boxed.put(0, 1, value(1));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a, boxed);
+        assertEquals(boxed, a);
+        assertEquals(boxed.hashCode(), a.hashCode());
+        assertFalse(a.equals(c));
+        putPrimitive(b, 0, 0, value(0));
+        assertFalse(a.equals(b));
+        putPrimitive(a, 0, 0, value(2));
+        assertFalse(a.equals(b));
+    }
+
+    @Test
+    public void test_randomAgainstSparseGrid() {
+        Random random = new Random(42);
+        Grid<V> test = create(50, 50);
+        SparseGrid<V> expected = SparseGrid.create(50, 50);
+        for (int i = 0; i < 20_000; i++) {
+            int row = random.nextInt(50);
+            int column = random.nextInt(50);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(row, column), test.remove(row, column));
+            } else {
+                V value = value(random.nextInt(100));
+                expected.put(row, column, value);
+                putPrimitive(test, row, column, value);
+            }
+        }
+        assertEquals(expected.size(), test.size());
+        assertEquals(expected, test);
+        assertEquals(test, expected);
+        assertEquals(expected.hashCode(), test.hashCode());
+        assertEquals(expected.toString(), test.toString());
+        assertEquals(create(expected), test);
+    }
+
+}
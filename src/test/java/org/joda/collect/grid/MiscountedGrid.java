@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import java.util.Set;
+
+import org.joda.collect.grid.Grid.Cell;
+
+/**
+ * A grid whose size is wrong by a fixed amount, like the estimated size of a concurrent grid.
+ */
+final class MiscountedGrid<V> extends AbstractGrid<V> {
+
+    private final Grid<V> grid;
+    private final int error;
+
+    MiscountedGrid(Grid<V> grid, int error) {
+        this.grid = grid;
+        this.error = error;
+    }
+
+    @Override
+    public int rowCount() {
+        return grid.rowCount();
+    }
+
+    @Override
+    public int columnCount() {
+        return grid.columnCount();
+    }
+
+    @Override
+    public int size() {
+        return grid.size() + error;
+    }
+
+    @Override
+    public Set<Cell<V>> cells() {
+        return grid.cells();
+    }
+
+    @Override
+    public void clear() {
+        grid.clear();
+    }
+
+    @Override
+    public void put(int row, int column, V value) {
+        grid.put(row, column, value);
+    }
+
+    @Override
+    public void putAll(Grid<? extends V> source) {
+        grid.putAll(source);
+    }
+
+    @Override
+    public boolean remove(int row, int column) {
+        return grid.remove(row, column);
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test BitGrid.
+ */
+public class TestBitGrid {
+
+    @Test
+    public void test_create() {
+        BitGrid test = BitGrid.create(2, 3);
+        assertEquals(2, test.rowCount());
+        assertEquals(3, test.columnCount());
+        assertEquals(0, test.cardinality());
+        assertTrue(test.isEmpty());
+        assertEquals("[2x3:000|000]", test.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_negative() {
+        BitGrid.create(-1, 3);
+    }
+
+    @Test
+    public void test_occupancyOf() {
+        SparseGrid<String> grid = SparseGrid.create(2, 3);
+        grid.put(0, 1, "Hello");
+        grid.put(1, 2, "World");
+        BitGrid test = BitGrid.occupancyOf(grid);
+        assertEquals("[2x3:010|001]", test.toString());
+    }
+
+    @Test
+    public void test_setGetClear() {
+        BitGrid test = BitGrid.create(10, 10);
+        assertTrue(test.set(9, 9));
+        assertFalse(test.set(9, 9));
+        assertTrue(test.set(0, 0, true));
+        assertTrue(test.get(9, 9));
+        assertTrue(test.get(0, 0));
+        assertFalse(test.get(5, 5));
+        assertFalse(test.get(-1, 0));
+        assertFalse(test.get(10, 0));
+        assertEquals(2, test.cardinality());
+        assertTrue(test.clear(9, 9));
+        assertFalse(test.clear(9, 9));
+        assertTrue(test.set(0, 0, false));
+        assertTrue(test.isEmpty());
+        test.set(3, 3);
+        test.clear();
+        assertTrue(test.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_set_badIndex() {
+        BitGrid.create(2, 3).set(0, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_clear_badIndex() {
+        BitGrid.create(2, 3).clear(2, 0);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_bulk() {
+        BitGrid a = BitGrid.create(10, 10);
+        BitGrid b = BitGrid.create(10, 10);
+        for (int i = 0; i < 10; i++) {
+            a.set(i, i);
+            b.set(i, 9 - i);
+            b.set(i, 0);
+        }
+        assertEquals(19, b.cardinality());
+        BitGrid and = a.copy().and(b);
+        assertEquals(1, and.cardinality());
+        assertTrue(and.get(0, 0));
+        BitGrid or = a.copy().or(b);
+        assertEquals(28, or.cardinality());
+        assertTrue(or.get(4, 5));
+        BitGrid xor = a.copy().xor(b);
+        assertEquals(27, xor.cardinality());
+        assertFalse(xor.get(0, 0));
+        BitGrid andNot = a.copy().andNot(b);
+        assertEquals(9, andNot.cardinality());
+        assertFalse(andNot.get(0, 0));
+        assertTrue(andNot.get(1, 1));
+    }
+
+    @Test
+    public void test_cardinality_maintained() {
+        BitGrid test = BitGrid.create(10, 10);
+        for (int i = 0; i < 10; i++) {
+            test.set(i, i);
+        }
+        BitGrid copy = test.copy();
+        assertEquals(10, copy.cardinality());
+        Iterator<Cell<Boolean>> it = test.asGrid().cells().iterator();
+        it.next();
+        it.remove();
+        assertEquals(9, test.cardinality());
+        assertEquals(9, test.asGrid().size());
+        test.asGrid().remove(9, 9);
+        test.asGrid().put(0, 9, Boolean.TRUE);
+        assertEquals(9, test.cardinality());
+        assertEquals(3, test.xor(copy).cardinality());
+        test.clear();
+        assertEquals(0, test.cardinality());
+        assertTrue(test.isEmpty());
+        assertEquals(10, copy.cardinality());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_bulk_differentSize() {
+        BitGrid.create(2, 3).or(BitGrid.create(3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_bulk_null() {
+        BitGrid.create(2, 3).and(null);
+    }
+
+    @Test
+    public void test_forEachSet() {
+        BitGrid test = BitGrid.create(10, 13);
+        test.set(9, 12);
+        test.set(0, 1);
+        test.set(4, 11);
+        List<String> found = new ArrayList<>();
+        test.forEachSet((row, column) -> found.add(row + "," + column));
+        assertEquals(ImmutableList.of("0,1", "4,11", "9,12"), found);
+    }
+
+    @Test
+    public void test_equalsHashCode() {
+        BitGrid a = BitGrid.create(2, 3);
+        a.set(1, 1);
+        BitGrid b = BitGrid.create(2, 3);
+        b.set(1, 1);
+        assertEquals(a, a);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(BitGrid.create(3, 2)));
+        assertFalse(a.equals(null));
+        b.clear(1, 1);
+        assertFalse(a.equals(b));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_asGrid() {
+        BitGrid bits = BitGrid.create(2, 3);
+        bits.set(0, 1);
+        Grid<Boolean> test = bits.asGrid();
+        assertEquals(2, test.rowCount());
+        assertEquals(3, test.columnCount());
+        assertEquals(1, test.size());
+        assertEquals(Boolean.TRUE, test.get(0, 1));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(0, 1, Boolean.TRUE), test.cell(0, 1));
+        assertNull(test.cell(1, 1));
+        assertTrue(test.containsValue(Boolean.TRUE));
+        assertFalse(test.containsValue(Boolean.FALSE));
+        assertEquals(ImmutableList.of(true), test.values());
+        test.put(1, 2, Boolean.TRUE);
+        assertTrue(bits.get(1, 2));
+        assertTrue(test.remove(0, 1));
+        assertFalse(test.remove(0, 1));
+        assertFalse(test.remove(5, 5));
+        assertFalse(bits.get(0, 1));
+        assertEquals("[2x3:(1,2)=true]", test.toString());
+        DenseGrid<Boolean> dense = DenseGrid.create(2, 3);
+        dense.put(1, 2, Boolean.TRUE);
+        assertEquals(dense, test);
+        assertEquals(test, dense);
+        assertEquals(dense.hashCode(), test.hashCode());
+    }
+
+    @Test
+    public void test_asGrid_cells() {
+        BitGrid bits = BitGrid.create(2, 3);
+        bits.set(0, 1);
+        bits.set(1, 0);
+        Grid<Boolean> test = bits.asGrid();
+        assertTrue(test.cells().contains(ImmutableCell.of(1, 0, Boolean.TRUE)));
+        assertFalse(test.cells().contains(ImmutableCell.of(1, 0, Boolean.FALSE)));
+        Iterator<Cell<Boolean>> it = test.cells().iterator();
+        assertEquals(ImmutableCell.of(0, 1, Boolean.TRUE), ImmutableCell.copyOf(it.next()));
+        it.remove();
+        assertEquals(ImmutableCell.of(1, 0, Boolean.TRUE), ImmutableCell.copyOf(it.next()));
+        assertFalse(it.hasNext());
+        assertEquals("[2x3:000|100]", bits.toString());
+        assertTrue(test.cells().add(ImmutableCell.of(1, 1, Boolean.TRUE)));
+        assertFalse(test.cells().add(ImmutableCell.of(1, 1, Boolean.TRUE)));
+        assertTrue(test.cells().remove(ImmutableCell.of(1, 1, Boolean.TRUE)));
+        test.cells().clear();
+        assertTrue(bits.isEmpty());
+    }
+
+    @Test
+    public void test_asGrid_forEachCell() {
+        BitGrid bits = BitGrid.create(2, 3);
+        bits.set(1, 0);
+        bits.set(0, 2);
+        StringBuilder buf = new StringBuilder();
+        bits.asGrid().forEachCell((row, column, value) -> buf.append(row).append(column).append(value));
+        assertEquals("02true10true", buf.toString());
+    }
+
+    @Test
+    public void test_asGrid_putFalse() {
+        BitGrid bits = BitGrid.create(2, 3);
+        Grid<Boolean> test = bits.asGrid();
+        test.put(0, 0, Boolean.TRUE);
+        test.put(1, 1, Boolean.TRUE);
+        test.put(0, 0, Boolean.FALSE);
+        test.put(0, 1, Boolean.FALSE);
+        assertEquals(1, test.size());
+        assertNull(test.get(0, 0));
+        assertEquals("[2x3:000|010]", bits.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_asGrid_putNull() {
+        BitGrid.create(2, 3).asGrid().put(0, 0, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_asGrid_cellsAddFalse() {
+        BitGrid.create(2, 3).asGrid().cells().add(ImmutableCell.of(0, 0, Boolean.FALSE));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_asGrid_putBadIndex() {
+        BitGrid.create(2, 3).asGrid().put(2, 0, Boolean.TRUE);
+    }
+
+    @Test
+    public void test_asGrid_footprint() {
+        GridFootprint footprint = GridFootprint.of(BitGrid.create(100, 100).asGrid());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("bits array").longValue());
+    }
+
+}
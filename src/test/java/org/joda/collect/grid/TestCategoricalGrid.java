@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+/**
+ * Test CategoricalGrid.
+ */
+public class TestCategoricalGrid extends AbstractTestMutableGrid {
+
+    @Override
+    protected Grid<String> create3x3() {
+        return CategoricalGrid.create(3, 3);
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return CategoricalGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return CategoricalGrid.create(grid);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        CategoricalGrid.create((Grid<String>) null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_put_rowTooBig() {
+        CategoricalGrid<String> test = CategoricalGrid.create(2, 2);
+        test.put(3, 1, "Hello");
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_ordinals() {
+        CategoricalGrid<String> test = CategoricalGrid.create(2, 3);
+        test.put(0, 0, "A");
+        test.put(0, 2, "B");
+        test.put(1, 1, "A");
+        assertEquals(1, test.ordinal(0, 0));
+        assertEquals(2, test.ordinal(0, 2));
+        assertEquals(1, test.ordinal(1, 1));
+        assertEquals(0, test.ordinal(0, 1));
+        assertEquals(0, test.ordinal(-1, 0));
+        assertEquals("A", test.valueOfOrdinal(1));
+        assertEquals("B", test.valueOfOrdinal(2));
+        assertNull(test.valueOfOrdinal(0));
+        assertNull(test.valueOfOrdinal(3));
+        assertEquals(2, test.distinctValueCount());
+        assertArrayEquals(new int[] {1, 2, 1}, test.ordinals().toArray());
+    }
+
+    @Test
+    public void test_dictionary_releasesUnusedValues() {
+        CategoricalGrid<String> test = CategoricalGrid.create(2, 2);
+        test.put(0, 0, "A");
+        test.put(0, 1, "A");
+        test.put(1, 0, "B");
+        assertTrue(test.containsValue("B"));
+        test.put(1, 0, "A");
+        assertFalse(test.containsValue("B"));
+        assertEquals(1, test.distinctValueCount());
+        test.put(1, 1, "C");
+        assertEquals(2, test.ordinal(1, 1));
+        assertEquals("C", test.valueOfOrdinal(2));
+        test.remove(0, 0);
+        test.remove(0, 1);
+        assertTrue(test.containsValue("A"));
+        test.remove(1, 0);
+        assertFalse(test.containsValue("A"));
+        checkGrid(test, 1, 1, "C");
+    }
+
+    @Test
+    public void test_cells_iteratorRemove_releasesValue() {
+        CategoricalGrid<String> test = CategoricalGrid.create(2, 2);
+        test.put(0, 1, "A");
+        test.put(1, 1, "B");
+        Iterator<Cell<String>> it = test.cells().iterator();
+        it.next();
+        it.remove();
+        assertFalse(test.containsValue("A"));
+        checkGrid(test, 1, 1, "B");
+    }
+
+    @Test
+    public void test_widening() {
+        CategoricalGrid<Integer> test = CategoricalGrid.create(300, 300);
+        for (int i = 0; i < 70_000; i++) {
+            test.put(i / 300, i % 300, i);
+            if (i == 255 || i == 256 || i == 65_535 || i == 65_536) {
+                assertEquals(Integer.valueOf(0), test.get(0, 0));
+                assertEquals(i + 1, test.ordinal(i / 300, i % 300));
+                assertEquals(Integer.valueOf(255), test.get(0, 255));
+            }
+        }
+        assertEquals(70_000, test.size());
+        assertEquals(70_000, test.distinctValueCount());
+        for (int i = 0; i < 70_000; i++) {
+            assertEquals(i, test.get(i / 300, i % 300).intValue());
+        }
+        assertTrue(test.containsValue(69_999));
+        assertFalse(test.containsValue(70_000));
+    }
+
+    @Test
+    public void test_clear_resetsDictionary() {
+        CategoricalGrid<Integer> test = CategoricalGrid.create(20, 20);
+        for (int i = 0; i < 400; i++) {
+            test.put(i / 20, i % 20, i);
+        }
+        test.clear();
+        assertEquals(0, test.distinctValueCount());
+        test.put(1, 1, 6);
+        assertEquals(1, test.ordinal(1, 1));
+        assertEquals(Integer.valueOf(6), test.get(1, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test
+    public void test_footprint_smallerThanDense() {
+        CategoricalGrid<String> test = CategoricalGrid.create(100, 100);
+        DenseGrid<String> dense = DenseGrid.create(100, 100);
+        for (int i = 0; i < 10_000; i++) {
+            String value = (i % 3 == 0 ? "Red" : "Blue");
+            test.put(i / 100, i % 100, value);
+            dense.put(i / 100, i % 100, value);
+        }
+        assertEquals(test, dense);
+        assertEquals(10_016, GridFootprint.of(test).getComponents().get("ordinals array").longValue());
+        assertTrue(GridFootprint.of(test).getTotalBytes() < GridFootprint.of(dense).getTotalBytes() / 3);
+    }
+
+}
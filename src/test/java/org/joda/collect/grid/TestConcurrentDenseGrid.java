@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test ConcurrentDenseGrid.
+ */
+public class TestConcurrentDenseGrid extends AbstractTestMutableGrid {
+
+    @Override
+    protected Grid<String> create3x3() {
+        return ConcurrentDenseGrid.create(3, 3);
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return ConcurrentDenseGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return ConcurrentDenseGrid.create(grid);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        ConcurrentDenseGrid.create((Grid<String>) null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_put_rowTooBig() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        test.put(3, 1, "Hello");
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putIfAbsent() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        assertNull(test.putIfAbsent(0, 1, "Hello"));
+        assertEquals("Hello", test.putIfAbsent(0, 1, "World"));
+        assertEquals("Hello", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_putIfAbsent_badIndex() {
+        ConcurrentDenseGrid.create(2, 2).putIfAbsent(2, 0, "Hello");
+    }
+
+    @Test
+    public void test_replace() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        assertFalse(test.replace(0, 1, "Hello"));
+        assertNull(test.get(0, 1));
+        test.put(0, 1, "Hello");
+        assertTrue(test.replace(0, 1, "World"));
+        assertEquals("World", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test
+    public void test_replace_expected() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        assertFalse(test.replace(0, 1, "Hello", "World"));
+        test.put(0, 1, new String("Hello"));
+        assertFalse(test.replace(0, 1, "Space", "World"));
+        assertEquals("Hello", test.get(0, 1));
+        assertTrue(test.replace(0, 1, "Hello", "World"));
+        assertEquals("World", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_replace_expectedNull() {
+        ConcurrentDenseGrid.create(2, 2).replace(0, 1, null, "World");
+    }
+
+    @Test
+    public void test_compute() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        assertEquals("A", test.compute(1, 1, value -> value == null ? "A" : value + "A"));
+        assertEquals("AA", test.compute(1, 1, value -> value == null ? "A" : value + "A"));
+        assertEquals(1, test.size());
+        assertNull(test.compute(1, 1, value -> null));
+        assertEquals(0, test.size());
+        assertNull(test.compute(1, 1, value -> null));
+        assertEquals(0, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_compute_badIndex() {
+        ConcurrentDenseGrid.<String>create(2, 2).compute(0, 2, value -> "A");
+    }
+
+    @Test
+    public void test_cells_weaklyConsistent() {
+        ConcurrentDenseGrid<String> test = ConcurrentDenseGrid.create(2, 2);
+        test.put(0, 0, "A");
+        test.put(1, 0, "B");
+        Iterator<Cell<String>> it = test.cells().iterator();
+        assertEquals(ImmutableCell.of(0, 0, "A"), it.next());
+        test.put(1, 1, "C");
+        test.remove(1, 0);
+        test.put(0, 1, "D");
+        // the next value was captured before the changes
+        assertEquals(ImmutableCell.of(1, 0, "B"), it.next());
+        assertEquals(ImmutableCell.of(1, 1, "C"), it.next());
+        assertFalse(it.hasNext());
+        assertEquals(ImmutableList.of("A", "D", "C"), test.values());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_concurrentUpdates() throws Exception {
+        ConcurrentDenseGrid<Integer> test = ConcurrentDenseGrid.create(10, 10);
+        int threads = 8;
+        int updates = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            ImmutableList.Builder<Future<?>> futures = ImmutableList.builder();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < updates; i++) {
+                        test.compute(i % 10, (i / 10) % 10, value -> value == null ? 1 : value + 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures.build()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100, test.size());
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 10; column++) {
+                assertEquals(Integer.valueOf(threads * updates / 100), test.get(row, column));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test ConcurrentSparseGrid.
+ */
+public class TestConcurrentSparseGrid extends AbstractTestMutableGrid {
+
+    @Override
+    protected Grid<String> create3x3() {
+        return ConcurrentSparseGrid.create(3, 3);
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return ConcurrentSparseGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return ConcurrentSparseGrid.create(grid);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        ConcurrentSparseGrid.create((Grid<String>) null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_put_rowTooBig() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        test.put(3, 1, "Hello");
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putIfAbsent() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        assertNull(test.putIfAbsent(0, 1, "Hello"));
+        assertEquals("Hello", test.putIfAbsent(0, 1, "World"));
+        assertEquals("Hello", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_putIfAbsent_badIndex() {
+        ConcurrentSparseGrid.create(2, 2).putIfAbsent(2, 0, "Hello");
+    }
+
+    @Test
+    public void test_replace() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        assertFalse(test.replace(0, 1, "Hello"));
+        assertNull(test.get(0, 1));
+        test.put(0, 1, "Hello");
+        assertTrue(test.replace(0, 1, "World"));
+        assertEquals("World", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test
+    public void test_replace_expected() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        assertFalse(test.replace(0, 1, "Hello", "World"));
+        test.put(0, 1, new String("Hello"));
+        assertFalse(test.replace(0, 1, "Space", "World"));
+        assertEquals("Hello", test.get(0, 1));
+        assertTrue(test.replace(0, 1, "Hello", "World"));
+        assertEquals("World", test.get(0, 1));
+        assertEquals(1, test.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_replace_expectedNull() {
+        ConcurrentSparseGrid.create(2, 2).replace(0, 1, null, "World");
+    }
+
+    @Test
+    public void test_compute() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        assertEquals("A", test.compute(1, 1, value -> value == null ? "A" : value + "A"));
+        assertEquals("AA", test.compute(1, 1, value -> value == null ? "A" : value + "A"));
+        assertEquals(1, test.size());
+        assertNull(test.compute(1, 1, value -> null));
+        assertEquals(0, test.size());
+        assertNull(test.compute(1, 1, value -> null));
+        assertEquals(0, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_compute_badIndex() {
+        ConcurrentSparseGrid.<String>create(2, 2).compute(0, 2, value -> "A");
+    }
+
+    @Test
+    public void test_cells_weaklyConsistent() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        test.put(0, 0, "A");
+        test.put(1, 0, "B");
+        Iterator<Cell<String>> it = test.cells().iterator();
+        assertEquals(ImmutableCell.of(0, 0, "A"), it.next());
+        test.put(1, 1, "C");
+        test.put(0, 1, "D");
+        // changes after the current position are seen, those before are not
+        assertEquals(ImmutableCell.of(1, 0, "B"), it.next());
+        assertEquals(ImmutableCell.of(1, 1, "C"), it.next());
+        assertFalse(it.hasNext());
+        assertEquals(ImmutableList.of("A", "D", "B", "C"), test.values());
+    }
+
+    @Test
+    public void test_cells_order() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(3, 70000);
+        test.put(2, 0, "C");
+        test.put(0, 65536, "B");
+        test.put(0, 1, "A");
+        assertEquals(ImmutableList.of("A", "B", "C"), test.values());
+        assertEquals("[3x70000:(0,1)=A, (0,65536)=B, (2,0)=C]", test.toString());
+    }
+
+    @Test
+    public void test_cells_iteratorRemove() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 2);
+        test.put(0, 0, "A");
+        test.put(1, 1, "B");
+        Iterator<Cell<String>> it = test.cells().iterator();
+        it.next();
+        it.remove();
+        assertEquals(1, test.size());
+        assertNull(test.get(0, 0));
+        assertEquals("B", test.get(1, 1));
+    }
+
+    @Test
+    public void test_row_iterator() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(3, 4);
+        test.put(0, 3, "X");
+        test.put(1, 1, "A");
+        test.put(1, 3, "B");
+        test.put(2, 0, "Y");
+        List<String> list = new ArrayList<>();
+        for (String value : test.row(1)) {
+            list.add(value);
+        }
+        assertEquals(Arrays.asList(null, "A", null, "B"), list);
+        assertEquals(Arrays.asList(null, null, null, "X"), new ArrayList<>(test.row(0)));
+        assertEquals(Arrays.asList("X", "B", null), new ArrayList<>(test.column(3)));
+    }
+
+    @Test
+    public void test_row_weaklyConsistent() {
+        ConcurrentSparseGrid<String> test = ConcurrentSparseGrid.create(2, 3);
+        test.put(0, 0, "A");
+        List<String> row = test.row(0);
+        Iterator<String> it = row.iterator();
+        assertEquals("A", it.next());
+        test.put(0, 1, "B");
+        test.remove(0, 0);
+        // the iterator may or may not see the changes, but always returns the whole row
+        it.next();
+        it.next();
+        assertFalse(it.hasNext());
+        assertEquals(Arrays.asList(null, "B", null), row);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_concurrentUpdates() throws Exception {
+        ConcurrentSparseGrid<Integer> test = ConcurrentSparseGrid.create(100_000, 100_000);
+        int threads = 8;
+        int updates = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            ImmutableList.Builder<Future<?>> futures = ImmutableList.builder();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < updates; i++) {
+                        test.compute((i % 10) * 9_999, ((i / 10) % 10) * 9_999, value -> value == null ? 1 : value + 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures.build()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100, test.size());
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 10; column++) {
+                assertEquals(Integer.valueOf(threads * updates / 100), test.get(row * 9_999, column * 9_999));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test DenseDoubleGrid and DenseImmutableDoubleGrid.
+ */
+public class TestDenseDoubleGrid extends AbstractTestPrimitiveGrid<Double> {
+
+    @Override
+    protected Grid<Double> create(int rowCount, int columnCount) {
+        return DenseDoubleGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Double> create(Grid<Double> grid) {
+        return DenseDoubleGrid.create(grid);
+    }
+
+    @Override
+    protected Double value(int n) {
+        return n * 1.5d;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Double> grid, int row, int column, Double value) {
+        ((DenseDoubleGrid) grid).putDouble(row, column, value);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column) {
+        return ((DenseDoubleGrid) grid).getDouble(row, column);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column, Double defaultValue) {
+        return ((DenseDoubleGrid) grid).getDouble(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_create_array() {
+        double[][] array = {{1.5d, 2.5d}, {3.5d}};
+        DenseDoubleGrid test = DenseDoubleGrid.create(array);
+        assertEquals(2, test.rowCount());
+        assertEquals(2, test.columnCount());
+        assertEquals(3, test.size());
+        assertEquals(3.5d, test.getDouble(1, 0), 0d);
+        assertFalse(test.contains(1, 1));
+        assertEquals("[2x2:(0,0)=1.5, (0,1)=2.5, (1,0)=3.5]", test.toString());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        DenseDoubleGrid dense = DenseDoubleGrid.create(2, 3);
+        dense.putDouble(0, 1, 1.5d);
+        dense.putDouble(1, 2, 2.5d);
+        ImmutableDoubleGrid test = ImmutableDoubleGrid.copyOf(dense);
+        assertSame(test, ImmutableDoubleGrid.copyOf(test));
+        dense.putDouble(0, 0, 3.5d);
+        assertEquals(2, test.size());
+        assertEquals(1.5d, test.getDouble(0, 1), 0d);
+        assertEquals(2.5d, test.getDouble(1, 2, 0), 0d);
+        assertEquals(3.5d, test.getDouble(0, 0, 3.5d), 0d);
+        assertEquals(Double.valueOf(2.5d), test.get(1, 2));
+        assertNull(test.get(0, 0));
+        assertTrue(test.containsValue(2.5d));
+        assertEquals(ImmutableList.of(1.5d, 2.5d), test.values());
+        assertEquals("[2x3:(0,1)=1.5, (1,2)=2.5]", test.toString());
+        dense.remove(0, 0);
+        assertEquals(dense, test);
+        assertEquals(test, dense);
+        assertEquals(dense.hashCode(), test.hashCode());
+        assertEquals(DenseDoubleGrid.create(test), dense);
+        assertEquals(ImmutableDoubleGrid.copyOf(DenseDoubleGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        DenseDoubleGrid dense = DenseDoubleGrid.create(3, 3);
+        dense.putDouble(2, 0, 3.5d);
+        dense.putDouble(0, 1, 1.5d);
+        dense.putDouble(1, 2, 2.5d);
+        StringBuilder buf = new StringBuilder();
+        ImmutableDoubleGrid.copyOf(dense).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable_putDouble() {
+        ImmutableDoubleGrid.copyOf(DenseDoubleGrid.create(2, 3)).putDouble(0, 0, 1.5d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_immutable_null() {
+        ImmutableDoubleGrid.copyOf((DoubleGrid) null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_footprint() {
+        GridFootprint footprint = GridFootprint.of(DenseDoubleGrid.create(100, 100));
+        assertEquals(GridFootprint.array(8, 10_000), footprint.getComponents().get("values array").longValue());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("occupancy bitmap").longValue());
+    }
+
+}
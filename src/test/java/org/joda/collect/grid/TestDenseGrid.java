@@ -17,8 +17,19 @@ package org.joda.collect.grid;
 
 import static org.junit.Assert.assertEquals;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.joda.collect.grid.Grid.Cell;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * Test DenseGrid.
  */
@@ -50,6 +61,37 @@ public class TestDenseGrid extends AbstractTestMutableGrid {
         checkGrid(test, 0, 0, "Hello", 1, 0, "World");
     }
 
+    @Test
+    public void test_create_Grid_fromDense() {
+        DenseGrid<String> base = DenseGrid.create(2, 3);
+        base.put(0, 2, "Hello");
+        base.put(1, 0, "World");
+        DenseGrid<String> test = DenseGrid.create(base);
+        checkGrid(test, 0, 2, "Hello", 1, 0, "World");
+        test.put(1, 1, "Again");
+        assertEquals(3, test.size());
+        assertEquals(2, base.size());
+        assertEquals(null, base.get(1, 1));
+    }
+
+    @Test
+    public void test_create_Grid_fromSparseImmutableParallel() {
+        SparseGrid<Integer> base = SparseGrid.create(400, 300);
+        for (int row = 0; row < 400; row++) {
+            for (int column = row % 5; column < 300; column += 5) {
+                base.put(row, column, row - column);
+            }
+        }
+        ImmutableGrid<Integer> imm = ImmutableGrid.copyOf(base, GridLayoutStrategy.sparse());
+        DenseGrid<Integer> test = DenseGrid.create(imm);
+        assertEquals(base.size(), test.size());
+        assertEquals(base, test);
+        test.put(0, 1, 6);
+        assertEquals(base.size() + 1, test.size());
+        assertEquals(Integer.valueOf(0), imm.get(0, 0));
+        assertEquals(null, imm.get(0, 1));
+    }
+
     @Test
     public void test_create_array2D() {
         String[][] array = new String[][] {
@@ -102,4 +144,76 @@ public class TestDenseGrid extends AbstractTestMutableGrid {
         test.put(1, 3, "Hello");
     }
 
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_equalsHashCode_parallel() {
+        DenseGrid<Integer> test = DenseGrid.create(500, 300);
+        SparseGrid<Integer> expected = SparseGrid.create(500, 300);
+        for (int row = 0; row < 500; row++) {
+            for (int column = row % 3; column < 300; column += 3) {
+                test.put(row, column, row * column);
+                expected.put(row, column, row * column);
+            }
+        }
+        assertEquals(expected.hashCode(), test.hashCode());
+        assertEquals(expected.hashCode(), Grids.parallelHashCode(test));
+        DenseGrid<Integer> same = DenseGrid.create(test);
+        assertTrue(test.equals(same));
+        assertTrue(Grids.parallelEquals(test, same));
+        same.put(499, 299, -1);
+        assertFalse(test.equals(same));
+        assertFalse(Grids.parallelEquals(test, same));
+        same.remove(499, 299);
+        assertTrue(Grids.parallelEquals(test, same));
+        same.put(0, 0, 7);
+        assertFalse(test.equals(same));
+        assertFalse(Grids.parallelEquals(test, same));
+        assertFalse(Grids.parallelEquals(test, DenseGrid.create(300, 500)));
+        assertTrue(Grids.parallelEquals(test, expected));
+    }
+
+    @Test
+    public void test_equals_differentCounts() {
+        assertFalse(DenseGrid.create(2, 3).equals(DenseGrid.create(3, 2)));
+    }
+
+    @Test
+    public void test_cells_spliterator() {
+        DenseGrid<String> test = DenseGrid.create(3, 3);
+        test.put(0, 1, "A");
+        test.put(2, 0, "B");
+        test.put(2, 2, "C");
+        Spliterator<Cell<String>> split = test.cells().spliterator();
+        assertTrue(split.hasCharacteristics(Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL));
+        assertFalse(split.hasCharacteristics(Spliterator.SIZED));
+        assertFalse(split.hasCharacteristics(Spliterator.IMMUTABLE));
+        assertEquals(3, split.estimateSize());
+        Spliterator<Cell<String>> prefix = split.trySplit();
+        assertEquals(3, prefix.estimateSize() + split.estimateSize());
+        List<Cell<String>> cells = new ArrayList<>();
+        prefix.forEachRemaining(cells::add);
+        assertTrue(split.tryAdvance(cells::add));
+        assertTrue(split.tryAdvance(cells::add));
+        assertFalse(split.tryAdvance(cells::add));
+        assertEquals(0, split.estimateSize());
+        assertEquals(ImmutableList.of(
+                ImmutableCell.of(0, 1, "A"), ImmutableCell.of(2, 0, "B"), ImmutableCell.of(2, 2, "C")), cells);
+    }
+
+    @Test
+    public void test_cells_parallelStream() {
+        DenseGrid<Integer> test = DenseGrid.create(300, 200);
+        long expected = 0;
+        for (int row = 0; row < 300; row++) {
+            for (int column = 0; column < 200; column += (row % 3) + 1) {
+                test.put(row, column, row + column);
+                expected += row + column;
+            }
+        }
+        assertEquals(expected, test.cells().parallelStream().mapToLong(Cell::getValue).sum());
+        List<Cell<Integer>> cells = test.cells().parallelStream().collect(Collectors.toList());
+        assertEquals(test.size(), cells.size());
+        assertEquals(ImmutableList.copyOf(test.values()),
+                cells.stream().map(Cell::getValue).collect(Collectors.toList()));
+    }
 }
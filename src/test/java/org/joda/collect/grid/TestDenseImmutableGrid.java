@@ -17,9 +17,21 @@ package org.joda.collect.grid;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.joda.collect.grid.Grid.Cell;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * Test DenseImmutableGrid.
  */
@@ -58,6 +70,21 @@ public class TestDenseImmutableGrid extends AbstractTestImmutableGrid {
         assertEquals("[2x2:(0,0)=Hello, (0,1)=World]", test.toString());
     }
 
+    @Test
+    public void test_factory_copyOf_Grid_fromSparseImmutableParallel() {
+        SparseGrid<Integer> base = SparseGrid.create(400, 300);
+        for (int row = 0; row < 400; row++) {
+            for (int column = row % 5; column < 300; column += 5) {
+                base.put(row, column, row - column);
+            }
+        }
+        ImmutableGrid<Integer> imm = ImmutableGrid.copyOf(base, GridLayoutStrategy.sparse());
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(imm, GridLayoutStrategy.dense());
+        assertTrue(test instanceof DenseImmutableGrid);
+        assertEquals(base.size(), test.size());
+        assertEquals(base, test);
+    }
+
     //-----------------------------------------------------------------------
     @Test
     public void test_containsValue_Object() {
@@ -89,4 +116,136 @@ public class TestDenseImmutableGrid extends AbstractTestImmutableGrid {
         assertEquals(2 ^ Integer.rotateLeft(2, 16) ^ test.cells().hashCode(), test.hashCode());
     }
 
+    @Test
+    public void test_equalsHashCode_parallel() {
+        SparseGrid<Integer> base = SparseGrid.create(500, 300);
+        for (int row = 0; row < 500; row++) {
+            for (int column = row % 3; column < 300; column += 3) {
+                base.put(row, column, row * column);
+            }
+        }
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(base, GridLayoutStrategy.dense());
+        ImmutableGrid<Integer> same = ImmutableGrid.copyOf(base, GridLayoutStrategy.dense());
+        assertEquals(true, test.equals(same));
+        assertEquals(true, Grids.parallelEquals(test, same));
+        assertEquals(base.hashCode(), test.hashCode());
+        assertEquals(base.hashCode(), Grids.parallelHashCode(test));
+        assertEquals(500 ^ Integer.rotateLeft(300, 16) ^ base.cells().hashCode(), test.hashCode());
+        
+        base.put(499, 299, -1);
+        ImmutableGrid<Integer> other = ImmutableGrid.copyOf(base, GridLayoutStrategy.dense());
+        assertEquals(false, test.equals(other));
+        assertEquals(false, Grids.parallelEquals(test, other));
+        assertEquals(base.hashCode(), other.hashCode());
+        assertEquals(base.hashCode(), Grids.parallelHashCode(other));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_equalsHashCode_mutableDense() {
+        DenseGrid<Integer> base = DenseGrid.create(500, 300);
+        for (int row = 0; row < 500; row++) {
+            for (int column = row % 3; column < 300; column += 3) {
+                base.put(row, column, row * column);
+            }
+        }
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(base, GridLayoutStrategy.dense());
+        assertEquals(true, test.equals(base));
+        assertEquals(true, base.equals(test));
+        assertEquals(base.hashCode(), test.hashCode());
+        
+        base.put(499, 299, -1);
+        assertEquals(false, test.equals(base));
+        assertEquals(false, base.equals(test));
+        assertEquals(false, test.equals(DenseGrid.create(300, 500)));
+    }
+
+    @Test
+    public void test_cells_spliterator() {
+        DenseGrid<String> grid = DenseGrid.create(2, 4);
+        for (int column = 0; column < 4; column++) {
+            grid.put(0, column, "A" + column);
+            grid.put(1, column, "B" + column);
+        }
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        Spliterator<Cell<String>> split = test.cells().spliterator();
+        assertTrue(split.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE));
+        assertEquals(8, split.getExactSizeIfKnown());
+        // a single block is not split
+        assertNull(split.trySplit());
+        List<Cell<String>> cells = new ArrayList<>();
+        split.tryAdvance(cells::add);
+        assertEquals(7, split.getExactSizeIfKnown());
+        split.forEachRemaining(cells::add);
+        assertEquals(8, cells.size());
+        assertEquals(ImmutableCell.of(1, 3, "B3"), cells.get(7));
+    }
+
+    @Test
+    public void test_cells_spliterator_blocks() {
+        // four blocks, holding 0, 1, 2 and 3 cells
+        int block = DenseCellSpliterator.BLOCK;
+        DenseGrid<String> grid = DenseGrid.create(4, block);
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < row; column++) {
+                grid.put(row, column, "C" + row + column);
+            }
+        }
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        Spliterator<Cell<String>> split = test.cells().spliterator();
+        List<Cell<String>> first = new ArrayList<>();
+        assertTrue(split.tryAdvance(first::add));
+        assertEquals(ImmutableCell.of(1, 0, "C10"), first.get(0));
+        assertEquals(5, split.getExactSizeIfKnown());
+        Spliterator<Cell<String>> prefix = split.trySplit();
+        assertTrue(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertTrue(split.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(0, prefix.getExactSizeIfKnown());
+        assertEquals(5, split.getExactSizeIfKnown());
+        Spliterator<Cell<String>> prefix2 = split.trySplit();
+        assertEquals(2, prefix2.getExactSizeIfKnown());
+        assertEquals(3, split.getExactSizeIfKnown());
+        assertNull(split.trySplit());
+        List<Cell<String>> cells = new ArrayList<>();
+        prefix2.forEachRemaining(cells::add);
+        assertEquals(ImmutableList.of(ImmutableCell.of(2, 0, "C20"), ImmutableCell.of(2, 1, "C21")), cells);
+        assertEquals(6, test.cells().parallelStream().count());
+        assertEquals(
+                test.cells().stream().collect(Collectors.toList()),
+                test.cells().parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_cells_parallelStream() {
+        DenseGrid<Integer> grid = DenseGrid.create(500, 100);
+        for (int row = 0; row < 500; row += 2) {
+            for (int column = 0; column < 100; column++) {
+                grid.put(row, column, column);
+            }
+        }
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        assertEquals(250 * 4950, test.cells().parallelStream().mapToInt(Cell::getValue).sum());
+        assertEquals(25000, test.cells().parallelStream().count());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_row_rowStream_columnStream() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        grid.put(0, 1, "A");
+        grid.put(1, 1, "B");
+        grid.put(1, 2, "C");
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        assertEquals(Arrays.asList("B", "C"), test.row(1).subList(1, 3));
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(0, 1, "A")),
+                        Arrays.asList(ImmutableCell.of(1, 1, "B"), ImmutableCell.of(1, 2, "C"))),
+                test.rowStream().parallel().collect(Collectors.toList()));
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(0, 1, "A"), ImmutableCell.of(1, 1, "B")),
+                        Arrays.asList(ImmutableCell.of(1, 2, "C"))),
+                test.columnStream().collect(Collectors.toList()));
+    }
 }
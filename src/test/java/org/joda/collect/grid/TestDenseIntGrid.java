@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test DenseIntGrid and DenseImmutableIntGrid.
+ */
+public class TestDenseIntGrid extends AbstractTestPrimitiveGrid<Integer> {
+
+    @Override
+    protected Grid<Integer> create(int rowCount, int columnCount) {
+        return DenseIntGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Integer> create(Grid<Integer> grid) {
+        return DenseIntGrid.create(grid);
+    }
+
+    @Override
+    protected Integer value(int n) {
+        return n;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Integer> grid, int row, int column, Integer value) {
+        ((DenseIntGrid) grid).putInt(row, column, value);
+    }
+
+    @Override
+    protected Integer getPrimitive(Grid<Integer> grid, int row, int column) {
+        return ((DenseIntGrid) grid).getInt(row, column);
+    }
+
+    @Override
+    protected Integer getPrimitive(Grid<Integer> grid, int row, int column, Integer defaultValue) {
+        return ((DenseIntGrid) grid).getInt(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_create_array() {
+        int[][] array = {{1, 2}, {3}};
+        DenseIntGrid test = DenseIntGrid.create(array);
+        assertEquals(2, test.rowCount());
+        assertEquals(2, test.columnCount());
+        assertEquals(3, test.size());
+        assertEquals(3, test.getInt(1, 0));
+        assertFalse(test.contains(1, 1));
+        assertEquals("[2x2:(0,0)=1, (0,1)=2, (1,0)=3]", test.toString());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        DenseIntGrid dense = DenseIntGrid.create(2, 3);
+        dense.putInt(0, 1, 1);
+        dense.putInt(1, 2, 2);
+        ImmutableIntGrid test = ImmutableIntGrid.copyOf(dense);
+        assertSame(test, ImmutableIntGrid.copyOf(test));
+        dense.putInt(0, 0, 3);
+        assertEquals(2, test.size());
+        assertEquals(1, test.getInt(0, 1));
+        assertEquals(2, test.getInt(1, 2, 0));
+        assertEquals(3, test.getInt(0, 0, 3));
+        assertEquals(Integer.valueOf(2), test.get(1, 2));
+        assertNull(test.get(0, 0));
+        assertTrue(test.containsValue(2));
+        assertEquals(ImmutableList.of(1, 2), test.values());
+        assertEquals("[2x3:(0,1)=1, (1,2)=2]", test.toString());
+        dense.remove(0, 0);
+        assertEquals(dense, test);
+        assertEquals(test, dense);
+        assertEquals(dense.hashCode(), test.hashCode());
+        assertEquals(DenseIntGrid.create(test), dense);
+        assertEquals(ImmutableIntGrid.copyOf(DenseIntGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        DenseIntGrid dense = DenseIntGrid.create(3, 3);
+        dense.putInt(2, 0, 3);
+        dense.putInt(0, 1, 1);
+        dense.putInt(1, 2, 2);
+        StringBuilder buf = new StringBuilder();
+        ImmutableIntGrid.copyOf(dense).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable_putInt() {
+        ImmutableIntGrid.copyOf(DenseIntGrid.create(2, 3)).putInt(0, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_immutable_null() {
+        ImmutableIntGrid.copyOf((IntGrid) null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_footprint() {
+        GridFootprint footprint = GridFootprint.of(DenseIntGrid.create(100, 100));
+        assertEquals(GridFootprint.array(4, 10_000), footprint.getComponents().get("values array").longValue());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("occupancy bitmap").longValue());
+    }
+
+}
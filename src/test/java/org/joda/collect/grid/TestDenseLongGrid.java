@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test DenseLongGrid and DenseImmutableLongGrid.
+ */
+public class TestDenseLongGrid extends AbstractTestPrimitiveGrid<Long> {
+
+    @Override
+    protected Grid<Long> create(int rowCount, int columnCount) {
+        return DenseLongGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Long> create(Grid<Long> grid) {
+        return DenseLongGrid.create(grid);
+    }
+
+    @Override
+    protected Long value(int n) {
+        return (long) n;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Long> grid, int row, int column, Long value) {
+        ((DenseLongGrid) grid).putLong(row, column, value);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column) {
+        return ((DenseLongGrid) grid).getLong(row, column);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column, Long defaultValue) {
+        return ((DenseLongGrid) grid).getLong(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_create_array() {
+        long[][] array = {{1L, 2L}, {3L}};
+        DenseLongGrid test = DenseLongGrid.create(array);
+        assertEquals(2, test.rowCount());
+        assertEquals(2, test.columnCount());
+        assertEquals(3, test.size());
+        assertEquals(3L, test.getLong(1, 0));
+        assertFalse(test.contains(1, 1));
+        assertEquals("[2x2:(0,0)=1, (0,1)=2, (1,0)=3]", test.toString());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        DenseLongGrid dense = DenseLongGrid.create(2, 3);
+        dense.putLong(0, 1, 1L);
+        dense.putLong(1, 2, 2L);
+        ImmutableLongGrid test = ImmutableLongGrid.copyOf(dense);
+        assertSame(test, ImmutableLongGrid.copyOf(test));
+        dense.putLong(0, 0, 3L);
+        assertEquals(2, test.size());
+        assertEquals(1L, test.getLong(0, 1));
+        assertEquals(2L, test.getLong(1, 2, 0));
+        assertEquals(3L, test.getLong(0, 0, 3L));
+        assertEquals(Long.valueOf(2L), test.get(1, 2));
+        assertNull(test.get(0, 0));
+        assertTrue(test.containsValue(2L));
+        assertEquals(ImmutableList.of(1L, 2L), test.values());
+        assertEquals("[2x3:(0,1)=1, (1,2)=2]", test.toString());
+        dense.remove(0, 0);
+        assertEquals(dense, test);
+        assertEquals(test, dense);
+        assertEquals(dense.hashCode(), test.hashCode());
+        assertEquals(DenseLongGrid.create(test), dense);
+        assertEquals(ImmutableLongGrid.copyOf(DenseLongGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        DenseLongGrid dense = DenseLongGrid.create(3, 3);
+        dense.putLong(2, 0, 3L);
+        dense.putLong(0, 1, 1L);
+        dense.putLong(1, 2, 2L);
+        StringBuilder buf = new StringBuilder();
+        ImmutableLongGrid.copyOf(dense).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable_putLong() {
+        ImmutableLongGrid.copyOf(DenseLongGrid.create(2, 3)).putLong(0, 0, 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_immutable_null() {
+        ImmutableLongGrid.copyOf((LongGrid) null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_footprint() {
+        GridFootprint footprint = GridFootprint.of(DenseLongGrid.create(100, 100));
+        assertEquals(GridFootprint.array(8, 10_000), footprint.getComponents().get("values array").longValue());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("occupancy bitmap").longValue());
+    }
+
+}
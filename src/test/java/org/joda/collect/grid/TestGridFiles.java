@@ -0,0 +1,335 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test GridFiles.
+ */
+public class TestGridFiles {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_double_roundTrip() throws IOException {
+        DenseDoubleGrid grid = DenseDoubleGrid.create(3, 4);
+        grid.putDouble(0, 1, 1.5d);
+        grid.putDouble(2, 3, -2.5d);
+        grid.putDouble(1, 0, 0d);
+        Path file = folder.newFile().toPath();
+        GridFiles.write(grid, file);
+        assertEquals(GridFiles.HEADER_BYTES + 8 + 12 * 8, Files.size(file));
+
+        ImmutableDoubleGrid test = GridFiles.mapDoubleGrid(file);
+        assertEquals(3, test.rowCount());
+        assertEquals(4, test.columnCount());
+        assertEquals(3, test.size());
+        assertEquals(grid, test);
+        assertEquals(test, grid);
+        assertEquals(grid.hashCode(), test.hashCode());
+        assertEquals(1.5d, test.getDouble(0, 1), 0d);
+        assertEquals(0d, test.getDouble(0, 0), 0d);
+        assertEquals(9d, test.getDouble(0, 0, 9d), 0d);
+        assertEquals(Double.valueOf(0d), test.get(1, 0));
+        assertNull(test.get(0, 0));
+        assertNull(test.get(3, 0));
+        assertTrue(test.containsValue(-2.5d));
+        assertFalse(test.containsValue(2.5d));
+        assertEquals(ImmutableList.of(1.5d, 0d, -2.5d), test.values());
+        assertEquals(ImmutableCell.of(2, 3, -2.5d), test.cell(2, 3));
+    }
+
+    @Test
+    public void test_int_roundTrip() throws IOException {
+        SparseIntGrid grid = SparseIntGrid.create(1000, 1000);
+        grid.putInt(0, 999, 6);
+        grid.putInt(999, 0, -7);
+        Path file = folder.newFile().toPath();
+        GridFiles.write(grid, file);
+        assertEquals(GridFiles.HEADER_BYTES + 8 * 15625 + 1_000_000 * 4, Files.size(file));
+
+        ImmutableIntGrid test = GridFiles.mapIntGrid(file);
+        assertEquals(grid, test);
+        assertEquals(-7, test.getInt(999, 0));
+        assertEquals(ImmutableList.of(6, -7), test.values());
+    }
+
+    @Test
+    public void test_long_roundTrip() throws IOException {
+        DenseLongGrid grid = DenseLongGrid.create(2, 2);
+        grid.putLong(1, 1, Long.MIN_VALUE);
+        Path file = folder.newFile().toPath();
+        GridFiles.write(grid, file);
+
+        ImmutableLongGrid test = GridFiles.mapLongGrid(file);
+        assertEquals(grid, test);
+        assertEquals(Long.MIN_VALUE, test.getLong(1, 1));
+    }
+
+    @Test
+    public void test_empty_roundTrip() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseLongGrid.create(0, 0), file);
+        ImmutableLongGrid test = GridFiles.mapLongGrid(file);
+        assertEquals(0, test.rowCount());
+        assertEquals(0, test.size());
+    }
+
+    @Test
+    public void test_map_acrossChunks() throws IOException {
+        DenseDoubleGrid grid = DenseDoubleGrid.create(3, 3);
+        for (int i = 0; i < 9; i += 2) {
+            grid.putDouble(i / 3, i % 3, i);
+        }
+        Path file = folder.newFile().toPath();
+        GridFiles.write(grid, file);
+        ImmutableDoubleGrid test = GridFiles.map(file, GridFiles.ValueType.DOUBLE, 2, MappedImmutableDoubleGrid::new);
+        assertEquals(grid, test);
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) -> buf.append(row).append(column).append('=').append(value).append(' '));
+        assertEquals("00=0.0 02=2.0 11=4.0 20=6.0 22=8.0 ", buf.toString());
+    }
+
+    @Test
+    public void test_mapped_isImmutable() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        ImmutableIntGrid test = GridFiles.mapIntGrid(file);
+        assertEquals(test, ImmutableIntGrid.copyOf(test));
+        try {
+            test.put(0, 0, 1);
+            throw new AssertionError();
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    private static final Function<String, byte[]> ENCODER = str -> str.getBytes(StandardCharsets.UTF_8);
+    private static final Function<ByteBuffer, String> DECODER = buf -> StandardCharsets.UTF_8.decode(buf).toString();
+
+    @Test
+    public void test_sparse_roundTrip() throws IOException {
+        SparseGrid<String> grid = SparseGrid.create(1_000_000, 1_000_000);
+        grid.put(0, 999_999, "Hello");
+        grid.put(5, 6, "");
+        grid.put(999_999, 0, "World");
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(grid, file, ENCODER);
+        assertEquals(GridFiles.HEADER_BYTES + 3 * 8 + 10 + 4 * 8, Files.size(file));
+
+        ImmutableGrid<String> test = GridFiles.mapSparseGrid(file, DECODER);
+        assertEquals(1_000_000, test.rowCount());
+        assertEquals(1_000_000, test.columnCount());
+        assertEquals(3, test.size());
+        assertEquals(grid, test);
+        assertEquals(test, grid);
+        assertEquals(grid.hashCode(), test.hashCode());
+        assertEquals("Hello", test.get(0, 999_999));
+        assertEquals("", test.get(5, 6));
+        assertNull(test.get(5, 5));
+        assertNull(test.get(-1, 5));
+        assertTrue(test.contains(999_999, 0));
+        assertFalse(test.contains(999_999, 1));
+        assertTrue(test.containsValue("World"));
+        assertFalse(test.containsValue("Space"));
+        assertEquals(ImmutableList.of("Hello", "", "World"), test.values());
+        assertEquals(ImmutableCell.of(5, 6, ""), test.cell(5, 6));
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) ->
+                buf.append(row).append(',').append(column).append('=').append(value).append(' '));
+        assertEquals("0,999999=Hello 5,6= 999999,0=World ", buf.toString());
+    }
+
+    @Test
+    public void test_sparse_unsortedCells() throws IOException {
+        ImmutableGrid<String> grid = ImmutableGrid.copyOf(3, 3, ImmutableList.of(
+                ImmutableCell.of(2, 2, "C"), ImmutableCell.of(0, 1, "A"), ImmutableCell.of(1, 0, "B")));
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(grid, file, ENCODER);
+        ImmutableGrid<String> test = GridFiles.mapSparseGrid(file, DECODER);
+        assertEquals(ImmutableList.of("A", "B", "C"), test.values());
+        assertEquals("B", test.get(1, 0));
+    }
+
+    @Test
+    public void test_sparse_sizeEstimate() throws IOException {
+        SparseGrid<String> grid = SparseGrid.create(30, 30);
+        for (int i = 0; i < 30; i++) {
+            grid.put(i, 29 - i, "V" + i);
+        }
+        Path under = folder.newFile().toPath();
+        GridFiles.writeSparse(new MiscountedGrid<>(grid, -25), under, ENCODER);
+        assertEquals(grid, GridFiles.mapSparseGrid(under, DECODER));
+        Path over = folder.newFile().toPath();
+        GridFiles.writeSparse(new MiscountedGrid<>(grid, 25), over, ENCODER);
+        assertEquals(grid, GridFiles.mapSparseGrid(over, DECODER));
+    }
+
+    @Test
+    public void test_sparse_acrossChunks() throws IOException {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        for (int i = 0; i < 100; i += 3) {
+            grid.put(i, 99 - i, "Value " + i);
+        }
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(grid, file, ENCODER);
+        ImmutableGrid<String> test = GridFiles.mapSparse(file, DECODER, 3);
+        assertEquals(grid, test);
+        for (int i = 0; i < 100; i += 3) {
+            assertEquals("Value " + i, test.get(i, 99 - i));
+            assertNull(test.get(i, 98 - i));
+        }
+    }
+
+    @Test
+    public void test_sparse_largeValue() throws IOException {
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        SparseGrid<String> grid = SparseGrid.create(2, 2);
+        grid.put(0, 0, "Small");
+        grid.put(1, 1, large);
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(grid, file, ENCODER);
+        ImmutableGrid<String> test = GridFiles.mapSparseGrid(file, DECODER);
+        assertEquals(grid, test);
+    }
+
+    @Test
+    public void test_sparse_empty() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(SparseGrid.create(4, 5), file, ENCODER);
+        ImmutableGrid<String> test = GridFiles.mapSparseGrid(file, DECODER);
+        assertEquals(4, test.rowCount());
+        assertEquals(5, test.columnCount());
+        assertEquals(0, test.size());
+        assertNull(test.get(0, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void test_sparse_corruptOffsets() throws IOException {
+        SparseGrid<String> grid = SparseGrid.create(2, 2);
+        grid.put(0, 0, "Hello");
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(grid, file, ENCODER);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 8] = 6;
+        Files.write(file, bytes);
+        GridFiles.mapSparseGrid(file, DECODER);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_sparse_wrongType() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        GridFiles.mapSparseGrid(file, DECODER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_writeSparse_nullEncoder() throws IOException {
+        GridFiles.writeSparse(SparseGrid.create(2, 2), folder.newFile().toPath(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_mapSparse_nullDecoder() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.writeSparse(SparseGrid.<String>create(2, 2), file, ENCODER);
+        GridFiles.mapSparseGrid(file, null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IOException.class)
+    public void test_map_wrongType() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        GridFiles.mapLongGrid(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_map_wrongMagic() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] = 0;
+        Files.write(file, bytes);
+        GridFiles.mapIntGrid(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_map_wrongVersion() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 2);
+        Files.write(file, bytes);
+        GridFiles.mapIntGrid(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_map_truncated() throws IOException {
+        Path file = folder.newFile().toPath();
+        GridFiles.write(DenseIntGrid.create(2, 2), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        GridFiles.mapIntGrid(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_map_tooShortForHeader() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[10]);
+        GridFiles.mapIntGrid(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_write_nullGrid() throws IOException {
+        GridFiles.write((DoubleGrid) null, folder.newFile().toPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_write_nullFile() throws IOException {
+        GridFiles.write(DenseDoubleGrid.create(1, 1), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_map_nullFile() throws IOException {
+        GridFiles.mapDoubleGrid(null);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Test GridFootprint.
+ */
+public class TestGridFootprint {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_of_null() {
+        GridFootprint.of(null);
+    }
+
+    @Test
+    public void test_of_denseGrid() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        grid.put(0, 0, "Hello");
+        GridFootprint test = GridFootprint.of(grid);
+        assertEquals(1, test.getCellCount());
+        assertEquals(ImmutableMap.of("grid", 32L, "values array", 40L), test.getComponents());
+        assertEquals(72, test.getTotalBytes());
+        assertEquals(72d, test.getBytesPerCell(), 0d);
+    }
+
+    @Test
+    public void test_of_denseImmutableGrid() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        grid.put(0, 0, "Hello");
+        grid.put(1, 1, "World");
+        GridFootprint test = GridFootprint.of(DenseImmutableGrid.create(grid));
+        assertEquals(2, test.getCellCount());
+        assertEquals(40L, test.getComponents().get("values array").longValue());
+        assertEquals(36d, test.getBytesPerCell(), 0d);
+    }
+
+    @Test
+    public void test_of_sparseGrid() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        GridFootprint empty = GridFootprint.of(grid);
+        grid.put(0, 0, "Hello");
+        grid.put(50, 50, "World");
+        GridFootprint test = GridFootprint.of(grid);
+        assertEquals(2, test.getCellCount());
+        assertEquals(2 * (40L + 24L), test.getTotalBytes() - empty.getTotalBytes());
+        assertEquals(48L, test.getComponents().get("cells").longValue());
+    }
+
+    @Test
+    public void test_of_sparseImmutableGrid() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(0, 0, "Hello");
+        grid.put(50, 50, "World");
+        ImmutableGrid<String> immutable = ImmutableGrid.copyOf(grid);
+        GridFootprint test = GridFootprint.of(immutable);
+        assertEquals(ImmutableMap.of("grid", 40L, "keys array", 32L, "cells array", 24L, "cells", 48L),
+                test.getComponents());
+        immutable.cells();
+        immutable.values();
+        GridFootprint cached = GridFootprint.of(immutable);
+        assertTrue(cached.getComponents().containsKey("cell set cache"));
+        assertTrue(cached.getComponents().containsKey("values cache"));
+        assertTrue(cached.getTotalBytes() > test.getTotalBytes());
+    }
+
+    @Test
+    public void test_of_singletonAndEmpty() {
+        GridFootprint singleton = GridFootprint.of(ImmutableGrid.of(2, 2, 0, 0, "Hello"));
+        assertEquals(ImmutableMap.of("grid", 24L, "cells", 24L), singleton.getComponents());
+        GridFootprint empty = GridFootprint.of(ImmutableGrid.of(2, 2));
+        assertEquals(ImmutableMap.of("grid", 24L), empty.getComponents());
+        assertEquals(24d, empty.getBytesPerCell(), 0d);
+    }
+
+    @Test
+    public void test_of_instrumented() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        GridFootprint test = GridFootprint.of(Grids.instrumented(grid));
+        assertTrue(test.getComponents().containsKey("instrumentation"));
+        assertEquals(GridFootprint.of(grid).getTotalBytes(),
+                test.getTotalBytes() - test.getComponents().get("instrumentation"));
+    }
+
+    @Test
+    public void test_of_otherGrid() {
+        GridFootprint test = GridFootprint.of(new MockSingletonGrid(2, 2, 0, 0, "Hello"));
+        assertEquals(ImmutableMap.of("grid", 16L, "cells", 24L), test.getComponents());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_equalsHashCodeToString() {
+        GridFootprint a = GridFootprint.of(DenseGrid.<String>create(2, 3));
+        GridFootprint b = GridFootprint.of(DenseGrid.<String>create(2, 3));
+        GridFootprint c = GridFootprint.of(DenseGrid.<String>create(3, 3));
+        assertEquals(a, a);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(c));
+        assertFalse(a.equals(null));
+        assertFalse(a.equals(""));
+        assertEquals("GridFootprint[72 bytes, 0 cells, {grid=32, values array=40}]", a.toString());
+    }
+
+}
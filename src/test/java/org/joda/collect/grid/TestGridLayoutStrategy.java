@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test GridLayoutStrategy.
+ */
+public class TestGridLayoutStrategy {
+
+    @Test
+    public void test_dense() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(0, 0, "Hello");
+        grid.put(99, 99, "World");
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        assertTrue(test instanceof DenseImmutableGrid);
+        assertEquals(grid, test);
+    }
+
+    @Test
+    public void test_sparse() {
+        DenseGrid<String> grid = DenseGrid.create(2, 2);
+        grid.put(0, 0, "Hello");
+        grid.put(0, 1, "World");
+        grid.put(1, 1, "!");
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals(grid, test);
+    }
+
+    @Test
+    public void test_copyOf_strategyRelayoutsImmutable() {
+        DenseGrid<String> grid = DenseGrid.create(2, 2);
+        grid.put(0, 0, "Hello");
+        grid.put(0, 1, "World");
+        ImmutableGrid<String> dense = ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense());
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(dense, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals(dense, test);
+    }
+
+    @Test
+    public void test_copyOf_strategyEmptyAndSingleton() {
+        SparseGrid<String> grid = SparseGrid.create(2, 2);
+        assertTrue(ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense()) instanceof EmptyGrid);
+        grid.put(0, 0, "Hello");
+        assertTrue(ImmutableGrid.copyOf(grid, GridLayoutStrategy.dense()) instanceof SingletonGrid);
+    }
+
+    @Test
+    public void test_copyOf_customStrategy() {
+        GridLayoutStrategy custom = new GridLayoutStrategy() {
+            @Override
+            public <R> ImmutableGrid<R> copyOf(Grid<R> grid) {
+                if (grid.rowCount() == 1) {
+                    return GridLayoutStrategy.dense().copyOf(grid);
+                }
+                return GridLayoutStrategy.sparse().copyOf(grid);
+            }
+        };
+        SparseGrid<String> grid = SparseGrid.create(1, 1000);
+        grid.put(0, 0, "Hello");
+        grid.put(0, 1, "World");
+        assertTrue(ImmutableGrid.copyOf(grid, custom) instanceof DenseImmutableGrid);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_copyOf_strategyReturnsNull() {
+        GridLayoutStrategy bad = new GridLayoutStrategy() {
+            @Override
+            public <R> ImmutableGrid<R> copyOf(Grid<R> grid) {
+                return null;
+            }
+        };
+        DenseGrid<String> grid = DenseGrid.create(2, 2);
+        grid.put(0, 0, "Hello");
+        grid.put(0, 1, "World");
+        ImmutableGrid.copyOf(grid, bad);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_copyOf_nullGrid() {
+        ImmutableGrid.copyOf(null, GridLayoutStrategy.dense());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_copyOf_nullStrategy() {
+        ImmutableGrid.copyOf(DenseGrid.create(2, 2), null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_costModel_default() {
+        assertSame(GridLayoutStrategy.costModel(), GridLayoutStrategy.costModel());
+        assertEquals(GridLayoutStrategy.costModel(), GridLayoutStrategy.costModel(1d));
+        assertEquals(GridLayoutStrategy.costModel().hashCode(), GridLayoutStrategy.costModel(1d).hashCode());
+        assertEquals("CostModel[lookupWeight=1.0]", GridLayoutStrategy.costModel().toString());
+    }
+
+    @Test
+    public void test_costModel_isDense() {
+        CostModelLayoutStrategy test = CostModelLayoutStrategy.DEFAULT;
+        assertEquals(true, test.isDense(2, 3, 2));
+        assertEquals(true, test.isDense(1000, 1000, 100_000));
+        assertEquals(true, test.isDense(1000, 1000, 50_000));
+        assertEquals(false, test.isDense(1000, 1000, 20_000));
+        assertEquals(false, test.isDense(1000, 1000, 2));
+        assertEquals(false, test.isDense(100_000, 100_000, 2_000_000));
+    }
+
+    @Test
+    public void test_costModel_lookupWeight() {
+        CostModelLayoutStrategy memoryOnly = new CostModelLayoutStrategy(0d);
+        CostModelLayoutStrategy speedOnly = new CostModelLayoutStrategy(1000d);
+        assertEquals(false, memoryOnly.isDense(1000, 1000, 100_000));
+        assertEquals(true, memoryOnly.isDense(1000, 1000, 120_000));
+        assertEquals(true, speedOnly.isDense(1000, 1000, 1000));
+    }
+
+    @Test
+    public void test_costModel_copyOf() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(0, 0, "Hello");
+        grid.put(99, 99, "World");
+        assertTrue(ImmutableGrid.copyOf(grid) instanceof SparseImmutableGrid);
+        DenseGrid<String> dense = DenseGrid.create(2, 3);
+        dense.put(0, 0, "Hello");
+        dense.put(0, 1, "World");
+        assertTrue(ImmutableGrid.copyOf(dense) instanceof DenseImmutableGrid);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_costModel_negative() {
+        GridLayoutStrategy.costModel(-1d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_costModel_nan() {
+        GridLayoutStrategy.costModel(Double.NaN);
+    }
+
+}
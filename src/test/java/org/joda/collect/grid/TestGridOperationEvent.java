@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test GridOperationEvent.
+ */
+public class TestGridOperationEvent {
+
+    @Test
+    public void test_events() throws IOException {
+        DenseGrid<String> dense = DenseGrid.create(2, 3);
+        dense.put(0, 0, "Hello");
+        dense.put(1, 1, "World");
+        SparseGrid<String> sparse = SparseGrid.create(4, 5);
+        sparse.put(0, 0, "Hello");
+        sparse.put(3, 4, "World");
+        
+        List<RecordedEvent> events = record(() -> {
+            DenseGrid<String> copy = DenseGrid.create(3, 4);
+            copy.putAll(dense);
+            ImmutableGrid<String> imm = ImmutableGrid.copyOf(sparse, GridLayoutStrategy.sparse());
+            imm.cells();
+            imm.cells();
+            dense.hashCode();
+            sparse.equals(imm);
+        });
+        assertEquals(5, events.size());
+        assertEvent(events.get(0), "putAll", DenseGrid.class, 2, 3, 2);
+        assertEvent(events.get(1), "copyOf", SparseGrid.class, 4, 5, 2);
+        assertEvent(events.get(2), "cells", SparseImmutableGrid.class, 4, 5, 2);
+        assertEvent(events.get(3), "hashCode", DenseGrid.class, 2, 3, 2);
+        assertEvent(events.get(4), "equals", SparseGrid.class, 4, 5, 2);
+    }
+
+    @Test
+    public void test_start_jfrPresent() {
+        assertTrue(GridOperationEvent.JFR_PRESENT);
+        assertTrue(GridOperationEvent.start() instanceof JfrGridOperationEvent);
+    }
+
+    @Test
+    public void test_none() throws IOException {
+        List<RecordedEvent> events = record(() -> {
+            GridOperationEvent event = GridOperationEvent.NONE;
+            event.end("putAll", new MockSingletonGrid(2, 3, 0, 1, "Hello") {
+                @Override
+                public int size() {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        });
+        assertEquals(0, events.size());
+    }
+
+    //-----------------------------------------------------------------------
+    private static List<RecordedEvent> record(Runnable runnable) throws IOException {
+        Path file = Files.createTempFile("grid", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(GridOperationEvent.NAME).withThreshold(Duration.ZERO);
+                recording.start();
+                runnable.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(GridOperationEvent.NAME)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertEvent(
+            RecordedEvent event, String operation, Class<?> gridClass, int rowCount, int columnCount, int cellCount) {
+        assertEquals(operation, event.getString("operation"));
+        assertEquals(gridClass.getName(), event.getClass("gridClass").getName());
+        assertEquals(rowCount, event.getInt("rowCount"));
+        assertEquals(columnCount, event.getInt("columnCount"));
+        assertEquals(cellCount, event.getInt("cellCount"));
+    }
+
+}
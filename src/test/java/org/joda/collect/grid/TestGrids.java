@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test Grids.
+ */
+public class TestGrids {
+
+    @Test
+    public void test_map_dense() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        grid.put(0, 1, "A");
+        grid.put(1, 0, "BB");
+        grid.put(1, 2, "");
+        ImmutableGrid<Integer> test = Grids.map(grid, value -> value.isEmpty() ? null : value.length());
+        assertTrue(test instanceof DenseImmutableGrid);
+        DenseGrid<Integer> expected = DenseGrid.create(2, 3);
+        expected.put(0, 1, 1);
+        expected.put(1, 0, 2);
+        assertEquals(expected, test);
+        assertEquals(2, test.size());
+        assertTrue(Grids.map(test, value -> value * 2) instanceof DenseImmutableGrid);
+    }
+
+    @Test
+    public void test_map_denseParallel() {
+        DenseGrid<Integer> grid = DenseGrid.create(500, 300);
+        DenseGrid<Integer> expected = DenseGrid.create(500, 300);
+        for (int row = 0; row < 500; row++) {
+            for (int column = row % 2; column < 300; column += 2) {
+                grid.put(row, column, row + column);
+                if ((row + column) % 3 != 0) {
+                    expected.put(row, column, -(row + column));
+                }
+            }
+        }
+        ImmutableGrid<Integer> test = Grids.map(grid, value -> value % 3 == 0 ? null : -value);
+        assertEquals(expected.size(), test.size());
+        assertEquals(expected, test);
+    }
+
+    @Test
+    public void test_map_sparse() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(1, 5, "A");
+        grid.put(50, 0, "BB");
+        grid.put(99, 99, "CCC");
+        ImmutableGrid<String> source = ImmutableGrid.copyOf(grid, GridLayoutStrategy.sparse());
+        ImmutableGrid<Integer> test = Grids.map(source, String::length);
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals("[100x100:(1,5)=1, (50,0)=2, (99,99)=3]", test.toString());
+        ImmutableGrid<Integer> filtered = Grids.map(source, value -> value.length() == 2 ? null : value.length());
+        assertEquals("[100x100:(1,5)=1, (99,99)=3]", filtered.toString());
+        assertEquals(null, filtered.get(50, 0));
+        assertEquals(Integer.valueOf(3), filtered.get(99, 99));
+    }
+
+    @Test
+    public void test_map_other() {
+        SparseGrid<String> grid = SparseGrid.create(2, 2);
+        grid.put(0, 1, "A");
+        grid.put(1, 1, "B");
+        ImmutableGrid<String> test = Grids.map(grid, value -> value.equals("A") ? null : value + value);
+        assertEquals(ImmutableGrid.of(2, 2, 1, 1, "BB"), test);
+        assertEquals(ImmutableGrid.of(2, 2), Grids.map(ImmutableGrid.<String>of(2, 2), value -> value));
+    }
+
+    @Test
+    public void test_map_denseEmptyAndSingleton() {
+        DenseGrid<String> grid = DenseGrid.create(2, 3);
+        grid.put(0, 1, "A");
+        grid.put(1, 2, "BB");
+        ImmutableGrid<Integer> empty = Grids.map(grid, value -> null);
+        assertTrue(empty instanceof EmptyGrid);
+        assertEquals("[2x3:]", empty.toString());
+        ImmutableGrid<Integer> single = Grids.map(grid, value -> value.length() == 2 ? 2 : null);
+        assertTrue(single instanceof SingletonGrid);
+        assertEquals("[2x3:(1,2)=2]", single.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_map_nullGrid() {
+        Grids.map(null, value -> value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_map_nullFunction() {
+        Grids.map(DenseGrid.create(2, 2), null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_mapToDouble_dense() {
+        DenseGrid<String> grid = DenseGrid.create(300, 400);
+        for (int row = 0; row < 300; row += 3) {
+            grid.put(row, row, "A" + row);
+        }
+        ImmutableDoubleGrid test = Grids.mapToDouble(grid, value -> value.length() / 2d);
+        assertTrue(test instanceof DenseImmutableDoubleGrid);
+        assertEquals(100, test.size());
+        assertEquals(1d, test.getDouble(0, 0), 0d);
+        assertEquals(2d, test.getDouble(297, 297), 0d);
+        assertEquals(false, test.contains(1, 1));
+        assertEquals(100, Grids.mapToDouble(ImmutableGrid.copyOf(grid), String::length).size());
+    }
+
+    @Test
+    public void test_mapToDouble_sparse() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(1, 5, "A");
+        grid.put(50, 0, "BB");
+        ImmutableGrid<String> source = ImmutableGrid.copyOf(grid, GridLayoutStrategy.sparse());
+        ImmutableDoubleGrid test = Grids.mapToDouble(source, String::length);
+        assertTrue(test instanceof SparseImmutableDoubleGrid);
+        assertEquals("[100x100:(1,5)=1.0, (50,0)=2.0]", test.toString());
+        assertEquals(2d, test.getDouble(50, 0), 0d);
+    }
+
+    @Test
+    public void test_mapToDouble_other() {
+        SparseGrid<String> grid = SparseGrid.create(3, 3);
+        grid.put(2, 1, "CCC");
+        grid.put(0, 2, "A");
+        ImmutableDoubleGrid test = Grids.mapToDouble(grid, String::length);
+        assertEquals("[3x3:(0,2)=1.0, (2,1)=3.0]", test.toString());
+        assertEquals(3d, test.getDouble(2, 1), 0d);
+    }
+
+    @Test
+    public void test_mapToDouble_sizeEstimate() {
+        SparseGrid<String> grid = SparseGrid.create(30, 30);
+        for (int i = 0; i < 30; i++) {
+            grid.put(i, 29 - i, "A" + i);
+        }
+        ImmutableDoubleGrid under = Grids.mapToDouble(new MiscountedGrid<>(grid, -25), String::length);
+        assertEquals(30, under.size());
+        assertEquals(3d, under.getDouble(29, 0), 0d);
+        ImmutableDoubleGrid over = Grids.mapToDouble(new MiscountedGrid<>(grid, 25), String::length);
+        assertEquals(30, over.size());
+        assertEquals(under, over);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_mapToDouble_nullFunction() {
+        Grids.mapToDouble(DenseGrid.create(2, 2), null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_parallelEqualsHashCode_sparse() {
+        SparseGrid<String> grid = SparseGrid.create(2, 3);
+        grid.put(1, 2, "A");
+        DenseGrid<String> dense = DenseGrid.create(grid);
+        assertTrue(Grids.parallelEquals(grid, dense));
+        assertTrue(Grids.parallelEquals(dense, grid));
+        assertEquals(grid.hashCode(), Grids.parallelHashCode(grid));
+        assertEquals(grid.hashCode(), Grids.parallelHashCode(dense));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parallelEquals_null() {
+        Grids.parallelEquals(null, DenseGrid.create(2, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parallelHashCode_null() {
+        Grids.parallelHashCode(null);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test InstrumentedGrid.
+ */
+public class TestInstrumentedGrid extends AbstractTestMutableGrid {
+
+    @Override
+    protected Grid<String> create3x3() {
+        return Grids.instrumented(SparseGrid.<String>create(3, 3));
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return Grids.instrumented(SparseGrid.<String>create(rowCount, columnCount));
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return Grids.instrumented(SparseGrid.create(grid));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_instrumented_null() {
+        Grids.instrumented(null);
+    }
+
+    @Test
+    public void test_stats() {
+        InstrumentedGrid<String> test = Grids.instrumented(DenseGrid.<String>create(2, 3));
+        test.put(0, 0, "Hello");
+        test.put(1, 2, "World");
+        test.get(0, 0);
+        test.get(0, 1);
+        test.get(-1, 0);
+        test.contains(2, 0);
+        test.remove(1, 2);
+        test.cells();
+        test.row(0);
+        test.rows();
+        test.column(1);
+        test.rowStream();
+        test.columnStream();
+        test.compute(0, 0, value -> value + "!");
+        test.computeIfAbsent(0, 1, () -> "New");
+        test.computeIfPresent(0, 2, value -> value + "!");
+        test.merge(0, 1, "Merged", (a, b) -> b);
+        try {
+            test.put(5, 5, "Bad");
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+        GridStats stats = test.stats();
+        assertEquals(1, stats.getGetHitCount());
+        assertEquals(1, stats.getGetMissCount());
+        assertEquals(3, stats.getPutCount());
+        assertEquals(1, stats.getRemoveCount());
+        assertEquals(4, stats.getComputeCount());
+        assertEquals(3, stats.getOutOfBoundsCount());
+        assertEquals(1, stats.getCellsViewCount());
+        assertEquals(3, stats.getRowViewCount());
+        assertEquals(2, stats.getColumnViewCount());
+        assertEquals(3, stats.getGetLatency().getCount());
+        assertEquals(3, stats.getPutLatency().getCount());
+        assertEquals(1, stats.getRemoveLatency().getCount());
+        assertEquals(4, stats.getComputeLatency().getCount());
+        assertEquals("Hello!", test.get(0, 0));
+        assertEquals("Merged", test.get(0, 1));
+        assertEquals(2, test.size());
+    }
+
+    @Test
+    public void test_merge_concurrent() throws InterruptedException {
+        InstrumentedGrid<Integer> test = Grids.instrumented(ConcurrentDenseGrid.<Integer>create(1, 1));
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    test.merge(0, 0, 1, Integer::sum);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Integer.valueOf(40_000), test.get(0, 0));
+        assertEquals(40_000, test.stats().getComputeCount());
+    }
+
+    @Test
+    public void test_stats_empty() {
+        InstrumentedGrid<String> test = Grids.instrumented(DenseGrid.<String>create(2, 3));
+        GridStats stats = test.stats();
+        assertEquals(0, stats.getGetHitCount());
+        assertEquals(0, stats.getGetLatency().getCount());
+        assertEquals(0d, stats.getGetLatency().getMeanNanos(), 0d);
+        assertEquals(0, stats.getGetLatency().getPercentileNanos(99));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_latency_buckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(1000);
+        GridStats.Latency test = histogram.snapshot();
+        assertEquals(5, test.getCount());
+        assertEquals(1006, test.getTotalNanos());
+        long[] buckets = test.getBucketCounts();
+        assertEquals(2, buckets[0]);
+        assertEquals(2, buckets[1]);
+        assertEquals(1, buckets[9]);
+        assertEquals(2, test.getPercentileNanos(40));
+        assertEquals(4, test.getPercentileNanos(80));
+        assertEquals(1024, test.getPercentileNanos(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_latency_badPercentile() {
+        new LatencyHistogram().snapshot().getPercentileNanos(101);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Test OffHeapDoubleGrid.
+ */
+public class TestOffHeapDoubleGrid extends AbstractTestPrimitiveGrid<Double> {
+
+    @Override
+    protected Grid<Double> create(int rowCount, int columnCount) {
+        return OffHeapDoubleGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Double> create(Grid<Double> grid) {
+        return OffHeapDoubleGrid.create(grid);
+    }
+
+    @Override
+    protected Double value(int n) {
+        return n * 1.5d;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Double> grid, int row, int column, Double value) {
+        ((OffHeapDoubleGrid) grid).putDouble(row, column, value);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column) {
+        return ((OffHeapDoubleGrid) grid).getDouble(row, column);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column, Double defaultValue) {
+        return ((OffHeapDoubleGrid) grid).getDouble(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_intInt_tooLarge() {
+        OffHeapDoubleGrid.create(65_536, 65_536);
+    }
+
+    @Test
+    public void test_put_acrossChunks() {
+        // chunks of four cells, the last chunk holding one cell
+        OffHeapDoubleGrid test = OffHeapDoubleGrid.create(3, 3, 2);
+        for (int i = 0; i < 9; i++) {
+            test.putDouble(i / 3, i % 3, i);
+        }
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i, test.getDouble(i / 3, i % 3), 0d);
+        }
+        assertEquals(9, test.size());
+        assertTrue(test.containsValue(Double.valueOf(8)));
+        test.clear();
+        assertEquals(0, test.getDouble(2, 2), 0d);
+    }
+
+    @Test
+    public void test_forEachCell_acrossChunks() {
+        OffHeapDoubleGrid test = OffHeapDoubleGrid.create(3, 3, 2);
+        test.putDouble(2, 0, 3.5d);
+        test.putDouble(0, 1, 1.5d);
+        test.putDouble(1, 2, 2.5d);
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) -> buf.append(row).append(column).append('=').append(value).append(' '));
+        assertEquals("01=1.5 12=2.5 20=3.5 ", buf.toString());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_copyFrom_copyTo_acrossChunks() {
+        OffHeapDoubleGrid test = OffHeapDoubleGrid.create(3, 3, 2);
+        double[] source = new double[] {9, 1, 2, 3, 4, 5, 6, 9};
+        test.copyFrom(source, 1, 0, 2, 6);
+        assertEquals(6, test.size());
+        assertFalse(test.contains(0, 1));
+        assertEquals(1, test.getDouble(0, 2), 0d);
+        assertEquals(6, test.getDouble(2, 1), 0d);
+        assertFalse(test.contains(2, 2));
+        test.copyFrom(source, 0, 0, 2, 1);
+        assertEquals(6, test.size());
+
+        double[] target = new double[11];
+        test.copyTo(0, 0, target, 1, 9);
+        assertArrayEquals(new double[] {0, 0, 0, 9, 2, 3, 4, 5, 6, 0, 0}, target, 0d);
+    }
+
+    @Test
+    public void test_copyFrom_empty() {
+        OffHeapDoubleGrid test = OffHeapDoubleGrid.create(0, 0);
+        test.copyFrom(new double[0], 0, 0, 0, 0);
+        assertEquals(0, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyFrom_gridTooSmall() {
+        OffHeapDoubleGrid.create(2, 2).copyFrom(new double[5], 0, 0, 1, 4);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyFrom_arrayTooSmall() {
+        OffHeapDoubleGrid.create(2, 2).copyFrom(new double[3], 1, 0, 0, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyTo_badIndex() {
+        OffHeapDoubleGrid.create(2, 2).copyTo(2, 0, new double[3], 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_copyTo_null() {
+        OffHeapDoubleGrid.create(2, 2).copyTo(0, 0, null, 0, 1);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = NotSerializableException.class)
+    public void test_serialization() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream())) {
+            out.writeObject(OffHeapDoubleGrid.create(2, 3));
+        }
+    }
+
+    @Test
+    public void test_footprint() {
+        GridFootprint footprint = GridFootprint.of(OffHeapDoubleGrid.create(100, 100));
+        assertEquals(100 * 100 * 8, footprint.getComponents().get("off-heap values").longValue());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("occupied bitmap").longValue());
+    }
+
+}
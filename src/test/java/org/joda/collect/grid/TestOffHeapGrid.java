@@ -0,0 +1,216 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Test OffHeapGrid.
+ */
+public class TestOffHeapGrid extends AbstractTestMutableGrid {
+
+    /**
+     * Codec for short ASCII strings.
+     */
+    static final GridCodec<String> STRING_CODEC = new GridCodec<String>() {
+        @Override
+        public int slotBytes() {
+            return 16;
+        }
+        @Override
+        public void encode(String value, ByteBuffer buffer, int offset) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length > 15) {
+                throw new IllegalArgumentException("Too long: " + value);
+            }
+            buffer.put(offset, (byte) bytes.length);
+            buffer.put(offset + 1, bytes);
+        }
+        @Override
+        public String decode(ByteBuffer buffer, int offset) {
+            byte[] bytes = new byte[buffer.get(offset)];
+            buffer.get(offset + 1, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+    };
+
+    /**
+     * Mutable point.
+     */
+    static final class Point {
+        private int x;
+        private int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Point && ((Point) obj).x == x && ((Point) obj).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return x * 31 + y;
+        }
+    }
+
+    /**
+     * Codec for points.
+     */
+    static final GridCodec<Point> POINT_CODEC = new GridCodec<Point>() {
+        @Override
+        public int slotBytes() {
+            return 8;
+        }
+        @Override
+        public void encode(Point value, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, value.x);
+            buffer.putInt(offset + 4, value.y);
+        }
+        @Override
+        public Point decode(ByteBuffer buffer, int offset) {
+            return new Point(buffer.getInt(offset), buffer.getInt(offset + 4));
+        }
+        @Override
+        public Point decodeInto(ByteBuffer buffer, int offset, Point target) {
+            target.x = buffer.getInt(offset);
+            target.y = buffer.getInt(offset + 4);
+            return target;
+        }
+    };
+
+    @Override
+    protected Grid<String> create3x3() {
+        return OffHeapGrid.create(3, 3, STRING_CODEC);
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return OffHeapGrid.create(rowCount, columnCount, STRING_CODEC);
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return OffHeapGrid.create(grid, STRING_CODEC);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_nullCodec() {
+        OffHeapGrid.create(2, 2, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_invalidSlotBytes() {
+        OffHeapGrid.create(2, 2, new GridCodec<String>() {
+            @Override
+            public int slotBytes() {
+                return 0;
+            }
+            @Override
+            public void encode(String value, ByteBuffer buffer, int offset) {
+            }
+            @Override
+            public String decode(ByteBuffer buffer, int offset) {
+                return "";
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_tooLarge() {
+        OffHeapGrid.create(65_536, 65_536, STRING_CODEC);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        OffHeapGrid.create(null, STRING_CODEC);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_getInto() {
+        OffHeapGrid<Point> test = OffHeapGrid.create(2, 2, POINT_CODEC);
+        Point point = new Point(1, 2);
+        test.put(0, 1, point);
+        point.x = 5;
+        assertEquals(new Point(1, 2), test.get(0, 1));
+        Point target = new Point(0, 0);
+        assertSame(target, test.getInto(0, 1, target));
+        assertEquals(new Point(1, 2), target);
+        assertNull(test.getInto(1, 1, target));
+        assertNull(test.getInto(5, 5, target));
+        assertEquals(new Point(1, 2), target);
+        assertSame(POINT_CODEC, test.getCodec());
+    }
+
+    @Test
+    public void test_getInto_defaultDecode() {
+        OffHeapGrid<String> test = OffHeapGrid.create(2, 2, STRING_CODEC);
+        test.put(1, 0, "Hello");
+        assertEquals("Hello", test.getInto(1, 0, "Target"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_getInto_null() {
+        OffHeapGrid<Point> test = OffHeapGrid.create(2, 2, POINT_CODEC);
+        test.getInto(0, 0, null);
+    }
+
+    @Test
+    public void test_put_acrossChunks() {
+        OffHeapGrid<Point> test = OffHeapGrid.create(3, 3, POINT_CODEC, 2);
+        for (int i = 0; i < 9; i++) {
+            test.put(i / 3, i % 3, new Point(i, -i));
+        }
+        for (int i = 0; i < 9; i++) {
+            assertEquals(new Point(i, -i), test.get(i / 3, i % 3));
+        }
+        assertEquals(9, test.size());
+        assertTrue(test.containsValue(new Point(8, -8)));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = NotSerializableException.class)
+    public void test_serialization() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream())) {
+            out.writeObject(OffHeapGrid.create(2, 3, STRING_CODEC));
+        }
+    }
+
+    @Test
+    public void test_footprint() {
+        OffHeapGrid<String> test = OffHeapGrid.create(100, 100, STRING_CODEC);
+        GridFootprint footprint = GridFootprint.of(test);
+        assertEquals(100 * 100 * 16, footprint.getComponents().get("off-heap values").longValue());
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Test OffHeapLongGrid.
+ */
+public class TestOffHeapLongGrid extends AbstractTestPrimitiveGrid<Long> {
+
+    @Override
+    protected Grid<Long> create(int rowCount, int columnCount) {
+        return OffHeapLongGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Long> create(Grid<Long> grid) {
+        return OffHeapLongGrid.create(grid);
+    }
+
+    @Override
+    protected Long value(int n) {
+        return (long) n;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Long> grid, int row, int column, Long value) {
+        ((OffHeapLongGrid) grid).putLong(row, column, value);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column) {
+        return ((OffHeapLongGrid) grid).getLong(row, column);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column, Long defaultValue) {
+        return ((OffHeapLongGrid) grid).getLong(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_intInt_tooLarge() {
+        OffHeapLongGrid.create(65_536, 65_536);
+    }
+
+    @Test
+    public void test_put_acrossChunks() {
+        // chunks of four cells, the last chunk holding one cell
+        OffHeapLongGrid test = OffHeapLongGrid.create(3, 3, 2);
+        for (int i = 0; i < 9; i++) {
+            test.putLong(i / 3, i % 3, i);
+        }
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i, test.getLong(i / 3, i % 3));
+        }
+        assertEquals(9, test.size());
+        assertTrue(test.containsValue(Long.valueOf(8)));
+        test.clear();
+        assertEquals(0, test.getLong(2, 2));
+    }
+
+    @Test
+    public void test_forEachCell_acrossChunks() {
+        OffHeapLongGrid test = OffHeapLongGrid.create(3, 3, 2);
+        test.putLong(2, 0, 3L);
+        test.putLong(0, 1, 1L);
+        test.putLong(1, 2, 2L);
+        StringBuilder buf = new StringBuilder();
+        test.forEachCell((row, column, value) -> buf.append(row).append(column).append('=').append(value).append(' '));
+        assertEquals("01=1 12=2 20=3 ", buf.toString());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_copyFrom_copyTo_acrossChunks() {
+        OffHeapLongGrid test = OffHeapLongGrid.create(3, 3, 2);
+        long[] source = new long[] {9, 1, 2, 3, 4, 5, 6, 9};
+        test.copyFrom(source, 1, 0, 2, 6);
+        assertEquals(6, test.size());
+        assertFalse(test.contains(0, 1));
+        assertEquals(1, test.getLong(0, 2));
+        assertEquals(6, test.getLong(2, 1));
+        assertFalse(test.contains(2, 2));
+        test.copyFrom(source, 0, 0, 2, 1);
+        assertEquals(6, test.size());
+
+        long[] target = new long[11];
+        test.copyTo(0, 0, target, 1, 9);
+        assertArrayEquals(new long[] {0, 0, 0, 9, 2, 3, 4, 5, 6, 0, 0}, target);
+    }
+
+    @Test
+    public void test_copyFrom_empty() {
+        OffHeapLongGrid test = OffHeapLongGrid.create(0, 0);
+        test.copyFrom(new long[0], 0, 0, 0, 0);
+        assertEquals(0, test.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyFrom_gridTooSmall() {
+        OffHeapLongGrid.create(2, 2).copyFrom(new long[5], 0, 0, 1, 4);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyFrom_arrayTooSmall() {
+        OffHeapLongGrid.create(2, 2).copyFrom(new long[3], 1, 0, 0, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_copyTo_badIndex() {
+        OffHeapLongGrid.create(2, 2).copyTo(2, 0, new long[3], 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_copyTo_null() {
+        OffHeapLongGrid.create(2, 2).copyTo(0, 0, null, 0, 1);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = NotSerializableException.class)
+    public void test_serialization() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream())) {
+            out.writeObject(OffHeapLongGrid.create(2, 3));
+        }
+    }
+
+    @Test
+    public void test_footprint() {
+        GridFootprint footprint = GridFootprint.of(OffHeapLongGrid.create(100, 100));
+        assertEquals(100 * 100 * 8, footprint.getComponents().get("off-heap values").longValue());
+        assertEquals(GridFootprint.array(8, 157), footprint.getComponents().get("occupied bitmap").longValue());
+    }
+
+}
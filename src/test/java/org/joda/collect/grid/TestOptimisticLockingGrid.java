@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test OptimisticLockingGrid.
+ */
+public class TestOptimisticLockingGrid extends AbstractTestMutableGrid {
+
+    @Override
+    protected Grid<String> create3x3() {
+        return Grids.optimisticLocking(DenseGrid.<String>create(3, 3));
+    }
+
+    @Override
+    protected Grid<String> create(int rowCount, int columnCount) {
+        return Grids.optimisticLocking(DenseGrid.<String>create(rowCount, columnCount));
+    }
+
+    @Override
+    protected Grid<String> create(Grid<String> grid) {
+        return Grids.optimisticLocking(DenseGrid.create(grid));
+    }
+
+    //-----------------------------------------------------------------------
+    @Test(expected = IllegalArgumentException.class)
+    public void test_optimisticLocking_null() {
+        Grids.optimisticLocking(null);
+    }
+
+    @Test
+    public void test_sparse() {
+        OptimisticLockingGrid<String> test = Grids.optimisticLocking(SparseGrid.<String>create(100, 100));
+        test.put(5, 50, "A");
+        test.put(99, 0, "B");
+        assertEquals(2, test.size());
+        assertEquals("A", test.get(5, 50));
+        assertTrue(test.contains(99, 0));
+        assertEquals(ImmutableCell.of(99, 0, "B"), test.cell(99, 0));
+        assertNull(test.cell(0, 0));
+        assertEquals(ImmutableList.of("A", "B"), test.values());
+        assertEquals("AC", test.merge(5, 50, "C", String::concat));
+        assertEquals("[100x100:(5,50)=AC, (99,0)=B]", test.toString());
+    }
+
+    @Test
+    public void test_cells_iteratesCopy() {
+        OptimisticLockingGrid<String> test = Grids.optimisticLocking(DenseGrid.<String>create(2, 2));
+        test.put(0, 0, "A");
+        test.put(1, 1, "B");
+        Iterator<Cell<String>> it = test.cells().iterator();
+        Cell<String> first = it.next();
+        test.put(0, 1, "C");
+        test.put(0, 0, "D");
+        assertEquals(ImmutableCell.of(0, 0, "A"), first);
+        assertEquals(ImmutableCell.of(1, 1, "B"), it.next());
+        assertEquals(false, it.hasNext());
+    }
+
+    @Test
+    public void test_readBulk() {
+        OptimisticLockingGrid<String> test = Grids.optimisticLocking(DenseGrid.<String>create(2, 2));
+        test.put(1, 0, "A");
+        StringBuilder buf = new StringBuilder();
+        test.readBulk(grid -> buf.append(grid.size()).append(grid.get(1, 0)).append(test.get(1, 0)));
+        assertEquals("1AA", buf.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_readBulk_null() {
+        Grids.optimisticLocking(DenseGrid.<String>create(2, 2)).readBulk(null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_concurrentReadsAndWrites() throws Exception {
+        OptimisticLockingGrid<Integer> test = Grids.optimisticLocking(SparseGrid.<Integer>create(50, 50));
+        int readers = 4;
+        int writes = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            ImmutableList.Builder<Future<?>> futures = ImmutableList.builder();
+            for (int t = 0; t < readers; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        for (int i = 0; i < 50; i++) {
+                            Integer value = test.get(i, i);
+                            assertTrue(value == null || value == i);
+                        }
+                        // both cells are always written together
+                        test.readBulk(grid -> assertEquals(grid.get(0, 1), grid.get(1, 0)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < writes; i++) {
+                int index = i % 50;
+                if ((i / 50) % 2 == 0) {
+                    test.put(index, index, index);
+                } else {
+                    test.remove(index, index);
+                }
+                SparseGrid<Integer> pair = SparseGrid.create(2, 2);
+                pair.put(0, 1, i);
+                pair.put(1, 0, i);
+                test.putAll(pair);
+            }
+            done.set(true);
+            for (Future<?> future : futures.build()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertEquals(Integer.valueOf(writes - 1), test.get(1, 0));
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test SnapshotGrid.
+ */
+public class TestSnapshotGrid {
+
+    @Test
+    public void test_create() {
+        SnapshotGrid<String> test = SnapshotGrid.create(2, 3);
+        assertEquals(2, test.rowCount());
+        assertEquals(3, test.columnCount());
+        assertEquals(ImmutableGrid.of(2, 3), test.snapshot());
+    }
+
+    @Test
+    public void test_create_Grid() {
+        ImmutableGrid<String> grid = ImmutableGrid.of(2, 2, 1, 1, "A");
+        SnapshotGrid<String> test = SnapshotGrid.create(grid);
+        assertSame(grid, test.snapshot());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_create_Grid_null() {
+        SnapshotGrid.create((Grid<String>) null);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_commit() {
+        SnapshotGrid<String> test = SnapshotGrid.create(2, 2);
+        ImmutableGrid<String> before = test.snapshot();
+        SnapshotGrid.Batch<String> batch = test.batch();
+        batch.put(0, 0, "A");
+        batch.put(1, 1, "B");
+        batch.put(1, 0, "C");
+        batch.remove(1, 0);
+        assertEquals(3, batch.changeCount());
+        assertSame(before, test.snapshot());
+        ImmutableGrid<String> after = batch.commit();
+        assertSame(after, test.snapshot());
+        assertEquals(ImmutableGrid.of(2, 2), before);
+        DenseGrid<String> expected = DenseGrid.create(2, 2);
+        expected.put(0, 0, "A");
+        expected.put(1, 1, "B");
+        assertEquals(expected, after);
+    }
+
+    @Test
+    public void test_commit_noChanges() {
+        SnapshotGrid<String> test = SnapshotGrid.create(2, 2);
+        ImmutableGrid<String> before = test.snapshot();
+        assertSame(before, test.batch().commit());
+        assertSame(before, test.snapshot());
+    }
+
+    @Test
+    public void test_batch_get() {
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.of(2, 2, 0, 1, "A"));
+        SnapshotGrid.Batch<String> batch = test.batch();
+        assertEquals("A", batch.get(0, 1));
+        batch.put(1, 1, "B");
+        batch.remove(0, 1);
+        assertNull(batch.get(0, 1));
+        assertEquals("B", batch.get(1, 1));
+        assertNull(batch.get(2, 1));
+        assertEquals("A", test.snapshot().get(0, 1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_batch_put_invalidIndex() {
+        SnapshotGrid.<String>create(2, 2).batch().put(2, 0, "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_batch_put_nullValue() {
+        SnapshotGrid.<String>create(2, 2).batch().put(0, 0, null);
+    }
+
+    @Test
+    public void test_batch_remove_invalidIndex() {
+        SnapshotGrid.Batch<String> batch = SnapshotGrid.<String>create(2, 2).batch();
+        batch.remove(-1, 0);
+        assertEquals(0, batch.changeCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_batch_committed() {
+        SnapshotGrid.Batch<String> batch = SnapshotGrid.<String>create(2, 2).batch();
+        batch.commit();
+        batch.put(0, 0, "A");
+    }
+
+    @Test
+    public void test_commit_overlappingBatches() {
+        SnapshotGrid<String> test = SnapshotGrid.create(2, 2);
+        SnapshotGrid.Batch<String> batch1 = test.batch();
+        SnapshotGrid.Batch<String> batch2 = test.batch();
+        batch1.put(0, 0, "A");
+        batch1.put(0, 1, "B");
+        batch2.put(0, 1, "C");
+        batch2.put(1, 1, "D");
+        batch1.commit();
+        batch2.commit();
+        DenseGrid<String> expected = DenseGrid.create(2, 2);
+        expected.put(0, 0, "A");
+        expected.put(0, 1, "C");
+        expected.put(1, 1, "D");
+        assertEquals(expected, test.snapshot());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_commit_dense() {
+        DenseGrid<String> expected = DenseGrid.create(3, 3);
+        expected.put(0, 0, "A");
+        expected.put(1, 1, "B");
+        expected.put(2, 2, "C");
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.copyOf(expected, GridLayoutStrategy.dense()));
+        ImmutableGrid<String> before = test.snapshot();
+        SnapshotGrid.Batch<String> batch = test.batch();
+        batch.put(0, 0, "X");
+        batch.put(2, 1, "Y");
+        batch.remove(1, 1);
+        batch.remove(1, 2);
+        ImmutableGrid<String> after = batch.commit();
+        assertTrue(after instanceof DenseImmutableGrid);
+        assertEquals(ImmutableGrid.copyOf(expected), before);
+        expected.put(0, 0, "X");
+        expected.put(2, 1, "Y");
+        expected.remove(1, 1);
+        assertEquals(expected, after);
+        assertEquals(3, after.size());
+    }
+
+    @Test
+    public void test_commit_sparse() {
+        SparseGrid<String> expected = SparseGrid.create(100, 100);
+        expected.put(0, 5, "A");
+        expected.put(3, 3, "B");
+        expected.put(99, 99, "C");
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.copyOf(expected, GridLayoutStrategy.sparse()));
+        ImmutableGrid<String> before = test.snapshot();
+        SnapshotGrid.Batch<String> batch = test.batch();
+        batch.put(0, 0, "W");
+        batch.put(3, 3, "X");
+        batch.put(50, 0, "Y");
+        batch.remove(99, 99);
+        batch.remove(98, 98);
+        batch.put(99, 98, "Z");
+        ImmutableGrid<String> after = batch.commit();
+        assertTrue(after instanceof SparseImmutableGrid);
+        assertSame(before.cell(0, 5), after.cell(0, 5));
+        assertEquals(ImmutableGrid.copyOf(expected), before);
+        expected.put(0, 0, "W");
+        expected.put(3, 3, "X");
+        expected.put(50, 0, "Y");
+        expected.remove(99, 99);
+        expected.put(99, 98, "Z");
+        assertEquals(expected, after);
+        assertEquals(ImmutableList.of("W", "A", "X", "Y", "Z"), ImmutableList.copyOf(after.values()));
+        assertEquals("Y", after.get(50, 0));
+        assertNull(after.get(99, 99));
+    }
+
+    @Test
+    public void test_commit_emptySingleton() {
+        DenseGrid<String> base = DenseGrid.create(3, 3);
+        base.put(0, 0, "A");
+        base.put(1, 1, "B");
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.copyOf(base, GridLayoutStrategy.dense()));
+        SnapshotGrid.Batch<String> batch = test.batch();
+        batch.remove(0, 0);
+        ImmutableGrid<String> single = batch.commit();
+        assertTrue(single instanceof SingletonGrid);
+        assertEquals("B", single.get(1, 1));
+        batch = test.batch();
+        batch.remove(1, 1);
+        ImmutableGrid<String> empty = batch.commit();
+        assertTrue(empty instanceof EmptyGrid);
+        assertEquals(3, empty.rowCount());
+        assertSame(empty, test.snapshot());
+    }
+
+    @Test
+    public void test_commit_crossesLayoutThreshold() {
+        SparseGrid<String> base = SparseGrid.create(10, 10);
+        base.put(0, 0, "A");
+        base.put(9, 9, "B");
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.copyOf(base, GridLayoutStrategy.sparse()));
+        SnapshotGrid.Batch<String> batch = test.batch();
+        for (int i = 0; i < 100; i++) {
+            batch.put(i / 10, i % 10, "X" + i);
+        }
+        ImmutableGrid<String> dense = batch.commit();
+        assertTrue(dense instanceof DenseImmutableGrid);
+        assertEquals(100, dense.size());
+        batch = test.batch();
+        for (int i = 2; i < 100; i++) {
+            batch.remove(i / 10, i % 10);
+        }
+        ImmutableGrid<String> sparse = batch.commit();
+        assertTrue(sparse instanceof SparseImmutableGrid);
+        assertEquals(ImmutableList.of("X0", "X1"), ImmutableList.copyOf(sparse.values()));
+    }
+
+    @Test
+    public void test_commit_forcedLayoutRetained() {
+        SparseGrid<String> base = SparseGrid.create(10, 10);
+        for (int i = 0; i < 100; i++) {
+            base.put(i / 10, i % 10, "X" + i);
+        }
+        SnapshotGrid<String> test = SnapshotGrid.create(ImmutableGrid.copyOf(base, GridLayoutStrategy.sparse()));
+        SnapshotGrid.Batch<String> batch = test.batch();
+        batch.remove(0, 0);
+        ImmutableGrid<String> after = batch.commit();
+        assertTrue(after instanceof SparseImmutableGrid);
+        assertEquals(99, after.size());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_concurrentReaders() throws Exception {
+        SnapshotGrid<Integer> test = SnapshotGrid.create(10, 10);
+        int readers = 4;
+        int commits = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            ImmutableList.Builder<Future<?>> futures = ImmutableList.builder();
+            for (int t = 0; t < readers; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < commits; i++) {
+                        // every snapshot has all its cells set to the same value
+                        ImmutableGrid<Integer> snapshot = test.snapshot();
+                        if (snapshot.size() > 0) {
+                            Integer value = snapshot.get(0, 0);
+                            for (Integer other : snapshot.values()) {
+                                assertEquals(value, other);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < commits; i++) {
+                SnapshotGrid.Batch<Integer> batch = test.batch();
+                for (int row = 0; row < 10; row++) {
+                    for (int column = 0; column < 10; column++) {
+                        batch.put(row, column, i);
+                    }
+                }
+                batch.commit();
+            }
+            for (Future<?> future : futures.build()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(Integer.valueOf(commits - 1), test.snapshot().get(9, 9));
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test SparseDoubleGrid and SparseImmutableDoubleGrid.
+ */
+public class TestSparseDoubleGrid extends AbstractTestPrimitiveGrid<Double> {
+
+    @Override
+    protected Grid<Double> create(int rowCount, int columnCount) {
+        return SparseDoubleGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Double> create(Grid<Double> grid) {
+        return SparseDoubleGrid.create(grid);
+    }
+
+    @Override
+    protected Double value(int n) {
+        return n * 1.5d;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Double> grid, int row, int column, Double value) {
+        ((SparseDoubleGrid) grid).putDouble(row, column, value);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column) {
+        return ((SparseDoubleGrid) grid).getDouble(row, column);
+    }
+
+    @Override
+    protected Double getPrimitive(Grid<Double> grid, int row, int column, Double defaultValue) {
+        return ((SparseDoubleGrid) grid).getDouble(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putGet_large() {
+        SparseDoubleGrid test = SparseDoubleGrid.create(1000, 1000);
+        test.putDouble(999, 1, 1.5d);
+        test.put(0, 999, 2.5d);
+        test.putDouble(0, 999, 3.5d);
+        assertEquals(2, test.size());
+        assertTrue(test.contains(999, 1));
+        assertFalse(test.contains(0, 0));
+        assertFalse(test.contains(-1, 0));
+        assertEquals(1.5d, test.getDouble(999, 1), 0d);
+        assertEquals(3.5d, test.getDouble(0, 999), 0d);
+        assertEquals(0, test.getDouble(0, 0), 0d);
+        assertEquals(2.5d, test.getDouble(1000, 0, 2.5d), 0d);
+        assertEquals(Double.valueOf(1.5d), test.get(999, 1));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(999, 1, Double.valueOf(1.5d)), test.cell(999, 1));
+        assertNull(test.cell(0, 0));
+        assertTrue(test.containsValue(3.5d));
+        assertFalse(test.containsValue(2.5d));
+        assertEquals(ImmutableList.of(3.5d, 1.5d), test.values());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        SparseDoubleGrid sparse = SparseDoubleGrid.create(1000, 1000);
+        sparse.putDouble(999, 1, 1.5d);
+        sparse.putDouble(0, 999, 2.5d);
+        ImmutableDoubleGrid test = ImmutableDoubleGrid.copyOf(sparse);
+        assertTrue(test instanceof SparseImmutableDoubleGrid);
+        sparse.putDouble(0, 0, 3.5d);
+        assertEquals(2, test.size());
+        assertEquals(1.5d, test.getDouble(999, 1), 0d);
+        assertEquals(3.5d, test.getDouble(0, 0, 3.5d), 0d);
+        assertEquals(Double.valueOf(2.5d), test.get(0, 999));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(0, 999, Double.valueOf(2.5d)), test.cell(0, 999));
+        assertTrue(test.contains(999, 1));
+        assertTrue(test.containsValue(2.5d));
+        assertFalse(test.containsValue(3.5d));
+        assertEquals(ImmutableList.of(2.5d, 1.5d), test.values());
+        assertEquals("[1000x1000:(0,999)=2.5, (999,1)=1.5]", test.toString());
+        sparse.remove(0, 0);
+        assertEquals(sparse, test);
+        assertEquals(test, sparse);
+        assertEquals(sparse.hashCode(), test.hashCode());
+        assertEquals(ImmutableDoubleGrid.copyOf(SparseDoubleGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        SparseDoubleGrid sparse = SparseDoubleGrid.create(3, 3);
+        sparse.putDouble(2, 0, 3.5d);
+        sparse.putDouble(0, 1, 1.5d);
+        sparse.putDouble(1, 2, 2.5d);
+        StringBuilder buf = new StringBuilder();
+        ImmutableDoubleGrid.copyOf(sparse).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @Test
+    public void test_immutable_unsortedSource() {
+        SparseGrid<Double> source = SparseGrid.create(1000, 1000);
+        source.put(5, 5, 1.5d);
+        source.put(1, 7, 2.5d);
+        ImmutableDoubleGrid test = SparseImmutableDoubleGrid.create(new MockReversedGrid(source));
+        assertEquals(source, test);
+        assertEquals("[1000x1000:(1,7)=2.5, (5,5)=1.5]", test.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_immutable_badCell() {
+        SparseImmutableDoubleGrid.create(new MockReversedGrid(SparseGrid.<Double>create(2, 2)) {
+            @Override
+            public int rowCount() {
+                return 1;
+            }
+            @Override
+            public java.util.Set<Cell<Double>> cells() {
+                return com.google.common.collect.ImmutableSet.of(ImmutableCell.of(1, 1, Double.valueOf(1.5d)));
+            }
+        });
+    }
+
+    @Test
+    public void test_immutable_layout() {
+        DenseDoubleGrid dense = DenseDoubleGrid.create(10, 10);
+        for (int i = 0; i < 50; i++) {
+            dense.putDouble(i / 10, i % 10, 1.5d);
+        }
+        assertTrue(ImmutableDoubleGrid.copyOf(dense) instanceof DenseImmutableDoubleGrid);
+        assertTrue(ImmutableDoubleGrid.copyOf(DenseDoubleGrid.create(2, 2)) instanceof SparseImmutableDoubleGrid);
+    }
+
+    @Test
+    public void test_footprint() {
+        SparseDoubleGrid sparse = SparseDoubleGrid.create(1000, 1000);
+        for (int i = 0; i < 100; i++) {
+            sparse.putDouble(i, i, 1.5d);
+        }
+        GridFootprint footprint = GridFootprint.of(ImmutableDoubleGrid.copyOf(sparse));
+        assertEquals(GridFootprint.array(8, 100), footprint.getComponents().get("keys array").longValue());
+        assertEquals(GridFootprint.array(8, 100), footprint.getComponents().get("values array").longValue());
+        assertTrue(GridFootprint.of(SparseGrid.create(sparse)).getTotalBytes() > footprint.getTotalBytes() * 2);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Grid that iterates cells in reverse order.
+     */
+    static class MockReversedGrid extends AbstractGrid<Double> {
+        private final Grid<Double> grid;
+
+        MockReversedGrid(Grid<Double> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int rowCount() {
+            return grid.rowCount();
+        }
+
+        @Override
+        public int columnCount() {
+            return grid.columnCount();
+        }
+
+        @Override
+        public java.util.Set<Cell<Double>> cells() {
+            return com.google.common.collect.ImmutableSet.copyOf(
+                    ImmutableList.copyOf(grid.cells().stream().map(ImmutableCell::copyOf).iterator()).reverse());
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(int row, int column, Double value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putAll(Grid<? extends Double> grid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(int row, int column) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
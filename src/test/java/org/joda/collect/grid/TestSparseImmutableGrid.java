@@ -16,9 +16,16 @@
 package org.joda.collect.grid;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * Test SparseImmutableGrid.
  */
@@ -29,7 +36,7 @@ public class TestSparseImmutableGrid extends AbstractTestImmutableGrid {
         DenseGrid<String> hash = DenseGrid.create(2, 3);
         hash.put(0, 0, "Hello");
         hash.put(0, 1, "World");
-        return ImmutableGrid.copyOf(hash);
+        return ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse());
     }
 
     //-----------------------------------------------------------------------
@@ -38,13 +45,72 @@ public class TestSparseImmutableGrid extends AbstractTestImmutableGrid {
         SparseGrid<String> hash = SparseGrid.create(2, 3);
         hash.put(0, 0, "Hello");
         hash.put(0, 1, "World");
-        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash);
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse());
         assertEquals(2, test.rowCount());
         assertEquals(3, test.columnCount());
         checkGrid(test, 0, 0, "Hello", 0, 1, "World");
         assertEquals("[2x3:(0,0)=Hello, (0,1)=World]", test.toString());
     }
 
+    @Test
+    public void test_factory_copyOf_Grid_fromDense() {
+        DenseGrid<String> dense = DenseGrid.create(2, 3);
+        dense.put(0, 2, "Hello");
+        dense.put(1, 0, "World");
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(dense, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals("[2x3:(0,2)=Hello, (1,0)=World]", test.toString());
+    }
+
+    @Test
+    public void test_factory_copyOf_Grid_fromDenseParallel() {
+        DenseGrid<Integer> dense = DenseGrid.create(400, 300);
+        SparseGrid<Integer> expected = SparseGrid.create(400, 300);
+        for (int row = 0; row < 400; row++) {
+            for (int column = row % 7; column < 300; column += 7) {
+                dense.put(row, column, row * 300 + column);
+                expected.put(row, column, row * 300 + column);
+            }
+        }
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(dense, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals(expected.size(), test.size());
+        assertEquals(ImmutableList.copyOf(expected.cells()), ImmutableList.copyOf(test.cells()));
+        assertEquals(Integer.valueOf(299 * 300 + 299), test.get(299, 299));
+        assertEquals(null, test.get(299, 298));
+    }
+
+    @Test
+    public void test_factory_copyOf_Grid_fromSparseParallel() {
+        SparseGrid<Integer> sparse = SparseGrid.create(400, 1000);
+        for (int row = 0; row < 400; row++) {
+            for (int column = row % 5; column < 1000; column += 5) {
+                sparse.put(row, column, row * 1000 + column);
+            }
+        }
+        ImmutableGrid<Integer> test = ImmutableGrid.copyOf(sparse, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals(80_000, test.size());
+        assertSame(sparse.cell(399, 999), test.cell(399, 999));
+        assertEquals(Integer.valueOf(123 * 1000 + 3), test.get(123, 3));
+        assertEquals(null, test.get(123, 4));
+        assertEquals(sparse, test);
+        ImmutableGrid<Integer> dense = ImmutableGrid.copyOf(sparse, GridLayoutStrategy.dense());
+        assertTrue(dense instanceof DenseImmutableGrid);
+        assertEquals(sparse, dense);
+    }
+
+    @Test
+    public void test_factory_copyOf_Grid_fromSparseImmutable() {
+        SparseGrid<String> hash = SparseGrid.create(2, 3);
+        hash.put(0, 0, "Hello");
+        hash.put(0, 1, "World");
+        ImmutableGrid<String> base = ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse());
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(base, GridLayoutStrategy.sparse());
+        assertTrue(test instanceof SparseImmutableGrid);
+        assertEquals(base, test);
+    }
+
     @Test
     public void test_factory_copyOfDeriveCounts() {
         SparseGrid<String> hash = SparseGrid.create(2, 2);
@@ -63,7 +129,7 @@ public class TestSparseImmutableGrid extends AbstractTestImmutableGrid {
         SparseGrid<String> hash = SparseGrid.create(2, 3);
         hash.put(0, 0, "Hello");
         hash.put(0, 1, "World");
-        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash);
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse());
         assertEquals(true, test.containsValue("Hello"));
         assertEquals(true, test.containsValue("World"));
         assertEquals(false, test.containsValue("Spicy"));
@@ -78,9 +144,9 @@ public class TestSparseImmutableGrid extends AbstractTestImmutableGrid {
         SparseGrid<String> hash = SparseGrid.create(2, 3);
         hash.put(0, 0, "Hello");
         hash.put(0, 1, "World");
-        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash);
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse());
         assertEquals(true, test.equals(test));
-        assertEquals(true, test.equals(ImmutableGrid.copyOf(hash)));
+        assertEquals(true, test.equals(ImmutableGrid.copyOf(hash, GridLayoutStrategy.sparse())));
         assertEquals(true, test.equals(hash));
         assertEquals(false, test.equals(null));
         assertEquals(false, test.equals(""));
@@ -88,4 +154,33 @@ public class TestSparseImmutableGrid extends AbstractTestImmutableGrid {
         assertEquals(2 ^ Integer.rotateLeft(3, 16) ^ test.cells().hashCode(), test.hashCode());
     }
 
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_rowStream() {
+        SparseGrid<String> grid = SparseGrid.create(100, 100);
+        grid.put(1, 5, "A");
+        grid.put(1, 7, "B");
+        grid.put(50, 0, "C");
+        grid.put(99, 99, "D");
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(grid, GridLayoutStrategy.sparse());
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(1, 5, "A"), ImmutableCell.of(1, 7, "B")),
+                        Arrays.asList(ImmutableCell.of(50, 0, "C")),
+                        Arrays.asList(ImmutableCell.of(99, 99, "D"))),
+                test.rowStream().parallel().collect(Collectors.toList()));
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(ImmutableCell.of(50, 0, "C")),
+                        Arrays.asList(ImmutableCell.of(1, 5, "A")),
+                        Arrays.asList(ImmutableCell.of(1, 7, "B")),
+                        Arrays.asList(ImmutableCell.of(99, 99, "D"))),
+                test.columnStream().collect(Collectors.toList()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_rowStream_immutable() {
+        ImmutableGrid<String> test = ImmutableGrid.copyOf(createNonEmpty(), GridLayoutStrategy.sparse());
+        test.rowStream().findFirst().get().set(0, null);
+    }
 }
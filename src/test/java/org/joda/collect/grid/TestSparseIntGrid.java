@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test SparseIntGrid and SparseImmutableIntGrid.
+ */
+public class TestSparseIntGrid extends AbstractTestPrimitiveGrid<Integer> {
+
+    @Override
+    protected Grid<Integer> create(int rowCount, int columnCount) {
+        return SparseIntGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Integer> create(Grid<Integer> grid) {
+        return SparseIntGrid.create(grid);
+    }
+
+    @Override
+    protected Integer value(int n) {
+        return n;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Integer> grid, int row, int column, Integer value) {
+        ((SparseIntGrid) grid).putInt(row, column, value);
+    }
+
+    @Override
+    protected Integer getPrimitive(Grid<Integer> grid, int row, int column) {
+        return ((SparseIntGrid) grid).getInt(row, column);
+    }
+
+    @Override
+    protected Integer getPrimitive(Grid<Integer> grid, int row, int column, Integer defaultValue) {
+        return ((SparseIntGrid) grid).getInt(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putGet_large() {
+        SparseIntGrid test = SparseIntGrid.create(1000, 1000);
+        test.putInt(999, 1, 1);
+        test.put(0, 999, 2);
+        test.putInt(0, 999, 3);
+        assertEquals(2, test.size());
+        assertTrue(test.contains(999, 1));
+        assertFalse(test.contains(0, 0));
+        assertFalse(test.contains(-1, 0));
+        assertEquals(1, test.getInt(999, 1));
+        assertEquals(3, test.getInt(0, 999));
+        assertEquals(0, test.getInt(0, 0));
+        assertEquals(2, test.getInt(1000, 0, 2));
+        assertEquals(Integer.valueOf(1), test.get(999, 1));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(999, 1, Integer.valueOf(1)), test.cell(999, 1));
+        assertNull(test.cell(0, 0));
+        assertTrue(test.containsValue(3));
+        assertFalse(test.containsValue(2));
+        assertEquals(ImmutableList.of(3, 1), test.values());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        SparseIntGrid sparse = SparseIntGrid.create(1000, 1000);
+        sparse.putInt(999, 1, 1);
+        sparse.putInt(0, 999, 2);
+        ImmutableIntGrid test = ImmutableIntGrid.copyOf(sparse);
+        assertTrue(test instanceof SparseImmutableIntGrid);
+        sparse.putInt(0, 0, 3);
+        assertEquals(2, test.size());
+        assertEquals(1, test.getInt(999, 1));
+        assertEquals(3, test.getInt(0, 0, 3));
+        assertEquals(Integer.valueOf(2), test.get(0, 999));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(0, 999, Integer.valueOf(2)), test.cell(0, 999));
+        assertTrue(test.contains(999, 1));
+        assertTrue(test.containsValue(2));
+        assertFalse(test.containsValue(3));
+        assertEquals(ImmutableList.of(2, 1), test.values());
+        assertEquals("[1000x1000:(0,999)=2, (999,1)=1]", test.toString());
+        sparse.remove(0, 0);
+        assertEquals(sparse, test);
+        assertEquals(test, sparse);
+        assertEquals(sparse.hashCode(), test.hashCode());
+        assertEquals(ImmutableIntGrid.copyOf(SparseIntGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        SparseIntGrid sparse = SparseIntGrid.create(3, 3);
+        sparse.putInt(2, 0, 3);
+        sparse.putInt(0, 1, 1);
+        sparse.putInt(1, 2, 2);
+        StringBuilder buf = new StringBuilder();
+        ImmutableIntGrid.copyOf(sparse).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @Test
+    public void test_immutable_unsortedSource() {
+        SparseGrid<Integer> source = SparseGrid.create(1000, 1000);
+        source.put(5, 5, 1);
+        source.put(1, 7, 2);
+        ImmutableIntGrid test = SparseImmutableIntGrid.create(new MockReversedGrid(source));
+        assertEquals(source, test);
+        assertEquals("[1000x1000:(1,7)=2, (5,5)=1]", test.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_immutable_badCell() {
+        SparseImmutableIntGrid.create(new MockReversedGrid(SparseGrid.<Integer>create(2, 2)) {
+            @Override
+            public int rowCount() {
+                return 1;
+            }
+            @Override
+            public java.util.Set<Cell<Integer>> cells() {
+                return com.google.common.collect.ImmutableSet.of(ImmutableCell.of(1, 1, Integer.valueOf(1)));
+            }
+        });
+    }
+
+    @Test
+    public void test_immutable_layout() {
+        DenseIntGrid dense = DenseIntGrid.create(10, 10);
+        for (int i = 0; i < 50; i++) {
+            dense.putInt(i / 10, i % 10, 1);
+        }
+        assertTrue(ImmutableIntGrid.copyOf(dense) instanceof DenseImmutableIntGrid);
+        assertTrue(ImmutableIntGrid.copyOf(DenseIntGrid.create(2, 2)) instanceof SparseImmutableIntGrid);
+    }
+
+    @Test
+    public void test_footprint() {
+        SparseIntGrid sparse = SparseIntGrid.create(1000, 1000);
+        for (int i = 0; i < 100; i++) {
+            sparse.putInt(i, i, 1);
+        }
+        GridFootprint footprint = GridFootprint.of(ImmutableIntGrid.copyOf(sparse));
+        assertEquals(GridFootprint.array(8, 100), footprint.getComponents().get("keys array").longValue());
+        assertEquals(GridFootprint.array(4, 100), footprint.getComponents().get("values array").longValue());
+        assertTrue(GridFootprint.of(SparseGrid.create(sparse)).getTotalBytes() > footprint.getTotalBytes() * 2);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Grid that iterates cells in reverse order.
+     */
+    static class MockReversedGrid extends AbstractGrid<Integer> {
+        private final Grid<Integer> grid;
+
+        MockReversedGrid(Grid<Integer> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int rowCount() {
+            return grid.rowCount();
+        }
+
+        @Override
+        public int columnCount() {
+            return grid.columnCount();
+        }
+
+        @Override
+        public java.util.Set<Cell<Integer>> cells() {
+            return com.google.common.collect.ImmutableSet.copyOf(
+                    ImmutableList.copyOf(grid.cells().stream().map(ImmutableCell::copyOf).iterator()).reverse());
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(int row, int column, Integer value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putAll(Grid<? extends Integer> grid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(int row, int column) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
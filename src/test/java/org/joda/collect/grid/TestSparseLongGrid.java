@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2014-present Stephen Colebourne
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.joda.collect.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.joda.collect.grid.Grid.Cell;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Test SparseLongGrid and SparseImmutableLongGrid.
+ */
+public class TestSparseLongGrid extends AbstractTestPrimitiveGrid<Long> {
+
+    @Override
+    protected Grid<Long> create(int rowCount, int columnCount) {
+        return SparseLongGrid.create(rowCount, columnCount);
+    }
+
+    @Override
+    protected Grid<Long> create(Grid<Long> grid) {
+        return SparseLongGrid.create(grid);
+    }
+
+    @Override
+    protected Long value(int n) {
+        return (long) n;
+    }
+
+    @Override
+    protected void putPrimitive(Grid<Long> grid, int row, int column, Long value) {
+        ((SparseLongGrid) grid).putLong(row, column, value);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column) {
+        return ((SparseLongGrid) grid).getLong(row, column);
+    }
+
+    @Override
+    protected Long getPrimitive(Grid<Long> grid, int row, int column, Long defaultValue) {
+        return ((SparseLongGrid) grid).getLong(row, column, defaultValue);
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_putGet_large() {
+        SparseLongGrid test = SparseLongGrid.create(1000, 1000);
+        test.putLong(999, 1, 1L);
+        test.put(0, 999, 2L);
+        test.putLong(0, 999, 3L);
+        assertEquals(2, test.size());
+        assertTrue(test.contains(999, 1));
+        assertFalse(test.contains(0, 0));
+        assertFalse(test.contains(-1, 0));
+        assertEquals(1L, test.getLong(999, 1));
+        assertEquals(3L, test.getLong(0, 999));
+        assertEquals(0, test.getLong(0, 0));
+        assertEquals(2L, test.getLong(1000, 0, 2L));
+        assertEquals(Long.valueOf(1L), test.get(999, 1));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(999, 1, Long.valueOf(1L)), test.cell(999, 1));
+        assertNull(test.cell(0, 0));
+        assertTrue(test.containsValue(3L));
+        assertFalse(test.containsValue(2L));
+        assertEquals(ImmutableList.of(3L, 1L), test.values());
+    }
+
+    //-----------------------------------------------------------------------
+    @Test
+    public void test_immutable() {
+        SparseLongGrid sparse = SparseLongGrid.create(1000, 1000);
+        sparse.putLong(999, 1, 1L);
+        sparse.putLong(0, 999, 2L);
+        ImmutableLongGrid test = ImmutableLongGrid.copyOf(sparse);
+        assertTrue(test instanceof SparseImmutableLongGrid);
+        sparse.putLong(0, 0, 3L);
+        assertEquals(2, test.size());
+        assertEquals(1L, test.getLong(999, 1));
+        assertEquals(3L, test.getLong(0, 0, 3L));
+        assertEquals(Long.valueOf(2L), test.get(0, 999));
+        assertNull(test.get(0, 0));
+        assertEquals(ImmutableCell.of(0, 999, Long.valueOf(2L)), test.cell(0, 999));
+        assertTrue(test.contains(999, 1));
+        assertTrue(test.containsValue(2L));
+        assertFalse(test.containsValue(3L));
+        assertEquals(ImmutableList.of(2L, 1L), test.values());
+        assertEquals("[1000x1000:(0,999)=2, (999,1)=1]", test.toString());
+        sparse.remove(0, 0);
+        assertEquals(sparse, test);
+        assertEquals(test, sparse);
+        assertEquals(sparse.hashCode(), test.hashCode());
+        assertEquals(ImmutableLongGrid.copyOf(SparseLongGrid.create(test)), test);
+    }
+
+    @Test
+    public void test_immutable_forEachCell() {
+        SparseLongGrid sparse = SparseLongGrid.create(3, 3);
+        sparse.putLong(2, 0, 3L);
+        sparse.putLong(0, 1, 1L);
+        sparse.putLong(1, 2, 2L);
+        StringBuilder buf = new StringBuilder();
+        ImmutableLongGrid.copyOf(sparse).forEachCell((row, column, value) -> buf.append(row).append(column));
+        assertEquals("011220", buf.toString());
+    }
+
+    @Test
+    public void test_immutable_unsortedSource() {
+        SparseGrid<Long> source = SparseGrid.create(1000, 1000);
+        source.put(5, 5, 1L);
+        source.put(1, 7, 2L);
+        ImmutableLongGrid test = SparseImmutableLongGrid.create(new MockReversedGrid(source));
+        assertEquals(source, test);
+        assertEquals("[1000x1000:(1,7)=2, (5,5)=1]", test.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_immutable_badCell() {
+        SparseImmutableLongGrid.create(new MockReversedGrid(SparseGrid.<Long>create(2, 2)) {
+            @Override
+            public int rowCount() {
+                return 1;
+            }
+            @Override
+            public java.util.Set<Cell<Long>> cells() {
+                return com.google.common.collect.ImmutableSet.of(ImmutableCell.of(1, 1, Long.valueOf(1L)));
+            }
+        });
+    }
+
+    @Test
+    public void test_immutable_layout() {
+        DenseLongGrid dense = DenseLongGrid.create(10, 10);
+        for (int i = 0; i < 50; i++) {
+            dense.putLong(i / 10, i % 10, 1L);
+        }
+        assertTrue(ImmutableLongGrid.copyOf(dense) instanceof DenseImmutableLongGrid);
+        assertTrue(ImmutableLongGrid.copyOf(DenseLongGrid.create(2, 2)) instanceof SparseImmutableLongGrid);
+    }
+
+    @Test
+    public void test_footprint() {
+        SparseLongGrid sparse = SparseLongGrid.create(1000, 1000);
+        for (int i = 0; i < 100; i++) {
+            sparse.putLong(i, i, 1L);
+        }
+        GridFootprint footprint = GridFootprint.of(ImmutableLongGrid.copyOf(sparse));
+        assertEquals(GridFootprint.array(8, 100), footprint.getComponents().get("keys array").longValue());
+        assertEquals(GridFootprint.array(8, 100), footprint.getComponents().get("values array").longValue());
+        assertTrue(GridFootprint.of(SparseGrid.create(sparse)).getTotalBytes() > footprint.getTotalBytes() * 2);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Grid that iterates cells in reverse order.
+     */
+    static class MockReversedGrid extends AbstractGrid<Long> {
+        private final Grid<Long> grid;
+
+        MockReversedGrid(Grid<Long> grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public int rowCount() {
+            return grid.rowCount();
+        }
+
+        @Override
+        public int columnCount() {
+            return grid.columnCount();
+        }
+
+        @Override
+        public java.util.Set<Cell<Long>> cells() {
+            return com.google.common.collect.ImmutableSet.copyOf(
+                    ImmutableList.copyOf(grid.cells().stream().map(ImmutableCell::copyOf).iterator()).reverse());
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(int row, int column, Long value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putAll(Grid<? extends Long> grid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(int row, int column) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}